@@ -72,20 +72,21 @@ public class HttpField
 
     public int getIntValue()
     {
-        return Integer.valueOf(_value);
+        return Integer.valueOf(getValue());
     }
 
     public long getLongValue()
     {
-        return Long.valueOf(_value);
+        return Long.valueOf(getValue());
     }
 
     public String[] getValues()
     {
-        if (_value == null)
+        String value = getValue();
+        if (value == null)
             return null;
         
-        QuotedCSV list = new QuotedCSV(false,_value);
+        QuotedCSV list = new QuotedCSV(false,value);
         return list.getValues().toArray(new String[list.size()]);
     }
 
@@ -98,13 +99,14 @@ public class HttpField
      */
     public boolean contains(String search)
     {
+        String value=getValue();
         if (search==null)
-            return _value==null;
+            return value==null;
         if (search.length()==0)
             return false;
-        if (_value==null)
+        if (value==null)
             return false;
-        if (search.equals(_value))
+        if (search.equals(value))
             return true;
 
         search = StringUtil.asciiToLowerCase(search);
@@ -113,9 +115,9 @@ public class HttpField
         int match=0;
         int param=0;
 
-        for (int i=0;i<_value.length();i++)
+        for (int i=0;i<value.length();i++)
         {
-            char c = _value.charAt(i);
+            char c = value.charAt(i);
             switch(state)
             {
                 case 0: // initial white space
@@ -310,7 +312,7 @@ public class HttpField
     @Override
     public int hashCode()
     {
-        int vhc = Objects.hashCode(_value);
+        int vhc = Objects.hashCode(getValue());
         if (_header==null)
             return vhc ^ nameHashCode();
         return vhc ^ _header.hashCode();
@@ -328,9 +330,7 @@ public class HttpField
             return false;
         if (!_name.equalsIgnoreCase(field.getName()))
             return false;
-        if (_value==null && field.getValue()!=null)
-            return false;
-        return Objects.equals(_value,field.getValue());
+        return Objects.equals(getValue(),field.getValue());
     }
 
     public static class IntValueHttpField extends HttpField
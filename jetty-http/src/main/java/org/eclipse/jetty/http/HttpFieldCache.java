@@ -0,0 +1,247 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.ArrayTernaryTrie;
+import org.eclipse.jetty.util.Trie;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+
+/**
+ * <p>A bounded cache of {@link HttpField}s, shared by the {@link HttpParser}s
+ * of many connections, that learns the most frequent header fields.</p>
+ * <p>The per parser field cache of {@link HttpParser} only helps the subsequent
+ * requests of a persistent connection, so short lived connections never benefit
+ * from it. This cache counts the occurrences of the fields parsed by all the
+ * connections and periodically publishes an immutable {@link Trie} of the most
+ * frequent ones, which the parsers use to look ahead for the header name and value
+ * in a single pass and to return the cached {@link HttpField} instance, without
+ * allocating a new one.</p>
+ * <p>At every publication the counts are halved, so that fields that are no longer
+ * frequent are eventually evicted.  Only the values of headers that are common
+ * across clients are learnt; credentials such as {@code Authorization} or
+ * {@code Cookie} are never shared across connections.</p>
+ */
+@ManagedObject("Cache of the most frequent parsed header fields")
+public class HttpFieldCache
+{
+    private final ConcurrentMap<HttpField, AtomicInteger> _counts = new ConcurrentHashMap<>();
+    private final AtomicInteger _learnt = new AtomicInteger();
+    private final AtomicBoolean _updating = new AtomicBoolean();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final int _maxEntries;
+    private final int _maxValueLength;
+    private volatile Trie<HttpField> _trie;
+
+    public HttpFieldCache()
+    {
+        this(512,256);
+    }
+
+    /**
+     * @param maxEntries the max number of cached fields
+     * @param maxValueLength the max length of the values of the cached fields
+     */
+    public HttpFieldCache(int maxEntries, int maxValueLength)
+    {
+        _maxEntries=maxEntries;
+        _maxValueLength=maxValueLength;
+    }
+
+    /**
+     * @param header the header of a field
+     * @return whether the values of the given header are learnt by this cache
+     */
+    public static boolean isLearnable(HttpHeader header)
+    {
+        if (header==null)
+            return false;
+        switch (header)
+        {
+            case HOST:
+            case ACCEPT:
+            case ACCEPT_CHARSET:
+            case ACCEPT_ENCODING:
+            case ACCEPT_LANGUAGE:
+            case CACHE_CONTROL:
+            case USER_AGENT:
+            case X_FORWARDED_PROTO:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * <p>Looks ahead in the buffer for a cached field.</p>
+     *
+     * @param buffer the buffer positioned after the first character of the header name
+     * @return the cached field that best matches the bytes of the buffer, or null
+     * @see Trie#getBest(ByteBuffer, int, int)
+     */
+    public HttpField getBest(ByteBuffer buffer)
+    {
+        Trie<HttpField> trie=_trie;
+        if (trie==null)
+            return null;
+        HttpField field=trie.getBest(buffer,-1,buffer.remaining());
+        if (field==null)
+            _misses.increment();
+        else
+            _hits.increment();
+        return field;
+    }
+
+    /**
+     * <p>Counts an occurrence of the given field.</p>
+     *
+     * @param field a parsed field
+     */
+    public void learn(HttpField field)
+    {
+        String value=field.getValue();
+        if (value==null || value.length()>_maxValueLength || !isLearnable(field.getHeader()))
+            return;
+
+        AtomicInteger count=_counts.get(field);
+        if (count!=null)
+            count.incrementAndGet();
+        else if (_counts.size()<4*_maxEntries)
+            _counts.putIfAbsent(field,new AtomicInteger(1));
+
+        if (_learnt.incrementAndGet()%(4*_maxEntries)==0)
+            update();
+    }
+
+    private void update()
+    {
+        // Only one thread updates, the others keep using the current Trie.
+        if (!_updating.compareAndSet(false,true))
+            return;
+        try
+        {
+            List<Map.Entry<HttpField, AtomicInteger>> entries=new ArrayList<>(_counts.size());
+            for (Map.Entry<HttpField, AtomicInteger> entry : _counts.entrySet())
+            {
+                if (entry.getValue().get()>1)
+                    entries.add(entry);
+            }
+            entries.sort((e1,e2)->Integer.compare(e2.getValue().get(),e1.getValue().get()));
+
+            // In the worst case, a node per character and per key, plus the root node.
+            int capacity=1;
+            int size=Math.min(entries.size(),_maxEntries);
+            for (int i=0;i<size;i++)
+                capacity+=entries.get(i).getKey().toString().length()+1;
+            Trie<HttpField> trie=new ArrayTernaryTrie<>(Math.min(capacity,Character.MAX_VALUE));
+            for (int i=0;i<size;i++)
+            {
+                if (!trie.put(entries.get(i).getKey()))
+                    break;
+            }
+            _trie=trie;
+
+            // Age the counts, so that cold fields are evicted.
+            for (Iterator<AtomicInteger> i=_counts.values().iterator();i.hasNext();)
+            {
+                AtomicInteger count=i.next();
+                if (count.updateAndGet(c->c/2)==0)
+                    i.remove();
+            }
+        }
+        finally
+        {
+            _updating.set(false);
+        }
+    }
+
+    @ManagedAttribute("The max number of cached fields")
+    public int getMaxEntries()
+    {
+        return _maxEntries;
+    }
+
+    @ManagedAttribute("The max length of the values of the cached fields")
+    public int getMaxValueLength()
+    {
+        return _maxValueLength;
+    }
+
+    @ManagedAttribute("The number of cached fields")
+    public int getSize()
+    {
+        Trie<HttpField> trie=_trie;
+        return trie==null?0:trie.keySet().size();
+    }
+
+    @ManagedAttribute("The number of fields whose occurrences are being counted")
+    public int getCandidates()
+    {
+        return _counts.size();
+    }
+
+    @ManagedAttribute("The number of cache hits")
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    @ManagedAttribute("The number of cache misses")
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    @ManagedAttribute("The ratio of cache hits over cache lookups")
+    public double getHitRatio()
+    {
+        long hits=getHits();
+        long lookups=hits+getMisses();
+        return lookups==0?0:(double)hits/lookups;
+    }
+
+    @ManagedOperation(value="Clears the cache and its statistics",impact="ACTION")
+    public void clear()
+    {
+        _trie=null;
+        _counts.clear();
+        _learnt.set(0);
+        _hits.reset();
+        _misses.reset();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{size=%d,candidates=%d,hits=%d,misses=%d}",getClass().getSimpleName(),hashCode(),getSize(),getCandidates(),getHits(),getMisses());
+    }
+}
@@ -49,6 +49,11 @@ import org.eclipse.jetty.util.log.Logger;
  * 
  * <p>The cookie handling provided by this class is guided by the Servlet specification and RFC6265.
  *
+ * <p>The fields are kept in insertion order. Lookups by {@link HttpHeader} use an index,
+ * lazily built from the fields, of the position of the first field of each header, so that
+ * they take constant time regardless of the number of fields. Appending a field updates the
+ * index, while any other modification invalidates it. The index is built before being
+ * published, so that concurrent lookups of fields that are no longer modified are safe.
  */
 public class HttpFields implements Iterable<HttpField>
 {
@@ -57,8 +62,12 @@ public class HttpFields implements Iterable<HttpField>
 
     private static final Logger LOG = Log.getLogger(HttpFields.class);
 
+    private static final int HEADERS=HttpHeader.values().length;
+    private static final int INDEX_THRESHOLD=8;
+
     private HttpField[] _fields;
     private int _size;
+    private volatile int[] _index;
     
     /**
      * Initialize an empty HttpFields.
@@ -150,13 +159,8 @@ public class HttpFields implements Iterable<HttpField>
 
     public HttpField getField(HttpHeader header)
     {
-        for (int i=0;i<_size;i++)
-        {
-            HttpField f=_fields[i];
-            if (f.getHeader()==header)
-                return f;
-        }
-        return null;
+        int i=indexOf(header);
+        return i<0?null:_fields[i];
     }
 
     public HttpField getField(String name)
@@ -183,7 +187,10 @@ public class HttpFields implements Iterable<HttpField>
 
     public boolean contains(HttpHeader header, String value)
     {
-        for (int i=_size;i-->0;)
+        int first=indexOf(header);
+        if (first<0)
+            return false;
+        for (int i=_size;i-->first;)
         {
             HttpField f=_fields[i];
             if (f.getHeader()==header && f.contains(value))
@@ -205,13 +212,7 @@ public class HttpFields implements Iterable<HttpField>
 
     public boolean contains(HttpHeader header)
     {
-        for (int i=_size;i-->0;)
-        {
-            HttpField f=_fields[i];
-            if (f.getHeader()==header)
-                return true;
-        }
-        return false;
+        return indexOf(header)>=0;
     }
     
     public boolean containsKey(String name)
@@ -233,13 +234,8 @@ public class HttpFields implements Iterable<HttpField>
     
     public String get(HttpHeader header)
     {
-        for (int i=0;i<_size;i++)
-        {
-            HttpField f=_fields[i];
-            if (f.getHeader()==header)
-                return f.getValue();
-        }
-        return null;
+        int i=indexOf(header);
+        return i<0?null:_fields[i].getValue();
     }
 
     @Deprecated
@@ -268,9 +264,13 @@ public class HttpFields implements Iterable<HttpField>
     public List<String> getValuesList(HttpHeader header)
     {
         final List<String> list = new ArrayList<>();
-        for (HttpField f : this)
+        int first=indexOf(header);
+        for (int i=first<0?_size:first;i<_size;i++)
+        {
+            HttpField f=_fields[i];
             if (f.getHeader()==header)
                 list.add(f.getValue());
+        }
         return list;
     }
     
@@ -300,8 +300,10 @@ public class HttpFields implements Iterable<HttpField>
     public boolean addCSV(HttpHeader header,String... values)
     {
         QuotedCSV existing = null;
-        for (HttpField f : this)
+        int first=indexOf(header);
+        for (int i=first<0?_size:first;i<_size;i++)
         {
+            HttpField f=_fields[i];
             if (f.getHeader()==header)
             {
                 if (existing==null)
@@ -394,8 +396,10 @@ public class HttpFields implements Iterable<HttpField>
     public List<String> getCSV(HttpHeader header,boolean keepQuotes)
     {
         QuotedCSV values = null;
-        for (HttpField f : this)
+        int first=indexOf(header);
+        for (int i=first<0?_size:first;i<_size;i++)
         {
+            HttpField f=_fields[i];
             if (f.getHeader()==header)
             {
                 if (values==null)
@@ -439,8 +443,10 @@ public class HttpFields implements Iterable<HttpField>
     public List<String> getQualityCSV(HttpHeader header)
     {
         QuotedQualityCSV values = null;
-        for (HttpField f : this)
+        int first=indexOf(header);
+        for (int i=first<0?_size:first;i<_size;i++)
         {
+            HttpField f=_fields[i];
             if (f.getHeader()==header)
             {
                 if (values==null)
@@ -594,6 +600,7 @@ public class HttpFields implements Iterable<HttpField>
                     _fields[i]=field;
                     put=true;
                 }
+                _index=null;
             }
         }
         if (!put)
@@ -691,8 +698,11 @@ public class HttpFields implements Iterable<HttpField>
      */
     public HttpField remove(HttpHeader name)
     {
+        int first=indexOf(name);
+        if (first<0)
+            return null;
         HttpField removed=null;
-        for (int i=_size;i-->0;)
+        for (int i=_size;i-->first;)
         {
             HttpField f=_fields[i];
             if (f.getHeader()==name)
@@ -701,6 +711,7 @@ public class HttpFields implements Iterable<HttpField>
                 System.arraycopy(_fields,i+1,_fields,i,--_size-i);
             }
         }
+        _index=null;
         return removed;
     }
 
@@ -720,6 +731,7 @@ public class HttpFields implements Iterable<HttpField>
             {
                 removed=f;
                 System.arraycopy(_fields,i+1,_fields,i,--_size-i);
+                _index=null;
             }
         }
         return removed;
@@ -890,6 +902,7 @@ public class HttpFields implements Iterable<HttpField>
     public void clear()
     {
         _size=0;
+        _index=null;
     }
     
     public void add(HttpField field)
@@ -898,10 +911,52 @@ public class HttpFields implements Iterable<HttpField>
         {
             if (_size==_fields.length)
                 _fields=Arrays.copyOf(_fields,_size*2);
+            int[] index=_index;
+            if (index!=null)
+            {
+                HttpHeader header=field.getHeader();
+                if (header!=null && index[header.ordinal()]<0)
+                    index[header.ordinal()]=_size;
+            }
             _fields[_size++]=field;
         }
     }
 
+    /**
+     * @param header the header to look up
+     * @return the position of the first field of the given header, or -1
+     */
+    private int indexOf(HttpHeader header)
+    {
+        // Scanning few fields is cheaper than building the index.
+        int[] index=_index;
+        if (header==null || _size<INDEX_THRESHOLD && index==null)
+        {
+            for (int i=0;i<_size;i++)
+            {
+                if (_fields[i].getHeader()==header)
+                    return i;
+            }
+            return -1;
+        }
+
+        if (index==null)
+        {
+            // Build the index before publishing it, as
+            // lookups may be performed by concurrent readers.
+            index=new int[HEADERS];
+            Arrays.fill(index,-1);
+            for (int i=_size;i-->0;)
+            {
+                HttpHeader h=_fields[i].getHeader();
+                if (h!=null)
+                    index[h.ordinal()]=i;
+            }
+            _index=index;
+        }
+        return index[header.ordinal()];
+    }
+
     public void addAll(HttpFields fields)
     {
         for (int i=0;i<fields._size;i++)
@@ -1095,6 +1150,7 @@ public class HttpFields implements Iterable<HttpField>
                 throw new IllegalStateException();
 
             System.arraycopy(_fields,_last+1,_fields,_last,--_size-_last);
+            _index=null;
             _cursor=_last;
             _last=-1;
         }
@@ -1131,6 +1187,7 @@ public class HttpFields implements Iterable<HttpField>
             if (_last<0)
                 throw new IllegalStateException();
             _fields[_last] = field;
+            _index=null;
         }
 
         @Override
@@ -1139,6 +1196,7 @@ public class HttpFields implements Iterable<HttpField>
             _fields = Arrays.copyOf(_fields,_fields.length+1);
             System.arraycopy(_fields,_cursor,_fields,_cursor+1,_size++);
             _fields[_cursor++] = field;
+            _index=null;
             _last=-1;
         }
     }
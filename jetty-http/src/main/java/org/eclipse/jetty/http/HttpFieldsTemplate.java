@@ -0,0 +1,260 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.util.BufferUtil;
+
+/**
+ * <p>An immutable block of response header fields, encoded once.</p>
+ * <p>Responses that share the same static header fields, such as {@code Content-Type},
+ * {@code Cache-Control} or custom headers, can apply a template to their fields with
+ * {@link #applyTo(HttpFields)}. The fields of a template are {@link PreEncodedHttpField}s
+ * and, for HTTP/1, the whole block is encoded once into a direct {@link ByteBuffer}:
+ * when {@link HttpGenerator} finds the fields of a template, unmodified and in sequence,
+ * it copies the block wholesale into the header buffer instead of encoding the fields
+ * one by one.</p>
+ * <p>A template may have a {@code Date} field, whose value is only a placeholder:
+ * {@link #applyTo(HttpFields)} moves the {@code Date} field of the response after the
+ * fields of the template, and the generator patches its value in place in the copy of
+ * the block, as all the dates generated by {@link DateGenerator} have the same length.</p>
+ * <p>Fields that determine the framing of the message, such as {@code Content-Length},
+ * {@code Transfer-Encoding} and {@code Connection}, cannot be part of a template.</p>
+ */
+public class HttpFieldsTemplate
+{
+    private static final int DATE_LENGTH=DateGenerator.__01Jan1970.length();
+
+    private final TemplateField[] _fields;
+    private final boolean _date;
+    private final int _dateOffset;
+    private final boolean _contentType;
+    private final boolean _server;
+    private final ByteBuffer _encoded;
+
+    public HttpFieldsTemplate(HttpFields fields)
+    {
+        this(fields.stream().toArray(HttpField[]::new));
+    }
+
+    public HttpFieldsTemplate(HttpField... fields)
+    {
+        List<TemplateField> list=new ArrayList<>(fields.length);
+        boolean date=false;
+        boolean contentType=false;
+        boolean server=false;
+        for (HttpField field : fields)
+        {
+            HttpHeader header=field.getHeader();
+            if (header!=null)
+            {
+                switch (header)
+                {
+                    case CONTENT_LENGTH:
+                    case TRANSFER_ENCODING:
+                    case CONNECTION:
+                        throw new IllegalArgumentException("Framing field in template: "+field);
+                    case DATE:
+                        if (date)
+                            throw new IllegalArgumentException("Multiple Date fields in template");
+                        date=true;
+                        continue;
+                    case CONTENT_TYPE:
+                        contentType=true;
+                        break;
+                    case SERVER:
+                        server=true;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            list.add(new TemplateField(this,list.size(),header,field.getName(),field.getValue()));
+        }
+        _fields=list.toArray(new TemplateField[list.size()]);
+        _date=date;
+        _contentType=contentType;
+        _server=server;
+
+        // Encode the fields, followed by the date placeholder.
+        HttpField placeholder=new HttpField(HttpHeader.DATE,DateGenerator.__01Jan1970);
+        int length=date?encodedLength(placeholder):0;
+        for (TemplateField field : _fields)
+            length+=encodedLength(field);
+        ByteBuffer encoded=BufferUtil.allocateDirect(length);
+        int pos=BufferUtil.flipToFill(encoded);
+        for (TemplateField field : _fields)
+            HttpGenerator.putTo(field,encoded);
+        _dateOffset=encoded.position()+HttpHeader.DATE.getBytesColonSpace().length;
+        if (date)
+            HttpGenerator.putTo(placeholder,encoded);
+        BufferUtil.flipToFlush(encoded,pos);
+        _encoded=encoded.asReadOnlyBuffer();
+    }
+
+    private static int encodedLength(HttpField field)
+    {
+        // Name, colon, space, value, CRLF.
+        return field.getName().length()+field.getValue().length()+4;
+    }
+
+    /**
+     * @return the fields of this template, in order, excluding the {@code Date} placeholder
+     */
+    public List<HttpField> getFields()
+    {
+        List<HttpField> fields=new ArrayList<>(_fields.length);
+        for (HttpField field : _fields)
+            fields.add(field);
+        return fields;
+    }
+
+    /**
+     * @return whether this template has a {@code Date} field
+     */
+    public boolean hasDate()
+    {
+        return _date;
+    }
+
+    /**
+     * @return the size in bytes of the HTTP/1 encoding of this template
+     */
+    public int getEncodedLength()
+    {
+        return _encoded.remaining();
+    }
+
+    /**
+     * <p>Replaces the fields with the same names as the fields of this template,
+     * then appends the fields of this template.</p>
+     * <p>If this template has a {@code Date} field, the {@code Date} field of the
+     * given fields, if any, is moved after the fields of this template.</p>
+     *
+     * @param fields the fields to apply this template to
+     */
+    public void applyTo(HttpFields fields)
+    {
+        HttpField date=_date?fields.remove(HttpHeader.DATE):null;
+        for (TemplateField field : _fields)
+        {
+            if (field.getHeader()!=null)
+                fields.remove(field.getHeader());
+            else
+                fields.remove(field.getName());
+        }
+        for (TemplateField field : _fields)
+            fields.add(field);
+        if (date!=null)
+            fields.add(date);
+    }
+
+    /**
+     * @param fields the fields to generate
+     * @param index the index of the first field of this template
+     * @return the number of fields, from the given index, that can be generated
+     * by copying this template, or 0 if the fields do not match this template
+     */
+    int match(HttpFields fields, int index)
+    {
+        int length=_fields.length+(_date?1:0);
+        if (index+length>fields.size())
+            return 0;
+        for (int i=0;i<_fields.length;i++)
+        {
+            if (fields.getField(index+i)!=_fields[i])
+                return 0;
+        }
+        if (_date)
+        {
+            HttpField date=fields.getField(index+_fields.length);
+            if (date.getHeader()!=HttpHeader.DATE || date.getValue()==null || date.getValue().length()!=DATE_LENGTH)
+                return 0;
+        }
+        return length;
+    }
+
+    /**
+     * <p>Copies the encoded fields of this template into the buffer.</p>
+     *
+     * @param fields the fields being generated
+     * @param index the index of the first field of this template, as matched by {@link #match(HttpFields, int)}
+     * @param bufferInFillMode the buffer to copy the encoded fields into
+     */
+    void putTo(HttpFields fields, int index, ByteBuffer bufferInFillMode)
+    {
+        int pos=bufferInFillMode.position();
+        bufferInFillMode.put(_encoded.duplicate());
+        if (_date)
+        {
+            String date=fields.getField(index+_fields.length).getValue();
+            for (int i=0;i<DATE_LENGTH;i++)
+            {
+                char c=date.charAt(i);
+                bufferInFillMode.put(pos+_dateOffset+i,(c>0xff || c=='\r' || c=='\n')?(byte)' ':(byte)c);
+            }
+        }
+    }
+
+    boolean hasContentType()
+    {
+        return _contentType;
+    }
+
+    boolean hasServer()
+    {
+        return _server;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{fields=%d,date=%b,length=%d}",getClass().getSimpleName(),hashCode(),_fields.length,_date,getEncodedLength());
+    }
+
+    /**
+     * <p>A field of a template, that the generator recognizes as the
+     * start of a block of fields that may be copied wholesale.</p>
+     */
+    static class TemplateField extends PreEncodedHttpField
+    {
+        private final HttpFieldsTemplate _template;
+        private final int _index;
+
+        private TemplateField(HttpFieldsTemplate template, int index, HttpHeader header, String name, String value)
+        {
+            super(header,name,value);
+            _template=template;
+            _index=index;
+        }
+
+        HttpFieldsTemplate getTemplate()
+        {
+            return _template;
+        }
+
+        int getIndex()
+        {
+            return _index;
+        }
+    }
+}
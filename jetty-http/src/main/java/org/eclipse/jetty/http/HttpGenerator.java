@@ -658,6 +658,24 @@ public class HttpGenerator
             for (int f=0;f<n;f++)
             {
                 HttpField field = fields.getField(f);
+
+                // Copy the block of fields of a template wholesale
+                if (field instanceof HttpFieldsTemplate.TemplateField && ((HttpFieldsTemplate.TemplateField)field).getIndex()==0)
+                {
+                    HttpFieldsTemplate template = ((HttpFieldsTemplate.TemplateField)field).getTemplate();
+                    int matched = template.match(fields,f);
+                    if (matched>0)
+                    {
+                        template.putTo(fields,f,header);
+                        if (template.hasContentType())
+                            content_type=true;
+                        if (template.hasServer())
+                            send=send&~SEND_SERVER;
+                        f+=matched-1;
+                        continue;
+                    }
+                }
+
                 HttpHeader h = field.getHeader();
                 if (h==null)
                     putTo(field,header);
@@ -75,7 +75,9 @@ import static org.eclipse.jetty.http.HttpTokens.TAB;
  * (eg. "Connection: close"), or just header names (eg. "Connection:" ).
  * For headers who's value is not known statically (eg. Host, COOKIE) then a
  * per parser dynamic Trie of {@link HttpFields} from previous parsed messages
- * is used to help the parsing of subsequent messages.
+ * is used to help the parsing of subsequent messages, and an optional
+ * {@link HttpFieldCache} shared across connections learns the most frequent
+ * fields of all the parsers.
  * </p>
  * <p>
  * The parser can work in varying compliance modes:
@@ -180,6 +182,7 @@ public class HttpParser
     private boolean _cr;
     private ByteBuffer _contentChunk;
     private Trie<HttpField> _fieldCache;
+    private HttpFieldCache _httpFieldCache;
 
     private int _length;
     private final StringBuilder _string=new StringBuilder();
@@ -476,6 +479,90 @@ public class HttpParser
 
     }
 
+    /* ------------------------------------------------------------------------------- */
+    /* SWAR (SIMD within a register) scanning of 8 bytes at a time, using the classic
+     * bit tricks: for a word x and a byte n<=0x80, (x-ONES*n)&~x&HIGHS is non zero
+     * if and only if a byte of x is less than n, and ((x^(ONES*n))-ONES)&~(x^(ONES*n))&HIGHS
+     * is non zero if and only if a byte of x is equal to n. A word that may contain a
+     * byte of interest is rescanned byte by byte, so that the results are exact.
+     */
+    private static final long ONES=0x0101010101010101L;
+    private static final long HIGHS=0x8080808080808080L;
+
+    private static long less(long word, int n)
+    {
+        return (word-ONES*n)&~word&HIGHS;
+    }
+
+    private static long equal(long word, int n)
+    {
+        long x=word^(ONES*n);
+        return (x-ONES)&~x&HIGHS;
+    }
+
+    /* ------------------------------------------------------------------------------- */
+    /**
+     * @return the number of bytes from index that are field value characters,
+     * other than HTAB, that {@link #next(ByteBuffer)} would classify as LEGAL.
+     */
+    private static int scanFieldValue(ByteBuffer buffer, int index, int limit)
+    {
+        int i=index;
+        while (i+8<=limit)
+        {
+            long word=buffer.getLong(i);
+            if ((less(word,SPACE)|equal(word,0x7F))!=0)
+                break;
+            i+=8;
+        }
+        while (i<limit)
+        {
+            byte b=buffer.get(i);
+            if ((b>=0 && b<SPACE) || b==0x7F)
+                break;
+            i++;
+        }
+        return i-index;
+    }
+
+    /* ------------------------------------------------------------------------------- */
+    /**
+     * @return the number of bytes from index that are field name characters,
+     * that is US-ASCII visible characters other than ':'.
+     */
+    private static int scanFieldName(ByteBuffer buffer, int index, int limit)
+    {
+        int i=index;
+        while (i+8<=limit)
+        {
+            long word=buffer.getLong(i);
+            if ((less(word,SPACE+1)|(word&HIGHS)|equal(word,HttpTokens.COLON)|equal(word,0x7F))!=0)
+                break;
+            i+=8;
+        }
+        while (i<limit)
+        {
+            byte b=buffer.get(i);
+            if (b<=SPACE || b==HttpTokens.COLON || b==0x7F)
+                break;
+            i++;
+        }
+        return i-index;
+    }
+
+    /* ------------------------------------------------------------------------------- */
+    /**
+     * @return the limit of a fast scan from the buffer position, so that the
+     * byte that exceeds the max header bytes is parsed by the state machine.
+     */
+    private int scanLimit(ByteBuffer buffer)
+    {
+        int limit=buffer.limit();
+        if (_maxHeaderBytes>0)
+            limit=(int)Math.min(limit,(long)buffer.position()+_maxHeaderBytes-_headerBytes);
+        return limit;
+    }
+
     /* ------------------------------------------------------------------------------- */
     private byte next(ByteBuffer buffer)
     {
@@ -716,6 +803,13 @@ public class HttpParser
                                 int p=buffer.arrayOffset()+buffer.position();
                                 int l=buffer.arrayOffset()+buffer.limit();
                                 int i=p;
+                                while (i+8<=l)
+                                {
+                                    long word=buffer.getLong(i-buffer.arrayOffset());
+                                    if ((less(word,SPACE+1)|(word&HIGHS))!=0)
+                                        break;
+                                    i+=8;
+                                }
                                 while (i<l && array[i]>HttpTokens.SPACE)
                                     i++;
 
@@ -985,6 +1079,14 @@ public class HttpParser
                         _field=new HttpField(_header,caseInsensitiveHeader(_headerString,_header.asString()),_valueString);
                     _fieldCache.put(_field);
                 }
+
+                // Learn the fields common across connections
+                if (_httpFieldCache!=null && _valueString!=null && HttpFieldCache.isLearnable(_header))
+                {
+                    if (_field==null)
+                        _field=new HttpField(_header,caseInsensitiveHeader(_headerString,_header.asString()),_valueString);
+                    _httpFieldCache.learn(_field);
+                }
             }
             _handler.parsedHeader(_field!=null?_field:new HttpField(_header,_headerString,_valueString));
         }
@@ -1161,6 +1263,8 @@ public class HttpParser
                             {
                                 // Try a look ahead for the known header name and value.
                                 HttpField field=_fieldCache==null?null:_fieldCache.getBest(buffer,-1,buffer.remaining());
+                                if (field==null && _httpFieldCache!=null)
+                                    field=_httpFieldCache.getBest(buffer);
                                 if (field==null)
                                     field=CACHE.getBest(buffer,-1,buffer.remaining());
 
@@ -1269,6 +1373,18 @@ public class HttpParser
                         _string.append((char)b);
                         if (b>HttpTokens.SPACE)
                             _length=_string.length();
+
+                        // Fast scan the rest of the name.
+                        int pos=buffer.position();
+                        int len=scanFieldName(buffer,pos,scanLimit(buffer));
+                        if (len>0)
+                        {
+                            for (int i=pos;i<pos+len;i++)
+                                _string.append((char)buffer.get(i));
+                            _length=_string.length();
+                            _headerBytes+=len;
+                            buffer.position(pos+len);
+                        }
                         break;
                     }
                     
@@ -1324,6 +1440,22 @@ public class HttpParser
                         _string.append((char)(0xff&b));
                         if (b>HttpTokens.SPACE || b<0)
                             _length=_string.length();
+
+                        // Fast scan the rest of the value.
+                        int pos=buffer.position();
+                        int len=scanFieldValue(buffer,pos,scanLimit(buffer));
+                        if (len>0)
+                        {
+                            for (int i=pos;i<pos+len;i++)
+                            {
+                                byte c=buffer.get(i);
+                                _string.append((char)(0xff&c));
+                                if (c!=HttpTokens.SPACE)
+                                    _length=_string.length();
+                            }
+                            _headerBytes+=len;
+                            buffer.position(pos+len);
+                        }
                         break;
                     }
 
@@ -1719,6 +1851,22 @@ public class HttpParser
         return _fieldCache;
     }
 
+    /* ------------------------------------------------------------------------------- */
+    public HttpFieldCache getHttpFieldCache()
+    {
+        return _httpFieldCache;
+    }
+
+    /* ------------------------------------------------------------------------------- */
+    /**
+     * @param httpFieldCache the cache of header fields shared with the parsers
+     * of other connections, that learns the fields parsed by this parser
+     */
+    public void setHttpFieldCache(HttpFieldCache httpFieldCache)
+    {
+        _httpFieldCache=httpFieldCache;
+    }
+
     /* ------------------------------------------------------------------------------- */
     @Override
     public String toString()
@@ -20,15 +20,20 @@ package org.eclipse.jetty.http.pathmap;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
-import org.eclipse.jetty.util.ArrayTernaryTrie;
-import org.eclipse.jetty.util.Trie;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
@@ -40,6 +45,13 @@ import org.eclipse.jetty.util.log.Logger;
  * Path Mappings of PathSpec to Resource.
  * <p>
  * Sorted into search order upon entry into the Set
+ * <p>
+ * The mappings are compiled, upon the first lookup after a modification, into
+ * a hash of the exact servlet path specs, a trie of the prefix servlet path specs,
+ * a trie of the reversed suffixes of the suffix servlet path specs and, for each
+ * group, a single regular expression that combines the regex path specs, so that
+ * the cost of a lookup depends on the length of the path rather than on the number
+ * of mappings.
  * 
  * @param <E> the type of mapping endpoint
  */
@@ -48,10 +60,8 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
 {
     private static final Logger LOG = Log.getLogger(PathMappings.class);
     private final Set<MappedResource<E>> _mappings = new TreeSet<>();
-    
-    private Trie<MappedResource<E>> _exactMap=new ArrayTernaryTrie<>(false);
-    private Trie<MappedResource<E>> _prefixMap=new ArrayTernaryTrie<>(false);
-    private Trie<MappedResource<E>> _suffixMap=new ArrayTernaryTrie<>(false);
+    private volatile CompiledMappings<E> _compiled;
+    private volatile int _version;
     
     @Override
     public String dump()
@@ -80,13 +90,24 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
     public void reset()
     {
         _mappings.clear();
-        _prefixMap.clear();
-        _suffixMap.clear();
+        _version++;
     }
     
     public void removeIf(Predicate<MappedResource<E>> predicate)
     {
-        _mappings.removeIf(predicate);
+        if (_mappings.removeIf(predicate))
+            _version++;
+    }
+
+    private CompiledMappings<E> compiled()
+    {
+        // The version is read before the mappings are compiled, so that mappings
+        // compiled concurrently with a modification are compiled again next time.
+        int version=_version;
+        CompiledMappings<E> compiled=_compiled;
+        if (compiled==null || compiled._version!=version)
+            _compiled=compiled=new CompiledMappings<>(_mappings,version);
+        return compiled;
     }
     
     /**
@@ -100,95 +121,43 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
         boolean isRootPath = "/".equals(path);
         
         List<MappedResource<E>> ret = new ArrayList<>();
-        for (MappedResource<E> mr :_mappings)
+        for (MappedGroup<E> group : compiled()._groups)
         {
-            switch (mr.getPathSpec().group)
+            int size=ret.size();
+            group.addServletMatches(path,isRootPath,ret);
+            for (MappedResource<E> mr : group._others)
             {
-                case ROOT:
-                    if (isRootPath)
-                        ret.add(mr);
-                    break;
-                case DEFAULT:
-                    if (isRootPath || mr.getPathSpec().matches(path))
-                        ret.add(mr);
-                    break;
-                default:
-                    if (mr.getPathSpec().matches(path))
-                        ret.add(mr);
-                    break;
+                switch (group._group)
+                {
+                    case ROOT:
+                        if (isRootPath)
+                            ret.add(mr);
+                        break;
+                    case DEFAULT:
+                        if (isRootPath || mr.getPathSpec().matches(path))
+                            ret.add(mr);
+                        break;
+                    default:
+                        if (mr.getPathSpec().matches(path))
+                            ret.add(mr);
+                        break;
+                }
             }
+            // Sort the servlet matches and the other matches of the group.
+            if (!group._others.isEmpty() && ret.size()-size>1)
+                Collections.sort(ret.subList(size,ret.size()));
         }
         return ret;
     }
 
     public MappedResource<E> getMatch(String path)
     {
-        PathSpecGroup last_group=null;
-        
-        // Search all the mappings
-        for (MappedResource<E> mr : _mappings)
+        for (MappedGroup<E> group : compiled()._groups)
         {
-            PathSpecGroup group=mr.getPathSpec().getGroup();
-            if (group!=last_group)
-            {
-                // New group in list, so let's look for an optimization
-                switch(group)
-                {
-                    case EXACT:
-                    {
-                        int i= path.length();
-                        final Trie<MappedResource<E>> exact_map=_exactMap;
-                        while(i>=0)
-                        {
-                            MappedResource<E> candidate=exact_map.getBest(path,0,i);
-                            if (candidate==null)
-                                break;
-                            if (candidate.getPathSpec().matches(path))
-                                return candidate;
-                            i=candidate.getPathSpec().getPrefix().length()-1;
-                        }
-                        break;
-                    }
-                        
-                    case PREFIX_GLOB:
-                    {
-                        int i= path.length();
-                        final Trie<MappedResource<E>> prefix_map=_prefixMap;
-                        while(i>=0)
-                        {
-                            MappedResource<E> candidate=prefix_map.getBest(path,0,i);
-                            if (candidate==null)
-                                break;
-                            if (candidate.getPathSpec().matches(path))
-                                return candidate;
-                            i=candidate.getPathSpec().getPrefix().length()-1;
-                        }
-                        break;
-                    }
-                        
-                    case SUFFIX_GLOB:
-                    {
-                        int i=0;
-                        final Trie<MappedResource<E>> suffix_map=_suffixMap;
-                        while ((i=path.indexOf('.',i+1))>0)
-                        {
-                            MappedResource<E> candidate=suffix_map.get(path,i+1,path.length()-i-1);
-                            if (candidate!=null && candidate.getPathSpec().matches(path))
-                                return candidate;
-                        }
-                        break;
-                    }
-                    
-                    default:
-                }
-            }
-            
-            if (mr.getPathSpec().matches(path))
-                return mr;
-            
-            last_group=group;
+            MappedResource<E> match=group.getMatch(path);
+            if (match!=null)
+                return match;
         }
-        
         return null;
     }
 
@@ -227,48 +196,16 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
     public boolean put(PathSpec pathSpec, E resource)
     {
         MappedResource<E> entry = new MappedResource<>(pathSpec,resource);
-        switch (pathSpec.group)
-        {
-            case EXACT:
-                String exact = pathSpec.getPrefix();
-                while (exact!=null && !_exactMap.put(exact,entry))
-                    _exactMap=new ArrayTernaryTrie<>((ArrayTernaryTrie<MappedResource<E>>)_exactMap,1.5);
-                break;
-            case PREFIX_GLOB:
-                String prefix = pathSpec.getPrefix();
-                while (prefix!=null && !_prefixMap.put(prefix,entry))
-                    _prefixMap=new ArrayTernaryTrie<>((ArrayTernaryTrie<MappedResource<E>>)_prefixMap,1.5);
-                break;
-            case SUFFIX_GLOB:
-                String suffix = pathSpec.getSuffix();
-                while (suffix!=null && !_suffixMap.put(suffix,entry))
-                    _suffixMap=new ArrayTernaryTrie<>((ArrayTernaryTrie<MappedResource<E>>)_prefixMap,1.5);
-                break;
-            default:
-        }
-        
         boolean added =_mappings.add(entry);
+        if (added)
+            _version++;
         if (LOG.isDebugEnabled())
             LOG.debug("{} {} to {}",added?"Added":"Ignored",entry,this);
         return added;
     }
     
-    @SuppressWarnings("incomplete-switch")
     public boolean remove(PathSpec pathSpec)
     {
-        switch (pathSpec.group)
-        {
-            case EXACT:
-                _exactMap.remove(pathSpec.getPrefix());
-                break;
-            case PREFIX_GLOB:
-                _prefixMap.remove(pathSpec.getPrefix());
-                break;
-            case SUFFIX_GLOB:
-                _suffixMap.remove(pathSpec.getSuffix());
-                break;
-        }
-        
         Iterator<MappedResource<E>> iter = _mappings.iterator();
         boolean removed=false;
         while (iter.hasNext())
@@ -277,6 +214,7 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
             {
                 removed=true;
                 iter.remove();
+                _version++;
                 break;
             }
         }
@@ -291,4 +229,286 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
         return String.format("%s[size=%d]",this.getClass().getSimpleName(),_mappings.size());
     }
 
+    /**
+     * The mappings compiled for lookups, in search order.
+     */
+    private static class CompiledMappings<E>
+    {
+        private final List<MappedGroup<E>> _groups=new ArrayList<>();
+        private final int _version;
+
+        private CompiledMappings(Set<MappedResource<E>> mappings, int version)
+        {
+            _version=version;
+            MappedGroup<E> group=null;
+            for (MappedResource<E> mr : mappings)
+            {
+                PathSpecGroup g=mr.getPathSpec().getGroup();
+                if (group==null || group._group!=g)
+                {
+                    if (group!=null)
+                        group.compile();
+                    group=new MappedGroup<>(g);
+                    _groups.add(group);
+                }
+                group.add(mr);
+            }
+            if (group!=null)
+                group.compile();
+        }
+    }
+
+    /**
+     * <p>The mappings of a {@link PathSpecGroup}.</p>
+     * <p>The {@link ServletPathSpec}s are looked up by path: the exact ones in a hash,
+     * the prefix ones in a trie of the prefixes and the suffix ones in a trie of the
+     * reversed suffixes, so that the longest prefix or suffix, which is the first in
+     * search order, is found in a single pass over the path.
+     * The other path specs are matched in search order, by a single regular expression
+     * that combines their patterns when they are all {@link RegexPathSpec}s.</p>
+     */
+    private static class MappedGroup<E>
+    {
+        private final PathSpecGroup _group;
+        private final List<MappedResource<E>> _others=new ArrayList<>();
+        private final Map<String,MappedResource<E>> _exact=new HashMap<>();
+        private final Node<E> _prefixes=new Node<>();
+        private final Node<E> _suffixes=new Node<>();
+        private MappedResource<E> _servlet;
+        private Pattern _pattern;
+        private int[] _patternGroups;
+
+        private MappedGroup(PathSpecGroup group)
+        {
+            _group=group;
+        }
+
+        private void add(MappedResource<E> mr)
+        {
+            PathSpec spec=mr.getPathSpec();
+            if (spec instanceof ServletPathSpec)
+            {
+                switch (_group)
+                {
+                    case EXACT:
+                        _exact.putIfAbsent(spec.getPrefix(),mr);
+                        return;
+                    case PREFIX_GLOB:
+                        _prefixes.put(spec.getPrefix(),false,mr);
+                        return;
+                    case SUFFIX_GLOB:
+                        _suffixes.put("."+spec.getSuffix(),true,mr);
+                        return;
+                    case ROOT:
+                    case DEFAULT:
+                        if (_servlet==null)
+                        {
+                            _servlet=mr;
+                            return;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            _others.add(mr);
+        }
+
+        private void compile()
+        {
+            if (_others.size()<2)
+                return;
+
+            // Combine the patterns in search order, each in its own capturing group,
+            // so that the first alternative that matches is the first in search order.
+            StringBuilder regex=new StringBuilder();
+            int[] groups=new int[_others.size()];
+            int group=1;
+            for (int i=0;i<_others.size();i++)
+            {
+                PathSpec spec=_others.get(i).getPathSpec();
+                if (spec.getClass()!=RegexPathSpec.class && spec.getClass()!=UriTemplatePathSpec.class)
+                    return;
+                Pattern pattern=((RegexPathSpec)spec).getPattern();
+                String p=pattern.pattern();
+                // Back references are numbered, so they cannot be combined.
+                if (pattern.flags()!=0 || p.matches("(?s).*\\\\(k<|[1-9]).*"))
+                    return;
+                if (i>0)
+                    regex.append('|');
+                regex.append('(').append(p).append(')');
+                groups[i]=group;
+                group+=1+pattern.matcher("").groupCount();
+            }
+            try
+            {
+                _pattern=Pattern.compile(regex.toString());
+                _patternGroups=groups;
+            }
+            catch (PatternSyntaxException e)
+            {
+                // Such as duplicate named groups.
+                LOG.ignore(e);
+            }
+        }
+
+        private MappedResource<E> getServletMatch(String path)
+        {
+            switch (_group)
+            {
+                case ROOT:
+                    return "/".equals(path)?_servlet:null;
+                case DEFAULT:
+                    return _servlet;
+                case EXACT:
+                    return _exact.isEmpty()?null:_exact.get(path);
+                case PREFIX_GLOB:
+                {
+                    MappedResource<E> match=null;
+                    Node<E> node=_prefixes;
+                    int length=path.length();
+                    for (int i=0;node!=null;i++)
+                    {
+                        if (node._resource!=null && (i==length || path.charAt(i)=='/'))
+                            match=node._resource;
+                        if (i==length)
+                            break;
+                        node=node.get(path.charAt(i));
+                    }
+                    return match;
+                }
+                case SUFFIX_GLOB:
+                {
+                    MappedResource<E> match=null;
+                    Node<E> node=_suffixes;
+                    for (int i=path.length();node!=null;)
+                    {
+                        if (node._resource!=null)
+                            match=node._resource;
+                        if (i==0)
+                            break;
+                        node=node.get(path.charAt(--i));
+                    }
+                    return match;
+                }
+                default:
+                    return null;
+            }
+        }
+
+        private void addServletMatches(String path, boolean isRootPath, List<MappedResource<E>> matches)
+        {
+            switch (_group)
+            {
+                case ROOT:
+                    if (isRootPath && _servlet!=null)
+                        matches.add(_servlet);
+                    break;
+                case DEFAULT:
+                    if (_servlet!=null)
+                        matches.add(_servlet);
+                    break;
+                case EXACT:
+                {
+                    MappedResource<E> match=getServletMatch(path);
+                    if (match!=null)
+                        matches.add(match);
+                    break;
+                }
+                case PREFIX_GLOB:
+                case SUFFIX_GLOB:
+                {
+                    // All the prefixes or suffixes that match, longest first.
+                    int size=matches.size();
+                    Node<E> node=_group==PathSpecGroup.PREFIX_GLOB?_prefixes:_suffixes;
+                    int length=path.length();
+                    for (int i=0;node!=null;i++)
+                    {
+                        if (node._resource!=null && (_group==PathSpecGroup.SUFFIX_GLOB || i==length || path.charAt(i)=='/'))
+                            matches.add(size,node._resource);
+                        if (i==length)
+                            break;
+                        node=node.get(path.charAt(_group==PathSpecGroup.PREFIX_GLOB?i:length-1-i));
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+
+        private MappedResource<E> getMatch(String path)
+        {
+            MappedResource<E> match=getServletMatch(path);
+            if (_others.isEmpty())
+                return match;
+
+            if (_pattern!=null)
+            {
+                int q=path.indexOf('?');
+                Matcher matcher=_pattern.matcher(q<0?path:path.substring(0,q));
+                if (!matcher.matches())
+                    return match;
+                for (int i=0;i<_patternGroups.length;i++)
+                {
+                    if (matcher.start(_patternGroups[i])>=0)
+                    {
+                        MappedResource<E> other=_others.get(i);
+                        return match!=null && match.compareTo(other)<0?match:other;
+                    }
+                }
+                return match;
+            }
+
+            for (MappedResource<E> other : _others)
+            {
+                if (match!=null && match.compareTo(other)<0)
+                    return match;
+                if (other.getPathSpec().matches(path))
+                    return other;
+            }
+            return match;
+        }
+    }
+
+    /**
+     * A node of a case sensitive trie, with the children sorted by character.
+     */
+    private static class Node<E>
+    {
+        private char[] _chars=new char[0];
+        private final List<Node<E>> _children=new ArrayList<>(0);
+        private MappedResource<E> _resource;
+
+        private Node<E> get(char c)
+        {
+            int i=Arrays.binarySearch(_chars,c);
+            return i<0?null:_children.get(i);
+        }
+
+        private void put(String key, boolean reversed, MappedResource<E> resource)
+        {
+            Node<E> node=this;
+            int length=key.length();
+            for (int k=0;k<length;k++)
+            {
+                char c=key.charAt(reversed?length-1-k:k);
+                int i=Arrays.binarySearch(node._chars,c);
+                if (i<0)
+                {
+                    i=-i-1;
+                    Node<E> child=new Node<>();
+                    char[] chars=new char[node._chars.length+1];
+                    System.arraycopy(node._chars,0,chars,0,i);
+                    System.arraycopy(node._chars,i,chars,i+1,node._chars.length-i);
+                    chars[i]=c;
+                    node._chars=chars;
+                    node._children.add(i,child);
+                }
+                node=node._children.get(i);
+            }
+            if (node._resource==null)
+                node._resource=resource;
+        }
+    }
 }
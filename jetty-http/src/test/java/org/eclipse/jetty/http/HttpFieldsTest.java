@@ -19,6 +19,7 @@
 package org.eclipse.jetty.http;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Iterator;
@@ -26,6 +27,9 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jetty.util.BufferUtil;
 import org.hamcrest.Matchers;
@@ -695,4 +699,101 @@ public class HttpFieldsTest
         assertThat(i.next().getName(),is("name4"));
         assertThat(i.hasNext(),is(false));
     }
+
+    @Test
+    public void testIndexedLookups() throws Exception
+    {
+        HttpFields header = new HttpFields();
+        for (int i=0;i<20;i++)
+            header.add("X-Field-"+i,"value"+i);
+        header.add(HttpHeader.ACCEPT,"text/html");
+        header.add(HttpHeader.HOST,"localhost");
+        header.add(HttpHeader.ACCEPT,"text/plain");
+
+        assertEquals("text/html",header.get(HttpHeader.ACCEPT));
+        assertEquals(Arrays.asList("text/html","text/plain"),header.getValuesList(HttpHeader.ACCEPT));
+        assertTrue(header.contains(HttpHeader.ACCEPT,"text/plain"));
+        assertFalse(header.contains(HttpHeader.COOKIE));
+        assertNull(header.getField(HttpHeader.COOKIE));
+
+        // Appends keep the index up to date.
+        header.add(HttpHeader.COOKIE,"a=b");
+        assertEquals("a=b",header.get(HttpHeader.COOKIE));
+
+        // Removals invalidate the index.
+        assertEquals("text/html",header.remove(HttpHeader.ACCEPT).getValue());
+        assertFalse(header.contains(HttpHeader.ACCEPT));
+        assertEquals("localhost",header.get(HttpHeader.HOST));
+        assertNull(header.remove(HttpHeader.ACCEPT));
+        header.remove("X-Field-0");
+        assertEquals("localhost",header.get(HttpHeader.HOST));
+        assertEquals("localhost",header.getField(19).getValue());
+
+        header.put(HttpHeader.HOST,"example.com");
+        assertEquals("example.com",header.get(HttpHeader.HOST));
+
+        ListIterator<HttpField> l = header.listIterator();
+        l.add(new HttpField(HttpHeader.HOST,"first"));
+        assertEquals("first",header.get(HttpHeader.HOST));
+        assertEquals(Arrays.asList("first","example.com"),header.getValuesList(HttpHeader.HOST));
+        l.next();
+        l.set(new HttpField(HttpHeader.CONNECTION,"close"));
+        assertEquals("close",header.get(HttpHeader.CONNECTION));
+        l.remove();
+        assertFalse(header.contains(HttpHeader.CONNECTION));
+
+        HttpFields copy = new HttpFields(header);
+        assertEquals("first",copy.get(HttpHeader.HOST));
+
+        header.clear();
+        assertNull(header.get(HttpHeader.HOST));
+        header.add(HttpHeader.HOST,"other");
+        assertEquals("other",header.get(HttpHeader.HOST));
+        assertEquals("first",copy.get(HttpHeader.HOST));
+    }
+
+    @Test
+    public void testConcurrentIndexedLookups() throws Exception
+    {
+        HttpFields header = new HttpFields();
+        for (int i=0;i<20;i++)
+            header.add("X-Field-"+i,"value"+i);
+        header.add(HttpHeader.HOST,"localhost");
+        header.add(HttpHeader.ACCEPT,"text/html");
+
+        int threads = 8;
+        AtomicInteger errors = new AtomicInteger();
+        for (int loop=0;loop<100;loop++)
+        {
+            // Invalidate the index, so that the readers race to build it.
+            header.put(HttpHeader.CONNECTION,"close");
+            header.remove(HttpHeader.CONNECTION);
+
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t=0;t<threads;t++)
+            {
+                new Thread(()->
+                {
+                    try
+                    {
+                        start.await();
+                        if (!"localhost".equals(header.get(HttpHeader.HOST)) || !"text/html".equals(header.get(HttpHeader.ACCEPT)))
+                            errors.incrementAndGet();
+                    }
+                    catch (Throwable x)
+                    {
+                        errors.incrementAndGet();
+                    }
+                    finally
+                    {
+                        done.countDown();
+                    }
+                }).start();
+            }
+            start.countDown();
+            assertTrue(done.await(5,TimeUnit.SECONDS));
+        }
+        assertEquals(0,errors.get());
+    }
 }
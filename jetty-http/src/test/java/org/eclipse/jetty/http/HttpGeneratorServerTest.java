@@ -838,4 +838,65 @@ public class HttpGeneratorServerTest
         Assert.assertTrue(headers.contains(HttpHeaderValue.KEEP_ALIVE.asString()));
         Assert.assertTrue(headers.contains(customValue));
     }
+
+    @Test
+    public void testHeaderTemplate() throws Exception
+    {
+        HttpFieldsTemplate template = new HttpFieldsTemplate(
+                new HttpField(HttpHeader.CONTENT_TYPE, "application/json"),
+                new HttpField(HttpHeader.DATE, "placeholder"),
+                new HttpField(HttpHeader.CACHE_CONTROL, "no-cache"),
+                new HttpField("X-Custom-Header", "custom value"),
+                new HttpField(HttpHeader.SERVER, "Template"));
+        Assert.assertTrue(template.hasDate());
+
+        String date = DateGenerator.formatDate(System.currentTimeMillis());
+        HttpFields fields = new HttpFields();
+        fields.put(new PreEncodedHttpField(HttpHeader.DATE, date));
+        fields.add(HttpHeader.CACHE_CONTROL, "private");
+        template.applyTo(fields);
+        fields.add("X-Request-Id", "1234");
+
+        // The same fields, not from the template.
+        HttpFields expected = new HttpFields();
+        for (HttpField field : fields)
+            expected.add(new HttpField(field.getHeader(), field.getName(), field.getValue()));
+
+        // The fields of the template, followed by the date.
+        assertEquals(5, template.match(fields, 0));
+        String response = generateResponse(fields);
+        assertEquals(generateResponse(expected), response);
+        assertThat(response, containsString("Content-Type: application/json\r\n"));
+        assertThat(response, containsString("Cache-Control: no-cache\r\n"));
+        assertThat(response, not(containsString("private")));
+        assertThat(response, containsString("X-Custom-Header: custom value\r\n"));
+        assertThat(response, containsString("Date: " + date + "\r\n"));
+        assertThat(response, containsString("X-Request-Id: 1234\r\n"));
+        assertThat(response, containsString("Server: Template\r\n"));
+        assertThat(response, not(containsString("Jetty")));
+
+        // A modified template field is generated field by field.
+        fields.put(HttpHeader.CACHE_CONTROL, "max-age=60");
+        assertEquals(0, template.match(fields, 0));
+        response = generateResponse(fields);
+        assertThat(response, containsString("Cache-Control: max-age=60\r\n"));
+        assertThat(response, containsString("X-Custom-Header: custom value\r\n"));
+        assertThat(response, containsString("Date: " + date + "\r\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHeaderTemplateWithFraming() throws Exception
+    {
+        new HttpFieldsTemplate(new HttpField(HttpHeader.CONTENT_LENGTH, "10"));
+    }
+
+    private String generateResponse(HttpFields fields) throws Exception
+    {
+        HttpGenerator generator = new HttpGenerator(true, false);
+        MetaData.Response info = new MetaData.Response(HttpVersion.HTTP_1_1, 200, null, fields, 0);
+        ByteBuffer header = BufferUtil.allocate(4096);
+        HttpGenerator.Result result = generator.generateResponse(info, false, header, null, null, true);
+        Assert.assertSame(HttpGenerator.Result.FLUSH, result);
+        return BufferUtil.toString(header);
+    }
 }
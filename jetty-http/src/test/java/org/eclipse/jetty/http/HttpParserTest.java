@@ -21,6 +21,7 @@ package org.eclipse.jetty.http;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.jetty.http.HttpParser.State;
@@ -1977,6 +1978,39 @@ public class HttpParserTest
         Assert.assertTrue(field == _fields.get(0));
     }
 
+    @Test
+    public void testSharedFieldCache() throws Exception
+    {
+        String request = "GET / HTTP/1.1\r\n" +
+                "Host: www.smh.com.au\r\n" +
+                "User-Agent: Mozilla/5.0 (Mobile)\r\n" +
+                "Cookie: session=0123456789\r\n" +
+                "Connection: close\r\n" +
+                "\r\n";
+
+        HttpFieldCache cache = new HttpFieldCache(4, 256);
+        List<HttpField> userAgents = new ArrayList<>();
+        // A new parser per request, as for short lived connections.
+        for (int i = 0; i < 20; ++i)
+        {
+            HttpParser.RequestHandler handler = new Handler();
+            HttpParser parser = new HttpParser(handler);
+            parser.setHttpFieldCache(cache);
+            parseAll(parser, BufferUtil.toBuffer(request));
+            Assert.assertNull(parser.getFieldCache());
+            Assert.assertEquals("Mozilla/5.0 (Mobile)", _fields.get(1).getValue());
+            userAgents.add(_fields.get(1));
+        }
+
+        // The cache has learnt Host and User-Agent, but not Cookie.
+        Assert.assertEquals(2, cache.getSize());
+        Assert.assertTrue(cache.getHits() > 0);
+        // The last parsers return the cached instance.
+        Assert.assertTrue(userAgents.get(18) == userAgents.get(19));
+        Assert.assertTrue(userAgents.get(0) != userAgents.get(1));
+        Assert.assertTrue(_fields.get(0) instanceof HostPortHttpField);
+    }
+
     @Test
     public void testParseRequest() throws Exception
     {
@@ -2028,6 +2062,120 @@ public class HttpParserTest
         Assert.assertEquals(null, _bad);
     }
 
+    @Test
+    public void testLongFieldsFastScan() throws Exception
+    {
+        String request = "GET /some/long/path/to/a/resource/index.html?query=value&other=value HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "X-Some-Long-Header-Name-For-Scanning: a long value, with spaces and \u00e9 obs-text;q=0.9   \r\n" +
+                "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko)\r\n" +
+                "\r\n";
+
+        for (boolean direct : new boolean[]{false, true})
+        {
+            init();
+            ByteBuffer buffer = BufferUtil.toBuffer(request);
+            if (direct)
+            {
+                ByteBuffer heap = buffer;
+                buffer = BufferUtil.allocateDirect(heap.remaining());
+                BufferUtil.append(buffer, heap);
+            }
+
+            HttpParser.RequestHandler handler = new Handler();
+            HttpParser parser = new HttpParser(handler);
+            parseAll(parser, buffer);
+
+            Assert.assertNull(_bad);
+            Assert.assertEquals("/some/long/path/to/a/resource/index.html?query=value&other=value", _uriOrStatus);
+            Assert.assertEquals("X-Some-Long-Header-Name-For-Scanning", _hdr[1]);
+            Assert.assertEquals("a long value, with spaces and \u00e9 obs-text;q=0.9", _val[1]);
+            Assert.assertEquals("User-Agent", _hdr[2]);
+            Assert.assertEquals("Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko)", _val[2]);
+            Assert.assertEquals(2, _headers);
+        }
+    }
+
+    @Test
+    public void testFastScanSameAsBytewise() throws Exception
+    {
+        // Parsing a byte at a time never uses the fast scan.
+        String[] fields = new String[]
+        {
+            "Name: value with a \u0001 control character in the middle",
+            "Name: value with a \u007f DEL character in the middle",
+            "Name: value with a \t tab character and trailing spaces    ",
+            "Name: value with a bare \r CR in the middle of the value",
+            "Name: value with a bare \n LF in the middle of the value",
+            "Long-Header-Name\u0001With-Control: value",
+            "Long-Header-Name With-Space: value",
+            "Long-Header-Name\u00e9With-Obs-Text: value",
+            "Long-Header-Name-Without-Colon",
+        };
+        for (String field : fields)
+        {
+            String request = "GET / HTTP/1.1\r\nHost: localhost\r\n" + field + "\r\n\r\n";
+            Assert.assertEquals(field, parseOutcome(request, 4096, true), parseOutcome(request, 4096, false));
+        }
+    }
+
+    @Test
+    public void testFastScanMaxHeaderBytes() throws Exception
+    {
+        // Unknown fields, as the look ahead of known fields does not count their bytes.
+        String request = "GET /a/long/path/for/the/fast/scan HTTP/1.0\r\n" +
+                "Some-Long-Header-Name: some long header value for the fast scan\r\n" +
+                "Other-Long-Header-Name: other long header value\r\n" +
+                "\r\n";
+        for (int max = request.indexOf("Some"); max < request.length(); ++max)
+            Assert.assertEquals("max=" + max, parseOutcome(request, max, true), parseOutcome(request, max, false));
+    }
+
+    private String parseOutcome(String request, int maxHeaderBytes, boolean bytewise)
+    {
+        init();
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler, maxHeaderBytes);
+        ByteBuffer buffer = BufferUtil.toBuffer(request);
+        // The request line is always parsed a byte at a time, as the
+        // quick scan of the URI counts the header bytes differently.
+        int fields = request.indexOf("\r\n") + 2;
+        if (!bytewise)
+        {
+            parseBytewise(parser, buffer, 0, fields);
+            buffer.position(fields);
+            while (buffer.hasRemaining() && _bad == null && !_messageCompleted && !parser.isState(State.END))
+            {
+                int remaining = buffer.remaining();
+                parser.parseNext(buffer);
+                if (buffer.remaining() == remaining)
+                    break;
+            }
+        }
+        else
+        {
+            parseBytewise(parser, buffer, 0, request.length());
+        }
+        return _bad + "|" + _uriOrStatus + "|" + _headers + "|" + Arrays.toString(_hdr) + "|" + Arrays.toString(_val);
+    }
+
+    private void parseBytewise(HttpParser parser, ByteBuffer buffer, int from, int to)
+    {
+        for (int i = from; i < to && _bad == null && !_messageCompleted; ++i)
+        {
+            // Keep CRLF together, as a CR at the end of a buffer is not counted as a header byte.
+            ByteBuffer b = BufferUtil.toBuffer(new byte[]{buffer.get(i)});
+            if (buffer.get(i) == '\r' && i + 1 < to && buffer.get(i + 1) == '\n')
+                b = BufferUtil.toBuffer(new byte[]{'\r', buffer.get(++i)});
+            while (b.hasRemaining() && _bad == null && !_messageCompleted)
+            {
+                parser.parseNext(b);
+                if (parser.isState(State.END))
+                    break;
+            }
+        }
+    }
+
     @Before
     public void init()
     {
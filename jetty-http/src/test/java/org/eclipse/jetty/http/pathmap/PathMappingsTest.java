@@ -22,6 +22,9 @@ import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -279,6 +282,106 @@ public class PathMappingsTest
         assertEquals("prefix",p.getMatch("/dump/gzip/something.txt").getResource());
     }
     
+    @Test
+    public void testManyMappings()
+    {
+        PathMappings<String> p = new PathMappings<>();
+        p.put(new ServletPathSpec("/"),"default");
+        p.put(new ServletPathSpec(""),"root");
+        for (int i = 0; i < 500; i++)
+        {
+            p.put(new ServletPathSpec("/exact/" + i),"exact" + i);
+            p.put(new ServletPathSpec("/prefix/" + i + "/*"),"prefix" + i);
+            p.put(new ServletPathSpec("/prefix/" + i + "/sub/*"),"subprefix" + i);
+            p.put(new ServletPathSpec("*.ext" + i),"suffix" + i);
+            if (i % 50 == 0)
+            {
+                p.put(new RegexPathSpec("^/prefix/" + i + "/sub/[a-z]+$"),"regex" + i);
+                p.put(new RegexPathSpec("^/(rest|api)/" + i + "/.*$"),"rest" + i);
+                p.put(new UriTemplatePathSpec("/template/" + i + "/{id}"),"template" + i);
+            }
+        }
+        p.put(new ServletPathSpec("*.a.ext1"),"longsuffix");
+
+        String[] paths = new String[]{
+            "/", "", "/exact/7", "/exact/7/", "/exact/7.ext7", "/prefix/7", "/prefix/7/", "/prefix/7/foo",
+            "/prefix/70", "/prefix/7/sub", "/prefix/7/sub/foo", "/prefix/50/sub/foo", "/prefix/50/sub/foo/bar",
+            "/prefix/50/sub/Foo", "/foo.ext1", "/foo.a.ext1", "/foo.ext12", "/foo.ext", ".ext3", "/prefix/3/foo.ext3",
+            "/rest/100/foo", "/api/100/foo?query", "/api/101/foo", "/template/250/id", "/template/250/id/more",
+            "/prefix/100/sub/x?q=1", "/unknown", "/prefix/499/sub/a.ext499"
+        };
+        for (String path : paths)
+        {
+            MappedResource<String> expected = null;
+            List<MappedResource<String>> matches = new ArrayList<>();
+            for (MappedResource<String> mr : p)
+            {
+                boolean matched = "/".equals(path) && mr.getPathSpec().getGroup() == PathSpecGroup.ROOT || mr.getPathSpec().matches(path);
+                if (matched)
+                {
+                    if (expected == null)
+                        expected = mr;
+                    matches.add(mr);
+                }
+            }
+            assertEquals(path,expected,p.getMatch(path));
+            assertEquals(path,matches,p.getMatches(path));
+        }
+    }
+
+    @Test
+    public void testMatchAfterModification()
+    {
+        PathMappings<String> p = new PathMappings<>();
+        p.put(new ServletPathSpec("/a/*"),"a");
+        p.put(new ServletPathSpec("/a/b/*"),"ab");
+        p.put(new ServletPathSpec("*.txt"),"txt");
+        p.put(new ServletPathSpec("/a/b/c.txt"),"exact");
+        assertMatch(p,"/a/b/c.txt","exact");
+        assertMatch(p,"/a/b/d.txt","ab");
+
+        // A duplicate does not replace the existing mapping.
+        assertTrue(!p.put(new ServletPathSpec("/a/b/*"),"other"));
+        assertMatch(p,"/a/b/d.txt","ab");
+
+        assertTrue(p.remove(new ServletPathSpec("/a/b/c.txt")));
+        assertMatch(p,"/a/b/c.txt","ab");
+
+        p.removeIf(mr -> mr.getPathSpec().getGroup() == PathSpecGroup.PREFIX_GLOB);
+        assertMatch(p,"/a/b/c.txt","txt");
+        assertEquals(null,p.getMatch("/a/b/c"));
+
+        p.reset();
+        assertEquals(null,p.getMatch("/a/b/c.txt"));
+        p.put(new ServletPathSpec("/a/b/c.txt"),"exact");
+        assertMatch(p,"/a/b/c.txt","exact");
+    }
+
+    @Test
+    public void testRegexMatchOrder()
+    {
+        PathMappings<String> p = new PathMappings<>();
+        // Back references cannot be combined with other patterns.
+        p.put(new RegexPathSpec("^/(\\w+)/\\1/.*$"),"twice");
+        p.put(new RegexPathSpec("^/foo/.*$"),"foo");
+        p.put(new RegexPathSpec("^/.*/bar$"),"bar");
+
+        assertMatch(p,"/foo/foo/bar","twice");
+        assertMatch(p,"/foo/x/bar","foo");
+        assertMatch(p,"/x/y/bar","bar");
+        assertEquals(null,p.getMatch("/x/y/baz"));
+
+        p = new PathMappings<>();
+        p.put(new RegexPathSpec("^/foo/.*$"),"foo");
+        p.put(new RegexPathSpec("^/.*/bar$"),"bar");
+        p.put(new RegexPathSpec("^/(?<name>[a-z]+)/(?<id>[0-9]+)$"),"named");
+        assertMatch(p,"/foo/x/bar","foo");
+        assertMatch(p,"/x/y/bar","bar");
+        assertMatch(p,"/abc/123","named");
+        assertMatch(p,"/foo/123","named");
+        assertEquals(null,p.getMatch("/x/y/baz"));
+    }
+
     @Test
     public void testBadPathSpecs()
     {
@@ -0,0 +1,142 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http2.client;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HostPortHttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.IStream;
+import org.eclipse.jetty.http2.SimpleFlowControlStrategy;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.generator.Generator;
+import org.eclipse.jetty.http2.parser.Parser;
+import org.eclipse.jetty.io.ByteArrayEndPoint;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.util.FutureCallback;
+import org.eclipse.jetty.util.FuturePromise;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrentWriteTest
+{
+    private final ByteBufferPool byteBufferPool = new MappedByteBufferPool();
+    private ScheduledExecutorScheduler scheduler;
+    private ByteArrayEndPoint endPoint;
+    private HTTP2ClientSession session;
+
+    @Before
+    public void prepare() throws Exception
+    {
+        scheduler = new ScheduledExecutorScheduler();
+        scheduler.start();
+        endPoint = new ByteArrayEndPoint();
+        endPoint.setGrowOutput(true);
+        session = new HTTP2ClientSession(scheduler, endPoint, new Generator(byteBufferPool), new Session.Listener.Adapter(), new SimpleFlowControlStrategy());
+        session.updateSendWindow(16 * 1024 * 1024);
+    }
+
+    @After
+    public void dispose() throws Exception
+    {
+        scheduler.stop();
+    }
+
+    @Test
+    public void testConcurrentWritesOnDifferentStreams() throws Exception
+    {
+        int threads = 8;
+        int frames = 200;
+        int length = 100;
+
+        List<IStream> streams = new ArrayList<>();
+        for (int i = 0; i < threads; ++i)
+        {
+            MetaData.Request request = new MetaData.Request("POST", HttpScheme.HTTP, new HostPortHttpField("localhost"), "/", HttpVersion.HTTP_2, new HttpFields());
+            FuturePromise<Stream> promise = new FuturePromise<>();
+            session.newStream(new HeadersFrame(request, null, false), promise, new Stream.Listener.Adapter());
+            IStream stream = (IStream)promise.get(5, TimeUnit.SECONDS);
+            stream.updateSendWindow(16 * 1024 * 1024);
+            streams.add(stream);
+        }
+        long writes = session.getWrites();
+
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (IStream stream : streams)
+        {
+            new Thread(() ->
+            {
+                try
+                {
+                    barrier.await();
+                    for (int i = 0; i < frames; ++i)
+                    {
+                        FutureCallback callback = new FutureCallback();
+                        stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(length), i == frames - 1), callback);
+                        callback.get(5, TimeUnit.SECONDS);
+                    }
+                    latch.countDown();
+                }
+                catch (Throwable x)
+                {
+                    x.printStackTrace();
+                }
+            }).start();
+        }
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        Map<Integer, Integer> received = new ConcurrentHashMap<>();
+        Parser parser = new Parser(byteBufferPool, new Parser.Listener.Adapter()
+        {
+            @Override
+            public void onData(DataFrame frame)
+            {
+                received.merge(frame.getStreamId(), frame.remaining(), Integer::sum);
+            }
+        }, 4096, 8192);
+        ByteBuffer output = endPoint.takeOutput();
+        while (output.hasRemaining())
+            parser.parse(output);
+
+        for (IStream stream : streams)
+            Assert.assertEquals(frames * length, (int)received.get(stream.getId()));
+        Assert.assertTrue(session.getWrites() > writes);
+        Assert.assertTrue(session.getWrites() <= writes + threads * frames);
+        Assert.assertTrue(session.getFramesPerWrite() >= 1);
+        Assert.assertTrue(session.getBytesPerWrite() > 0);
+    }
+}
@@ -0,0 +1,274 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http2.client;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HostPortHttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.IStream;
+import org.eclipse.jetty.http2.PriorityTree;
+import org.eclipse.jetty.http2.SimpleFlowControlStrategy;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.PriorityFrame;
+import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
+import org.eclipse.jetty.http2.generator.Generator;
+import org.eclipse.jetty.http2.parser.Parser;
+import org.eclipse.jetty.io.ByteArrayEndPoint;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FuturePromise;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>Tests the order in which the frames of streams with different
+ * priorities are written, by queueing them while a write is pending
+ * and then parsing the frames as they are written.</p>
+ */
+public class PrioritySchedulingTest
+{
+    private final ByteBufferPool byteBufferPool = new MappedByteBufferPool();
+    private final List<DataFrame> frames = new ArrayList<>();
+    private final List<HeadersFrame> headers = new ArrayList<>();
+    private final List<WindowUpdateFrame> windowUpdates = new ArrayList<>();
+    private ScheduledExecutorScheduler scheduler;
+    private ByteArrayEndPoint endPoint;
+    private HTTP2ClientSession session;
+
+    @Before
+    public void prepare() throws Exception
+    {
+        scheduler = new ScheduledExecutorScheduler();
+        scheduler.start();
+        // A small output buffer, so that writes remain pending until the output is taken.
+        endPoint = new ByteArrayEndPoint(new byte[0], 1024);
+        session = new HTTP2ClientSession(scheduler, endPoint, new Generator(byteBufferPool), new Session.Listener.Adapter(), new SimpleFlowControlStrategy());
+        session.setMaxWriteSize(16 * 1024);
+        session.updateSendWindow(16 * 1024 * 1024);
+    }
+
+    @After
+    public void dispose() throws Exception
+    {
+        scheduler.stop();
+    }
+
+    private IStream newStream() throws Exception
+    {
+        IStream stream = (IStream)openStream().get(5, TimeUnit.SECONDS);
+        stream.updateSendWindow(16 * 1024 * 1024);
+        return stream;
+    }
+
+    private FuturePromise<Stream> openStream()
+    {
+        MetaData.Request request = new MetaData.Request("POST", HttpScheme.HTTP, new HostPortHttpField("localhost"), "/", HttpVersion.HTTP_2, new HttpFields());
+        FuturePromise<Stream> promise = new FuturePromise<>();
+        session.newStream(new HeadersFrame(request, null, false), promise, new Stream.Listener.Adapter());
+        return promise;
+    }
+
+    private void send(IStream stream, int length)
+    {
+        stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(length), true), Callback.NOOP);
+    }
+
+    private void drain()
+    {
+        Parser parser = new Parser(byteBufferPool, new Parser.Listener.Adapter()
+        {
+            @Override
+            public void onData(DataFrame frame)
+            {
+                frames.add(frame);
+            }
+
+            @Override
+            public void onHeaders(HeadersFrame frame)
+            {
+                headers.add(frame);
+            }
+
+            @Override
+            public void onWindowUpdate(WindowUpdateFrame frame)
+            {
+                windowUpdates.add(frame);
+            }
+        }, 4096, 8192);
+        while (true)
+        {
+            ByteBuffer output = endPoint.takeOutput();
+            if (!output.hasRemaining())
+                break;
+            while (output.hasRemaining())
+                parser.parse(output);
+        }
+    }
+
+    private Map<Integer, Integer> bytesUntilEnd(int streamId)
+    {
+        Map<Integer, Integer> result = new HashMap<>();
+        for (DataFrame frame : frames)
+        {
+            result.merge(frame.getStreamId(), frame.remaining(), Integer::sum);
+            if (frame.getStreamId() == streamId && frame.isEndStream())
+                return result;
+        }
+        throw new IllegalStateException("Stream " + streamId + " did not end");
+    }
+
+    @Test
+    public void testDependentStreamWaitsForParent() throws Exception
+    {
+        IStream bulk = newStream();
+        IStream critical = newStream();
+        session.onPriority(new PriorityFrame(bulk.getId(), critical.getId(), 16, false));
+
+        send(bulk, 256 * 1024);
+        send(critical, 64 * 1024);
+        drain();
+
+        // Only the first frame of the bulk stream, written
+        // before the critical stream was queued, goes first.
+        Map<Integer, Integer> bytes = bytesUntilEnd(critical.getId());
+        Assert.assertEquals(64 * 1024, (int)bytes.get(critical.getId()));
+        Assert.assertEquals(16 * 1024, (int)bytes.get(bulk.getId()));
+        Assert.assertEquals(256 * 1024, (int)bytesUntilEnd(bulk.getId()).get(bulk.getId()));
+    }
+
+    @Test
+    public void testStreamsShareInProportionOfWeight() throws Exception
+    {
+        IStream light = newStream();
+        IStream heavy = newStream();
+        session.onPriority(new PriorityFrame(light.getId(), 0, 1, false));
+        session.onPriority(new PriorityFrame(heavy.getId(), 0, 256, false));
+
+        send(light, 256 * 1024);
+        send(heavy, 256 * 1024);
+        drain();
+
+        // By the time the heavy stream ends, the light stream has only written
+        // its first frame, written before the heavy stream was queued, and
+        // one more frame, as its first frame was accounted when it was alone.
+        Map<Integer, Integer> bytes = bytesUntilEnd(heavy.getId());
+        Assert.assertEquals(256 * 1024, (int)bytes.get(heavy.getId()));
+        Assert.assertEquals(32 * 1024, (int)bytes.get(light.getId()));
+    }
+
+    @Test
+    public void testStreamsWithSameWeightInterleave() throws Exception
+    {
+        IStream stream1 = newStream();
+        IStream stream2 = newStream();
+
+        send(stream1, 256 * 1024);
+        send(stream2, 256 * 1024);
+        drain();
+
+        Map<Integer, Integer> bytes = bytesUntilEnd(stream1.getId());
+        Assert.assertTrue(bytes.get(stream2.getId()) >= 128 * 1024);
+    }
+
+    @Test
+    public void testHeadersAreWrittenInStreamIdOrder() throws Exception
+    {
+        IStream bulk = newStream();
+
+        // Each new stream depends on the stream opened after it,
+        // with different weights, so that the last one has the
+        // highest priority; the HEADERS frames must still be
+        // written in stream id order (RFC 7540, section 5.1.1).
+        int count = 32;
+        int firstStreamId = bulk.getId() + 2;
+        for (int i = 0; i < count; ++i)
+        {
+            int streamId = firstStreamId + 2 * i;
+            session.onPriority(new PriorityFrame(streamId, streamId + 2, 1 + 8 * i, i % 3 == 0));
+        }
+
+        // Keep the flusher busy, so that the HEADERS frames are queued together.
+        send(bulk, 256 * 1024);
+        List<FuturePromise<Stream>> promises = new ArrayList<>();
+        for (int i = 0; i < count; ++i)
+            promises.add(openStream());
+        drain();
+
+        for (FuturePromise<Stream> promise : promises)
+            Assert.assertNotNull(promise.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(count + 1, headers.size());
+        for (int i = 1; i < headers.size(); ++i)
+            Assert.assertTrue(headers.get(i - 1).getStreamId() < headers.get(i).getStreamId());
+        Assert.assertEquals(firstStreamId + 2 * (count - 1), headers.get(count).getStreamId());
+    }
+
+    @Test
+    public void testWindowUpdateIsNotHeldByStalledData() throws Exception
+    {
+        // The stream send window is the initial 65535 bytes, so most of the DATA stalls.
+        IStream stream = (IStream)openStream().get(5, TimeUnit.SECONDS);
+        send(stream, 256 * 1024);
+        drain();
+
+        // The peer uploads, and the WINDOW_UPDATEs for the consumed
+        // data must be written although the DATA frames are stalled.
+        windowUpdates.clear();
+        session.onData(new DataFrame(stream.getId(), ByteBuffer.allocate(1024), false));
+        drain();
+
+        Assert.assertEquals(2, windowUpdates.size());
+        Assert.assertEquals(0, windowUpdates.get(0).getStreamId());
+        Assert.assertEquals(stream.getId(), windowUpdates.get(1).getStreamId());
+        Assert.assertTrue(frames.stream().mapToInt(DataFrame::remaining).sum() < 256 * 1024);
+    }
+
+    @Test
+    public void testPriorityOfClosedStreamIsIgnored() throws Exception
+    {
+        IStream stream = newStream();
+        session.removeStream(stream);
+        PriorityTree tree = session.getPriorityTree();
+
+        session.onPriority(new PriorityFrame(stream.getId(), 0, 32, false));
+        Assert.assertEquals(0, tree.size());
+
+        // An idle stream depending on a closed stream gets the default priority.
+        int idleStreamId = stream.getId() + 2;
+        session.onPriority(new PriorityFrame(idleStreamId, stream.getId(), 32, true));
+        Assert.assertEquals(1, tree.size());
+        Assert.assertEquals(0, tree.getParentStreamId(idleStreamId));
+        Assert.assertEquals(PriorityTree.DEFAULT_WEIGHT, tree.getWeight(idleStreamId));
+    }
+}
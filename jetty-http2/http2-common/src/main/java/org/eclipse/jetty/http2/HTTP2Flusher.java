@@ -22,11 +22,22 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.http2.frames.Frame;
+import org.eclipse.jetty.http2.frames.FrameType;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.PushPromiseFrame;
 import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.EofException;
@@ -37,18 +48,53 @@ import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 
+/**
+ * <p>Generates and writes the frames of a session.</p>
+ * <p>Frames other than DATA frames, such as SETTINGS, PING, RST_STREAM or HEADERS
+ * frames, are written first, in submission order, so that streams are opened in order
+ * of their ids; HEADERS (trailers) and PUSH_PROMISE frames wait for the DATA frames
+ * of the same stream that were queued before them, while WINDOW_UPDATE, RST_STREAM and
+ * PRIORITY frames never wait, since the peer may need them to unstall the DATA frames.
+ * The DATA frames of each stream are written in order, while
+ * the streams are interleaved by a weighted fair scheduler that follows the
+ * {@link PriorityTree} of the session: a stream is only scheduled if the streams it
+ * depends on have nothing to send, and the bytes written are shared among the
+ * scheduled streams in proportion of their weights.</p>
+ * <p>At most {@link #getMaxWriteSize()} bytes are generated for each write, so that
+ * frames of higher priority streams do not wait for large writes of frames of lower
+ * priority streams.</p>
+ * <p>Frames are submitted via a lock-free stack, so that the threads writing to the
+ * streams of a session do not contend on a lock; the thread that runs the flusher
+ * takes all the submitted frames at once, and writes them with a single gathering
+ * write.</p>
+ */
 public class HTTP2Flusher extends IteratingCallback implements Dumpable
 {
     private static final Logger LOG = Log.getLogger(HTTP2Flusher.class);
 
-    private final Queue<WindowEntry> windows = new ArrayDeque<>();
-    private final Deque<Entry> frames = new ArrayDeque<>();
-    private final Queue<Entry> entries = new ArrayDeque<>();
+    private static final Submission CLOSED = new Submission(null, null, false);
+
+    private final AtomicReference<Submission> submissions = new AtomicReference<>();
+    private final AtomicReference<Throwable> terminated = new AtomicReference<>();
+    private final LongAdder windowSubmissions = new LongAdder();
+    private final LongAdder frameSubmissions = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder writtenFrames = new LongAdder();
+    private final LongAdder writtenBytes = new LongAdder();
+    private final Deque<Entry> controls = new ArrayDeque<>();
+    private final Map<Integer, StreamEntries> streams = new HashMap<>();
     private final List<Entry> actives = new ArrayList<>();
+    private final List<Integer> schedulable = new ArrayList<>();
     private final HTTP2Session session;
     private final ByteBufferPool.Lease lease;
-    private Entry stalled;
-    private Throwable terminated;
+    private volatile int maxWriteSize = 64 * 1024;
+    private long sequence;
+    private double virtualTime;
+    private boolean sharesValid;
+    private int sharesVersion;
+    // Only modified by the flusher thread.
+    private long windowsTaken;
+    private long framesTaken;
 
     public HTTP2Flusher(HTTP2Session session)
     {
@@ -56,72 +102,136 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         this.lease = new ByteBufferPool.Lease(session.getGenerator().getByteBufferPool());
     }
 
+    /**
+     * @return the max number of bytes generated for a single write
+     */
+    public int getMaxWriteSize()
+    {
+        return maxWriteSize;
+    }
+
+    /**
+     * @param maxWriteSize the max number of bytes generated for a single write
+     */
+    public void setMaxWriteSize(int maxWriteSize)
+    {
+        this.maxWriteSize = maxWriteSize;
+    }
+
     public void window(IStream stream, WindowUpdateFrame frame)
     {
-        Throwable closed;
-        synchronized (this)
-        {
-            closed = terminated;
-            if (closed == null)
-                windows.offer(new WindowEntry(stream, frame));
-        }
         // Flush stalled data.
-        if (closed == null)
+        if (submit(new Submission(null, new WindowEntry(stream, frame), false)))
+        {
+            windowSubmissions.increment();
             iterate();
+        }
     }
 
     public boolean prepend(Entry entry)
     {
-        Throwable closed;
-        synchronized (this)
+        if (submit(new Submission(entry, null, true)))
         {
-            closed = terminated;
-            if (closed == null)
-            {
-                frames.offerFirst(entry);
-                if (LOG.isDebugEnabled())
-                    LOG.debug("Prepended {}, frames={}", entry, frames.size());
-            }
-        }
-        if (closed == null)
+            frameSubmissions.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Prepended {}, frames={}", entry, getFrameQueueSize());
             return true;
-        closed(entry, closed);
+        }
+        closed(entry, terminated.get());
         return false;
     }
 
     public boolean append(Entry entry)
     {
-        Throwable closed;
-        synchronized (this)
+        if (submit(new Submission(entry, null, false)))
         {
-            closed = terminated;
-            if (closed == null)
-            {
-                frames.offer(entry);
-                if (LOG.isDebugEnabled())
-                    LOG.debug("Appended {}, frames={}", entry, frames.size());
-            }
-        }
-        if (closed == null)
+            frameSubmissions.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Appended {}, frames={}", entry, getFrameQueueSize());
             return true;
-        closed(entry, closed);
+        }
+        closed(entry, terminated.get());
         return false;
     }
 
-    private int getWindowQueueSize()
+    private boolean submit(Submission submission)
     {
-        synchronized (this)
+        if (terminated.get() != null)
+            return false;
+        while (true)
         {
-            return windows.size();
+            Submission head = submissions.get();
+            // Once closed, the submissions are not taken anymore.
+            if (head == CLOSED)
+                return false;
+            submission.next = head;
+            if (submissions.compareAndSet(head, submission))
+                return true;
         }
     }
 
-    public int getFrameQueueSize()
+    /**
+     * @return the submissions taken from the stack, in submission order
+     */
+    private Submission take() throws Throwable
     {
-        synchronized (this)
+        Submission head;
+        while (true)
         {
-            return frames.size();
+            head = submissions.get();
+            if (head == CLOSED)
+                throw terminated.get();
+            if (submissions.compareAndSet(head, null))
+                break;
         }
+        return reverse(head);
+    }
+
+    private Submission reverse(Submission head)
+    {
+        Submission result = null;
+        while (head != null)
+        {
+            Submission next = head.next;
+            head.next = result;
+            result = head;
+            head = next;
+        }
+        return result;
+    }
+
+    private int getWindowQueueSize()
+    {
+        return (int)Math.max(0, windowSubmissions.sum() - windowsTaken);
+    }
+
+    public int getFrameQueueSize()
+    {
+        return (int)Math.max(0, frameSubmissions.sum() - framesTaken);
+    }
+
+    /**
+     * @return the number of writes performed
+     */
+    public long getWrites()
+    {
+        return writes.sum();
+    }
+
+    /**
+     * @return the number of frames written
+     */
+    public long getWrittenFrames()
+    {
+        return writtenFrames.sum();
+    }
+
+    /**
+     * @return the number of bytes written
+     */
+    public long getWrittenBytes()
+    {
+        return writtenBytes.sum();
     }
 
     @Override
@@ -130,83 +240,333 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         if (LOG.isDebugEnabled())
             LOG.debug("Flushing {}", session);
 
-        synchronized (this)
-        {
-            if (terminated != null)
-                throw terminated;
+        Throwable closed = terminated.get();
+        if (closed != null)
+            throw closed;
 
-            while (!windows.isEmpty())
+        Submission taken = take();
+        for (Submission submission = taken; submission != null; submission = submission.next)
+        {
+            if (submission.window != null)
             {
-                WindowEntry entry = windows.poll();
-                entry.perform();
+                ++windowsTaken;
+                submission.window.perform();
             }
-
-            for (Entry entry : frames)
+        }
+        for (Submission submission = taken; submission != null; submission = submission.next)
+        {
+            Entry entry = submission.entry;
+            if (entry != null)
             {
-                entries.offer(entry);
-                actives.add(entry);
+                ++framesTaken;
+                // Prepended frames go before the control frames already
+                // scheduled, the last prepended being the first.
+                entry.sequence = sequence++;
+                schedule(entry, submission.first);
             }
-            frames.clear();
         }
 
-
-        if (entries.isEmpty())
+        // Retry the streams that were stalled by flow control.
+        for (StreamEntries entries : streams.values())
         {
-            if (LOG.isDebugEnabled())
-                LOG.debug("Flushed {}", session);
-            return Action.IDLE;
+            if (entries.stalled)
+            {
+                entries.stalled = false;
+                sharesValid = false;
+            }
         }
 
-        while (!entries.isEmpty())
+        try
         {
-            Entry entry = entries.poll();
-            if (LOG.isDebugEnabled())
-                LOG.debug("Processing {}", entry);
-
-            // If the stream has been reset or removed, don't send the frame.
-            if (entry.isStale())
+            long written = 0;
+            boolean progress = true;
+            while (progress && written < maxWriteSize)
             {
-                if (LOG.isDebugEnabled())
-                    LOG.debug("Stale {}", entry);
-                continue;
-            }
+                progress = false;
+
+                // The other frames are written before the DATA frames, in order,
+                // except that HEADERS and PUSH_PROMISE frames wait for the DATA
+                // frames of their stream queued before them, and that the frames
+                // that end the session wait for all the DATA frames queued before them.
+                // The frames that wait are retried by the next pass.
+                Entry sessionEnd = null;
+                Iterator<Entry> iterator = controls.iterator();
+                while (written < maxWriteSize && iterator.hasNext())
+                {
+                    Entry control = iterator.next();
+                    if (isSessionEnd(control))
+                    {
+                        sessionEnd = control;
+                        break;
+                    }
+                    if (isWaiting(control))
+                        continue;
+                    iterator.remove();
+                    written += generate(control);
+                    progress = true;
+                }
 
-            try
-            {
-                if (entry.generate(lease))
+                long limit = sessionEnd == null ? Long.MAX_VALUE : sessionEnd.sequence;
+                while (written < maxWriteSize)
                 {
-                    if (entry.dataRemaining() > 0)
-                        entries.offer(entry);
+                    StreamEntries entries = select(limit);
+                    if (entries == null)
+                        break;
+
+                    Entry entry = entries.entries.peek();
+                    if (entry.isStale())
+                    {
+                        generate(entry);
+                        dequeue(entry);
+                        progress = true;
+                        continue;
+                    }
+
+                    long length = generate(entry);
+                    if (length < 0)
+                    {
+                        entries.stalled = true;
+                        sharesValid = false;
+                        continue;
+                    }
+                    written += length;
+                    entries.charge(length);
+                    if (entry.dataRemaining() == 0)
+                        dequeue(entry);
+                    progress = true;
                 }
-                else
+
+                if (sessionEnd != null && written < maxWriteSize)
                 {
-                    if (stalled == null)
-                        stalled = entry;
+                    controls.remove(sessionEnd);
+                    written += generate(sessionEnd);
+                    progress = true;
                 }
             }
-            catch (Throwable failure)
-            {
-                // Failure to generate the entry is catastrophic.
-                if (LOG.isDebugEnabled())
-                    LOG.debug("Failure generating frame " + entry.frame, failure);
-                failed(failure);
-                return Action.SUCCEEDED;
-            }
+        }
+        catch (Throwable failure)
+        {
+            // Failure to generate the entry is catastrophic.
+            failed(failure);
+            return Action.SUCCEEDED;
         }
 
         List<ByteBuffer> byteBuffers = lease.getByteBuffers();
         if (byteBuffers.isEmpty())
         {
             complete();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Flushed {}", session);
             return Action.IDLE;
         }
 
+        long length = lease.getTotalLength();
         if (LOG.isDebugEnabled())
-            LOG.debug("Writing {} buffers ({} bytes) for {} frames {}", byteBuffers.size(), lease.getTotalLength(), actives.size(), actives);
+            LOG.debug("Writing {} buffers ({} bytes) for {} frames {}", byteBuffers.size(), length, actives.size(), actives);
+        writes.increment();
+        writtenFrames.add(actives.size());
+        writtenBytes.add(length);
         session.getEndPoint().write(this, byteBuffers.toArray(new ByteBuffer[byteBuffers.size()]));
         return Action.SCHEDULED;
     }
 
+    private long length(int index)
+    {
+        long length = 0;
+        List<ByteBuffer> byteBuffers = lease.getByteBuffers();
+        for (int i = index; i < byteBuffers.size(); ++i)
+            length += byteBuffers.get(i).remaining();
+        return length;
+    }
+
+    private void schedule(Entry entry, boolean first)
+    {
+        if (isStreamEntry(entry))
+        {
+            StreamEntries entries = streams.get(entry.streamId());
+            if (entries == null)
+            {
+                entries = new StreamEntries(entry.streamId());
+                entries.pass = virtualTime;
+                streams.put(entries.streamId, entries);
+                sharesValid = false;
+            }
+            entries.entries.offer(entry);
+        }
+        else
+        {
+            if (first)
+                controls.offerFirst(entry);
+            else
+                controls.offer(entry);
+        }
+    }
+
+    private boolean isStreamEntry(Entry entry)
+    {
+        return entry.stream != null && entry.frame.getType() == FrameType.DATA;
+    }
+
+    /**
+     * @param entry the entry to generate, that must be dequeued if stale or completely generated
+     * @return the number of bytes generated, or -1 if the entry is stalled by flow control
+     */
+    private long generate(Entry entry) throws Throwable
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("Processing {}", entry);
+
+        // If the stream has been reset or removed, don't send the frame.
+        if (entry.isStale())
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Stale {}", entry);
+            activate(entry);
+            return 0;
+        }
+
+        try
+        {
+            int index = lease.getSize();
+            if (!entry.generate(lease))
+                return -1;
+            activate(entry);
+            return length(index);
+        }
+        catch (Throwable failure)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Failure generating frame " + entry.frame, failure);
+            throw failure;
+        }
+    }
+
+    /**
+     * @param control the entry of a frame other than DATA
+     * @return whether the frame waits for DATA frames of its stream queued before it
+     */
+    private boolean isWaiting(Entry control) throws Throwable
+    {
+        int streamId = dataStreamId(control);
+        if (streamId == 0)
+            return false;
+        StreamEntries entries = streams.get(streamId);
+        while (entries != null)
+        {
+            Entry data = entries.entries.peek();
+            if (data.sequence > control.sequence)
+                return false;
+            // Stale DATA frames are discarded, so they do not hold the frame back.
+            if (!data.isStale())
+                return true;
+            generate(data);
+            dequeue(data);
+            entries = streams.get(streamId);
+        }
+        return false;
+    }
+
+    /**
+     * @param entry the entry of a frame other than DATA
+     * @return the id of the stream whose DATA frames must be written before the frame, or 0
+     */
+    private int dataStreamId(Entry entry)
+    {
+        // Flow control frames must not wait for DATA frames that may be
+        // stalled waiting for the peer, which may in turn wait for them.
+        switch (entry.frame.getType())
+        {
+            case HEADERS:
+                return ((HeadersFrame)entry.frame).getStreamId();
+            case PUSH_PROMISE:
+                return ((PushPromiseFrame)entry.frame).getStreamId();
+            default:
+                return 0;
+        }
+    }
+
+    private boolean isSessionEnd(Entry entry)
+    {
+        FrameType type = entry.frame.getType();
+        return type == FrameType.GO_AWAY || type == FrameType.DISCONNECT;
+    }
+
+    private StreamEntries select(long sequence)
+    {
+        // The shares only change with the streams that can
+        // be scheduled, or with the priority tree.
+        if (!sharesValid || sharesVersion != session.getPriorityTree().getVersion())
+            updateShares();
+
+        StreamEntries result = null;
+        for (StreamEntries entries : streams.values())
+        {
+            if (entries.stalled || entries.share <= 0)
+                continue;
+            if (entries.entries.peek().sequence > sequence)
+                continue;
+            if (result == null || entries.pass < result.pass)
+                result = entries;
+        }
+        return result;
+    }
+
+    private void updateShares()
+    {
+        PriorityTree tree = session.getPriorityTree();
+        // Read the version first, so that a concurrent change of the tree is not missed.
+        sharesVersion = tree.getVersion();
+        schedulable.clear();
+        for (StreamEntries entries : streams.values())
+        {
+            if (!entries.stalled)
+                schedulable.add(entries.streamId);
+        }
+        Map<Integer, Double> shares = tree.shares(schedulable);
+        for (StreamEntries entries : streams.values())
+        {
+            Double share = shares.get(entries.streamId);
+            entries.share = share == null ? 0 : share;
+        }
+        sharesValid = true;
+    }
+
+    /**
+     * @param entry the DATA entry at the head of the entries of its stream
+     */
+    private void dequeue(Entry entry)
+    {
+        StreamEntries entries = streams.get(entry.streamId());
+        if (entries != null && entries.entries.peek() == entry)
+        {
+            entries.entries.poll();
+            if (entries.entries.isEmpty())
+            {
+                streams.remove(entries.streamId);
+                sharesValid = false;
+            }
+        }
+    }
+
+    private void activate(Entry entry)
+    {
+        if (!entry.active)
+        {
+            entry.active = true;
+            actives.add(entry);
+        }
+    }
+
+    private Collection<Entry> scheduled()
+    {
+        Set<Entry> result = new LinkedHashSet<>(controls);
+        for (StreamEntries entries : streams.values())
+            result.addAll(entries.entries);
+        controls.clear();
+        streams.clear();
+        return result;
+    }
+
     @Override
     public void succeeded()
     {
@@ -222,28 +582,10 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     {
         lease.recycle();
 
-        actives.forEach(Entry::complete);
-
-        if (stalled != null)
+        for (Entry entry : actives)
         {
-            // We have written part of the frame, but there is more to write.
-            // The API will not allow to send two data frames for the same
-            // stream so we append the unfinished frame at the end to allow
-            // better interleaving with other streams.
-            int index = actives.indexOf(stalled);
-            for (int i = index; i < actives.size(); ++i)
-            {
-                Entry entry = actives.get(i);
-                if (entry.dataRemaining() > 0)
-                    append(entry);
-            }
-            for (int i = 0; i < index; ++i)
-            {
-                Entry entry = actives.get(i);
-                if (entry.dataRemaining() > 0)
-                    append(entry);
-            }
-            stalled = null;
+            entry.active = false;
+            entry.complete();
         }
 
         actives.clear();
@@ -260,15 +602,16 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     {
         lease.recycle();
 
-        Throwable closed;
-        synchronized (this)
+        Throwable closed = terminated.getAndSet(x);
+        Submission taken = reverse(submissions.getAndSet(CLOSED));
+        if (LOG.isDebugEnabled())
+            LOG.debug("{}, active/queued={}/{}", closed != null ? "Closing" : "Failing", actives.size(), getFrameQueueSize());
+        for (Entry entry : scheduled())
+            activate(entry);
+        for (Submission submission = taken; submission != null; submission = submission.next)
         {
-            closed = terminated;
-            terminated = x;
-            if (LOG.isDebugEnabled())
-                LOG.debug("{}, active/queued={}/{}", closed != null ? "Closing" : "Failing", actives.size(), frames.size());
-            actives.addAll(frames);
-            frames.clear();
+            if (submission.entry != null)
+                activate(submission.entry);
         }
 
         actives.forEach(entry -> entry.failed(x));
@@ -282,14 +625,9 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
 
     void terminate(Throwable cause)
     {
-        Throwable closed;
-        synchronized (this)
-        {
-            closed = terminated;
-            terminated = cause;
-            if (LOG.isDebugEnabled())
-                LOG.debug("{}", closed != null ? "Terminated" : "Terminating");
-        }
+        Throwable closed = terminated.getAndSet(cause);
+        if (LOG.isDebugEnabled())
+            LOG.debug("{}", closed != null ? "Terminated" : "Terminating");
         if (closed == null)
             iterate();
     }
@@ -314,10 +652,11 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     @Override
     public String toString()
     {
-        return String.format("%s[window_queue=%d,frame_queue=%d,actives=%d]",
+        return String.format("%s[window_queue=%d,frame_queue=%d,streams=%d,actives=%d]",
                 super.toString(),
                 getWindowQueueSize(),
                 getFrameQueueSize(),
+                streams.size(),
                 actives.size());
     }
 
@@ -325,6 +664,8 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     {
         protected final Frame frame;
         protected final IStream stream;
+        private long sequence;
+        private boolean active;
 
         protected Entry(Frame frame, IStream stream, Callback callback)
         {
@@ -340,6 +681,11 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
 
         protected abstract boolean generate(ByteBufferPool.Lease lease);
 
+        private int streamId()
+        {
+            return stream == null ? 0 : stream.getId();
+        }
+
         private void complete()
         {
             if (isStale())
@@ -394,6 +740,44 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         }
     }
 
+    private class StreamEntries
+    {
+        private final Queue<Entry> entries = new ArrayDeque<>();
+        private final int streamId;
+        private double share;
+        private double pass;
+        private boolean stalled;
+
+        private StreamEntries(int streamId)
+        {
+            this.streamId = streamId;
+        }
+
+        private void charge(long bytes)
+        {
+            // Start-time fair queueing: the virtual time is the start
+            // tag of the last stream served, and each stream advances
+            // by the bytes written in inverse proportion of its share.
+            virtualTime = Math.max(virtualTime, pass);
+            pass += bytes / share;
+        }
+    }
+
+    private static class Submission
+    {
+        private final Entry entry;
+        private final WindowEntry window;
+        private final boolean first;
+        private Submission next;
+
+        private Submission(Entry entry, WindowEntry window, boolean first)
+        {
+            this.entry = entry;
+            this.window = window;
+            this.first = first;
+        }
+    }
+
     private class WindowEntry
     {
         private final IStream stream;
@@ -84,6 +84,7 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
     private final Session.Listener listener;
     private final FlowControlStrategy flowControl;
     private final HTTP2Flusher flusher;
+    private final PriorityTree priorityTree = new PriorityTree();
     private int maxLocalStreams;
     private int maxRemoteStreams;
     private long streamIdleTimeout;
@@ -195,6 +196,45 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
         return generator;
     }
 
+    /**
+     * @return the stream dependency tree built from the priority information received
+     */
+    public PriorityTree getPriorityTree()
+    {
+        return priorityTree;
+    }
+
+    @ManagedAttribute("The max number of bytes generated for a single write")
+    public int getMaxWriteSize()
+    {
+        return flusher.getMaxWriteSize();
+    }
+
+    public void setMaxWriteSize(int maxWriteSize)
+    {
+        flusher.setMaxWriteSize(maxWriteSize);
+    }
+
+    @ManagedAttribute(value = "The number of writes", readonly = true)
+    public long getWrites()
+    {
+        return flusher.getWrites();
+    }
+
+    @ManagedAttribute(value = "The average number of frames per write", readonly = true)
+    public double getFramesPerWrite()
+    {
+        long writes = flusher.getWrites();
+        return writes == 0 ? 0 : (double)flusher.getWrittenFrames() / writes;
+    }
+
+    @ManagedAttribute(value = "The average number of bytes per write", readonly = true)
+    public double getBytesPerWrite()
+    {
+        long writes = flusher.getWrites();
+        return writes == 0 ? 0 : (double)flusher.getWrittenBytes() / writes;
+    }
+
     @Override
     public long getBytesWritten()
     {
@@ -272,6 +312,42 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
     {
         if (LOG.isDebugEnabled())
             LOG.debug("Received {}", frame);
+
+        // Closed streams are not in the tree anymore, and must not be added back.
+        int streamId = frame.getStreamId();
+        if (isClosed(streamId))
+            return;
+
+        int parentStreamId = frame.getParentStreamId();
+        int weight = frame.getWeight();
+        boolean exclusive = frame.isExclusive();
+        if (isClosed(parentStreamId))
+        {
+            // SPEC: depending on a stream that is not in the tree
+            // results in the default priority being assigned.
+            parentStreamId = 0;
+            weight = PriorityTree.DEFAULT_WEIGHT;
+            exclusive = false;
+        }
+        priorityTree.prioritize(streamId, parentStreamId, weight, exclusive);
+        // Nodes of open streams are only removed when the streams are closed.
+        if (getStream(streamId) != null)
+            priorityTree.open(streamId);
+        if (parentStreamId != 0 && getStream(parentStreamId) != null)
+            priorityTree.open(parentStreamId);
+    }
+
+    /**
+     * @param streamId the stream id
+     * @return whether the given stream has been opened and it is now closed
+     */
+    private boolean isClosed(int streamId)
+    {
+        if (streamId == 0 || getStream(streamId) != null)
+            return false;
+        int nextStreamId = streamIds.get();
+        boolean local = ((streamId ^ nextStreamId) & 1) == 0;
+        return local ? streamId < nextStreamId : streamId <= lastStreamId.get();
     }
 
     @Override
@@ -696,6 +772,7 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
         {
             stream.setIdleTimeout(getStreamIdleTimeout());
             flowControl.onStreamCreated(stream);
+            priorityTree.open(streamId);
             if (LOG.isDebugEnabled())
                 LOG.debug("Created local {}", stream);
             return stream;
@@ -731,6 +808,7 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
             updateLastStreamId(streamId);
             stream.setIdleTimeout(getStreamIdleTimeout());
             flowControl.onStreamCreated(stream);
+            priorityTree.open(streamId);
             if (LOG.isDebugEnabled())
                 LOG.debug("Created remote {}", stream);
             return stream;
@@ -761,6 +839,8 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
 
             onStreamClosed(stream);
 
+            priorityTree.remove(stream.getId());
+
             flowControl.onStreamDestroyed(stream);
 
             if (LOG.isDebugEnabled())
@@ -1271,12 +1351,14 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
             int length = Math.min(dataRemaining, window);
 
             // Only one DATA frame is generated.
-            bytes = generator.data(lease, (DataFrame)frame, length);
+            int bytes = generator.data(lease, (DataFrame)frame, length);
             int written = bytes - Frame.HEADER_LENGTH;
             if (LOG.isDebugEnabled())
                 LOG.debug("Generated {}, length/window/data={}/{}/{}", frame, written, window, dataRemaining);
 
-            this.dataWritten = written;
+            // The entry may be generated more than once before it is written.
+            this.bytes += bytes;
+            this.dataWritten += written;
             this.dataRemaining -= written;
 
             flowControl.onDataSending(stream, written);
@@ -1289,6 +1371,8 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
         {
             bytesWritten.addAndGet(bytes);
             flowControl.onDataSent(stream, dataWritten);
+            bytes = 0;
+            dataWritten = 0;
 
             // Do we have more to send ?
             DataFrame dataFrame = (DataFrame)frame;
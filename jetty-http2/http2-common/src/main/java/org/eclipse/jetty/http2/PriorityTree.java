@@ -0,0 +1,316 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>The stream dependency tree of a session, as defined by
+ * <a href="https://tools.ietf.org/html/rfc7540#section-5.3">RFC 7540, section 5.3</a>.</p>
+ * <p>Streams are added to the tree by the priority information carried by
+ * HEADERS and PRIORITY frames, and are removed from the tree when they are
+ * closed, in which case their dependent streams are moved to their parent.
+ * Streams without priority information depend on the root with the default
+ * weight.</p>
+ * <p>Priority information may also refer to idle streams, that are not open yet
+ * and may never be; the nodes of those streams are bounded in number, and the
+ * least recently prioritized ones are evicted first. The node of a stream that
+ * is {@link #open(int) open} is only removed when the stream is closed.</p>
+ * <p>The tree is used by {@link HTTP2Flusher} to compute, via {@link #shares(Collection)},
+ * the share of the connection that each stream with frames to send should get.</p>
+ */
+public class PriorityTree
+{
+    public static final int DEFAULT_WEIGHT = 16;
+
+    private final Map<Integer, Node> nodes = new HashMap<>();
+    private final Map<Integer, Node> idles = new LinkedHashMap<>();
+    private final Node root = new Node(0, DEFAULT_WEIGHT);
+    private final int maxNodes;
+    private int mark;
+    private volatile int version;
+
+    public PriorityTree()
+    {
+        this(1024);
+    }
+
+    /**
+     * @param maxNodes the max number of streams that are not open that are kept
+     * in the tree, to bound the memory used by the tree
+     */
+    public PriorityTree(int maxNodes)
+    {
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * <p>Applies the given priority information to the given stream,
+     * possibly adding the stream and its parent to the tree.</p>
+     *
+     * @param streamId the stream id
+     * @param parentStreamId the id of the stream the stream depends on, or 0 for the root
+     * @param weight the weight of the stream, between 1 and 256
+     * @param exclusive whether the stream becomes the sole dependency of its parent
+     */
+    public synchronized void prioritize(int streamId, int parentStreamId, int weight, boolean exclusive)
+    {
+        // SPEC: a stream cannot depend on itself, this
+        // is a stream error that we just ignore here.
+        if (streamId <= 0 || streamId == parentStreamId)
+            return;
+        ++version;
+
+        // SPEC: depending on a stream that is not in the tree results
+        // in that stream being added with the default priority.
+        Node parent = parentStreamId == 0 ? root : touch(parentStreamId);
+        Node node = touch(streamId);
+
+        // SPEC: if the new parent depends on the stream, it
+        // is first moved to depend on the stream's parent.
+        if (parent.dependsOn(node))
+        {
+            parent.parent.remove(parent);
+            node.parent.add(parent);
+        }
+
+        node.parent.remove(node);
+        node.weight = Math.max(1, Math.min(256, weight));
+        if (exclusive)
+        {
+            for (Node child : parent.children)
+                node.add(child);
+            parent.children.clear();
+        }
+        parent.add(node);
+
+        // Evict the least recently prioritized idle streams.
+        while (idles.size() > maxNodes)
+            remove(idles.keySet().iterator().next());
+    }
+
+    /**
+     * @param streamId the stream id
+     * @return the node of the stream, added to the tree as idle if not present,
+     * and moved last in the eviction order if idle
+     */
+    private Node touch(int streamId)
+    {
+        Node node = nodes.get(streamId);
+        if (node == null)
+        {
+            node = new Node(streamId, DEFAULT_WEIGHT);
+            node.idle = true;
+            nodes.put(streamId, node);
+            root.add(node);
+        }
+        if (node.idle)
+        {
+            idles.remove(streamId);
+            idles.put(streamId, node);
+        }
+        return node;
+    }
+
+    /**
+     * <p>Marks the given stream as open, so that its node, if any,
+     * is not evicted and is only removed when the stream is closed.</p>
+     *
+     * @param streamId the id of the stream that has been opened
+     */
+    public synchronized void open(int streamId)
+    {
+        Node node = idles.remove(streamId);
+        if (node != null)
+            node.idle = false;
+    }
+
+    /**
+     * <p>Removes the given stream from the tree, moving its dependent streams to its parent
+     * with weights that are the stream weight distributed in proportion of their weights.</p>
+     *
+     * @param streamId the id of the stream to remove
+     */
+    public synchronized void remove(int streamId)
+    {
+        Node node = nodes.remove(streamId);
+        if (node == null)
+            return;
+        ++version;
+        idles.remove(streamId);
+
+        Node parent = node.parent;
+        parent.remove(node);
+        int weights = 0;
+        for (Node child : node.children)
+            weights += child.weight;
+        for (Node child : node.children)
+        {
+            child.weight = Math.max(1, node.weight * child.weight / weights);
+            parent.add(child);
+        }
+        node.children.clear();
+    }
+
+    /**
+     * @param streamId the stream id
+     * @return the weight of the stream, or the default weight if the stream is not in the tree
+     */
+    public synchronized int getWeight(int streamId)
+    {
+        Node node = nodes.get(streamId);
+        return node == null ? DEFAULT_WEIGHT : node.weight;
+    }
+
+    /**
+     * @param streamId the stream id
+     * @return the id of the stream the stream depends on, or 0 if it depends on the root
+     */
+    public synchronized int getParentStreamId(int streamId)
+    {
+        Node node = nodes.get(streamId);
+        return node == null ? 0 : node.parent.streamId;
+    }
+
+    /**
+     * @return a number that changes every time the shape or the weights of the tree change,
+     * so that the {@link #shares(Collection) shares} computed before remain valid until then
+     */
+    public int getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * @return the number of streams in the tree
+     */
+    public synchronized int size()
+    {
+        return nodes.size();
+    }
+
+    /**
+     * <p>Computes the share of the connection of the given streams, that have frames to send.</p>
+     * <p>A stream has no share if one of the streams it depends on has frames to send, otherwise
+     * it gets the share of its parent that is in proportion of its weight among its siblings that
+     * have frames to send, either themselves or via the streams that depend on them.</p>
+     *
+     * @param streamIds the ids of the streams that have frames to send
+     * @return the share, between 0 and 1, of each of the streams that have one
+     */
+    public synchronized Map<Integer, Double> shares(Collection<Integer> streamIds)
+    {
+        int mark = ++this.mark;
+        List<Node> actives = new ArrayList<>();
+        root.active = mark;
+
+        // Mark the streams and their ancestors as active.
+        for (Integer streamId : streamIds)
+        {
+            Node node = nodes.get(streamId);
+            if (node == null)
+            {
+                // Streams that are not in the tree depend on the root.
+                node = new Node(streamId, DEFAULT_WEIGHT);
+                node.parent = root;
+            }
+            node.ready = mark;
+            for (Node n = node; n.active != mark; n = n.parent)
+            {
+                n.active = mark;
+                n.activeWeight = 0;
+                actives.add(n);
+            }
+        }
+        root.activeWeight = 0;
+        for (Node node : actives)
+            node.parent.activeWeight += node.weight;
+
+        Map<Integer, Double> result = new HashMap<>(streamIds.size() * 2);
+        for (Node node : actives)
+        {
+            if (node.ready != mark)
+                continue;
+            double share = 1.0D;
+            for (Node n = node; n != root; n = n.parent)
+            {
+                if (n != node && n.ready == mark)
+                {
+                    share = 0;
+                    break;
+                }
+                share *= (double)n.weight / n.parent.activeWeight;
+            }
+            if (share > 0)
+                result.put(node.streamId, share);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[size=%d]", getClass().getSimpleName(), hashCode(), size());
+    }
+
+    private static class Node
+    {
+        private final int streamId;
+        private final List<Node> children = new ArrayList<>(2);
+        private int weight;
+        private Node parent;
+        private int active;
+        private int ready;
+        private int activeWeight;
+        private boolean idle;
+
+        private Node(int streamId, int weight)
+        {
+            this.streamId = streamId;
+            this.weight = weight;
+        }
+
+        private boolean dependsOn(Node node)
+        {
+            for (Node n = parent; n != null; n = n.parent)
+            {
+                if (n == node)
+                    return true;
+            }
+            return false;
+        }
+
+        private void add(Node child)
+        {
+            child.parent = this;
+            children.add(child);
+        }
+
+        private void remove(Node child)
+        {
+            children.remove(child);
+            child.parent = null;
+        }
+    }
+}
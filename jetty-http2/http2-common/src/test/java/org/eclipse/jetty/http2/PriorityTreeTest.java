@@ -0,0 +1,176 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PriorityTreeTest
+{
+    @Test
+    public void testStreamsWithoutPriorityShareEqually() throws Exception
+    {
+        PriorityTree tree = new PriorityTree();
+        Map<Integer, Double> shares = tree.shares(Arrays.asList(1, 3, 5, 7));
+        Assert.assertEquals(4, shares.size());
+        for (double share : shares.values())
+            Assert.assertEquals(0.25D, share, 0.0001D);
+        Assert.assertEquals(0, tree.size());
+    }
+
+    @Test
+    public void testSharesInProportionOfWeight() throws Exception
+    {
+        PriorityTree tree = new PriorityTree();
+        tree.prioritize(1, 0, 1, false);
+        tree.prioritize(3, 0, 3, false);
+        Map<Integer, Double> shares = tree.shares(Arrays.asList(1, 3));
+        Assert.assertEquals(0.25D, shares.get(1), 0.0001D);
+        Assert.assertEquals(0.75D, shares.get(3), 0.0001D);
+    }
+
+    @Test
+    public void testDependentStreamHasNoShareWhileParentIsReady() throws Exception
+    {
+        PriorityTree tree = new PriorityTree();
+        tree.prioritize(3, 1, 16, false);
+        tree.prioritize(5, 1, 16, false);
+        Assert.assertEquals(1, tree.getParentStreamId(3));
+
+        Map<Integer, Double> shares = tree.shares(Arrays.asList(1, 3, 5));
+        Assert.assertEquals(1, shares.size());
+        Assert.assertEquals(1D, shares.get(1), 0.0001D);
+
+        // When the parent has nothing to send, its children share its share.
+        shares = tree.shares(Arrays.asList(3, 5));
+        Assert.assertEquals(0.5D, shares.get(3), 0.0001D);
+        Assert.assertEquals(0.5D, shares.get(5), 0.0001D);
+    }
+
+    @Test
+    public void testInactiveSiblingsDoNotTakeShare() throws Exception
+    {
+        PriorityTree tree = new PriorityTree();
+        tree.prioritize(1, 0, 64, false);
+        tree.prioritize(3, 0, 64, false);
+        tree.prioritize(5, 3, 16, false);
+        tree.prioritize(7, 0, 128, false);
+
+        // Stream 3 is not ready, but its child is: it takes the share of 3.
+        Map<Integer, Double> shares = tree.shares(Arrays.asList(1, 5));
+        Assert.assertEquals(0.5D, shares.get(1), 0.0001D);
+        Assert.assertEquals(0.5D, shares.get(5), 0.0001D);
+    }
+
+    @Test
+    public void testExclusiveDependency() throws Exception
+    {
+        PriorityTree tree = new PriorityTree();
+        tree.prioritize(3, 1, 16, false);
+        tree.prioritize(5, 1, 16, false);
+        tree.prioritize(7, 1, 32, true);
+
+        Assert.assertEquals(1, tree.getParentStreamId(7));
+        Assert.assertEquals(7, tree.getParentStreamId(3));
+        Assert.assertEquals(7, tree.getParentStreamId(5));
+        Assert.assertEquals(32, tree.getWeight(7));
+    }
+
+    @Test
+    public void testDependencyOnDescendant() throws Exception
+    {
+        PriorityTree tree = new PriorityTree();
+        // 1 <- 3 <- 5, then 1 is made dependent on 5.
+        tree.prioritize(3, 1, 16, false);
+        tree.prioritize(5, 3, 16, false);
+        tree.prioritize(1, 5, 16, false);
+
+        // SPEC: 5 is first moved to depend on the former parent of 1.
+        Assert.assertEquals(0, tree.getParentStreamId(5));
+        Assert.assertEquals(5, tree.getParentStreamId(1));
+        Assert.assertEquals(1, tree.getParentStreamId(3));
+    }
+
+    @Test
+    public void testSelfDependencyIsIgnored() throws Exception
+    {
+        PriorityTree tree = new PriorityTree();
+        tree.prioritize(1, 1, 32, false);
+        Assert.assertEquals(0, tree.size());
+    }
+
+    @Test
+    public void testRemoveMovesChildrenToParent() throws Exception
+    {
+        PriorityTree tree = new PriorityTree();
+        tree.prioritize(1, 0, 32, false);
+        tree.prioritize(3, 1, 16, false);
+        tree.prioritize(5, 1, 48, false);
+
+        tree.remove(1);
+
+        Assert.assertEquals(2, tree.size());
+        Assert.assertEquals(0, tree.getParentStreamId(3));
+        Assert.assertEquals(0, tree.getParentStreamId(5));
+        // The weight of the removed stream is distributed to its children.
+        Assert.assertEquals(8, tree.getWeight(3));
+        Assert.assertEquals(24, tree.getWeight(5));
+    }
+
+    @Test
+    public void testMaxNodes() throws Exception
+    {
+        PriorityTree tree = new PriorityTree(2);
+        tree.prioritize(1, 0, 32, false);
+        tree.prioritize(3, 0, 32, false);
+        tree.prioritize(5, 0, 32, false);
+        Assert.assertEquals(2, tree.size());
+        // The least recently prioritized idle stream is evicted.
+        Assert.assertEquals(PriorityTree.DEFAULT_WEIGHT, tree.getWeight(1));
+        Assert.assertEquals(32, tree.getWeight(3));
+        Assert.assertEquals(32, tree.getWeight(5));
+
+        tree.prioritize(3, 0, 64, false);
+        tree.prioritize(7, 0, 32, false);
+        Assert.assertEquals(2, tree.size());
+        Assert.assertEquals(PriorityTree.DEFAULT_WEIGHT, tree.getWeight(5));
+        Assert.assertEquals(64, tree.getWeight(3));
+    }
+
+    @Test
+    public void testOpenNodesAreNotEvicted() throws Exception
+    {
+        PriorityTree tree = new PriorityTree(2);
+        tree.prioritize(1, 0, 32, false);
+        tree.open(1);
+        tree.prioritize(3, 1, 32, false);
+        tree.prioritize(5, 1, 32, false);
+        tree.prioritize(7, 1, 32, false);
+        Assert.assertEquals(3, tree.size());
+        Assert.assertEquals(32, tree.getWeight(1));
+        Assert.assertEquals(1, tree.getParentStreamId(7));
+
+        tree.remove(1);
+        Assert.assertEquals(2, tree.size());
+        Assert.assertEquals(0, tree.getParentStreamId(7));
+    }
+}
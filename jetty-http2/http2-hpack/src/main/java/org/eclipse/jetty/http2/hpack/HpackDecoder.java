@@ -44,6 +44,7 @@ public class HpackDecoder
     private final HpackContext _context;
     private final MetaDataBuilder _builder;
     private int _localMaxDynamicTableSize;
+    private boolean _lazyDecoding;
 
     /**
      * @param localMaxDynamicTableSize  The maximum allowed size of the local dynamic header field table.
@@ -66,6 +67,25 @@ public class HpackDecoder
         _localMaxDynamicTableSize=localMaxdynamciTableSize;
     }
 
+    public boolean isLazyDecoding()
+    {
+        return _lazyDecoding;
+    }
+
+    /**
+     * <p>Sets whether the values of the fields that are sent literally and not indexed are
+     * decoded lazily.</p>
+     * <p>When lazy decoding is enabled, the encoded bytes of those values are copied into a
+     * single array per header block, and the values are only decoded into {@link String}s
+     * when they are accessed, see {@link LazyHttpField}.</p>
+     *
+     * @param lazyDecoding whether to decode values lazily
+     */
+    public void setLazyDecoding(boolean lazyDecoding)
+    {
+        _lazyDecoding=lazyDecoding;
+    }
+
     public MetaData decode(ByteBuffer buffer)
     {
         if (LOG.isDebugEnabled())
@@ -75,6 +95,10 @@ public class HpackDecoder
         if (buffer.remaining()>_builder.getMaxSize())
             throw new BadMessageException(HttpStatus.REQUEST_HEADER_FIELDS_TOO_LARGE_431,"Header frame size "+buffer.remaining()+">"+_builder.getMaxSize());
 
+        // The encoded values of lazy fields, as the buffer is not retained.
+        byte[] lazyBytes=null;
+        int lazyLength=0;
+
         while(buffer.hasRemaining())
         {
             if (LOG.isDebugEnabled() && buffer.hasArray())
@@ -188,46 +212,27 @@ public class HpackDecoder
                 boolean huffmanValue = (buffer.get()&0x80)==0x80;
                 int length = NBitInteger.decode(buffer,7);
                 _builder.checkSize(length,huffmanValue);
-                if (huffmanValue)
-                    value=Huffman.decode(buffer,length);
-                else
-                    value=toASCIIString(buffer,length);
 
                 // Make the new field
                 HttpField field;
-                if (header==null)
+                if (_lazyDecoding && !indexed && isLazy(header,name))
                 {
-                    // just make a normal field and bypass header name lookup
-                    field = new HttpField(null,name,value);
+                    if (lazyBytes==null)
+                        lazyBytes=new byte[buffer.remaining()];
+                    buffer.get(lazyBytes,lazyLength,length);
+                    // Validate now, so that a bad encoding is a decoding
+                    // error rather than a failure when the value is read.
+                    int valueLength=huffmanValue?Huffman.check(ByteBuffer.wrap(lazyBytes,lazyLength,length),length):length;
+                    field=new LazyHttpField(header,name,lazyBytes,lazyLength,length,huffmanValue,valueLength);
+                    lazyLength+=length;
                 }
                 else
                 {
-                    // might be worthwhile to create a value HttpField if it is indexed
-                    // and/or of a type that may be looked up multiple times.
-                    switch(header)
-                    {
-                        case C_STATUS:
-                            if (indexed)
-                                field = new HttpField.IntValueHttpField(header,name,value);
-                            else
-                                field = new HttpField(header,name,value);
-                            break;
-
-                        case C_AUTHORITY:
-                            field = new AuthorityHttpField(value);
-                            break;
-
-                        case CONTENT_LENGTH:
-                            if ("0".equals(value))
-                                field = CONTENT_LENGTH_0;
-                            else
-                                field = new HttpField.LongValueHttpField(header,name,value);
-                            break;
-
-                        default:
-                            field = new HttpField(header,name,value);
-                            break;
-                    }
+                    if (huffmanValue)
+                        value=Huffman.decode(buffer,length);
+                    else
+                        value=toASCIIString(buffer,length);
+                    field=newHttpField(header,name,value,indexed);
                 }
 
                 if (LOG.isDebugEnabled())
@@ -256,6 +261,56 @@ public class HpackDecoder
         return _builder.build();
     }
 
+    private HttpField newHttpField(HttpHeader header, String name, String value, boolean indexed)
+    {
+        if (header==null)
+        {
+            // just make a normal field and bypass header name lookup
+            return new HttpField(null,name,value);
+        }
+
+        // might be worthwhile to create a value HttpField if it is indexed
+        // and/or of a type that may be looked up multiple times.
+        switch(header)
+        {
+            case C_STATUS:
+                if (indexed)
+                    return new HttpField.IntValueHttpField(header,name,value);
+                return new HttpField(header,name,value);
+
+            case C_AUTHORITY:
+                return new AuthorityHttpField(value);
+
+            case CONTENT_LENGTH:
+                if ("0".equals(value))
+                    return CONTENT_LENGTH_0;
+                return new HttpField.LongValueHttpField(header,name,value);
+
+            default:
+                return new HttpField(header,name,value);
+        }
+    }
+
+    private boolean isLazy(HttpHeader header, String name)
+    {
+        // The fields used to build the MetaData are not lazy.
+        if (header==null)
+            return name.charAt(0)!=':';
+        switch (header)
+        {
+            case C_METHOD:
+            case C_SCHEME:
+            case C_AUTHORITY:
+            case C_PATH:
+            case C_STATUS:
+            case HOST:
+            case CONTENT_LENGTH:
+                return false;
+            default:
+                return name.charAt(0)!=':';
+        }
+    }
+
     public static String toASCIIString(ByteBuffer buffer,int length)
     {
         StringBuilder builder = new StringBuilder(length);
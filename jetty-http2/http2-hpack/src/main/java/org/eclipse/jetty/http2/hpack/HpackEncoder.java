@@ -89,6 +89,7 @@ public class HpackEncoder
     private int _localMaxDynamicTableSize;
     private int _maxHeaderListSize;
     private int _headerListSize;
+    private HpackFieldCache _fieldCache;
 
     public HpackEncoder()
     {
@@ -129,6 +130,19 @@ public class HpackEncoder
         return _context;
     }
 
+    public HpackFieldCache getFieldCache()
+    {
+        return _fieldCache;
+    }
+
+    /**
+     * @param fieldCache the cache of encoded field values, possibly shared with other encoders, or null for no cache
+     */
+    public void setFieldCache(HpackFieldCache fieldCache)
+    {
+        _fieldCache=fieldCache;
+    }
+
     public void setRemoteMaxDynamicTableSize(int remoteMaxDynamicTableSize)
     {
         _remoteMaxDynamicTableSize=remoteMaxDynamicTableSize;
@@ -262,7 +276,7 @@ public class HpackEncoder
                     // unless the name is changing, this is worthwhile
                     indexed=true;
                     encodeName(buffer,(byte)0x40,6,field.getName(),null);
-                    encodeValue(buffer,true,field.getValue());
+                    encodeValue(buffer,true,field);
                     if (_debug)
                         encoding="LitHuffNHuffVIdx";
                 }
@@ -272,7 +286,7 @@ public class HpackEncoder
                     // This is probably a custom field with changing value, so don't index.
                     indexed=false;
                     encodeName(buffer,(byte)0x00,4,field.getName(),null);
-                    encodeValue(buffer,true,field.getValue());
+                    encodeValue(buffer,true,field);
                     if (_debug)
                         encoding="LitHuffNHuffV!Idx";
                 }
@@ -299,7 +313,7 @@ public class HpackEncoder
                     boolean never_index=__NEVER_INDEX.contains(header);
                     boolean huffman=!__DO_NOT_HUFFMAN.contains(header);
                     encodeName(buffer,never_index?(byte)0x10:(byte)0x00,4,header.asString(),name);
-                    encodeValue(buffer,huffman,field.getValue());
+                    encodeValue(buffer,huffman,field);
 
                     if (_debug)
                         encoding="Lit"+
@@ -312,7 +326,7 @@ public class HpackEncoder
                     // Non indexed if field too large or a content length for 3 digits or more
                     indexed=false;
                     encodeName(buffer,(byte)0x00,4,header.asString(),name);
-                    encodeValue(buffer,true,field.getValue());
+                    encodeValue(buffer,true,field);
                     if (_debug)
                         encoding="LitIdxNS"+(1+NBitInteger.octectsNeeded(4,_context.index(name)))+"HuffV!Idx";
                 }
@@ -322,7 +336,7 @@ public class HpackEncoder
                     indexed=true;
                     boolean huffman=!__DO_NOT_HUFFMAN.contains(header);
                     encodeName(buffer,(byte)0x40,6,header.asString(),name);
-                    encodeValue(buffer,huffman,field.getValue());
+                    encodeValue(buffer,huffman,field);
                     if (_debug)
                         encoding=((name==null)?"LitHuffN":("LitIdxN"+(name.isStatic()?"S":"")+(1+NBitInteger.octectsNeeded(6,_context.index(name)))))+
                                 (huffman?"HuffVIdx":"LitVIdx");
@@ -361,6 +375,20 @@ public class HpackEncoder
         }
     }
 
+    private void encodeValue(ByteBuffer buffer, boolean huffman, HttpField field)
+    {
+        if (huffman && _fieldCache!=null)
+        {
+            byte[] encoded=_fieldCache.getEncodedValue(field);
+            if (encoded!=null)
+            {
+                buffer.put(encoded);
+                return;
+            }
+        }
+        encodeValue(buffer,huffman,field.getValue());
+    }
+
     static void encodeValue(ByteBuffer buffer, boolean huffman, String value)
     {
         if (huffman)
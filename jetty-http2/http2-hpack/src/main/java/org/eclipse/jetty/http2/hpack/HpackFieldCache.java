@@ -0,0 +1,218 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.util.FrequencySketch;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+
+/**
+ * <p>A bounded cache of the Huffman encoded values of {@link HttpField}s,
+ * that can be shared by the {@link HpackEncoder}s of many sessions.</p>
+ * <p>The dynamic table of each session avoids to re-encode the fields that
+ * the session has already sent, but the fields sent for the first time on a
+ * session, or the fields that are not indexed, are encoded literally, and
+ * the cost of their Huffman encoding is only paid once with this cache.</p>
+ * <p>Fields whose values are sensitive or change often, such as
+ * {@code Authorization}, {@code Set-Cookie} or {@code Date}, are never cached,
+ * and neither are {@code Content-Length} and {@code :path}, whose values are
+ * mostly unique and would evict the well known values that are sent repeatedly.
+ * Other fields are only cached once they have been seen more than once, so that
+ * the values that are unique per response, such as {@code ETag} or {@code Location},
+ * are encoded directly by the encoder rather than cached.</p>
+ * <p>When the cache is full, the oldest cached field is evicted only if it is
+ * less frequent than the new field, otherwise it is given another chance and
+ * the new field is not cached.</p>
+ */
+@ManagedObject("Cache of HPACK encoded field values")
+public class HpackFieldCache
+{
+    private final ConcurrentMap<HttpField, byte[]> _cache = new ConcurrentHashMap<>();
+    private final Queue<HttpField> _keys = new ConcurrentLinkedQueue<>();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final FrequencySketch _frequencies;
+    private final int _maxEntries;
+    private final int _maxValueLength;
+
+    public HpackFieldCache()
+    {
+        this(4096,256);
+    }
+
+    /**
+     * @param maxEntries the max number of cached fields
+     * @param maxValueLength the max length of the values of the cached fields
+     */
+    public HpackFieldCache(int maxEntries, int maxValueLength)
+    {
+        _maxEntries=maxEntries;
+        _maxValueLength=maxValueLength;
+        _frequencies=new FrequencySketch(maxEntries);
+    }
+
+    /**
+     * @param field the field to encode
+     * @return the Huffman encoded value of the field, prefixed by its length,
+     * or null if the field is not cached and should be encoded by the caller
+     */
+    public byte[] getEncodedValue(HttpField field)
+    {
+        if (!isCacheable(field))
+            return null;
+
+        // Concurrent updates of the sketch may be lost,
+        // which only delays the admission of the field.
+        _frequencies.increment(field);
+
+        byte[] encoded=_cache.get(field);
+        if (encoded!=null)
+        {
+            _hits.increment();
+            return encoded;
+        }
+
+        _misses.increment();
+        if (!isAdmitted(field))
+            return null;
+
+        String value=field.getValue();
+        int length=Huffman.octetsNeeded(value);
+        ByteBuffer buffer=ByteBuffer.allocate(1+NBitInteger.octectsNeeded(7,length)+length);
+        HpackEncoder.encodeValue(buffer,true,value);
+        encoded=buffer.array();
+
+        if (_cache.putIfAbsent(field,encoded)==null)
+            _keys.offer(field);
+        return encoded;
+    }
+
+    private boolean isCacheable(HttpField field)
+    {
+        String value=field.getValue();
+        if (value==null || value.length()>_maxValueLength)
+            return false;
+        HttpHeader header=field.getHeader();
+        if (header==null)
+            return true;
+        switch (header)
+        {
+            case DATE:
+            case CONTENT_LENGTH:
+            case C_PATH:
+                return false;
+            default:
+                return !HpackEncoder.__DO_NOT_INDEX.contains(header);
+        }
+    }
+
+    private boolean isAdmitted(HttpField field)
+    {
+        int frequency=_frequencies.frequency(field);
+        if (frequency<=1)
+            return false;
+
+        // The keys queue is not atomic with the cache map,
+        // so it may hold keys that are no longer cached.
+        boolean compared=false;
+        while (_cache.size()>=_maxEntries)
+        {
+            HttpField victim=_keys.poll();
+            if (victim==null)
+                break;
+            if (!_cache.containsKey(victim))
+                continue;
+            // Only evict a cached field for a more frequent one, so that
+            // fields seldom sent do not flush the frequent ones. Only the
+            // first victim is compared, so that no field is evicted in vain.
+            if (!compared && _frequencies.frequency(victim)>=frequency)
+            {
+                _keys.offer(victim);
+                return false;
+            }
+            compared=true;
+            _cache.remove(victim);
+        }
+        return true;
+    }
+
+    @ManagedAttribute("The max number of cached fields")
+    public int getMaxEntries()
+    {
+        return _maxEntries;
+    }
+
+    @ManagedAttribute("The max length of the values of the cached fields")
+    public int getMaxValueLength()
+    {
+        return _maxValueLength;
+    }
+
+    @ManagedAttribute("The number of cached fields")
+    public int getSize()
+    {
+        return _cache.size();
+    }
+
+    @ManagedAttribute("The number of cache hits")
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    @ManagedAttribute("The number of cache misses")
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    @ManagedAttribute("The ratio of cache hits over cache lookups")
+    public double getHitRatio()
+    {
+        long hits=getHits();
+        long lookups=hits+getMisses();
+        return lookups==0?0:(double)hits/lookups;
+    }
+
+    @ManagedOperation(value="Clears the cache and its statistics",impact="ACTION")
+    public void clear()
+    {
+        _cache.clear();
+        _keys.clear();
+        _frequencies.clear();
+        _hits.reset();
+        _misses.reset();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{size=%d,hits=%d,misses=%d}",getClass().getSimpleName(),hashCode(),getSize(),getHits(),getMisses());
+    }
+}
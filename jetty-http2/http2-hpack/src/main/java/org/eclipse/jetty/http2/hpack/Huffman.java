@@ -286,6 +286,8 @@ public class Huffman
         /*EOS (256)  |11111111|11111111|11111111|111111   */   {0x3fffffff,30},
     };
 
+    static final char EOS = 256;
+
     static final int[][] LCCODES = new int[CODES.length][];
     
     // Huffman decode tree stored in a flattened char array for good 
@@ -352,6 +354,26 @@ public class Huffman
     public static String decode(ByteBuffer buffer,int length)
     {        
         StringBuilder out = new StringBuilder(length*2);
+        decode(buffer,length,out);
+        return out.toString();
+    }
+
+    /**
+     * <p>Checks that the given bytes can be decoded, without decoding them.</p>
+     *
+     * @param buffer the buffer positioned at the Huffman encoded bytes
+     * @param length the number of encoded bytes
+     * @return the number of decoded characters
+     * @throws IllegalArgumentException if the bytes are not a valid Huffman encoding
+     */
+    public static int check(ByteBuffer buffer,int length)
+    {
+        return decode(buffer,length,null);
+    }
+
+    private static int decode(ByteBuffer buffer,int length,StringBuilder out)
+    {
+        int decoded = 0;
         int node = 0;
         int current = 0;
         int bits = 0;
@@ -374,7 +396,8 @@ public class Huffman
                 if (rowbits[node]!=0) 
                 {
                     // terminal node
-                    out.append(rowsym[node]);
+                    emit(out,rowsym[node]);
+                    decoded++;
                     bits -= rowbits[node];
                     node = 0;
                 } 
@@ -396,12 +419,21 @@ public class Huffman
             if (rowbits[node]==0)
                 throw new IllegalStateException();
             
-            out.append(rowsym[node]);
+            emit(out,rowsym[node]);
+            decoded++;
             bits -= rowbits[node];
             node = 0;
         }
+        return decoded;
+    }
 
-        return out.toString();
+    private static void emit(StringBuilder out, char symbol)
+    {
+        // SPEC: the EOS symbol in a string literal is a decoding error.
+        if (symbol==EOS)
+            throw new IllegalArgumentException("EOS in Huffman string");
+        if (out!=null)
+            out.append(symbol);
     }
 
     public static int octetsNeeded(String s)
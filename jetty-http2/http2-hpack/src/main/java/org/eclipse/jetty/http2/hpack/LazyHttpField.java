@@ -0,0 +1,97 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack;
+
+import java.nio.ByteBuffer;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
+
+/**
+ * <p>A {@link HttpField} whose value is kept HPACK encoded, as a range of
+ * bytes of the header block, until it is first accessed.</p>
+ * <p>Huffman encoded values are checked by {@link HpackDecoder} when the
+ * header block is decoded, so decoding the value here does not fail.</p>
+ */
+public class LazyHttpField extends HttpField
+{
+    private final byte[] _bytes;
+    private final int _offset;
+    private final int _length;
+    private final boolean _huffman;
+    private final int _valueLength;
+    private String _value;
+
+    public LazyHttpField(HttpHeader header, String name, byte[] bytes, int offset, int length, boolean huffman, int valueLength)
+    {
+        super(header,name,(String)null);
+        _bytes=bytes;
+        _offset=offset;
+        _length=length;
+        _huffman=huffman;
+        _valueLength=valueLength;
+    }
+
+    @Override
+    public String getValue()
+    {
+        // Decoding is idempotent and Strings are immutable,
+        // so concurrent accesses may decode more than once.
+        String value=_value;
+        if (value==null)
+        {
+            ByteBuffer buffer=ByteBuffer.wrap(_bytes,_offset,_length);
+            value=_huffman?Huffman.decode(buffer,_length):HpackDecoder.toASCIIString(buffer,_length);
+            _value=value;
+        }
+        return value;
+    }
+
+    /**
+     * @return whether the value has been decoded
+     */
+    public boolean isDecoded()
+    {
+        return _value!=null;
+    }
+
+    /**
+     * @return the length of the encoded value
+     */
+    public int getEncodedLength()
+    {
+        return _length;
+    }
+
+    /**
+     * @return the length of the decoded value
+     */
+    public int getValueLength()
+    {
+        return _valueLength;
+    }
+
+    /**
+     * @return whether the encoded value is Huffman encoded
+     */
+    public boolean isHuffman()
+    {
+        return _huffman;
+    }
+}
@@ -70,8 +70,20 @@ public class MetaDataBuilder
     {
         HttpHeader header = field.getHeader();
         String name = field.getName();
-        String value = field.getValue();
-        int field_size = name.length() + (value == null ? 0 : value.length());
+        String value;
+        int field_size;
+        if (field instanceof LazyHttpField)
+        {
+            // The value is not needed to build the MetaData,
+            // but its length is known from the Huffman check.
+            value = null;
+            field_size = name.length() + ((LazyHttpField)field).getValueLength();
+        }
+        else
+        {
+            value = field.getValue();
+            field_size = name.length() + (value == null ? 0 : value.length());
+        }
         _size+=field_size+32;
         if (_size>_maxSize)
             throw new BadMessageException(HttpStatus.REQUEST_HEADER_FIELDS_TOO_LARGE_431,"Header size "+_size+">"+_maxSize);
@@ -0,0 +1,165 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack;
+
+import java.nio.ByteBuffer;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HpackFieldCacheTest
+{
+    private MetaData.Response newResponse()
+    {
+        HttpFields fields = new HttpFields();
+        fields.put(HttpHeader.CONTENT_TYPE,"application/json;charset=utf-8");
+        fields.put(HttpHeader.DATE,"Mon, 01 Jan 2018 00:00:00 GMT");
+        fields.put(HttpHeader.CACHE_CONTROL,"no-cache, no-store, must-revalidate");
+        fields.put(HttpHeader.SET_COOKIE,"session=0123456789");
+        fields.put("X-Content-Type-Options","nosniff");
+        fields.put("Strict-Transport-Security","max-age=31536000; includeSubDomains");
+        return new MetaData.Response(HttpVersion.HTTP_2,200,fields);
+    }
+
+    private ByteBuffer encode(HpackEncoder encoder, MetaData metaData)
+    {
+        ByteBuffer buffer = BufferUtil.allocate(4096);
+        int pos = BufferUtil.flipToFill(buffer);
+        encoder.encode(buffer,metaData);
+        BufferUtil.flipToFlush(buffer,pos);
+        return buffer;
+    }
+
+    @Test
+    public void testSharedCacheProducesSameEncoding() throws Exception
+    {
+        HpackFieldCache cache = new HpackFieldCache();
+        MetaData.Response response = newResponse();
+
+        ByteBuffer expected = encode(new HpackEncoder(),response);
+        for (int i=0;i<3;i++)
+        {
+            // A new encoder per session, sharing the same cache.
+            HpackEncoder encoder = new HpackEncoder();
+            encoder.setFieldCache(cache);
+            ByteBuffer encoded = encode(encoder,response);
+            Assert.assertEquals(expected,encoded);
+
+            MetaData.Response decoded = (MetaData.Response)new HpackDecoder(4096,8192).decode(encoded);
+            Assert.assertEquals(response.getFields(),decoded.getFields());
+        }
+
+        // Date and Set-Cookie are not cached, the other
+        // fields are only cached once they are repeated.
+        Assert.assertEquals(4,cache.getSize());
+        Assert.assertEquals(8,cache.getMisses());
+        Assert.assertEquals(4,cache.getHits());
+        Assert.assertEquals(4.0/12,cache.getHitRatio(),0.001);
+    }
+
+    @Test
+    public void testCacheIsBounded() throws Exception
+    {
+        HpackFieldCache cache = new HpackFieldCache(16,256);
+        for (int i=0;i<100;i++)
+        {
+            HttpField field = new HttpField(HttpHeader.CONTENT_TYPE,"value-"+i);
+            cache.getEncodedValue(field);
+            cache.getEncodedValue(field);
+            Assert.assertTrue(cache.getSize()<=16);
+        }
+        Assert.assertEquals(16,cache.getSize());
+        Assert.assertEquals(200,cache.getHits()+cache.getMisses());
+        Assert.assertNull(cache.getEncodedValue(new HttpField("X-Long",new String(new char[257]).replace('\0','x'))));
+
+        cache.clear();
+        Assert.assertEquals(0,cache.getSize());
+        Assert.assertEquals(0,cache.getMisses());
+    }
+
+    @Test
+    public void testUniqueValuesAreNotCached() throws Exception
+    {
+        HpackFieldCache cache = new HpackFieldCache();
+        Assert.assertNull(cache.getEncodedValue(new HttpField(HttpHeader.CONTENT_LENGTH,"1024")));
+        Assert.assertNull(cache.getEncodedValue(new HttpField(HttpHeader.C_PATH,"/index.html")));
+        Assert.assertNull(cache.getEncodedValue(new HttpField(HttpHeader.DATE,"Mon, 01 Jan 2018 00:00:00 GMT")));
+        Assert.assertEquals(0,cache.getSize());
+        Assert.assertEquals(0,cache.getMisses());
+    }
+
+    @Test
+    public void testUnknownHeaderCachedWhenRepeated() throws Exception
+    {
+        HpackFieldCache cache = new HpackFieldCache();
+        HttpField field = new HttpField("X-Custom","value");
+
+        Assert.assertNull(cache.getEncodedValue(field));
+        Assert.assertEquals(0,cache.getSize());
+
+        byte[] encoded = cache.getEncodedValue(field);
+        Assert.assertNotNull(encoded);
+        Assert.assertEquals(1,cache.getSize());
+
+        Assert.assertArrayEquals(encoded,cache.getEncodedValue(field));
+        Assert.assertEquals(1,cache.getHits());
+        Assert.assertEquals(2,cache.getMisses());
+
+        // Unique values do not fill the cache, even for well known headers.
+        for (int i=0;i<100;i++)
+        {
+            Assert.assertNull(cache.getEncodedValue(new HttpField("X-Value","value-"+i)));
+            Assert.assertNull(cache.getEncodedValue(new HttpField(HttpHeader.ETAG,"\"etag-"+i+"\"")));
+        }
+        Assert.assertEquals(1,cache.getSize());
+    }
+
+    @Test
+    public void testFrequentFieldsAreNotEvicted() throws Exception
+    {
+        HpackFieldCache cache = new HpackFieldCache(4,256);
+        HttpField[] frequent = new HttpField[4];
+        for (int i=0;i<frequent.length;i++)
+        {
+            frequent[i] = new HttpField(HttpHeader.CONTENT_TYPE,"frequent-"+i);
+            for (int j=0;j<5;j++)
+                cache.getEncodedValue(frequent[i]);
+        }
+        Assert.assertEquals(4,cache.getSize());
+
+        // Fields seen twice do not evict the fields seen more often.
+        for (int i=0;i<10;i++)
+        {
+            HttpField field = new HttpField(HttpHeader.CONTENT_TYPE,"value-"+i);
+            cache.getEncodedValue(field);
+            Assert.assertNull(cache.getEncodedValue(field));
+        }
+
+        long hits = cache.getHits();
+        for (HttpField field : frequent)
+            Assert.assertNotNull(cache.getEncodedValue(field));
+        Assert.assertEquals(hits+frequent.length,cache.getHits());
+    }
+}
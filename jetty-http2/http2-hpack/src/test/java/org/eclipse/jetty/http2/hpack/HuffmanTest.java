@@ -61,6 +61,42 @@ public class HuffmanTest
         }
     }
 
+    @Test
+    public void testDecodeEOS() throws Exception
+    {
+        // 'a' followed by the 30 bit EOS symbol and 5 bits of padding.
+        byte[] encoded=TypeUtil.fromHexString("1FFFFFFFFF");
+        try
+        {
+            Huffman.decode(ByteBuffer.wrap(encoded));
+            Assert.fail();
+        }
+        catch(IllegalArgumentException e)
+        {
+        }
+
+        try
+        {
+            Huffman.check(ByteBuffer.wrap(encoded),encoded.length);
+            Assert.fail();
+        }
+        catch(IllegalArgumentException e)
+        {
+        }
+    }
+
+    @Test
+    public void testCheck() throws Exception
+    {
+        for (String[] test:tests)
+        {
+            byte[] encoded=TypeUtil.fromHexString(test[1]);
+            ByteBuffer buffer=ByteBuffer.wrap(encoded);
+            Huffman.check(buffer,encoded.length);
+            Assert.assertEquals(test[0],0,buffer.remaining());
+        }
+    }
+
     @Test
     public void testEncode() throws Exception
     {
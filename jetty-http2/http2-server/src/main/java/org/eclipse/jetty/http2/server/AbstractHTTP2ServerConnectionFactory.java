@@ -25,6 +25,7 @@ import org.eclipse.jetty.http2.FlowControlStrategy;
 import org.eclipse.jetty.http2.HTTP2Connection;
 import org.eclipse.jetty.http2.api.server.ServerSessionListener;
 import org.eclipse.jetty.http2.generator.Generator;
+import org.eclipse.jetty.http2.hpack.HpackFieldCache;
 import org.eclipse.jetty.http2.parser.ServerParser;
 import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
@@ -50,6 +51,8 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
     private FlowControlStrategy.Factory flowControlStrategyFactory = () -> new BufferingFlowControlStrategy(0.5F);
     private long streamIdleTimeout;
     private int reservedThreads;
+    private HpackFieldCache hpackFieldCache = new HpackFieldCache();
+    private boolean lazyHeaderDecoding;
 
     public AbstractHTTP2ServerConnectionFactory(@Name("config") HttpConfiguration httpConfiguration)
     {
@@ -64,6 +67,7 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
                 throw new IllegalArgumentException("Unsupported HTTP2 Protocol variant: "+p);
         this.httpConfiguration = Objects.requireNonNull(httpConfiguration);
         addBean(httpConfiguration);
+        addBean(hpackFieldCache);
     }
 
     @ManagedAttribute("The HPACK dynamic table maximum size")
@@ -159,6 +163,31 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
 //        this.reservedThreads = threads;
     }
 
+    /**
+     * @return the cache of HPACK encoded field values shared by the sessions, or null if there is no cache
+     */
+    public HpackFieldCache getHpackFieldCache()
+    {
+        return hpackFieldCache;
+    }
+
+    public void setHpackFieldCache(HpackFieldCache hpackFieldCache)
+    {
+        updateBean(this.hpackFieldCache, hpackFieldCache);
+        this.hpackFieldCache = hpackFieldCache;
+    }
+
+    @ManagedAttribute("Whether the values of request header fields are decoded lazily")
+    public boolean isLazyHeaderDecoding()
+    {
+        return lazyHeaderDecoding;
+    }
+
+    public void setLazyHeaderDecoding(boolean lazyHeaderDecoding)
+    {
+        this.lazyHeaderDecoding = lazyHeaderDecoding;
+    }
+
     public HttpConfiguration getHttpConfiguration()
     {
         return httpConfiguration;
@@ -170,6 +199,7 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         ServerSessionListener listener = newSessionListener(connector, endPoint);
 
         Generator generator = new Generator(connector.getByteBufferPool(), getMaxDynamicTableSize(), getMaxHeaderBlockFragment());
+        generator.setHpackFieldCache(getHpackFieldCache());
         FlowControlStrategy flowControl = getFlowControlStrategyFactory().newFlowControlStrategy();
         HTTP2ServerSession session = new HTTP2ServerSession(connector.getScheduler(), endPoint, generator, listener, flowControl);
         session.setMaxLocalStreams(getMaxConcurrentStreams());
@@ -187,6 +217,7 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         ReservedThreadExecutor executor = provideReservedThreadExecutor(connector);
         
         ServerParser parser = newServerParser(connector, session);
+        parser.setLazyHeaderDecoding(isLazyHeaderDecoding());
         HTTP2Connection connection = new HTTP2ServerConnection(connector.getByteBufferPool(), executor,
                         endPoint, httpConfiguration, parser, session, getInputBufferSize(), listener);
         connection.addListener(connectionListener);
@@ -18,15 +18,46 @@
 
 package org.eclipse.jetty.io;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
 
-public class ArrayByteBufferPool implements ByteBufferPool
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.component.Dumpable;
+
+/**
+ * <p>A ByteBuffer pool where ByteBuffers are held in queues that are held in array elements.</p>
+ * <p>Given a capacity {@code factor} of 1024, the first array element holds a queue of ByteBuffers
+ * each of capacity 1024, the second array element holds a queue of ByteBuffers each of capacity
+ * 2048, and so on.</p>
+ * <p>The memory retained by the pool may be bounded separately for heap and direct buffers: a
+ * released buffer that would exceed the bound is not pooled and is left to the garbage collector.</p>
+ * <p>If an idle timeout is configured, buffers that have not been acquired for at least that
+ * long are evicted from the pool, so that the memory retained after a load spike is released.
+ * The eviction is lazy: it is only checked when a buffer is acquired or released, so a pool
+ * that is no longer used retains its idle buffers until {@link #evictIdle()} or
+ * {@link #clear()} is called.</p>
+ */
+@ManagedObject("A ByteBuffer pool")
+public class ArrayByteBufferPool implements ByteBufferPool, Dumpable
 {
     private final int _min;
     private final int _maxQueue;
     private final ByteBufferPool.Bucket[] _direct;
     private final ByteBufferPool.Bucket[] _indirect;
     private final int _inc;
+    private final long _maxHeapMemory;
+    private final long _maxDirectMemory;
+    private final AtomicLong _heapMemory = new AtomicLong();
+    private final AtomicLong _directMemory = new AtomicLong();
+    private final long _idleTimeout;
+    private final AtomicLong _lastEviction = new AtomicLong(System.nanoTime());
 
     public ArrayByteBufferPool()
     {
@@ -39,6 +70,21 @@ public class ArrayByteBufferPool implements ByteBufferPool
     }
     
     public ArrayByteBufferPool(int minSize, int increment, int maxSize, int maxQueue)
+    {
+        this(minSize,increment,maxSize,maxQueue,-1,-1,-1);
+    }
+
+    /**
+     * @param minSize the minimum ByteBuffer capacity
+     * @param increment the ByteBuffer capacity increment
+     * @param maxSize the maximum ByteBuffer capacity
+     * @param maxQueue the maximum number of ByteBuffers in each bucket, or -1 for unbounded
+     * @param maxHeapMemory the max heap memory in bytes retained by the pool, or -1 for unbounded
+     * @param maxDirectMemory the max direct memory in bytes retained by the pool, or -1 for unbounded
+     * @param idleTimeout the time in ms after which unused ByteBuffers are evicted by the next
+     * acquire or release, or -1 to never evict
+     */
+    public ArrayByteBufferPool(int minSize, int increment, int maxSize, int maxQueue, long maxHeapMemory, long maxDirectMemory, long idleTimeout)
     {
         if (minSize<=0)
             minSize=0;
@@ -56,19 +102,23 @@ public class ArrayByteBufferPool implements ByteBufferPool
         _direct=new ByteBufferPool.Bucket[maxSize/increment];
         _indirect=new ByteBufferPool.Bucket[maxSize/increment];
         _maxQueue=maxQueue;
+        _maxHeapMemory=maxHeapMemory;
+        _maxDirectMemory=maxDirectMemory;
+        _idleTimeout=idleTimeout;
 
         int size=0;
         for (int i=0;i<_direct.length;i++)
         {
             size+=_inc;
-            _direct[i]=new ByteBufferPool.Bucket(this,size,_maxQueue);
-            _indirect[i]=new ByteBufferPool.Bucket(this,size,_maxQueue);
+            _direct[i]=new ByteBufferPool.Bucket(this,size,_maxQueue,_directMemory,_maxDirectMemory);
+            _indirect[i]=new ByteBufferPool.Bucket(this,size,_maxQueue,_heapMemory,_maxHeapMemory);
         }
     }
 
     @Override
     public ByteBuffer acquire(int size, boolean direct)
     {
+        evictIdle(false);
         ByteBufferPool.Bucket bucket = bucketFor(size,direct);
         if (bucket==null)
             return newByteBuffer(size,direct);
@@ -85,9 +135,11 @@ public class ArrayByteBufferPool implements ByteBufferPool
             ByteBufferPool.Bucket bucket = bucketFor(buffer.capacity(),buffer.isDirect());
             if (bucket!=null)
                 bucket.release(buffer);
+            evictIdle(false);
         }
     }
 
+    @ManagedOperation(value="Clears the pool", impact="ACTION")
     public void clear()
     {
         for (int i=0;i<_direct.length;i++)
@@ -97,6 +149,150 @@ public class ArrayByteBufferPool implements ByteBufferPool
         }
     }
 
+    /**
+     * <p>Evicts the ByteBuffers that have not been acquired since the previous eviction.</p>
+     * <p>This may be called periodically to release the buffers of a pool that is idle.</p>
+     *
+     * @return the number of evicted ByteBuffers
+     */
+    @ManagedOperation(value="Evicts the idle ByteBuffers", impact="ACTION")
+    public int evictIdle()
+    {
+        return evictIdle(true);
+    }
+
+    private int evictIdle(boolean force)
+    {
+        if (_idleTimeout<=0 && !force)
+            return 0;
+        long now=System.nanoTime();
+        long last=_lastEviction.get();
+        if (!force && now-last<TimeUnit.MILLISECONDS.toNanos(_idleTimeout))
+            return 0;
+        if (!_lastEviction.compareAndSet(last,now))
+            return 0;
+        int evicted=0;
+        for (int i=0;i<_direct.length;i++)
+        {
+            evicted+=_direct[i].evictIdle();
+            evicted+=_indirect[i].evictIdle();
+        }
+        return evicted;
+    }
+
+    @ManagedAttribute("The time in ms after which unused ByteBuffers are evicted")
+    public long getIdleTimeout()
+    {
+        return _idleTimeout;
+    }
+
+    @ManagedAttribute("The max heap memory in bytes retained by the pool")
+    public long getMaxHeapMemory()
+    {
+        return _maxHeapMemory;
+    }
+
+    @ManagedAttribute("The max direct memory in bytes retained by the pool")
+    public long getMaxDirectMemory()
+    {
+        return _maxDirectMemory;
+    }
+
+    @ManagedAttribute("The heap memory in bytes retained by the pool")
+    public long getHeapMemory()
+    {
+        return _heapMemory.get();
+    }
+
+    @ManagedAttribute("The direct memory in bytes retained by the pool")
+    public long getDirectMemory()
+    {
+        return _directMemory.get();
+    }
+
+    @ManagedAttribute("The number of heap ByteBuffers retained by the pool")
+    public long getHeapByteBufferCount()
+    {
+        return Arrays.stream(_indirect).mapToLong(Bucket::size).sum();
+    }
+
+    @ManagedAttribute("The number of direct ByteBuffers retained by the pool")
+    public long getDirectByteBufferCount()
+    {
+        return Arrays.stream(_direct).mapToLong(Bucket::size).sum();
+    }
+
+    @ManagedAttribute("The number of ByteBuffer acquisitions")
+    public long getAcquires()
+    {
+        return statistic(Bucket::getAcquires);
+    }
+
+    @ManagedAttribute("The number of ByteBuffer acquisitions served from the pool")
+    public long getHits()
+    {
+        return statistic(Bucket::getHits);
+    }
+
+    @ManagedAttribute("The number of ByteBuffer acquisitions that allocated a new ByteBuffer")
+    public long getMisses()
+    {
+        return statistic(Bucket::getMisses);
+    }
+
+    @ManagedAttribute("The number of idle ByteBuffers evicted from the pool")
+    public long getEvictions()
+    {
+        return statistic(Bucket::getEvictions);
+    }
+
+    @ManagedAttribute("The statistics of the heap buckets")
+    public String[] getHeapBucketStatistics()
+    {
+        return Arrays.stream(_indirect).map(Bucket::toString).toArray(String[]::new);
+    }
+
+    @ManagedAttribute("The statistics of the direct buckets")
+    public String[] getDirectBucketStatistics()
+    {
+        return Arrays.stream(_direct).map(Bucket::toString).toArray(String[]::new);
+    }
+
+    @ManagedOperation(value="Resets the statistics", impact="ACTION")
+    public void resetStatistics()
+    {
+        for (int i=0;i<_direct.length;i++)
+        {
+            _direct[i].resetStatistics();
+            _indirect[i].resetStatistics();
+        }
+    }
+
+    private long statistic(ToLongFunction<Bucket> statistic)
+    {
+        return Arrays.stream(_direct).mapToLong(statistic).sum()+Arrays.stream(_indirect).mapToLong(statistic).sum();
+    }
+
+    @Override
+    public String dump()
+    {
+        return ContainerLifeCycle.dump(this);
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        ContainerLifeCycle.dumpObject(out,this);
+        ContainerLifeCycle.dump(out,indent,Arrays.asList(_direct),Arrays.asList(_indirect));
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{heap=%d/%d,direct=%d/%d}",getClass().getSimpleName(),hashCode(),
+                getHeapMemory(),_maxHeapMemory,getDirectMemory(),_maxDirectMemory);
+    }
+
     private ByteBufferPool.Bucket bucketFor(int size,boolean direct)
     {
         if (size<=_min)
@@ -24,6 +24,8 @@ import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.util.BufferUtil;
 
@@ -129,51 +131,118 @@ public interface ByteBufferPool
         private final Deque<ByteBuffer> _queue = new ConcurrentLinkedDeque<>();
         private final ByteBufferPool _pool;
         private final int _capacity;
-        private final AtomicInteger _space;
+        private final int _maxSize;
+        private final AtomicInteger _size = new AtomicInteger();
+        private final AtomicInteger _idle = new AtomicInteger();
+        private final AtomicLong _memory;
+        private final long _maxMemory;
+        private final LongAdder _acquires = new LongAdder();
+        private final LongAdder _misses = new LongAdder();
+        private final LongAdder _evictions = new LongAdder();
 
         public Bucket(ByteBufferPool pool, int bufferSize, int maxSize)
+        {
+            this(pool, bufferSize, maxSize, null, -1);
+        }
+
+        /**
+         * @param pool the pool that allocates new buffers
+         * @param bufferSize the capacity of the buffers held by this bucket
+         * @param maxSize the max number of buffers held by this bucket, or -1 for unbounded
+         * @param memory the memory counter shared with other buckets, or null for no accounting
+         * @param maxMemory the max value of the shared memory counter, or -1 for unbounded
+         */
+        public Bucket(ByteBufferPool pool, int bufferSize, int maxSize, AtomicLong memory, long maxMemory)
         {
             _pool = pool;
             _capacity = bufferSize;
-            _space = maxSize > 0 ? new AtomicInteger(maxSize) : null;
+            _maxSize = maxSize;
+            _memory = memory;
+            _maxMemory = maxMemory;
         }
 
         public ByteBuffer acquire(boolean direct)
         {
+            _acquires.increment();
             ByteBuffer buffer = queuePoll();
             if (buffer == null)
+            {
+                _misses.increment();
                 return _pool.newByteBuffer(_capacity, direct);
-            if (_space != null)
-                _space.incrementAndGet();
+            }
+            onRemoved(buffer);
+
+            // Track the low water mark since the last eviction of idle buffers.
+            int size = _size.get();
+            while (true)
+            {
+                int idle = _idle.get();
+                if (size >= idle || _idle.compareAndSet(idle, size))
+                    break;
+            }
             return buffer;
         }
 
         public void release(ByteBuffer buffer)
         {
             BufferUtil.clear(buffer);
-            if (_space == null)
-                queueOffer(buffer);
-            else if (_space.decrementAndGet() >= 0)
-                queueOffer(buffer);
-            else
-                _space.incrementAndGet();
-        }
-
-        public void clear()
-        {
-            if (_space == null)
+            int size = _size.incrementAndGet();
+            if (_maxSize > 0 && size > _maxSize)
             {
-                queueClear();
+                _size.decrementAndGet();
+                return;
             }
-            else
+            if (_memory != null)
             {
-                int s = _space.getAndSet(0);
-                while (s-- > 0)
+                long memory = _memory.addAndGet(buffer.capacity());
+                if (_maxMemory > 0 && memory > _maxMemory)
                 {
-                    if (queuePoll() == null)
-                        _space.incrementAndGet();
+                    _memory.addAndGet(-buffer.capacity());
+                    _size.decrementAndGet();
+                    return;
                 }
             }
+            queueOffer(buffer);
+        }
+
+        public void clear()
+        {
+            ByteBuffer buffer;
+            while ((buffer = queuePoll()) != null)
+                onRemoved(buffer);
+            _idle.set(0);
+        }
+
+        /**
+         * <p>Evicts the buffers that have not been acquired since the previous call to this method.</p>
+         * <p>Buffers are acquired from the head of the queue and released to the head of the queue,
+         * so the number of buffers at the tail of the queue that have not been used since the
+         * previous call is the lowest size that the queue had in the meantime.</p>
+         *
+         * @return the number of buffers evicted
+         */
+        public int evictIdle()
+        {
+            int evicted = 0;
+            int idle = _idle.get();
+            while (evicted < idle)
+            {
+                ByteBuffer buffer = _queue.pollLast();
+                if (buffer == null)
+                    break;
+                onRemoved(buffer);
+                ++evicted;
+            }
+            _evictions.add(evicted);
+            _idle.set(_size.get());
+            return evicted;
+        }
+
+        private void onRemoved(ByteBuffer buffer)
+        {
+            _size.decrementAndGet();
+            if (_memory != null)
+                _memory.addAndGet(-buffer.capacity());
         }
 
         private void queueOffer(ByteBuffer buffer)
@@ -186,11 +255,6 @@ public interface ByteBufferPool
             return _queue.poll();
         }
 
-        private void queueClear()
-        {
-            _queue.clear();
-        }
-
         boolean isEmpty()
         {
             return _queue.isEmpty();
@@ -198,13 +262,46 @@ public interface ByteBufferPool
 
         int size()
         {
-            return _queue.size();
+            return _size.get();
+        }
+
+        public int getCapacity()
+        {
+            return _capacity;
+        }
+
+        public long getAcquires()
+        {
+            return _acquires.longValue();
+        }
+
+        public long getHits()
+        {
+            return getAcquires() - getMisses();
+        }
+
+        public long getMisses()
+        {
+            return _misses.longValue();
+        }
+
+        public long getEvictions()
+        {
+            return _evictions.longValue();
+        }
+
+        public void resetStatistics()
+        {
+            _acquires.reset();
+            _misses.reset();
+            _evictions.reset();
         }
 
         @Override
         public String toString()
         {
-            return String.format("Bucket@%x{%d/%d}", hashCode(), size(), _capacity);
+            return String.format("Bucket@%x{%d/%d,a=%d,h=%d,m=%d,e=%d}", hashCode(), size(), _capacity,
+                    getAcquires(), getHits(), getMisses(), getEvictions());
         }
     }
 }
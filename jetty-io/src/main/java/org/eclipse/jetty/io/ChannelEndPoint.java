@@ -23,10 +23,14 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
 import java.nio.channels.CancelledKeyException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.SelectionKey;
+import java.nio.channels.WritePendingException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.thread.Invocable;
@@ -47,6 +51,7 @@ public abstract class ChannelEndPoint extends AbstractEndPoint implements Manage
     protected final ManagedSelector _selector;
     protected final SelectionKey _key;
     private boolean _updatePending;
+    private final AtomicReference<FileTransfer> _transfer = new AtomicReference<>();
 
     /**
      * The current value for {@link SelectionKey#interestOps()}.
@@ -299,7 +304,37 @@ public abstract class ChannelEndPoint extends AbstractEndPoint implements Manage
             if (!BufferUtil.isEmpty(b))
                 return false;
 
-        return true;
+        FileTransfer transfer=_transfer.get();
+        return transfer==null || transfer.transfer();
+    }
+
+    /**
+     * <p>Writes the given buffers followed by a region of a file.</p>
+     * <p>The bytes of the file are written with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+     * so that the operating system can send them from the file system cache without copying them to
+     * user space buffers.</p>
+     *
+     * @param callback the callback to call when the buffers and the file region have been written or the write failed
+     * @param file the file to transfer, which is not closed by this method
+     * @param position the position in the file of the first byte to transfer
+     * @param count the number of bytes of the file to transfer
+     * @param buffers the buffers to write before the file region
+     * @throws WritePendingException if another write operation is concurrent
+     */
+    public void transfer(Callback callback, FileChannel file, long position, long count, ByteBuffer... buffers) throws WritePendingException
+    {
+        FileTransfer transfer=new FileTransfer(callback,file,position,count);
+        if (!_transfer.compareAndSet(null,transfer))
+            throw new WritePendingException();
+        try
+        {
+            write(transfer,buffers);
+        }
+        catch (WritePendingException x)
+        {
+            _transfer.compareAndSet(transfer,null);
+            throw x;
+        }
     }
 
     public ByteChannel getChannel()
@@ -450,4 +485,70 @@ public abstract class ChannelEndPoint extends AbstractEndPoint implements Manage
             return String.format("%s{io=%s,kio=-2,kro=-2}", super.toString(), _desiredInterestOps);
         }
     }
+
+    private class FileTransfer extends Callback.Nested
+    {
+        private final FileChannel _file;
+        private long _position;
+        private long _count;
+
+        private FileTransfer(Callback callback, FileChannel file, long position, long count)
+        {
+            super(callback);
+            _file=file;
+            _position=position;
+            _count=count;
+        }
+
+        /**
+         * @return true if the whole file region has been transferred,
+         * false if the channel cannot accept more bytes
+         * @throws IOException if the transfer fails
+         */
+        private boolean transfer() throws IOException
+        {
+            try
+            {
+                while (_count>0)
+                {
+                    long transferred=_file.transferTo(_position,_count,_channel);
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("transferred {}/{} {}",transferred,_count,this);
+                    if (transferred==0)
+                    {
+                        // A file that has been truncated would never complete the transfer.
+                        if (_position>=_file.size())
+                            throw new EofException("Truncated "+_file);
+                        return false;
+                    }
+                    _position+=transferred;
+                    _count-=transferred;
+                    notIdle();
+                }
+                return true;
+            }
+            catch (EofException e)
+            {
+                throw e;
+            }
+            catch (IOException e)
+            {
+                throw new EofException(e);
+            }
+        }
+
+        @Override
+        public void succeeded()
+        {
+            _transfer.compareAndSet(this,null);
+            super.succeeded();
+        }
+
+        @Override
+        public void failed(Throwable x)
+        {
+            _transfer.compareAndSet(this,null);
+            super.failed(x);
+        }
+    }
 }
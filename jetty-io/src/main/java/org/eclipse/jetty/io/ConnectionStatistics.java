@@ -28,10 +28,12 @@ import java.util.concurrent.atomic.LongAdder;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.annotation.Name;
 import org.eclipse.jetty.util.component.AbstractLifeCycle;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.statistic.CounterStatistic;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
 import org.eclipse.jetty.util.statistic.SampleStatistic;
 
 /**
@@ -46,6 +48,7 @@ public class ConnectionStatistics extends AbstractLifeCycle implements Connectio
 {
     private final CounterStatistic _connections = new CounterStatistic();
     private final SampleStatistic _connectionsDuration = new SampleStatistic();
+    private final HistogramStatistic _connectionsDurationHistogram = new HistogramStatistic();
     private final LongAdder _rcvdBytes = new LongAdder();
     private final AtomicLong _bytesInStamp = new AtomicLong();
     private final LongAdder _sentBytes = new LongAdder();
@@ -60,6 +63,7 @@ public class ConnectionStatistics extends AbstractLifeCycle implements Connectio
     {
         _connections.reset();
         _connectionsDuration.reset();
+        _connectionsDurationHistogram.reset();
         _rcvdBytes.reset();
         _bytesInStamp.set(System.nanoTime());
         _sentBytes.reset();
@@ -95,6 +99,7 @@ public class ConnectionStatistics extends AbstractLifeCycle implements Connectio
 
         long elapsed = System.currentTimeMillis() - connection.getCreatedTimeStamp();
         _connectionsDuration.set(elapsed);
+        _connectionsDurationHistogram.set(elapsed);
 
         long bytesIn = connection.getBytesIn();
         if (bytesIn > 0)
@@ -159,6 +164,36 @@ public class ConnectionStatistics extends AbstractLifeCycle implements Connectio
         return _connectionsDuration.getStdDev();
     }
 
+    @ManagedAttribute("The median duration of a connection in ms")
+    public long getConnectionDuration50thPercentile()
+    {
+        return _connectionsDurationHistogram.getPercentile(50);
+    }
+
+    @ManagedAttribute("The 99th percentile of the duration of a connection in ms")
+    public long getConnectionDuration99thPercentile()
+    {
+        return _connectionsDurationHistogram.getPercentile(99);
+    }
+
+    @ManagedAttribute("The 99.9th percentile of the duration of a connection in ms")
+    public long getConnectionDuration999thPercentile()
+    {
+        return _connectionsDurationHistogram.getPercentile(99.9);
+    }
+
+    @ManagedOperation(value = "The percentile of the duration of a connection in ms", impact = "INFO")
+    public long getConnectionDurationPercentile(@Name("percentile") double percentile)
+    {
+        return _connectionsDurationHistogram.getPercentile(percentile);
+    }
+
+    @ManagedOperation(value = "Returns the connection duration percentiles since the last invocation of this method", impact = "ACTION")
+    public String connectionDurationIntervalSnapshot()
+    {
+        return _connectionsDurationHistogram.intervalSnapshot().toString();
+    }
+
     @ManagedAttribute("The total number of connections opened")
     public long getConnectionsTotal()
     {
@@ -220,6 +255,7 @@ public class ConnectionStatistics extends AbstractLifeCycle implements Connectio
         List<String> children = new ArrayList<>();
         children.add(String.format("connections=%s", _connections));
         children.add(String.format("durations=%s", _connectionsDuration));
+        children.add(String.format("durations percentiles=%s", _connectionsDurationHistogram.snapshot()));
         children.add(String.format("bytes in/out=%s/%s", getReceivedBytes(), getSentBytes()));
         children.add(String.format("messages in/out=%s/%s", getReceivedMessages(), getSentMessages()));
         ContainerLifeCycle.dump(out, indent, children);
@@ -26,7 +26,6 @@ import java.nio.channels.CancelledKeyException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -34,12 +33,16 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.component.DumpableCollection;
@@ -47,9 +50,9 @@ import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.thread.ExecutionStrategy;
 import org.eclipse.jetty.util.thread.Invocable;
-import org.eclipse.jetty.util.thread.Locker;
 import org.eclipse.jetty.util.thread.ReservedThreadExecutor;
 import org.eclipse.jetty.util.thread.Scheduler;
+import org.eclipse.jetty.util.thread.strategy.AdaptiveExecutionStrategy;
 import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
 
 /**
@@ -57,14 +60,21 @@ import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
  * <p>{@link ManagedSelector} runs the select loop, which waits on {@link Selector#select()} until events
  * happen for registered channels. When events happen, it notifies the {@link EndPoint} associated
  * with the channel.</p>
+ * <p>Actions are submitted to the select loop via a lock-free queue. Only the first submitter
+ * that finds the selector blocked in {@link Selector#select()} wakes it up, so that concurrent
+ * submitters do not contend on a lock nor call {@link Selector#wakeup()} redundantly.</p>
  */
+@ManagedObject("Manager of a NIO Selector")
 public class ManagedSelector extends ContainerLifeCycle implements Dumpable
 {
     private static final Logger LOG = Log.getLogger(ManagedSelector.class);
 
-    private final Locker _locker = new Locker();
-    private boolean _selecting = false;
-    private final Queue<Runnable> _actions = new ArrayDeque<>();
+    private final AtomicBoolean _selecting = new AtomicBoolean();
+    private final Queue<Runnable> _actions = new ConcurrentLinkedQueue<>();
+    private final LongAdder _submitted = new LongAdder();
+    private final LongAdder _wakeups = new LongAdder();
+    private final LongAdder _selects = new LongAdder();
+    private final LongAdder _polled = new LongAdder();
     private final SelectorManager _selectorManager;
     private final int _id;
     private final ExecutionStrategy _strategy;
@@ -77,7 +87,11 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         _id = id;
         SelectorProducer producer = new SelectorProducer();
         Executor executor = selectorManager.getExecutor();
-        _strategy = new EatWhatYouKill(producer,executor,_selectorManager.getBean(ReservedThreadExecutor.class));
+        ReservedThreadExecutor reserved = _selectorManager.getBean(ReservedThreadExecutor.class);
+        if (_selectorManager.isAdaptiveExecution())
+            _strategy = new AdaptiveExecutionStrategy(producer,executor,reserved);
+        else
+            _strategy = new EatWhatYouKill(producer,executor,reserved);
         addBean(_strategy,true);
         setStopTimeout(5000);
     }
@@ -133,20 +147,24 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         if (LOG.isDebugEnabled())
             LOG.debug("Queued change {} on {}", change, this);
 
-        Selector selector = null;
-        try (Locker.Lock lock = _locker.lock())
-        {
-            _actions.offer(change);
-            
-            if (_selecting)
-            {
-                selector = _selector;
-                // To avoid the extra select wakeup.
-                _selecting = false;
-            }
-        }
+        // Count before offering, so that the polled count never exceeds it.
+        _submitted.increment();
+        _actions.offer(change);
+
+        // Only the submitter that clears the flag wakes up the selector,
+        // the others rely on the selector processing the actions queue.
+        if (_selecting.get() && _selecting.compareAndSet(true, false))
+            wakeup();
+    }
+
+    private void wakeup()
+    {
+        Selector selector = _selector;
         if (selector != null)
+        {
+            _wakeups.increment();
             selector.wakeup();
+        }
     }
 
     private void execute(Runnable task)
@@ -233,12 +251,36 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         execute(new DestroyEndPoint(endPoint));
     }
 
-    private int getActionSize()
+    /**
+     * <p>The number of actions is computed from the counters rather than
+     * from the actions queue, to avoid traversing the queue.</p>
+     * <p>Actions are counted after they are queued, so the result may
+     * be smaller, but never bigger, than the number of queued actions.</p>
+     *
+     * @return the number of pending actions
+     */
+    @ManagedAttribute("The number of pending actions")
+    public int getActionSize()
     {
-        try (Locker.Lock lock = _locker.lock())
-        {
-            return _actions.size();
-        }
+        return (int)Math.max(0, _submitted.sum() - _polled.sum());
+    }
+
+    @ManagedAttribute("The number of actions submitted to the select loop")
+    public long getSubmittedActions()
+    {
+        return _submitted.sum();
+    }
+
+    @ManagedAttribute("The number of wakeups of the selector")
+    public long getWakeups()
+    {
+        return _wakeups.sum();
+    }
+
+    @ManagedAttribute("The number of iterations of the select loop")
+    public long getSelects()
+    {
+        return _selects.sum();
     }
 
     @Override
@@ -248,16 +290,16 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         Selector selector = _selector;
         if (selector != null && selector.isOpen())
         {
-            List<Runnable> actions;
-            try (Locker.Lock lock = _locker.lock())
-            {
-                actions = new ArrayList<>(_actions);
-            }
+            List<Runnable> actions = new ArrayList<>(_actions);
             List<Object> keys = new ArrayList<>(selector.keys().size());
             DumpKeys dumpKeys = new DumpKeys(keys);
             submit(dumpKeys);
             dumpKeys.await(5, TimeUnit.SECONDS);
-            dump(out, indent, Arrays.asList(new DumpableCollection("keys", keys), new DumpableCollection("actions", actions)));
+            List<String> statistics = Arrays.asList(
+                    "submitted=" + getSubmittedActions(),
+                    "wakeups=" + getWakeups(),
+                    "selects=" + getSelects());
+            dump(out, indent, Arrays.asList(new DumpableCollection("keys", keys), new DumpableCollection("actions", actions), new DumpableCollection("statistics", statistics)));
         }
     }
 
@@ -321,57 +363,41 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
 
         private Runnable nextAction()
         {
-            Selector selector = null;
-            Runnable action = null;
-            try (Locker.Lock lock = _locker.lock())
+            // It is important to avoid live-lock (busy blocking) here.  If too many actions
+            // are submitted, this can indefinitely defer selection happening.   Similarly if
+            // we give too much priority to selection, it may prevent actions from being run.
+            // The solution implemented here is to only process the number of actions that were
+            // originally in the action queue before attempting a select
+
+            if (_actionCount==0)
             {
-                // It is important to avoid live-lock (busy blocking) here.  If too many actions
-                // are submitted, this can indefinitely defer selection happening.   Similarly if 
-                // we give too much priority to selection, it may prevent actions from being run.
-                // The solution implemented here is to only process the number of actions that were
-                // originally in the action queue before attempting a select
-                
+                // Calculate how many actions we are prepared to handle before selection
+                _actionCount = getActionSize();
                 if (_actionCount==0)
-                {               
-                    // Calculate how many actions we are prepared to handle before selection
-                    _actionCount = _actions.size();
-                    if (_actionCount>0)
-                        action = _actions.poll();
-                    else
-                        _selecting = true;
-                }
-                else if (_actionCount==1)
-                {
-                    _actionCount = 0;
-                    
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("Forcing selection, actions={}",_actions.size());
-                    
-                    if (_actions.size()==0)
-                    {
-                        // This was the last action, so select normally
-                        _selecting = true;
-                    }
-                    else
-                    {
-                        // there are still more actions to handle, so
-                        // immediately wake up (as if remaining action were just added).
-                        selector = _selector;
-                        _selecting = false;
-                    }
-                }
-                else
-                {
-                    _actionCount--;
-                    action = _actions.poll();
-                }
+                    return null;
+                // Process the first action without decrementing, so that
+                // a selection is forced once all the actions are processed.
+            }
+            else if (_actionCount==1)
+            {
+                _actionCount = 0;
+                // If there are still more actions to handle,
+                // select() will not block (as if remaining actions were just added).
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Forcing selection, actions={}",getActionSize());
+                return null;
+            }
+            else
+            {
+                _actionCount--;
             }
 
+            Runnable action = _actions.poll();
+            if (action != null)
+                _polled.increment();
+
             if (LOG.isDebugEnabled())
-                LOG.debug("action={} wakeup={}",action,selector!=null);
-            
-            if (selector != null)
-                selector.wakeup();
+                LOG.debug("action={}",action);
 
             return action;
         }
@@ -383,19 +409,29 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
                 Selector selector = _selector;
                 if (selector != null && selector.isOpen())
                 {
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("Selector {} waiting on select", selector);
-                    int selected = selector.select();
+                    _selects.increment();
+
+                    // Announce that we are about to select, then check again for actions
+                    // submitted before the announcement: submitters that queue an action
+                    // after the announcement will wake up the selector.
+                    _selecting.set(true);
+                    int selected;
+                    if (!_actions.isEmpty() && _selecting.compareAndSet(true, false))
+                    {
+                        selected = selector.selectNow();
+                    }
+                    else
+                    {
+                        if (LOG.isDebugEnabled())
+                            LOG.debug("Selector {} waiting on select", selector);
+                        selected = selector.select();
+                    }
                     if (LOG.isDebugEnabled())
                         LOG.debug("Selector {} woken up from select, {}/{} selected", selector, selected, selector.keys().size());
 
-                    int actions;
-                    try (Locker.Lock lock = _locker.lock())
-                    {
-                        // finished selecting
-                        _selecting = false;
-                        actions = _actions.size();
-                    }
+                    // finished selecting
+                    _selecting.set(false);
+                    int actions = getActionSize();
 
                     _keys = selector.selectedKeys();
                     _cursor = _keys.iterator();
@@ -542,11 +578,22 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
     class Acceptor extends Invocable.NonBlocking implements Selectable, Closeable
     {
         private final SelectableChannel _channel;
+        private final boolean _affine;
         private SelectionKey _key;
 
         public Acceptor(SelectableChannel channel)
+        {
+            this(channel, false);
+        }
+
+        /**
+         * @param channel the server channel
+         * @param affine whether accepted channels should be registered with this selector
+         */
+        public Acceptor(SelectableChannel channel, boolean affine)
         {
             this._channel = channel;
+            this._affine = affine;
         }
 
         @Override
@@ -581,7 +628,10 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
                     channel = _selectorManager.doAccept(server);
                     if (channel==null)
                         break;
-                    _selectorManager.accepted(channel);
+                    if (_affine)
+                        _selectorManager.accepted(channel, _id);
+                    else
+                        _selectorManager.accepted(channel);
                 }
             }
             catch (Throwable x)
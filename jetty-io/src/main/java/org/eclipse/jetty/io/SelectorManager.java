@@ -41,6 +41,7 @@ import org.eclipse.jetty.util.thread.ReservedThreadExecutor;
 import org.eclipse.jetty.util.thread.Scheduler;
 import org.eclipse.jetty.util.thread.ThreadPool;
 import org.eclipse.jetty.util.thread.ThreadPoolBudget;
+import org.eclipse.jetty.util.thread.strategy.AdaptiveExecutionStrategy;
 import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
 
 /**
@@ -63,6 +64,7 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
     private final IntUnaryOperator _selectorIndexUpdate;
     private long _connectTimeout = DEFAULT_CONNECT_TIMEOUT;
     private int _reservedThreads = -1;
+    private boolean _adaptiveExecution;
     private ThreadPoolBudget.Lease _lease;
 
     private static int defaultSelectors(Executor executor)
@@ -160,6 +162,29 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
     {
         _reservedThreads = threads;
     }
+
+    /**
+     * @return whether the selectors use an {@link AdaptiveExecutionStrategy}
+     * @see #setAdaptiveExecution(boolean)
+     */
+    @ManagedAttribute("Whether the selectors adapt their execution strategy to the load")
+    public boolean isAdaptiveExecution()
+    {
+        return _adaptiveExecution;
+    }
+
+    /**
+     * <p>Sets whether the selectors use an {@link AdaptiveExecutionStrategy}, that switches
+     * between EatWhatYouKill and ProduceExecuteConsume depending on the load, rather than
+     * an {@link EatWhatYouKill} strategy.</p>
+     * <p>This must be set before the selectors are started.</p>
+     *
+     * @param adaptiveExecution whether the selectors adapt their execution strategy to the load
+     */
+    public void setAdaptiveExecution(boolean adaptiveExecution)
+    {
+        _adaptiveExecution = adaptiveExecution;
+    }
     
     /**
      * Executes the given task in a different thread.
@@ -226,6 +251,20 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
         selector.submit(selector.new Accept(channel, attachment));
     }
 
+    /**
+     * <p>Registers a channel to perform non-blocking read/write operations with the given selector.</p>
+     *
+     * @param channel    the channel to register
+     * @param attachment the attachment object
+     * @param selector   the id of the selector, modulo the number of selectors
+     * @see #accept(SelectableChannel, Object)
+     */
+    public void accept(SelectableChannel channel, Object attachment, int selector)
+    {
+        final ManagedSelector managedSelector = _selectors[Math.abs(selector % _selectors.length)];
+        managedSelector.submit(managedSelector.new Accept(channel, attachment));
+    }
+
     /**
      * <p>Registers a server channel for accept operations.
      * When a {@link SocketChannel} is accepted from the given {@link ServerSocketChannel}
@@ -238,11 +277,33 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
     public Closeable acceptor(SelectableChannel server)
     {
         final ManagedSelector selector = chooseSelector(null);
-        ManagedSelector.Acceptor acceptor = selector.new Acceptor(server);
+        ManagedSelector.Acceptor acceptor = selector.new Acceptor(server, false);
         selector.submit(acceptor);
         return acceptor;
     }
 
+    /**
+     * <p>Registers a server channel for accept operations with the given selector.</p>
+     * <p>Unlike {@link #acceptor(SelectableChannel)}, the channels accepted from the given
+     * server channel are passed to {@link #accepted(SelectableChannel, int)} with the
+     * selector id, so that they can be registered with the same selector that accepted them
+     * via {@link #accept(SelectableChannel, Object, int)}.
+     * This allows each selector to service its own server channel, for example one of several
+     * server channels bound to the same port with {@code SO_REUSEPORT}, without handing off
+     * the accepted channels to other selectors.</p>
+     *
+     * @param server the server channel to register
+     * @param selector the id of the selector, modulo the number of selectors
+     * @return A Closable that allows the acceptor to be cancelled
+     */
+    public Closeable acceptor(SelectableChannel server, int selector)
+    {
+        final ManagedSelector managedSelector = _selectors[Math.abs(selector % _selectors.length)];
+        ManagedSelector.Acceptor acceptor = managedSelector.new Acceptor(server, true);
+        managedSelector.submit(acceptor);
+        return acceptor;
+    }
+
     /**
      * Callback method when a channel is accepted from the {@link ServerSocketChannel}
      * passed to {@link #acceptor(SelectableChannel)}.
@@ -257,6 +318,20 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Callback method when a channel is accepted from the {@link ServerSocketChannel}
+     * passed to {@link #acceptor(SelectableChannel, int)}.
+     * The default impl calls {@link #accepted(SelectableChannel)}.
+     *
+     * @param channel the accepted channel
+     * @param selector the id of the selector that accepted the channel
+     * @throws IOException if unable to accept channel
+     */
+    protected void accepted(SelectableChannel channel, int selector) throws IOException
+    {
+        accepted(channel);
+    }
+
     @Override
     protected void doStart() throws Exception
     {
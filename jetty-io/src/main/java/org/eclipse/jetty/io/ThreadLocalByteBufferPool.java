@@ -0,0 +1,293 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+
+/**
+ * <p>A {@link ByteBufferPool} that keeps a small cache of buffers for each thread
+ * in front of a shared delegate pool.</p>
+ * <p>Acquiring and releasing a buffer from/to the cache of the current thread
+ * requires no atomic operation on shared state, so threads do not contend on the
+ * queues of the delegate pool. When the cache of a thread is empty the buffer is
+ * acquired from the delegate pool; when it is full half of the cached buffers of
+ * the same size are released to the delegate pool, where they can be acquired by
+ * other threads.</p>
+ * <p>The memory cached by each thread is bounded, and buffers bigger than the max
+ * cached capacity always go to the delegate pool. This pool is best used with a
+ * bounded number of threads, such as those of a {@code QueuedThreadPool}.</p>
+ */
+@ManagedObject("A ByteBufferPool with per-thread caches")
+public class ThreadLocalByteBufferPool extends ContainerLifeCycle implements ByteBufferPool
+{
+    private final ByteBufferPool _delegate;
+    private final int _factor;
+    private final int _maxCapacity;
+    private final int _maxBucketSize;
+    private final long _maxThreadMemory;
+    private final ThreadLocal<Cache> _caches = ThreadLocal.withInitial(Cache::new);
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _spills = new LongAdder();
+    private volatile int _generation;
+
+    public ThreadLocalByteBufferPool()
+    {
+        this(new ArrayByteBufferPool());
+    }
+
+    public ThreadLocalByteBufferPool(ByteBufferPool delegate)
+    {
+        this(delegate,-1,-1,-1,-1);
+    }
+
+    /**
+     * @param delegate the shared pool
+     * @param factor the capacity granularity of the per-thread buckets
+     * @param maxCapacity the max capacity of the buffers cached per thread
+     * @param maxBucketSize the max number of buffers of the same size cached per thread
+     * @param maxThreadMemory the max memory in bytes cached per thread, for direct and heap buffers each
+     */
+    public ThreadLocalByteBufferPool(ByteBufferPool delegate, int factor, int maxCapacity, int maxBucketSize, long maxThreadMemory)
+    {
+        _delegate = delegate;
+        _factor = factor <= 0 ? 1024 : factor;
+        _maxCapacity = maxCapacity <= 0 ? 64 * 1024 : maxCapacity;
+        if (_maxCapacity < _factor)
+            throw new IllegalArgumentException("maxCapacity < factor");
+        _maxBucketSize = maxBucketSize <= 0 ? 8 : maxBucketSize;
+        _maxThreadMemory = maxThreadMemory <= 0 ? 256 * 1024 : maxThreadMemory;
+        addBean(_delegate);
+    }
+
+    public ByteBufferPool getDelegate()
+    {
+        return _delegate;
+    }
+
+    @Override
+    public ByteBuffer acquire(int size, boolean direct)
+    {
+        if (size > 0 && size <= _maxCapacity)
+        {
+            // Any buffer in this bucket has a capacity of at least size.
+            ByteBuffer buffer = cache().poll((size - 1) / _factor, direct);
+            if (buffer != null)
+            {
+                _hits.increment();
+                return buffer;
+            }
+        }
+        _misses.increment();
+        return _delegate.acquire(size, direct);
+    }
+
+    @Override
+    public void release(ByteBuffer buffer)
+    {
+        if (buffer == null)
+            return;
+        int capacity = buffer.capacity();
+        if (capacity < _factor || capacity > _maxCapacity)
+        {
+            _delegate.release(buffer);
+            return;
+        }
+        // Any buffer in this bucket has a capacity of at least (bucket+1)*factor.
+        BufferUtil.clear(buffer);
+        cache().offer(capacity / _factor - 1, buffer);
+    }
+
+    @Override
+    public ByteBuffer newByteBuffer(int capacity, boolean direct)
+    {
+        return _delegate.newByteBuffer(capacity, direct);
+    }
+
+    /**
+     * <p>Clears the cache of all threads.</p>
+     * <p>The caches of other threads are dropped the next time those threads use this pool.</p>
+     */
+    @ManagedOperation(value = "Clears the per-thread caches", impact = "ACTION")
+    public void clear()
+    {
+        ++_generation;
+    }
+
+    @ManagedAttribute("The capacity granularity of the per-thread buckets")
+    public int getFactor()
+    {
+        return _factor;
+    }
+
+    @ManagedAttribute("The max capacity of the buffers cached per thread")
+    public int getMaxCapacity()
+    {
+        return _maxCapacity;
+    }
+
+    @ManagedAttribute("The max number of buffers of the same size cached per thread")
+    public int getMaxBucketSize()
+    {
+        return _maxBucketSize;
+    }
+
+    @ManagedAttribute("The max memory in bytes cached per thread")
+    public long getMaxThreadMemory()
+    {
+        return _maxThreadMemory;
+    }
+
+    @ManagedAttribute("The number of acquisitions served by the per-thread caches")
+    public long getHits()
+    {
+        return _hits.longValue();
+    }
+
+    @ManagedAttribute("The number of acquisitions served by the delegate pool")
+    public long getMisses()
+    {
+        return _misses.longValue();
+    }
+
+    @ManagedAttribute("The number of buffers released from the per-thread caches to the delegate pool")
+    public long getSpills()
+    {
+        return _spills.longValue();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _hits.reset();
+        _misses.reset();
+        _spills.reset();
+    }
+
+    private Cache cache()
+    {
+        Cache cache = _caches.get();
+        int generation = _generation;
+        if (cache._generation != generation)
+        {
+            cache.clear();
+            cache._generation = generation;
+        }
+        return cache;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%d/%d/%d,hits=%d,misses=%d}", getClass().getSimpleName(), hashCode(),
+                _factor, _maxCapacity, _maxBucketSize, getHits(), getMisses());
+    }
+
+    private class Cache
+    {
+        // Rounded up, as acquire() indexes up to (maxCapacity - 1) / factor.
+        private final ByteBuffer[][] _direct = new ByteBuffer[(_maxCapacity + _factor - 1) / _factor][];
+        private final ByteBuffer[][] _heap = new ByteBuffer[_direct.length][];
+        private final int[] _directSizes = new int[_direct.length];
+        private final int[] _heapSizes = new int[_heap.length];
+        private long _directMemory;
+        private long _heapMemory;
+        private int _generation = ThreadLocalByteBufferPool.this._generation;
+
+        private ByteBuffer poll(int bucket, boolean direct)
+        {
+            ByteBuffer[] buffers = (direct ? _direct : _heap)[bucket];
+            int[] sizes = direct ? _directSizes : _heapSizes;
+            int size = sizes[bucket];
+            if (size == 0)
+                return null;
+            sizes[bucket] = --size;
+            ByteBuffer buffer = buffers[size];
+            buffers[size] = null;
+            updateMemory(direct, -buffer.capacity());
+            return buffer;
+        }
+
+        private void offer(int bucket, ByteBuffer buffer)
+        {
+            boolean direct = buffer.isDirect();
+            ByteBuffer[][] buckets = direct ? _direct : _heap;
+            ByteBuffer[] buffers = buckets[bucket];
+            if (buffers == null)
+                buffers = buckets[bucket] = new ByteBuffer[_maxBucketSize];
+            int[] sizes = direct ? _directSizes : _heapSizes;
+
+            int capacity = buffer.capacity();
+            if (sizes[bucket] == _maxBucketSize || (direct ? _directMemory : _heapMemory) + capacity > _maxThreadMemory)
+            {
+                // Rebalance by handing over half of this bucket to the delegate pool,
+                // so that other threads can acquire them.
+                int spill = (sizes[bucket] + 1) / 2;
+                for (int i = 0; i < spill; ++i)
+                    _delegate.release(poll(bucket, direct));
+                _spills.add(spill);
+                if ((direct ? _directMemory : _heapMemory) + capacity > _maxThreadMemory)
+                {
+                    _spills.increment();
+                    _delegate.release(buffer);
+                    return;
+                }
+            }
+
+            buffers[sizes[bucket]++] = buffer;
+            updateMemory(direct, capacity);
+        }
+
+        private void updateMemory(boolean direct, int delta)
+        {
+            if (direct)
+                _directMemory += delta;
+            else
+                _heapMemory += delta;
+        }
+
+        private void clear()
+        {
+            clear(_direct, _directSizes);
+            clear(_heap, _heapSizes);
+            _directMemory = 0;
+            _heapMemory = 0;
+        }
+
+        private void clear(ByteBuffer[][] buckets, int[] sizes)
+        {
+            for (int i = 0; i < buckets.length; ++i)
+            {
+                if (buckets[i] != null)
+                {
+                    for (int j = 0; j < sizes[i]; ++j)
+                        buckets[i][j] = null;
+                }
+                sizes[i] = 0;
+            }
+        }
+    }
+}
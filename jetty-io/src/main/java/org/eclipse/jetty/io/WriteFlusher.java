@@ -440,7 +440,7 @@ abstract public class WriteFlusher
             int not_empty=0;
             while(r==0)
             {
-                if (++not_empty==buffers.length)
+                if (++not_empty>=buffers.length)
                 {
                     buffers=null;
                     not_empty=0;
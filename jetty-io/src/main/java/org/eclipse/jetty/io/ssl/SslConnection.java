@@ -25,6 +25,7 @@ import java.nio.channels.ClosedChannelException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLEngineResult;
@@ -94,6 +95,7 @@ public class SslConnection extends AbstractConnection
     private int _renegotiationLimit = -1;
     private boolean _closedOutbound;
     private boolean _allowMissingCloseMessage = true;
+    private SslHandshakeExecutor _handshakeExecutor;
 
     private abstract class RunnableTask  implements Runnable, Invocable
     {
@@ -141,6 +143,30 @@ public class SslConnection extends AbstractConnection
         }
     };
 
+    private final Runnable _runDelegatedTasks = new RunnableTask("runDelegatedTasks")
+    {
+        @Override
+        public void run()
+        {
+            try
+            {
+                Runnable task;
+                while ((task = _sslEngine.getDelegatedTask()) != null)
+                    task.run();
+            }
+            finally
+            {
+                _decryptedEndPoint.onDelegatedTasksCompleted();
+            }
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return InvocationType.BLOCKING;
+        }
+    };
+
     private final Callback _sslReadCallback = new Callback()
     {
         @Override
@@ -242,6 +268,21 @@ public class SslConnection extends AbstractConnection
         this._allowMissingCloseMessage = allowMissingCloseMessage;
     }
 
+    public SslHandshakeExecutor getSslHandshakeExecutor()
+    {
+        return _handshakeExecutor;
+    }
+
+    /**
+     * @param handshakeExecutor the executor of the delegated tasks of the handshakes,
+     * that also tracks the handshake statistics, or null to run the delegated tasks
+     * in the thread that reads or writes this connection
+     */
+    public void setSslHandshakeExecutor(SslHandshakeExecutor handshakeExecutor)
+    {
+        _handshakeExecutor = handshakeExecutor;
+    }
+
     @Override
     public void onOpen()
     {
@@ -429,6 +470,9 @@ public class SslConnection extends AbstractConnection
         private boolean _cannotAcceptMoreAppDataToFlush;
         private boolean _handshaken;
         private boolean _underFlown;
+        private boolean _delegatingTasks;
+        private boolean _fillableAfterTasks;
+        private long _handshakeStarted;
 
         private final Callback _writeCallback = new WriteCallBack();
 
@@ -496,6 +540,12 @@ public class SslConnection extends AbstractConnection
                     _cannotAcceptMoreAppDataToFlush = true;
                     write = true;
                 }
+                // If the delegated tasks have been offloaded,
+                else if (_delegatingTasks)
+                {
+                    // their completion will try the flush again
+                    _flushRequiresFillToProgress = true;
+                }
                 // If we are handshaking and need to read,
                 else if (_sslEngine.getHandshakeStatus() == HandshakeStatus.NEED_UNWRAP)
                 {
@@ -545,20 +595,34 @@ public class SslConnection extends AbstractConnection
             // might be more encrypted data available to attempt another call to fill
             boolean fillable;
             boolean write = false;
+            boolean interested = true;
             synchronized (DecryptedEndPoint.this)
             {
                 // Do we already have some app data, then app can fill now so return true
                 fillable = (BufferUtil.hasContent(_decryptedInput))
                         // or if we have encryptedInput and have not underflowed yet, the it is worth trying a fill
-                        || BufferUtil.hasContent(_encryptedInput) && !_underFlown;
+                        || BufferUtil.hasContent(_encryptedInput) && !_underFlown && !_delegatingTasks;
 
                 // If we have no encrypted data to decrypt OR we have some, but it is not enough
                 if (!fillable)
                 {
                     // We are not ready to read data
 
+                    // Are we waiting for the offloaded delegated tasks?
+                    if (_delegatingTasks)
+                    {
+                        // their completion will wake up the fill interest
+                        interested = false;
+                    }
+                    // Have the delegated tasks completed before the fill interest was set?
+                    else if (_fillableAfterTasks)
+                    {
+                        // try to fill so that the handshake can progress,
+                        // leaving the flag for fill() to resume the handshake
+                        fillable = true;
+                    }
                     // Are we actually write blocked?
-                    if (_fillRequiresFlushToProgress)
+                    else if (_fillRequiresFlushToProgress)
                     {
                         // we must be blocked trying to write before we can read
 
@@ -583,7 +647,7 @@ public class SslConnection extends AbstractConnection
                 getEndPoint().write(_writeCallback, _encryptedOutput);
             else if (fillable)
                 getExecutor().execute(_runFillable);
-            else
+            else if (interested)
                 ensureFillInterested();
         }
 
@@ -611,6 +675,13 @@ public class SslConnection extends AbstractConnection
             {
                 synchronized (this)
                 {
+                    boolean resumed = _fillableAfterTasks;
+                    _fillableAfterTasks = false;
+
+                    // Wait for the offloaded delegated tasks to complete.
+                    if (_delegatingTasks && BufferUtil.isEmpty(_decryptedInput))
+                        return 0;
+
                     Throwable failure = null;
                     try
                     {
@@ -650,6 +721,8 @@ public class SslConnection extends AbstractConnection
                                 SSLEngineResult unwrapResult;
                                 try
                                 {
+                                    if (BufferUtil.hasContent(_encryptedInput))
+                                        handshakeStarting();
                                     unwrapResult = _sslEngine.unwrap(_encryptedInput, app_in);
                                 }
                                 finally
@@ -675,7 +748,11 @@ public class SslConnection extends AbstractConnection
                                 {
                                     if (net_filled < 0 && _sslEngine.getUseClientMode())
                                         closeInbound();
-                                    if (net_filled <= 0)
+                                    // After the offloaded delegated tasks, the handshake
+                                    // may need to wrap without having read more bytes.
+                                    boolean wrap = resumed && net_filled == 0 && handshakeStatus == HandshakeStatus.NEED_WRAP;
+                                    resumed = false;
+                                    if (net_filled <= 0 && !wrap)
                                         return net_filled;
                                 }
 
@@ -692,8 +769,11 @@ public class SslConnection extends AbstractConnection
                                             }
                                             case NEED_TASK:
                                             {
-                                                _sslEngine.getDelegatedTask().run();
-                                                continue;
+                                                if (runDelegatedTasks())
+                                                    continue;
+                                                // The tasks have been offloaded, return from
+                                                // fill() and let their completion resume it.
+                                                return 0;
                                             }
                                             case NEED_WRAP:
                                             {
@@ -744,8 +824,11 @@ public class SslConnection extends AbstractConnection
                                             }
                                             case NEED_TASK:
                                             {
-                                                _sslEngine.getDelegatedTask().run();
-                                                continue;
+                                                if (runDelegatedTasks())
+                                                    continue;
+                                                // The tasks have been offloaded, return from
+                                                // fill() and let their completion resume it.
+                                                return 0;
                                             }
                                             case NEED_WRAP:
                                             {
@@ -841,6 +924,13 @@ public class SslConnection extends AbstractConnection
             }
         }
 
+        private void handshakeStarting()
+        {
+            // The first wrap or unwrap begins the initial handshake.
+            if (!_handshaken && _handshakeStarted == 0)
+                _handshakeStarted = System.nanoTime();
+        }
+
         private void handshakeFinished()
         {
             if (_handshaken)
@@ -858,10 +948,73 @@ public class SslConnection extends AbstractConnection
                         _sslEngine.getUseClientMode() ? "client" : "resumed server",
                             _sslEngine.getSession().getProtocol(),_sslEngine.getSession().getCipherSuite(),
                             SslConnection.this);
+                SslHandshakeExecutor handshakeExecutor = _handshakeExecutor;
+                if (handshakeExecutor != null)
+                    handshakeExecutor.onHandshakeSucceeded(System.nanoTime() - _handshakeStarted);
                 notifyHandshakeSucceeded(_sslEngine);
             }
         }
 
+        /**
+         * <p>Runs the delegated tasks of the SSLEngine, or offloads them to the
+         * {@link SslHandshakeExecutor}, in which case fill() and flush() make
+         * no progress until the tasks complete and resume the connection.</p>
+         *
+         * @return true if the tasks have been run and the handshake can continue,
+         * false if the tasks have been offloaded
+         */
+        private boolean runDelegatedTasks()
+        {
+            if (_delegatingTasks)
+                return false;
+
+            SslHandshakeExecutor handshakeExecutor = _handshakeExecutor;
+            if (handshakeExecutor == null || !handshakeExecutor.isOffloading())
+            {
+                _sslEngine.getDelegatedTask().run();
+                return true;
+            }
+
+            _delegatingTasks = true;
+            try
+            {
+                handshakeExecutor.execute(_runDelegatedTasks);
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Offloaded delegated tasks {}", SslConnection.this);
+                return false;
+            }
+            catch (RejectedExecutionException x)
+            {
+                // The executor is saturated, run the tasks in this thread.
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Rejected delegated tasks {}", SslConnection.this, x);
+                _delegatingTasks = false;
+                Runnable task;
+                while ((task = _sslEngine.getDelegatedTask()) != null)
+                    task.run();
+                return true;
+            }
+        }
+
+        private void onDelegatedTasksCompleted()
+        {
+            // Wake up whoever was filling or flushing, as it would
+            // happen if more encrypted bytes were available.
+            boolean runComplete;
+            synchronized (DecryptedEndPoint.this)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Completed delegated tasks {}", SslConnection.this);
+                _delegatingTasks = false;
+                _fillableAfterTasks = true;
+                runComplete = _flushRequiresFillToProgress;
+                _flushRequiresFillToProgress = false;
+            }
+            getExecutor().execute(_runFillable);
+            if (runComplete)
+                getExecutor().execute(_runCompleteWrite);
+        }
+
         private boolean allowRenegotiate(HandshakeStatus handshakeStatus)
         {   
             if (!_handshaken || handshakeStatus == HandshakeStatus.NOT_HANDSHAKING)
@@ -934,6 +1087,10 @@ public class SslConnection extends AbstractConnection
             {
                 synchronized (this)
                 {
+                    // Wait for the offloaded delegated tasks to complete.
+                    if (_delegatingTasks)
+                        return false;
+
                     try
                     {
                         if (_cannotAcceptMoreAppDataToFlush)
@@ -955,6 +1112,7 @@ public class SslConnection extends AbstractConnection
                             SSLEngineResult wrapResult;
                             try
                             {
+                                handshakeStarting();
                                 wrapResult = _sslEngine.wrap(appOuts, _encryptedOutput);
                             }
                             finally
@@ -1036,9 +1194,10 @@ public class SslConnection extends AbstractConnection
                                             return allConsumed && BufferUtil.isEmpty(_encryptedOutput);
 
                                         case NEED_TASK:
-                                            // run the task and continue
-                                            _sslEngine.getDelegatedTask().run();
-                                            continue;
+                                            // run the task and continue, unless it has been offloaded
+                                            if (runDelegatedTasks())
+                                                continue;
+                                            return false;
 
                                         case NEED_WRAP:
                                             // Hey we just wrapped! Oh well who knows what the sslEngine is thinking, so continue and we will wrap again
@@ -1191,6 +1350,9 @@ public class SslConnection extends AbstractConnection
 
         private void notifyHandshakeFailed(SSLEngine sslEngine, Throwable failure)
         {
+            SslHandshakeExecutor handshakeExecutor = _handshakeExecutor;
+            if (handshakeExecutor != null)
+                handshakeExecutor.onHandshakeFailed();
             SslHandshakeListener.Event event = null;
             for (SslHandshakeListener listener : handshakeListeners)
             {
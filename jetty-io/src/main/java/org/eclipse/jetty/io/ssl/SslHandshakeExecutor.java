@@ -0,0 +1,265 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.io.ssl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.net.ssl.SSLEngine;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
+
+/**
+ * <p>An {@link Executor} for the {@link SSLEngine#getDelegatedTask() delegated tasks}
+ * of TLS handshakes, that also tracks statistics about the handshakes.</p>
+ * <p>The delegated tasks perform the expensive cryptographic operations of the
+ * handshakes, such as the key exchange and the certificate verification.
+ * By default {@link SslConnection} runs them in the thread that reads or writes
+ * the connection; when configured with a number of threads, this executor runs
+ * them in a separate, bounded thread pool, and the connection is resumed when
+ * the tasks complete, so that a burst of handshakes does not starve the threads
+ * that serve the established connections.</p>
+ * <p>When the queue of the thread pool is full, the tasks are rejected and
+ * {@link SslConnection} runs them in the calling thread, which pushes back
+ * on the handshakes.</p>
+ */
+@ManagedObject("Executes the delegated tasks of TLS handshakes")
+public class SslHandshakeExecutor extends ContainerLifeCycle implements Executor
+{
+    private final LongAdder _handshakes = new LongAdder();
+    private final LongAdder _handshakeFailures = new LongAdder();
+    private final SampleStatistic _handshakeDuration = new SampleStatistic();
+    private final AtomicLong _handshakesStamp = new AtomicLong();
+    private final AtomicLong _handshakesAtStamp = new AtomicLong();
+    private final LongAdder _tasks = new LongAdder();
+    private final LongAdder _rejectedTasks = new LongAdder();
+    private final int _threads;
+    private final int _queueCapacity;
+    private volatile ThreadPoolExecutor _threadPool;
+
+    public SslHandshakeExecutor()
+    {
+        this(0,0);
+    }
+
+    /**
+     * @param threads the number of threads that run the delegated tasks,
+     * or 0 to run them in the thread that reads or writes the connection
+     * @param queueCapacity the max number of delegated tasks waiting for a thread,
+     * or 0 to run them in the calling thread when no thread is idle
+     */
+    public SslHandshakeExecutor(@Name("threads") int threads, @Name("queueCapacity") int queueCapacity)
+    {
+        if (queueCapacity<0)
+            throw new IllegalArgumentException("Invalid queue capacity "+queueCapacity);
+        _threads=Math.max(0,threads);
+        _queueCapacity=queueCapacity;
+        reset();
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        if (_threads>0)
+        {
+            BlockingQueue<Runnable> queue=_queueCapacity==0?new SynchronousQueue<>():new ArrayBlockingQueue<>(_queueCapacity);
+            // Rejections are the designed back-pressure during handshake
+            // bursts, so they are neither logged nor given a message.
+            RejectedExecutionHandler rejected=(task,executor)->
+            {
+                throw new RejectedExecutionException();
+            };
+            _threadPool=new ThreadPoolExecutor(_threads,_threads,60,TimeUnit.SECONDS,queue,new HandshakeThreadFactory(),rejected);
+        }
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        ThreadPoolExecutor threadPool=_threadPool;
+        _threadPool=null;
+        if (threadPool!=null)
+        {
+            // The queued tasks are still run, so that their connections are resumed.
+            threadPool.shutdown();
+        }
+    }
+
+    /**
+     * @return whether the delegated tasks are run by this executor rather
+     * than in the thread that reads or writes the connection
+     */
+    public boolean isOffloading()
+    {
+        return _threadPool!=null && isRunning();
+    }
+
+    @Override
+    public void execute(Runnable task)
+    {
+        ThreadPoolExecutor threadPool=_threadPool;
+        if (threadPool==null)
+        {
+            task.run();
+            return;
+        }
+
+        _tasks.increment();
+        try
+        {
+            threadPool.execute(task);
+        }
+        catch (RejectedExecutionException x)
+        {
+            _rejectedTasks.increment();
+            throw x;
+        }
+    }
+
+    void onHandshakeSucceeded(long nanos)
+    {
+        _handshakes.increment();
+        _handshakeDuration.set(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    void onHandshakeFailed()
+    {
+        _handshakeFailures.increment();
+    }
+
+    @ManagedOperation(value="Resets the statistics",impact="ACTION")
+    public void reset()
+    {
+        _handshakes.reset();
+        _handshakeFailures.reset();
+        _handshakeDuration.reset();
+        _handshakesStamp.set(System.nanoTime());
+        _handshakesAtStamp.set(0);
+        _tasks.reset();
+        _rejectedTasks.reset();
+    }
+
+    @ManagedAttribute("The number of threads that run the delegated tasks")
+    public int getThreads()
+    {
+        return _threads;
+    }
+
+    @ManagedAttribute("The max number of delegated tasks waiting for a thread")
+    public int getQueueCapacity()
+    {
+        return _queueCapacity;
+    }
+
+    @ManagedAttribute("The number of delegated tasks waiting for a thread")
+    public int getQueueSize()
+    {
+        ThreadPoolExecutor threadPool=_threadPool;
+        return threadPool==null?0:threadPool.getQueue().size();
+    }
+
+    @ManagedAttribute("The number of delegated tasks submitted to the threads")
+    public long getTasks()
+    {
+        return _tasks.sum();
+    }
+
+    @ManagedAttribute("The number of delegated tasks rejected because the queue was full")
+    public long getRejectedTasks()
+    {
+        return _rejectedTasks.sum();
+    }
+
+    @ManagedAttribute("The number of successful handshakes")
+    public long getHandshakes()
+    {
+        return _handshakes.sum();
+    }
+
+    @ManagedAttribute("The number of failed handshakes")
+    public long getHandshakeFailures()
+    {
+        return _handshakeFailures.sum();
+    }
+
+    @ManagedAttribute("The number of successful handshakes per second since the last invocation of this method")
+    public long getHandshakesRate()
+    {
+        long now=System.nanoTime();
+        long then=_handshakesStamp.getAndSet(now);
+        long handshakes=getHandshakes();
+        long previous=_handshakesAtStamp.getAndSet(handshakes);
+        long elapsed=TimeUnit.NANOSECONDS.toMillis(now-then);
+        return elapsed==0?0:(handshakes-previous)*1000/elapsed;
+    }
+
+    @ManagedAttribute("The max duration of a handshake in microseconds")
+    public long getHandshakeDurationMax()
+    {
+        return _handshakeDuration.getMax();
+    }
+
+    @ManagedAttribute("The mean duration of a handshake in microseconds")
+    public double getHandshakeDurationMean()
+    {
+        return _handshakeDuration.getMean();
+    }
+
+    @ManagedAttribute("The standard deviation of the duration of a handshake")
+    public double getHandshakeDurationStdDev()
+    {
+        return _handshakeDuration.getStdDev();
+    }
+
+    private class HandshakeThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger _ids=new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread=new Thread(runnable,String.format("ssl-handshake-%x-%d",SslHandshakeExecutor.this.hashCode(),_ids.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{threads=%d,queue=%d/%d,handshakes=%d}",getClass().getSimpleName(),hashCode(),getThreads(),getQueueSize(),getQueueCapacity(),getHandshakes());
+    }
+}
@@ -0,0 +1,98 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.io.ssl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.net.ssl.SSLSession;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+
+/**
+ * <p>A {@link SslHandshakeListener} that tracks how many TLS handshakes
+ * resume a previous session, rather than performing a full handshake.</p>
+ * <p>Adding an instance of this class as a bean to a server connector
+ * (or to a client connector) tracks the handshakes of its connections;
+ * a low resumption ratio with clients that support resumption indicates
+ * that the session cache is too small or that its timeout is too short,
+ * or that the clients are balanced across servers that do not share the
+ * session state.</p>
+ */
+@ManagedObject("Tracks statistics on TLS session resumption")
+public class SslResumptionStatistics implements SslHandshakeListener
+{
+    private final LongAdder _fullHandshakes = new LongAdder();
+    private final LongAdder _resumedHandshakes = new LongAdder();
+
+    @Override
+    public void handshakeSucceeded(Event event)
+    {
+        if (isResumed(event.getSSLEngine().getSession()))
+            _resumedHandshakes.increment();
+        else
+            _fullHandshakes.increment();
+    }
+
+    /**
+     * <p>A resumed session retains the creation time of the session it resumes,
+     * while its last access time is updated by the resumption handshake.</p>
+     *
+     * @param session the session just negotiated
+     * @return whether the handshake resumed a previous session
+     */
+    protected boolean isResumed(SSLSession session)
+    {
+        return session.getLastAccessedTime() > session.getCreationTime();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        _fullHandshakes.reset();
+        _resumedHandshakes.reset();
+    }
+
+    @ManagedAttribute("The number of full handshakes")
+    public long getFullHandshakes()
+    {
+        return _fullHandshakes.sum();
+    }
+
+    @ManagedAttribute("The number of handshakes that resumed a previous session")
+    public long getResumedHandshakes()
+    {
+        return _resumedHandshakes.sum();
+    }
+
+    @ManagedAttribute("The ratio of resumed handshakes over all handshakes")
+    public double getResumptionRatio()
+    {
+        long resumed = getResumedHandshakes();
+        long total = resumed + getFullHandshakes();
+        return total == 0 ? 0 : (double)resumed / total;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{full=%d,resumed=%d}", getClass().getSimpleName(), hashCode(), getFullHandshakes(), getResumedHandshakes());
+    }
+}
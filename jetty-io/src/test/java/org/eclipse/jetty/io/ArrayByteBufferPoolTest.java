@@ -169,4 +169,74 @@ public class ArrayByteBufferPoolTest
         assertEquals(2, bucket.size());
     }
 
+    @Test
+    public void testMaxMemory() throws Exception
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1,1024,16*1024,-1,-1,3*1024,-1);
+
+        ByteBuffer buffer1 = bufferPool.acquire(1024, true);
+        ByteBuffer buffer2 = bufferPool.acquire(2048, true);
+        ByteBuffer buffer3 = bufferPool.acquire(1024, true);
+
+        bufferPool.release(buffer1);
+        assertEquals(1024, bufferPool.getDirectMemory());
+        bufferPool.release(buffer2);
+        assertEquals(3*1024, bufferPool.getDirectMemory());
+        bufferPool.release(buffer3);
+        assertEquals(3*1024, bufferPool.getDirectMemory());
+        assertEquals(2, bufferPool.getDirectByteBufferCount());
+
+        bufferPool.acquire(2048, true);
+        assertEquals(1024, bufferPool.getDirectMemory());
+        bufferPool.clear();
+        assertEquals(0, bufferPool.getDirectMemory());
+    }
+
+    @Test
+    public void testEvictIdle() throws Exception
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1,-1,-1,-1);
+
+        ByteBuffer[] buffers = new ByteBuffer[4];
+        for (int i=0;i<buffers.length;i++)
+            buffers[i] = bufferPool.acquire(512, false);
+        for (ByteBuffer buffer : buffers)
+            bufferPool.release(buffer);
+        assertEquals(4, bufferPool.getHeapByteBufferCount());
+
+        // Nothing was acquired since the buffers were released, but the
+        // low water mark only starts to be tracked from the first eviction.
+        assertEquals(0, bufferPool.evictIdle());
+
+        // Only two buffers are in use during the next period.
+        bufferPool.release(bufferPool.acquire(512, false));
+        ByteBuffer buffer1 = bufferPool.acquire(512, false);
+        ByteBuffer buffer2 = bufferPool.acquire(512, false);
+        bufferPool.release(buffer1);
+        bufferPool.release(buffer2);
+
+        assertEquals(2, bufferPool.evictIdle());
+        assertEquals(2, bufferPool.getHeapByteBufferCount());
+        assertEquals(2, bufferPool.getEvictions());
+        assertEquals(2*1024, bufferPool.getHeapMemory());
+    }
+
+    @Test
+    public void testStatistics() throws Exception
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1,-1,-1,-1);
+
+        ByteBuffer buffer1 = bufferPool.acquire(512, true);
+        bufferPool.release(buffer1);
+        ByteBuffer buffer2 = bufferPool.acquire(512, true);
+        bufferPool.release(buffer2);
+        bufferPool.acquire(4096, false);
+
+        assertEquals(3, bufferPool.getAcquires());
+        assertEquals(1, bufferPool.getHits());
+        assertEquals(2, bufferPool.getMisses());
+
+        bufferPool.resetStatistics();
+        assertEquals(0, bufferPool.getAcquires());
+    }
 }
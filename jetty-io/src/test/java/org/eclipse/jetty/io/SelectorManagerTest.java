@@ -161,4 +161,57 @@ public class SelectorManagerTest
             selectorManager.stop();
         }
     }
+
+    @Test
+    public void testConcurrentSubmit() throws Exception
+    {
+        SelectorManager selectorManager = new SelectorManager(executor, scheduler, 1)
+        {
+            @Override
+            protected EndPoint newEndPoint(SelectableChannel channel, ManagedSelector selector, SelectionKey key) throws IOException
+            {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Connection newConnection(SelectableChannel channel, EndPoint endpoint, Object attachment) throws IOException
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+        selectorManager.start();
+
+        try
+        {
+            ManagedSelector selector = selectorManager.getBean(ManagedSelector.class);
+            int threads = 4;
+            int actions = 1000;
+            CountDownLatch latch = new CountDownLatch(threads * actions);
+            for (int t = 0; t < threads; ++t)
+            {
+                executor.execute(() ->
+                {
+                    for (int i = 0; i < actions; ++i)
+                        selector.submit(latch::countDown);
+                });
+            }
+
+            Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+            // The counters may be updated after the actions have run.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (selector.getSubmittedActions() < threads * actions || selector.getActionSize() > 0)
+            {
+                Assert.assertTrue(System.nanoTime() < deadline);
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(threads * actions, selector.getSubmittedActions());
+            Assert.assertEquals(0, selector.getActionSize());
+            Assert.assertTrue(selector.getWakeups() <= selector.getSubmittedActions());
+            Assert.assertTrue(selector.getSelects() > 0);
+        }
+        finally
+        {
+            selectorManager.stop();
+        }
+    }
 }
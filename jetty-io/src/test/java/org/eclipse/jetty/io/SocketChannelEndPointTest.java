@@ -18,11 +18,23 @@
 
 package org.eclipse.jetty.io;
 
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.FutureCallback;
 import org.junit.AfterClass;
+import org.junit.Assert;
 import org.junit.BeforeClass;
+import org.junit.Test;
 
 public class SocketChannelEndPointTest extends EndPointTest<SocketChannelEndPoint>
 {
@@ -63,4 +75,45 @@ public class SocketChannelEndPointTest extends EndPointTest<SocketChannelEndPoin
     {
         super.testClientServerExchange();
     }
+
+    @Test
+    public void testTransfer() throws Exception
+    {
+        byte[] data = new byte[256 * 1024];
+        new Random().nextBytes(data);
+        File file = File.createTempFile("transfer", ".bin");
+        file.deleteOnExit();
+        Files.write(file.toPath(), data);
+
+        EndPointPair<SocketChannelEndPoint> c = newConnection();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            int position = 1000;
+            int count = data.length - 2 * position;
+            byte[] header = "header".getBytes(StandardCharsets.UTF_8);
+            FutureCallback callback = new FutureCallback();
+            new Thread(() -> c.server.transfer(callback, channel, position, count, BufferUtil.toBuffer(header))).start();
+
+            ByteBuffer buffer = BufferUtil.allocate(header.length + count);
+            while (BufferUtil.space(buffer) > 0)
+            {
+                if (c.client.fill(buffer) < 0)
+                    break;
+            }
+            callback.get(5, TimeUnit.SECONDS);
+
+            Assert.assertEquals(header.length + count, buffer.remaining());
+            byte[] received = new byte[buffer.remaining()];
+            buffer.get(received);
+            for (int i = 0; i < header.length; ++i)
+                Assert.assertEquals(header[i], received[i]);
+            for (int i = 0; i < count; ++i)
+                Assert.assertEquals(data[position + i], received[header.length + i]);
+        }
+        finally
+        {
+            c.client.close();
+            c.server.close();
+        }
+    }
 }
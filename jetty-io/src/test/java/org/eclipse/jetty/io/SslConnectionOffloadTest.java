@@ -0,0 +1,120 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jetty.io.ssl.SslHandshakeExecutor;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>Runs the {@link SslConnectionTest} tests with the delegated
+ * tasks of the handshakes offloaded to a {@link SslHandshakeExecutor}.</p>
+ */
+public class SslConnectionOffloadTest extends SslConnectionTest
+{
+    @Before
+    public void startHandshakeExecutor() throws Exception
+    {
+        _handshakeExecutor = new SslHandshakeExecutor(2, 16);
+        _handshakeExecutor.start();
+    }
+
+    @After
+    public void stopHandshakeExecutor() throws Exception
+    {
+        _handshakeExecutor.stop();
+    }
+
+    @Test
+    public void testHandshakeStatistics() throws Exception
+    {
+        int clients = 5;
+        handshake(clients);
+
+        Assert.assertEquals(clients, _handshakeExecutor.getHandshakes());
+        Assert.assertEquals(0, _handshakeExecutor.getHandshakeFailures());
+        Assert.assertTrue(_handshakeExecutor.getTasks() >= clients);
+        Assert.assertEquals(0, _handshakeExecutor.getRejectedTasks());
+        Assert.assertEquals(0, _handshakeExecutor.getQueueSize());
+        Assert.assertTrue(_handshakeExecutor.getHandshakeDurationMax() > 0);
+        Assert.assertTrue(_handshakeExecutor.getHandshakeDurationMean() > 0);
+    }
+
+    @Test
+    public void testHandshakeStatisticsWithoutThreads() throws Exception
+    {
+        _handshakeExecutor.stop();
+        _handshakeExecutor = new SslHandshakeExecutor();
+        _handshakeExecutor.start();
+
+        int clients = 5;
+        handshake(clients);
+
+        Assert.assertEquals(clients, _handshakeExecutor.getHandshakes());
+        Assert.assertEquals(0, _handshakeExecutor.getTasks());
+        Assert.assertTrue(_handshakeExecutor.getHandshakeDurationMax() > 0);
+    }
+
+    private void handshake(int clients) throws Exception
+    {
+        for (int i = 0; i < clients; ++i)
+        {
+            try (Socket client = newClient())
+            {
+                client.setSoTimeout(60000);
+
+                SocketChannel server = _connector.accept();
+                server.configureBlocking(false);
+                _manager.accept(server);
+
+                client.getOutputStream().write("Hello".getBytes(StandardCharsets.UTF_8));
+                byte[] buffer = new byte[1024];
+                int len = client.getInputStream().read(buffer);
+                Assert.assertEquals(5, len);
+                Assert.assertEquals("Hello", new String(buffer, 0, len, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    public void testNoQueue() throws Exception
+    {
+        _handshakeExecutor.stop();
+        _handshakeExecutor = new SslHandshakeExecutor(2, 0);
+        _handshakeExecutor.start();
+
+        testHelloWorld();
+        Assert.assertEquals(1, _handshakeExecutor.getHandshakes());
+
+        try
+        {
+            new SslHandshakeExecutor(2, -1);
+            Assert.fail();
+        }
+        catch (IllegalArgumentException expected)
+        {
+        }
+    }
+}
@@ -38,6 +38,7 @@ import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLSocket;
 
 import org.eclipse.jetty.io.ssl.SslConnection;
+import org.eclipse.jetty.io.ssl.SslHandshakeExecutor;
 import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.FutureCallback;
@@ -59,6 +60,7 @@ public class SslConnectionTest
     private static ByteBufferPool __byteBufferPool = new LeakTrackingByteBufferPool(new MappedByteBufferPool.Tagged());
 
     protected volatile EndPoint _lastEndp;
+    protected volatile SslHandshakeExecutor _handshakeExecutor;
     private volatile boolean _testFill=true;
     private volatile FutureCallback _writeCallback;
     protected ServerSocketChannel _connector;
@@ -84,6 +86,7 @@ public class SslConnectionTest
             SslConnection sslConnection = new SslConnection(__byteBufferPool, getExecutor(), endpoint, engine);
             sslConnection.setRenegotiationAllowed(__sslCtxFactory.isRenegotiationAllowed());
             sslConnection.setRenegotiationLimit(__sslCtxFactory.getRenegotiationLimit());
+            sslConnection.setSslHandshakeExecutor(_handshakeExecutor);
             Connection appConnection = new TestConnection(sslConnection.getDecryptedEndPoint());
             sslConnection.getDecryptedEndPoint().setConnection(appConnection);
             return sslConnection;
@@ -0,0 +1,73 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.io.ssl.SslHandshakeExecutor;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SslHandshakeExecutorTest
+{
+    @Test
+    public void testRejectedTasks() throws Exception
+    {
+        SslHandshakeExecutor handshakeExecutor = new SslHandshakeExecutor(1, 0);
+
+        // The executor can be restarted.
+        for (int i = 0; i < 2; ++i)
+        {
+            handshakeExecutor.start();
+            Assert.assertTrue(handshakeExecutor.isOffloading());
+
+            CountDownLatch running = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            handshakeExecutor.execute(() ->
+            {
+                running.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException x)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            Assert.assertTrue(running.await(5, TimeUnit.SECONDS));
+
+            try
+            {
+                handshakeExecutor.execute(() -> {});
+                Assert.fail();
+            }
+            catch (RejectedExecutionException expected)
+            {
+            }
+            Assert.assertEquals(i + 1, handshakeExecutor.getRejectedTasks());
+
+            release.countDown();
+            handshakeExecutor.stop();
+            Assert.assertFalse(handshakeExecutor.isOffloading());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+
+import org.eclipse.jetty.io.ssl.SslHandshakeListener;
+import org.eclipse.jetty.io.ssl.SslResumptionStatistics;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SslResumptionStatisticsTest
+{
+    private SslContextFactory sslContextFactory;
+
+    @Before
+    public void prepare() throws Exception
+    {
+        File keystore = MavenTestingUtils.getTestResourceFile("keystore");
+        sslContextFactory = new SslContextFactory();
+        sslContextFactory.setKeyStorePath(keystore.getAbsolutePath());
+        sslContextFactory.setKeyStorePassword("storepwd");
+        sslContextFactory.setKeyManagerPassword("keypwd");
+        sslContextFactory.start();
+    }
+
+    @After
+    public void dispose() throws Exception
+    {
+        sslContextFactory.stop();
+    }
+
+    @Test
+    public void testResumedHandshakes() throws Exception
+    {
+        SslResumptionStatistics statistics = new SslResumptionStatistics();
+
+        int handshakes = 3;
+        for (int i = 0; i < handshakes; ++i)
+        {
+            // Same peer host and port, so that the client tries to resume.
+            SSLEngine client = sslContextFactory.newSSLEngine("localhost", 8443);
+            client.setUseClientMode(true);
+            SSLEngine server = sslContextFactory.newSSLEngine();
+            server.setUseClientMode(false);
+
+            handshake(client, server);
+            statistics.handshakeSucceeded(new SslHandshakeListener.Event(server));
+
+            // Session times have millisecond resolution.
+            Thread.sleep(10);
+        }
+
+        Assert.assertEquals(1, statistics.getFullHandshakes());
+        Assert.assertEquals(handshakes - 1, statistics.getResumedHandshakes());
+        Assert.assertEquals((double)(handshakes - 1) / handshakes, statistics.getResumptionRatio(), 0.001);
+
+        statistics.reset();
+        Assert.assertEquals(0, statistics.getResumptionRatio(), 0.0);
+    }
+
+    private void handshake(SSLEngine client, SSLEngine server) throws Exception
+    {
+        int packetSize = client.getSession().getPacketBufferSize();
+        int appSize = client.getSession().getApplicationBufferSize();
+        ByteBuffer clientToServer = BufferUtil.allocate(4 * packetSize);
+        ByteBuffer serverToClient = BufferUtil.allocate(4 * packetSize);
+        ByteBuffer clientApp = BufferUtil.allocate(appSize);
+        ByteBuffer serverApp = BufferUtil.allocate(appSize);
+
+        client.beginHandshake();
+        server.beginHandshake();
+        for (int i = 0; i < 100; ++i)
+        {
+            if (!isHandshaking(client) && !isHandshaking(server))
+            {
+                // Read the session ticket that TLS 1.3 sends after the handshake.
+                while (BufferUtil.hasContent(serverToClient))
+                {
+                    int pos = BufferUtil.flipToFill(clientApp);
+                    client.unwrap(serverToClient, clientApp);
+                    BufferUtil.flipToFlush(clientApp, pos);
+                }
+                return;
+            }
+            step(client, serverToClient, clientToServer, clientApp);
+            step(server, clientToServer, serverToClient, serverApp);
+        }
+        Assert.fail("Handshake did not complete");
+    }
+
+    private boolean isHandshaking(SSLEngine engine)
+    {
+        HandshakeStatus status = engine.getHandshakeStatus();
+        return status != HandshakeStatus.NOT_HANDSHAKING && status != HandshakeStatus.FINISHED;
+    }
+
+    private void step(SSLEngine engine, ByteBuffer input, ByteBuffer output, ByteBuffer app) throws Exception
+    {
+        while (true)
+        {
+            switch (engine.getHandshakeStatus())
+            {
+                case NEED_TASK:
+                {
+                    Runnable task;
+                    while ((task = engine.getDelegatedTask()) != null)
+                        task.run();
+                    break;
+                }
+                case NEED_WRAP:
+                {
+                    int pos = BufferUtil.flipToFill(output);
+                    engine.wrap(BufferUtil.EMPTY_BUFFER, output);
+                    BufferUtil.flipToFlush(output, pos);
+                    break;
+                }
+                case NEED_UNWRAP:
+                {
+                    if (BufferUtil.isEmpty(input))
+                        return;
+                    int pos = BufferUtil.flipToFill(app);
+                    int consumed = engine.unwrap(input, app).bytesConsumed();
+                    BufferUtil.flipToFlush(app, pos);
+                    BufferUtil.clear(app);
+                    if (consumed == 0)
+                        return;
+                    break;
+                }
+                default:
+                {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class ThreadLocalByteBufferPoolTest
+{
+    @Test
+    public void testAcquireReleaseAcquire() throws Exception
+    {
+        ArrayByteBufferPool delegate = new ArrayByteBufferPool();
+        ThreadLocalByteBufferPool bufferPool = new ThreadLocalByteBufferPool(delegate);
+
+        ByteBuffer buffer1 = bufferPool.acquire(1500, true);
+        assertTrue(buffer1.isDirect());
+        assertThat(buffer1.capacity(), greaterThanOrEqualTo(1500));
+        bufferPool.release(buffer1);
+
+        // Served from the thread cache, the delegate is not involved.
+        ByteBuffer buffer2 = bufferPool.acquire(1200, true);
+        assertSame(buffer1, buffer2);
+        assertEquals(0, delegate.getDirectByteBufferCount());
+        assertEquals(1, bufferPool.getHits());
+
+        ByteBuffer buffer3 = bufferPool.acquire(1200, false);
+        assertNotSame(buffer1, buffer3);
+        assertEquals(2, bufferPool.getMisses());
+    }
+
+    @Test
+    public void testSmallerCapacityNotReturned() throws Exception
+    {
+        ThreadLocalByteBufferPool bufferPool = new ThreadLocalByteBufferPool(new ArrayByteBufferPool());
+
+        bufferPool.release(ByteBuffer.allocate(1500));
+        ByteBuffer buffer = bufferPool.acquire(2000, false);
+        assertThat(buffer.capacity(), greaterThanOrEqualTo(2000));
+    }
+
+    @Test
+    public void testMaxCapacityNotMultipleOfFactor() throws Exception
+    {
+        ThreadLocalByteBufferPool bufferPool = new ThreadLocalByteBufferPool(new ArrayByteBufferPool(), 64, 1000, 4, 64 * 1024);
+
+        ByteBuffer buffer1 = bufferPool.acquire(1000, false);
+        assertThat(buffer1.capacity(), greaterThanOrEqualTo(1000));
+        bufferPool.release(buffer1);
+        ByteBuffer buffer2 = bufferPool.acquire(990, false);
+        assertThat(buffer2.capacity(), greaterThanOrEqualTo(990));
+
+        bufferPool.release(ByteBuffer.allocate(960));
+        assertEquals(960, bufferPool.acquire(960, false).capacity());
+    }
+
+    @Test
+    public void testSpillToDelegate() throws Exception
+    {
+        ArrayByteBufferPool delegate = new ArrayByteBufferPool();
+        ThreadLocalByteBufferPool bufferPool = new ThreadLocalByteBufferPool(delegate, 1024, 8 * 1024, 4, 64 * 1024);
+
+        ByteBuffer[] buffers = new ByteBuffer[5];
+        for (int i = 0; i < buffers.length; ++i)
+            buffers[i] = bufferPool.acquire(1024, false);
+        for (ByteBuffer buffer : buffers)
+            bufferPool.release(buffer);
+
+        // The fifth release found the bucket full and moved half of it to the delegate.
+        assertEquals(2, bufferPool.getSpills());
+        assertEquals(2, delegate.getHeapByteBufferCount());
+    }
+
+    @Test
+    public void testOtherThreadUsesDelegate() throws Exception
+    {
+        ArrayByteBufferPool delegate = new ArrayByteBufferPool();
+        ThreadLocalByteBufferPool bufferPool = new ThreadLocalByteBufferPool(delegate);
+
+        ByteBuffer buffer = bufferPool.acquire(1024, false);
+        bufferPool.release(buffer);
+
+        AtomicReference<ByteBuffer> other = new AtomicReference<>();
+        Thread thread = new Thread(() -> other.set(bufferPool.acquire(1024, false)));
+        thread.start();
+        thread.join();
+
+        assertNotSame(buffer, other.get());
+        assertSame(buffer, bufferPool.acquire(1024, false));
+    }
+
+    @Test
+    public void testClear() throws Exception
+    {
+        ThreadLocalByteBufferPool bufferPool = new ThreadLocalByteBufferPool(new ArrayByteBufferPool());
+
+        ByteBuffer buffer = bufferPool.acquire(1024, false);
+        bufferPool.release(buffer);
+        bufferPool.clear();
+
+        assertNotSame(buffer, bufferPool.acquire(1024, false));
+    }
+}
@@ -0,0 +1,137 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Compares the indexed lookups of {@link HttpFields} by {@link HttpHeader}
+ * with a linear scan of the fields, for messages with a growing number of fields.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class HttpFieldsBenchmark
+{
+    private static final HttpHeader[] HEADERS = new HttpHeader[]
+    {
+        HttpHeader.HOST, HttpHeader.USER_AGENT, HttpHeader.ACCEPT, HttpHeader.ACCEPT_LANGUAGE,
+        HttpHeader.ACCEPT_ENCODING, HttpHeader.REFERER, HttpHeader.COOKIE, HttpHeader.CONNECTION,
+        HttpHeader.CACHE_CONTROL, HttpHeader.X_FORWARDED_FOR
+    };
+
+    // Headers looked up for every request, most of which are absent.
+    private static final HttpHeader[] LOOKUPS = new HttpHeader[]
+    {
+        HttpHeader.CONTENT_TYPE, HttpHeader.CONTENT_LENGTH, HttpHeader.TRANSFER_ENCODING, HttpHeader.EXPECT,
+        HttpHeader.CONNECTION, HttpHeader.X_FORWARDED_FOR, HttpHeader.X_FORWARDED_PROTO, HttpHeader.HOST,
+        HttpHeader.ACCEPT_ENCODING, HttpHeader.IF_MODIFIED_SINCE, HttpHeader.IF_NONE_MATCH, HttpHeader.COOKIE
+    };
+
+    @Param({"10", "30", "60"})
+    public int SIZE;
+
+    private HttpFields _fields;
+
+    @Setup
+    public void setUp()
+    {
+        _fields = new HttpFields();
+        for (int i = 0; i < SIZE; ++i)
+        {
+            if (i < HEADERS.length)
+                _fields.add(HEADERS[i], "value" + i);
+            else
+                _fields.add("X-Custom-" + i, "value" + i);
+        }
+    }
+
+    @Benchmark
+    public int testIndexedLookups()
+    {
+        int found = 0;
+        for (HttpHeader header : LOOKUPS)
+        {
+            if (_fields.get(header) != null)
+                ++found;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int testLinearLookups()
+    {
+        int found = 0;
+        for (HttpHeader header : LOOKUPS)
+        {
+            if (scan(_fields, header) != null)
+                ++found;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int testIndexedLookupsAfterPut()
+    {
+        // Invalidates and rebuilds the index.
+        _fields.put(HttpHeader.CONNECTION, "close");
+        return testIndexedLookups();
+    }
+
+    private static String scan(HttpFields fields, HttpHeader header)
+    {
+        for (int i = 0; i < fields.size(); ++i)
+        {
+            HttpField field = fields.getField(i);
+            if (field.getHeader() == header)
+                return field.getValue();
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(HttpFieldsBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,92 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.DateGenerator;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpGenerator;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class HttpGeneratorBenchmark
+{
+    private final HttpGenerator _generator = new HttpGenerator(true, false);
+    private final ByteBuffer _header = BufferUtil.allocate(8192);
+    private ByteBuffer _content;
+    private MetaData.Response _response;
+
+    @Setup
+    public void setUp()
+    {
+        _content = BufferUtil.toBuffer("{\"name\":\"jetty\",\"id\":1234,\"tags\":[\"http\",\"server\",\"servlet\"]}");
+        HttpFields fields = new HttpFields();
+        fields.put(HttpHeader.CONTENT_TYPE, "application/json;charset=utf-8");
+        fields.put(HttpHeader.DATE, DateGenerator.formatDate(System.currentTimeMillis()));
+        fields.put(HttpHeader.CACHE_CONTROL, "no-cache, no-store, must-revalidate");
+        fields.put("X-Content-Type-Options", "nosniff");
+        fields.put("X-Frame-Options", "DENY");
+        fields.put("Strict-Transport-Security", "max-age=31536000; includeSubDomains");
+        _response = new MetaData.Response(HttpVersion.HTTP_1_1, 200, null, fields, _content.remaining());
+    }
+
+    @Benchmark
+    public HttpGenerator.Result testGenerateResponse() throws IOException
+    {
+        _generator.reset();
+        BufferUtil.clear(_header);
+        HttpGenerator.Result result = _generator.generateResponse(_response, false, _header, null, _content.slice(), true);
+        if (result != HttpGenerator.Result.FLUSH)
+            throw new IllegalStateException(result.toString());
+        return _generator.generateResponse(null, false, null, null, null, true);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(HttpGeneratorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
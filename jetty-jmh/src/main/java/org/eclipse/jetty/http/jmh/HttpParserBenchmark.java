@@ -0,0 +1,191 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpCompliance;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpParser;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class HttpParserBenchmark
+{
+    public static final String SIMPLE =
+        "GET /index.html HTTP/1.1\r\n" +
+        "Host: localhost\r\n" +
+        "\r\n";
+
+    public static final String BROWSER =
+        "GET /api/v1/catalog/items?page=2&size=50 HTTP/1.1\r\n" +
+        "Host: www.example.com\r\n" +
+        "Connection: keep-alive\r\n" +
+        "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/62.0.3202.94 Safari/537.36\r\n" +
+        "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,image/apng,*/*;q=0.8\r\n" +
+        "Accept-Encoding: gzip, deflate, br\r\n" +
+        "Accept-Language: en-US,en;q=0.9\r\n" +
+        "Cache-Control: no-cache\r\n" +
+        "Pragma: no-cache\r\n" +
+        "Referer: https://www.example.com/catalog\r\n" +
+        "Cookie: JSESSIONID=node01x6e9zyj4u2v51e1dd1s3w3r4y0.node0; _ga=GA1.2.1234567890.1511111111; _gid=GA1.2.987654321.1512222222\r\n" +
+        "\r\n";
+
+    public static final String CHUNKED =
+        "POST /upload HTTP/1.1\r\n" +
+        "Host: localhost\r\n" +
+        "Content-Type: application/json\r\n" +
+        "Transfer-Encoding: chunked\r\n" +
+        "\r\n" +
+        "1a\r\n" +
+        "{\"name\":\"jetty\",\"id\":1234}\r\n" +
+        "10\r\n" +
+        "0123456789ABCDEF\r\n" +
+        "0\r\n" +
+        "\r\n";
+
+    @Param({"SIMPLE", "BROWSER", "CHUNKED"})
+    public String REQUEST;
+
+    private ByteBuffer _request;
+    private Handler _handler;
+    private HttpParser _parser;
+
+    @Setup
+    public void setUp()
+    {
+        String request;
+        switch (REQUEST)
+        {
+            case "SIMPLE":
+                request = SIMPLE;
+                break;
+            case "BROWSER":
+                request = BROWSER;
+                break;
+            case "CHUNKED":
+                request = CHUNKED;
+                break;
+            default:
+                throw new IllegalArgumentException(REQUEST);
+        }
+        _request = BufferUtil.toBuffer(request);
+        _handler = new Handler();
+        _parser = new HttpParser(_handler, -1, HttpCompliance.RFC7230);
+    }
+
+    @Benchmark
+    public int testParse()
+    {
+        _parser.reset();
+        _handler._fields = 0;
+        ByteBuffer buffer = _request.slice();
+        while (buffer.hasRemaining() && !_parser.isState(HttpParser.State.END))
+            _parser.parseNext(buffer);
+        return _handler._fields;
+    }
+
+    private static class Handler implements HttpParser.RequestHandler
+    {
+        private int _fields;
+
+        @Override
+        public boolean startRequest(String method, String uri, HttpVersion version)
+        {
+            return false;
+        }
+
+        @Override
+        public void parsedHeader(HttpField field)
+        {
+            ++_fields;
+        }
+
+        @Override
+        public boolean headerComplete()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean content(ByteBuffer item)
+        {
+            return false;
+        }
+
+        @Override
+        public boolean contentComplete()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean messageComplete()
+        {
+            return true;
+        }
+
+        @Override
+        public void earlyEOF()
+        {
+        }
+
+        @Override
+        public void badMessage(int status, String reason)
+        {
+            throw new IllegalStateException(reason);
+        }
+
+        @Override
+        public int getHeaderCacheSize()
+        {
+            return 512;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(HttpParserBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
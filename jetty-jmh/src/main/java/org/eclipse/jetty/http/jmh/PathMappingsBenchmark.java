@@ -0,0 +1,145 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.http.jmh;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.pathmap.MappedResource;
+import org.eclipse.jetty.http.pathmap.PathMappings;
+import org.eclipse.jetty.http.pathmap.RegexPathSpec;
+import org.eclipse.jetty.http.pathmap.ServletPathSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Compares the compiled lookups of {@link PathMappings} with a linear scan
+ * of the mappings in search order, for a growing number of mixed exact, prefix,
+ * suffix and regex path specs.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class PathMappingsBenchmark
+{
+    @Param({"100", "1000", "5000"})
+    public int SIZE;
+
+    private PathMappings<String> _mappings;
+    private String[] _paths;
+
+    @Setup
+    public void setUp()
+    {
+        _mappings = new PathMappings<>();
+        _mappings.put(new ServletPathSpec("/"), "default");
+        for (int i = 0; i < SIZE; ++i)
+        {
+            _mappings.put(new ServletPathSpec("/app/exact/" + i), "exact" + i);
+            _mappings.put(new ServletPathSpec("/app/" + i + "/*"), "prefix" + i);
+            _mappings.put(new ServletPathSpec("*.ext" + i), "suffix" + i);
+            if (i % 100 == 0)
+                _mappings.put(new RegexPathSpec("^/api/v" + i + "/[a-z]+/[0-9]+$"), "regex" + i);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        _paths = new String[64];
+        for (int i = 0; i < _paths.length; ++i)
+        {
+            int n = random.nextInt(SIZE);
+            switch (i % 5)
+            {
+                case 0:
+                    _paths[i] = "/app/exact/" + n;
+                    break;
+                case 1:
+                    _paths[i] = "/app/" + n + "/some/resource";
+                    break;
+                case 2:
+                    _paths[i] = "/static/resource.ext" + n;
+                    break;
+                case 3:
+                    _paths[i] = "/api/v" + (n / 100 * 100) + "/item/" + n;
+                    break;
+                default:
+                    _paths[i] = "/unmapped/" + n;
+                    break;
+            }
+        }
+    }
+
+    @Benchmark
+    public int testCompiledMatch()
+    {
+        int found = 0;
+        for (String path : _paths)
+        {
+            if (_mappings.getMatch(path) != null)
+                ++found;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int testLinearMatch()
+    {
+        int found = 0;
+        for (String path : _paths)
+        {
+            if (scan(_mappings, path) != null)
+                ++found;
+        }
+        return found;
+    }
+
+    private static MappedResource<String> scan(PathMappings<String> mappings, String path)
+    {
+        for (MappedResource<String> mapping : mappings)
+        {
+            if (mapping.getPathSpec().matches(path))
+                return mapping;
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(PathMappingsBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
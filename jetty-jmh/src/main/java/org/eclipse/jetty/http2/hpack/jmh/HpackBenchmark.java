@@ -0,0 +1,133 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HostPortHttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.hpack.HpackDecoder;
+import org.eclipse.jetty.http2.hpack.HpackEncoder;
+import org.eclipse.jetty.http2.hpack.HpackFieldCache;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class HpackBenchmark
+{
+    @Param({"false", "true"})
+    public boolean fieldCache;
+
+    private final ByteBuffer _buffer = BufferUtil.allocate(16 * 1024);
+    private MetaData.Request _request;
+    private MetaData.Response _response;
+    private HpackEncoder _encoder;
+    private HpackDecoder _decoder;
+    private HpackFieldCache _fieldCache;
+    private ByteBuffer _encodedRequest;
+
+    @Setup
+    public void setUp()
+    {
+        HttpFields requestFields = new HttpFields();
+        requestFields.put(HttpHeader.USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/62.0.3202.94 Safari/537.36");
+        requestFields.put(HttpHeader.ACCEPT, "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,image/apng,*/*;q=0.8");
+        requestFields.put(HttpHeader.ACCEPT_ENCODING, "gzip, deflate, br");
+        requestFields.put(HttpHeader.ACCEPT_LANGUAGE, "en-US,en;q=0.9");
+        requestFields.put(HttpHeader.COOKIE, "JSESSIONID=node01x6e9zyj4u2v51e1dd1s3w3r4y0.node0; _ga=GA1.2.1234567890.1511111111");
+        requestFields.put("X-Request-Id", "6f1c4f6e-8f2b-4b1e-9d6a-1c2b3d4e5f60");
+        _request = new MetaData.Request("GET", HttpScheme.HTTPS, new HostPortHttpField("www.example.com"), "/api/v1/catalog/items?page=2", HttpVersion.HTTP_2, requestFields);
+
+        HttpFields responseFields = new HttpFields();
+        responseFields.put(HttpHeader.CONTENT_TYPE, "application/json;charset=utf-8");
+        responseFields.put(HttpHeader.CACHE_CONTROL, "no-cache, no-store, must-revalidate");
+        responseFields.put("X-Content-Type-Options", "nosniff");
+        responseFields.put("Strict-Transport-Security", "max-age=31536000; includeSubDomains");
+        responseFields.putLongField(HttpHeader.CONTENT_LENGTH, 1024);
+        _response = new MetaData.Response(HttpVersion.HTTP_2, 200, responseFields);
+
+        _encoder = new HpackEncoder();
+        _decoder = new HpackDecoder(4096, 8192);
+        _fieldCache = fieldCache ? new HpackFieldCache() : null;
+
+        ByteBuffer encoded = BufferUtil.allocate(16 * 1024);
+        BufferUtil.clearToFill(encoded);
+        new HpackEncoder().encode(encoded, _request);
+        BufferUtil.flipToFlush(encoded, 0);
+        _encodedRequest = encoded;
+    }
+
+    @Benchmark
+    public int testEncodeResponse()
+    {
+        BufferUtil.clearToFill(_buffer);
+        _encoder.encode(_buffer, _response);
+        return _buffer.position();
+    }
+
+    @Benchmark
+    public int testEncodeFirstResponse()
+    {
+        // The first response of a session, whose fields
+        // are not yet in the dynamic table of the encoder.
+        HpackEncoder encoder = new HpackEncoder();
+        encoder.setFieldCache(_fieldCache);
+        BufferUtil.clearToFill(_buffer);
+        encoder.encode(_buffer, _response);
+        return _buffer.position();
+    }
+
+    @Benchmark
+    public MetaData testDecodeRequest()
+    {
+        return _decoder.decode(_encodedRequest.slice());
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(HpackBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,140 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.hpack.HpackDecoder;
+import org.eclipse.jetty.http2.hpack.Huffman;
+import org.eclipse.jetty.http2.hpack.NBitInteger;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Decodes header blocks of 48 fields, including large cookies, where
+ * the fields are sent literally without indexing, as it happens when
+ * the fields do not fit in the dynamic table, and reads only a few of
+ * the decoded fields, as typical applications do.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class HpackDecodingBenchmark
+{
+    @Param({"false", "true"})
+    public boolean lazy;
+
+    private HpackDecoder _decoder;
+    private ByteBuffer _encoded;
+
+    @Setup
+    public void setUp()
+    {
+        ByteBuffer buffer = BufferUtil.allocate(64 * 1024);
+        BufferUtil.clearToFill(buffer);
+        // :method GET, :scheme https, :path /, all indexed.
+        buffer.put((byte)0x82).put((byte)0x87).put((byte)0x84);
+        encode(buffer, ":authority", "www.example.com");
+        encode(buffer, "user-agent", "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/62.0.3202.94 Safari/537.36");
+        encode(buffer, "accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,image/apng,*/*;q=0.8");
+        encode(buffer, "accept-encoding", "gzip, deflate, br");
+        encode(buffer, "accept-language", "en-US,en;q=0.9,fr;q=0.8,de;q=0.7");
+        encode(buffer, "cookie", cookie("session", 2048));
+        encode(buffer, "cookie", cookie("tracking", 1536));
+        encode(buffer, "cookie", cookie("preferences", 512));
+        for (int i = 0; i < 36; ++i)
+            encode(buffer, "x-forwarded-header-" + i, "value-" + i + "-0123456789abcdef0123456789abcdef");
+        BufferUtil.flipToFlush(buffer, 0);
+        _encoded = buffer;
+
+        _decoder = new HpackDecoder(4096, 64 * 1024);
+        _decoder.setLazyDecoding(lazy);
+    }
+
+    private static String cookie(String name, int length)
+    {
+        StringBuilder builder = new StringBuilder(name).append('=');
+        while (builder.length() < length)
+            builder.append((char)('a' + builder.length() % 26)).append((char)('0' + builder.length() % 10));
+        return builder.toString();
+    }
+
+    private static void encode(ByteBuffer buffer, String name, String value)
+    {
+        // Literal header field without indexing, new name, Huffman encoded.
+        buffer.put((byte)0x00);
+        buffer.put((byte)0x80);
+        NBitInteger.encode(buffer, 7, Huffman.octetsNeededLC(name));
+        Huffman.encodeLC(buffer, name);
+        buffer.put((byte)0x80);
+        NBitInteger.encode(buffer, 7, Huffman.octetsNeeded(value));
+        Huffman.encode(buffer, value);
+    }
+
+    @Benchmark
+    public int testDecodeAndReadFewFields()
+    {
+        MetaData.Request request = (MetaData.Request)_decoder.decode(_encoded.slice());
+        HttpFields fields = request.getFields();
+        int result = request.getURI().getHost().length();
+        result += fields.get(HttpHeader.USER_AGENT).length();
+        result += fields.get(HttpHeader.ACCEPT_ENCODING).length();
+        result += fields.get("x-forwarded-header-7").length();
+        return result;
+    }
+
+    @Benchmark
+    public int testDecodeAndReadAllFields()
+    {
+        MetaData.Request request = (MetaData.Request)_decoder.decode(_encoded.slice());
+        int result = 0;
+        for (int i = 0; i < request.getFields().size(); ++i)
+            result += request.getFields().getField(i).getValue().length();
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(HpackDecodingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
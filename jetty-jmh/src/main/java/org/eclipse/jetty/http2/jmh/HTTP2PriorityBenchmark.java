@@ -0,0 +1,190 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.http2.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HostPortHttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.IStream;
+import org.eclipse.jetty.http2.SimpleFlowControlStrategy;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.client.HTTP2ClientSession;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.PriorityFrame;
+import org.eclipse.jetty.http2.generator.Generator;
+import org.eclipse.jetty.http2.parser.Parser;
+import org.eclipse.jetty.io.ByteArrayEndPoint;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FuturePromise;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures the time it takes for a small, critical stream to be written
+ * while bulk streams are in flight on the same session, with and without
+ * the bulk streams depending on the critical stream.</p>
+ * <p>The benchmark returns the number of bulk bytes written before the end
+ * of the critical stream, so that the two can be compared.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class HTTP2PriorityBenchmark
+{
+    @Param({"false", "true"})
+    public boolean prioritized;
+
+    @Param({"4", "16"})
+    public int bulkStreams;
+
+    private final ByteBufferPool byteBufferPool = new MappedByteBufferPool();
+    private final List<IStream> bulks = new ArrayList<>();
+    private final CriticalListener listener = new CriticalListener();
+    private ScheduledExecutorScheduler scheduler;
+    private ByteArrayEndPoint endPoint;
+    private IStream critical;
+    private Parser parser;
+
+    @Setup(Level.Trial)
+    public void startScheduler() throws Exception
+    {
+        scheduler = new ScheduledExecutorScheduler();
+        scheduler.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopScheduler() throws Exception
+    {
+        scheduler.stop();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() throws Exception
+    {
+        // A small output buffer, so that writes remain pending until the output is taken.
+        endPoint = new ByteArrayEndPoint(new byte[0], 1024);
+        HTTP2ClientSession session = new HTTP2ClientSession(scheduler, endPoint, new Generator(byteBufferPool), new Session.Listener.Adapter(), new SimpleFlowControlStrategy());
+        session.setMaxWriteSize(16 * 1024);
+        session.updateSendWindow(64 * 1024 * 1024);
+
+        bulks.clear();
+        for (int i = 0; i < bulkStreams; ++i)
+            bulks.add(newStream(session));
+        critical = newStream(session);
+        if (prioritized)
+        {
+            for (IStream bulk : bulks)
+                session.onPriority(new PriorityFrame(bulk.getId(), critical.getId(), 16, false));
+        }
+
+        // Discard the HEADERS frames written so far.
+        endPoint.takeOutput();
+        listener.reset(critical.getId());
+        parser = new Parser(byteBufferPool, listener, 4096, 8192);
+    }
+
+    private IStream newStream(HTTP2ClientSession session) throws Exception
+    {
+        MetaData.Request request = new MetaData.Request("GET", HttpScheme.HTTP, new HostPortHttpField("localhost"), "/", HttpVersion.HTTP_2, new HttpFields());
+        FuturePromise<Stream> promise = new FuturePromise<>();
+        session.newStream(new HeadersFrame(request, null, false), promise, new Stream.Listener.Adapter());
+        IStream stream = (IStream)promise.get(5, TimeUnit.SECONDS);
+        stream.updateSendWindow(64 * 1024 * 1024);
+        return stream;
+    }
+
+    @Benchmark
+    public long testCriticalStreamWithBulkStreams()
+    {
+        for (IStream bulk : bulks)
+            bulk.data(new DataFrame(bulk.getId(), ByteBuffer.allocate(512 * 1024), true), Callback.NOOP);
+        critical.data(new DataFrame(critical.getId(), ByteBuffer.allocate(8 * 1024), true), Callback.NOOP);
+
+        while (!listener.ended)
+        {
+            ByteBuffer output = endPoint.takeOutput();
+            if (!output.hasRemaining())
+                throw new IllegalStateException("Critical stream did not end");
+            while (output.hasRemaining())
+                parser.parse(output);
+        }
+        return listener.bulkBytes;
+    }
+
+    private static class CriticalListener extends Parser.Listener.Adapter
+    {
+        private int streamId;
+        private boolean ended;
+        private long bulkBytes;
+
+        private void reset(int streamId)
+        {
+            this.streamId = streamId;
+            this.ended = false;
+            this.bulkBytes = 0;
+        }
+
+        @Override
+        public void onData(DataFrame frame)
+        {
+            if (frame.getStreamId() == streamId)
+                ended |= frame.isEndStream();
+            else if (!ended)
+                bulkBytes += frame.remaining();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(HTTP2PriorityBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
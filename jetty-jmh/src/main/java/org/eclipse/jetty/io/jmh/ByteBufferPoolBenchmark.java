@@ -0,0 +1,99 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.io.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.io.ThreadLocalByteBufferPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ByteBufferPoolBenchmark
+{
+    @Param({"ArrayByteBufferPool", "MappedByteBufferPool", "ThreadLocalByteBufferPool"})
+    public String POOL;
+
+    @Param({"true", "false"})
+    public boolean DIRECT;
+
+    private ByteBufferPool _pool;
+
+    @Setup
+    public void setUp()
+    {
+        switch (POOL)
+        {
+            case "ArrayByteBufferPool":
+                _pool = new ArrayByteBufferPool();
+                break;
+            case "MappedByteBufferPool":
+                _pool = new MappedByteBufferPool();
+                break;
+            case "ThreadLocalByteBufferPool":
+                _pool = new ThreadLocalByteBufferPool();
+                break;
+            default:
+                throw new IllegalArgumentException(POOL);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int testAcquireRelease()
+    {
+        ByteBuffer small = _pool.acquire(1024, DIRECT);
+        ByteBuffer large = _pool.acquire(16 * 1024, DIRECT);
+        int capacity = small.capacity() + large.capacity();
+        _pool.release(large);
+        _pool.release(small);
+        return capacity;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(ByteBufferPoolBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
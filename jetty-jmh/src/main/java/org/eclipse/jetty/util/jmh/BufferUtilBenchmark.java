@@ -0,0 +1,112 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util.jmh;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class BufferUtilBenchmark
+{
+    @Param({"64", "4096"})
+    public int SIZE;
+
+    @Param({"true", "false"})
+    public boolean DIRECT;
+
+    private ByteBuffer _source;
+    private ByteBuffer _target;
+    private String _string;
+
+    @Setup
+    public void setUp()
+    {
+        byte[] bytes = new byte[SIZE];
+        for (int i = 0; i < bytes.length; ++i)
+            bytes[i] = (byte)('a' + i % 26);
+        _string = new String(bytes, StandardCharsets.ISO_8859_1);
+        _source = DIRECT ? BufferUtil.allocateDirect(SIZE) : BufferUtil.allocate(SIZE);
+        BufferUtil.append(_source, bytes, 0, bytes.length);
+        _target = DIRECT ? BufferUtil.allocateDirect(SIZE) : BufferUtil.allocate(SIZE);
+    }
+
+    @Benchmark
+    public int testAppend()
+    {
+        BufferUtil.clear(_target);
+        return BufferUtil.append(_target, _source.slice());
+    }
+
+    @Benchmark
+    public String testToString()
+    {
+        return BufferUtil.toString(_source, StandardCharsets.ISO_8859_1);
+    }
+
+    @Benchmark
+    public ByteBuffer testToBuffer()
+    {
+        return BufferUtil.toBuffer(_string, StandardCharsets.ISO_8859_1);
+    }
+
+    @Benchmark
+    public int testPutDecInt()
+    {
+        BufferUtil.clearToFill(_target);
+        BufferUtil.putDecInt(_target, 1234567);
+        return _target.position();
+    }
+
+    @Benchmark
+    public int testTakeInt()
+    {
+        return BufferUtil.takeInt(BufferUtil.toBuffer("1234567"));
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(BufferUtilBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
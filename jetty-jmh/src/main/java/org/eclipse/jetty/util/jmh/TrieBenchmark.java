@@ -0,0 +1,114 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.ArrayTernaryTrie;
+import org.eclipse.jetty.util.ArrayTrie;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Trie;
+import org.eclipse.jetty.util.TreeTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class TrieBenchmark
+{
+    private static final String[] KEYS = new String[]
+    {
+        "Accept", "Accept-Charset", "Accept-Encoding", "Accept-Language", "Authorization",
+        "Cache-Control", "Connection", "Content-Length", "Content-Type", "Cookie",
+        "Date", "Host", "If-Modified-Since", "If-None-Match", "Origin", "Pragma",
+        "Referer", "Transfer-Encoding", "Upgrade", "User-Agent", "X-Forwarded-For"
+    };
+
+    @Param({"ArrayTrie", "ArrayTernaryTrie", "TreeTrie"})
+    public String TRIE;
+
+    private Trie<String> _trie;
+    private ByteBuffer _buffer;
+
+    @Setup
+    public void setUp()
+    {
+        switch (TRIE)
+        {
+            case "ArrayTrie":
+                _trie = new ArrayTrie<>(512);
+                break;
+            case "ArrayTernaryTrie":
+                _trie = new ArrayTernaryTrie<>(512);
+                break;
+            case "TreeTrie":
+                _trie = new TreeTrie<>();
+                break;
+            default:
+                throw new IllegalArgumentException(TRIE);
+        }
+        for (String key : KEYS)
+            _trie.put(key, key);
+        _buffer = BufferUtil.toBuffer("User-Agent: Mozilla/5.0 (X11; Linux x86_64)\r\n");
+    }
+
+    @Benchmark
+    public String testGetString()
+    {
+        return _trie.get("Transfer-Encoding");
+    }
+
+    @Benchmark
+    public String testGetStringMiss()
+    {
+        return _trie.get("X-Unknown-Header");
+    }
+
+    @Benchmark
+    public String testGetBestByteBuffer()
+    {
+        return _trie.getBest(_buffer, 0, _buffer.remaining());
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(TrieBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
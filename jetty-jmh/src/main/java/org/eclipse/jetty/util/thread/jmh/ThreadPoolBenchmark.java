@@ -0,0 +1,108 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util.thread.jmh;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.ConcurrentBlockingQueue;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ThreadPoolBenchmark
+{
+    private static final int TASKS = 100;
+
+    @Param({"BlockingArrayQueue", "ConcurrentBlockingQueue"})
+    public String QUEUE;
+
+    @Param({"16", "200"})
+    public int THREADS;
+
+    private QueuedThreadPool _pool;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        BlockingQueue<Runnable> queue;
+        switch (QUEUE)
+        {
+            case "BlockingArrayQueue":
+                queue = new BlockingArrayQueue<>(THREADS, THREADS);
+                break;
+            case "ConcurrentBlockingQueue":
+                queue = new ConcurrentBlockingQueue<>();
+                break;
+            default:
+                throw new IllegalArgumentException(QUEUE);
+        }
+        _pool = new QueuedThreadPool(THREADS, THREADS, 60000, queue);
+        _pool.start();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        _pool.stop();
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(TASKS)
+    public void testExecute() throws InterruptedException
+    {
+        CountDownLatch latch = new CountDownLatch(TASKS);
+        for (int i = 0; i < TASKS; ++i)
+            _pool.execute(latch::countDown);
+        latch.await();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(ThreadPoolBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
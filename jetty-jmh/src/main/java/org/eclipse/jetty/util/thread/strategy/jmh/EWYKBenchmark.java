@@ -0,0 +1,143 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util.thread.strategy.jmh;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.eclipse.jetty.util.thread.ExecutionStrategy;
+import org.eclipse.jetty.util.thread.Invocable;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ReservedThreadExecutor;
+import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
+import org.eclipse.jetty.util.thread.strategy.ExecuteProduceConsume;
+import org.eclipse.jetty.util.thread.strategy.ProduceExecuteConsume;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class EWYKBenchmark
+{
+    private static final int TASKS = 100;
+
+    @Param({"EWYK", "PEC", "EPC"})
+    public String STRATEGY;
+
+    @Param({"BLOCKING", "NON_BLOCKING"})
+    public String INVOCATION;
+
+    private QueuedThreadPool _pool;
+    private ReservedThreadExecutor _reserved;
+    private ExecutionStrategy _strategy;
+    private final AtomicInteger _remaining = new AtomicInteger();
+    private volatile CountDownLatch _latch;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        _pool = new QueuedThreadPool(32);
+        _pool.start();
+        _reserved = new ReservedThreadExecutor(_pool, 4);
+        _reserved.start();
+
+        boolean nonBlocking = Invocable.InvocationType.valueOf(INVOCATION) == Invocable.InvocationType.NON_BLOCKING;
+        ExecutionStrategy.Producer producer = () ->
+        {
+            if (_remaining.getAndDecrement() <= 0)
+                return null;
+            CountDownLatch latch = _latch;
+            if (nonBlocking)
+            {
+                return new Invocable.NonBlocking()
+                {
+                    @Override
+                    public void run()
+                    {
+                        latch.countDown();
+                    }
+                };
+            }
+            return latch::countDown;
+        };
+
+        switch (STRATEGY)
+        {
+            case "EWYK":
+                _strategy = new EatWhatYouKill(producer, _pool, _reserved);
+                break;
+            case "PEC":
+                _strategy = new ProduceExecuteConsume(producer, _pool);
+                break;
+            case "EPC":
+                _strategy = new ExecuteProduceConsume(producer, _pool);
+                break;
+            default:
+                throw new IllegalArgumentException(STRATEGY);
+        }
+        LifeCycle.start(_strategy);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        LifeCycle.stop(_strategy);
+        _reserved.stop();
+        _pool.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public void testProduce() throws InterruptedException
+    {
+        _latch = new CountDownLatch(TASKS);
+        _remaining.set(TASKS);
+        _strategy.produce();
+        _latch.await();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(EWYKBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -40,9 +40,15 @@ etc/jetty-http.xml
 ## Thread priority delta to give to acceptor threads
 # jetty.http.acceptorPriorityDelta=0
 
+## Bind one SO_REUSEPORT ServerSocketChannel per acceptor (or per selector if there are no acceptors)
+# jetty.http.reusePort=false
+
 ## Reserve threads for high priority tasks (-1 use a heuristic, 0 no reserved threads)
 # jetty.http.reservedThreads=-1
 
+## Adapt the selectors execution strategy to the load (switching between EatWhatYouKill and ProduceExecuteConsume)
+# jetty.http.adaptiveExecution=false
+
 ## Connect Timeout in milliseconds
 # jetty.http.connectTimeout=15000
 
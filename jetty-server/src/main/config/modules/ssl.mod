@@ -110,3 +110,9 @@ basehome:modules/ssl/keystore|etc/keystore
 ## Allow SSL renegotiation
 # jetty.sslContext.renegotiationAllowed=true
 # jetty.sslContext.renegotiationLimit=5
+
+## Number of threads that run the delegated tasks of the TLS handshakes (0 to run them in the connection threads)
+# jetty.sslContext.delegatedTaskThreads=0
+
+## Max number of delegated tasks waiting for a thread
+# jetty.sslContext.delegatedTaskQueueCapacity=1024
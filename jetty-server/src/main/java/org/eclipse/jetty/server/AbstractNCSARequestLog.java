@@ -83,6 +83,22 @@ public abstract class AbstractNCSARequestLog extends AbstractLifeCycle implement
 
     /* ------------------------------------------------------------ */
 
+    /**
+     * Write the request entry held in the given buffer.
+     * <p>
+     * The buffer is reused once this method returns, so implementations
+     * must not keep a reference to it. By default the buffer is converted
+     * to a String and passed to {@link #write(String)}.
+     * @param requestEntry the buffer holding the request entry
+     * @throws IOException if unable to write the entry
+     */
+    protected void write(StringBuilder requestEntry) throws IOException
+    {
+        write(requestEntry.toString());
+    }
+
+    /* ------------------------------------------------------------ */
+
     private void append(StringBuilder buf,String s)
     {
         if (s==null || s.length()==0)
@@ -213,8 +229,7 @@ public abstract class AbstractNCSARequestLog extends AbstractLifeCycle implement
                 }
             }
 
-            String log = buf.toString();
-            write(log);
+            write(buf);
         }
         catch (IOException e)
         {
@@ -0,0 +1,460 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.RolloverFileOutputStream;
+import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+/* ------------------------------------------------------------ */
+/**
+ * An asynchronously writing NCSA Request Log that batches its writes.
+ * <p>
+ * Request entries are encoded in UTF-8 directly into buffers acquired from a
+ * {@link ByteBufferPool} and queued to a writer thread, which writes the queued
+ * buffers in batches with gathering writes to the {@link java.nio.channels.FileChannel}
+ * of the {@link RolloverFileOutputStream}, so that no String is created and no
+ * flush is done per request entry.
+ * <p>
+ * The memory held by the queued entries is capped by {@link #getMaxQueuedBytes()}.
+ * When the cap is reached, request entries are either dropped or the requesting
+ * thread blocks until the writer thread catches up, depending on the
+ * {@link OverflowPolicy}.
+ */
+@ManagedObject("Batching NCSA standard format request log")
+public class BatchingNCSARequestLog extends NCSARequestLog
+{
+    private static final Logger LOG = Log.getLogger(BatchingNCSARequestLog.class);
+    private static final byte[] EOL = StringUtil.getUtf8Bytes(System.lineSeparator());
+    private static final ByteBuffer STOP = ByteBuffer.allocate(0);
+
+    private static final ThreadLocal<CharsetEncoder> ENCODERS = ThreadLocal.withInitial(() ->
+            StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE));
+
+    /**
+     * What to do with a request entry when the queue is full.
+     */
+    public enum OverflowPolicy
+    {
+        /**
+         * Drop the request entry.
+         */
+        DROP,
+        /**
+         * Block the requesting thread until there is room in the queue.
+         */
+        BLOCK
+    }
+
+    private final BlockingQueue<ByteBuffer> _queue = new BlockingArrayQueue<>(1024, 1024);
+    private final LongAdder _entries = new LongAdder();
+    private final LongAdder _dropped = new LongAdder();
+    private final LongAdder _batches = new LongAdder();
+    private final LongAdder _bytesWritten = new LongAdder();
+    private ByteBufferPool _bufferPool;
+    private OverflowPolicy _overflowPolicy = OverflowPolicy.DROP;
+    private int _maxQueuedBytes = 4 * 1024 * 1024;
+    private int _maxBatchSize = 128;
+    private transient Semaphore _queuedBytes;
+    private transient volatile WriterThread _thread;
+    private volatile boolean _warnedFull;
+
+    public BatchingNCSARequestLog()
+    {
+        this(null, null);
+    }
+
+    public BatchingNCSARequestLog(String filename)
+    {
+        this(filename, null);
+    }
+
+    /**
+     * @param filename the filename of the log, or null to log to {@code System.err}
+     * @param bufferPool the pool to acquire the entry buffers from, or null for a default pool
+     */
+    public BatchingNCSARequestLog(String filename, ByteBufferPool bufferPool)
+    {
+        super(filename);
+        _bufferPool = bufferPool == null ? new ArrayByteBufferPool(0, 256, 64 * 1024) : bufferPool;
+    }
+
+    public ByteBufferPool getByteBufferPool()
+    {
+        return _bufferPool;
+    }
+
+    @ManagedAttribute("The policy applied to request entries when the queue is full")
+    public OverflowPolicy getOverflowPolicy()
+    {
+        return _overflowPolicy;
+    }
+
+    /**
+     * @param overflowPolicy the policy applied to request entries when the queue is full
+     */
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy)
+    {
+        _overflowPolicy = overflowPolicy;
+    }
+
+    @ManagedAttribute("The maximum number of bytes of the queued request entries")
+    public int getMaxQueuedBytes()
+    {
+        return _maxQueuedBytes;
+    }
+
+    /**
+     * @param maxQueuedBytes the maximum number of bytes held by the buffers of the queued request entries
+     */
+    public void setMaxQueuedBytes(int maxQueuedBytes)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        if (maxQueuedBytes <= 0)
+            throw new IllegalArgumentException("Invalid max queued bytes " + maxQueuedBytes);
+        _maxQueuedBytes = maxQueuedBytes;
+    }
+
+    @ManagedAttribute("The maximum number of request entries written at once")
+    public int getMaxBatchSize()
+    {
+        return _maxBatchSize;
+    }
+
+    /**
+     * @param maxBatchSize the maximum number of request entries written by a single gathering write
+     */
+    public void setMaxBatchSize(int maxBatchSize)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        if (maxBatchSize <= 0)
+            throw new IllegalArgumentException("Invalid max batch size " + maxBatchSize);
+        _maxBatchSize = maxBatchSize;
+    }
+
+    @ManagedAttribute("The number of bytes of the queued request entries")
+    public int getQueuedBytes()
+    {
+        Semaphore queuedBytes = _queuedBytes;
+        return queuedBytes == null ? 0 : Math.max(0, _maxQueuedBytes - queuedBytes.availablePermits());
+    }
+
+    @ManagedAttribute("The number of request entries logged")
+    public long getEntries()
+    {
+        return _entries.longValue();
+    }
+
+    @ManagedAttribute("The number of request entries dropped")
+    public long getDroppedEntries()
+    {
+        return _dropped.longValue();
+    }
+
+    @ManagedAttribute("The number of batches written")
+    public long getBatches()
+    {
+        return _batches.longValue();
+    }
+
+    @ManagedAttribute("The number of bytes written")
+    public long getBytesWritten()
+    {
+        return _bytesWritten.longValue();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        _entries.reset();
+        _dropped.reset();
+        _batches.reset();
+        _bytesWritten.reset();
+    }
+
+    @Override
+    protected synchronized void doStart() throws Exception
+    {
+        _queuedBytes = new Semaphore(_maxQueuedBytes);
+        _warnedFull = false;
+        super.doStart();
+        _thread = new WriterThread();
+        _thread.start();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        WriterThread thread = _thread;
+        _thread = null;
+        if (thread != null)
+        {
+            // Do not interrupt the writer thread, as that would close the
+            // file channel, but let it write the queued entries and exit.
+            _queue.offer(STOP);
+            thread.join();
+        }
+
+        // Discard the entries queued while stopping and release any blocked thread.
+        ByteBuffer buffer;
+        while ((buffer = _queue.poll()) != null)
+        {
+            if (buffer != STOP)
+            {
+                _entries.decrement();
+                discard(buffer);
+            }
+        }
+        _queuedBytes.release(_maxQueuedBytes);
+        super.doStop();
+    }
+
+    @Override
+    public void write(String requestEntry) throws IOException
+    {
+        enqueue(requestEntry);
+    }
+
+    @Override
+    protected void write(StringBuilder requestEntry) throws IOException
+    {
+        enqueue(requestEntry);
+    }
+
+    private void enqueue(CharSequence requestEntry)
+    {
+        if (_thread == null)
+            return;
+
+        ByteBuffer buffer = encode(requestEntry);
+        int permits = permits(buffer);
+        if (_overflowPolicy == OverflowPolicy.BLOCK)
+        {
+            try
+            {
+                _queuedBytes.acquire(permits);
+            }
+            catch (InterruptedException x)
+            {
+                LOG.ignore(x);
+                Thread.currentThread().interrupt();
+                drop(buffer);
+                return;
+            }
+        }
+        else if (!_queuedBytes.tryAcquire(permits))
+        {
+            drop(buffer);
+            return;
+        }
+
+        // Blocked threads are released when stopping, and must
+        // not queue entries that the writer thread will not write.
+        // The permits are given back to release the other blocked threads.
+        if (_thread == null)
+        {
+            _queuedBytes.release(permits);
+            discard(buffer);
+            return;
+        }
+
+        _entries.increment();
+        _queue.offer(buffer);
+
+        // The queue may have been drained by a concurrent stop.
+        if (_thread == null && _queue.remove(buffer))
+        {
+            _entries.decrement();
+            _queuedBytes.release(permits);
+            discard(buffer);
+        }
+    }
+
+    private ByteBuffer encode(CharSequence requestEntry)
+    {
+        CharsetEncoder encoder = ENCODERS.get();
+        CharBuffer chars = CharBuffer.wrap(requestEntry);
+        // Request entries are mostly ASCII, so first try with one byte per char.
+        int size = requestEntry.length() + EOL.length;
+        while (true)
+        {
+            ByteBuffer buffer = _bufferPool.acquire(size, false);
+            BufferUtil.clearToFill(buffer);
+            encoder.reset();
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (!result.isOverflow())
+                result = encoder.flush(buffer);
+            if (!result.isOverflow() && buffer.remaining() >= EOL.length)
+            {
+                buffer.put(EOL);
+                BufferUtil.flipToFlush(buffer, 0);
+                return buffer;
+            }
+            _bufferPool.release(buffer);
+            chars.rewind();
+            size = (int)(requestEntry.length() * encoder.maxBytesPerChar()) + EOL.length;
+        }
+    }
+
+    private int permits(ByteBuffer buffer)
+    {
+        // An entry larger than the cap must not block forever.
+        return Math.min(buffer.capacity(), _maxQueuedBytes);
+    }
+
+    private void drop(ByteBuffer buffer)
+    {
+        _bufferPool.release(buffer);
+        _dropped.increment();
+        if (!_warnedFull)
+        {
+            _warnedFull = true;
+            LOG.warn("Log Queue overflow, dropping request entries");
+        }
+    }
+
+    private void discard(ByteBuffer buffer)
+    {
+        _bufferPool.release(buffer);
+        _dropped.increment();
+    }
+
+    private void flush(ByteBuffer[] batch, int length)
+    {
+        try
+        {
+            long bytes = 0;
+            for (int i = 0; i < length; ++i)
+                bytes += batch[i].remaining();
+
+            OutputStream out = getOutputStream();
+            if (out instanceof RolloverFileOutputStream)
+            {
+                ((RolloverFileOutputStream)out).write(batch, 0, length);
+            }
+            else if (out != null)
+            {
+                for (int i = 0; i < length; ++i)
+                    BufferUtil.writeTo(batch[i], out);
+                out.flush();
+            }
+
+            _batches.increment();
+            _bytesWritten.add(bytes);
+        }
+        catch (IOException x)
+        {
+            LOG.warn(x);
+        }
+        finally
+        {
+            for (int i = 0; i < length; ++i)
+            {
+                ByteBuffer buffer = batch[i];
+                batch[i] = null;
+                _queuedBytes.release(permits(buffer));
+                _bufferPool.release(buffer);
+            }
+        }
+    }
+
+    private class WriterThread extends Thread
+    {
+        WriterThread()
+        {
+            setName("BatchingNCSARequestLog@" + Integer.toString(BatchingNCSARequestLog.this.hashCode(), 16));
+        }
+
+        @Override
+        public void run()
+        {
+            ByteBuffer[] batch = new ByteBuffer[_maxBatchSize];
+            boolean stopped = false;
+            while (!stopped)
+            {
+                try
+                {
+                    ByteBuffer buffer = _queue.poll(10, TimeUnit.SECONDS);
+                    if (buffer == null)
+                        continue;
+
+                    int length = 0;
+                    while (buffer != null)
+                    {
+                        if (buffer == STOP)
+                            stopped = true;
+                        else
+                            batch[length++] = buffer;
+
+                        if (length == batch.length)
+                        {
+                            flush(batch, length);
+                            length = 0;
+                        }
+                        buffer = _queue.poll();
+                    }
+
+                    if (length > 0)
+                        flush(batch, length);
+                }
+                catch (InterruptedException x)
+                {
+                    LOG.ignore(x);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,policy=%s,queued=%d/%d}",
+                getClass().getSimpleName(),
+                hashCode(),
+                getState(),
+                getOverflowPolicy(),
+                getQueuedBytes(),
+                getMaxQueuedBytes());
+    }
+}
@@ -24,13 +24,15 @@ import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -45,6 +47,7 @@ import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.http.PrecompressedHttpContent;
 import org.eclipse.jetty.http.ResourceHttpContent;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.FrequencySketch;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.resource.Resource;
@@ -52,6 +55,20 @@ import org.eclipse.jetty.util.resource.ResourceFactory;
 
 /**
  * Caching HttpContent.Factory
+ * <p>
+ * The cache is bounded by the number of cached files and by the size of their
+ * cached buffers, with a W-TinyLFU eviction policy: new entries are admitted into
+ * a small window in insertion order; entries leaving the window are only admitted
+ * into the main space if they are more frequently requested than the entries they
+ * would evict, one after the other until there is enough room, so that large
+ * entries must be more frequent than several smaller ones. The frequencies are
+ * estimated by a {@link FrequencySketch} of all the lookups, and the main space
+ * is ordered by insertion, giving a second chance to the recently accessed entries.
+ * <p>
+ * If an {@link Executor} is set, the eviction runs in the executor rather than
+ * in the thread that grew the cache.  If a revalidation interval is set, the cached
+ * resources are checked for modifications at most once per interval, in the executor
+ * if any, while the cached content keeps being served.
  */
 public class CachedContentFactory implements HttpContent.ContentFactory
 {
@@ -67,10 +84,17 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     private final boolean _etags;
     private final CompressedContentFormat[] _precompressedFormats;
     private final boolean  _useFileMappedBuffer;
+    private final Queue<CachedHttpContent> _window=new ConcurrentLinkedQueue<>();
+    private final Queue<CachedHttpContent> _main=new ConcurrentLinkedQueue<>();
+    private final AtomicInteger _windowFiles=new AtomicInteger();
+    private final AtomicBoolean _evicting=new AtomicBoolean();
     
     private int _maxCachedFileSize = 128*1024*1024;
     private int _maxCachedFiles= 2048;
     private int _maxCacheSize = 256*1024*1024;
+    private volatile FrequencySketch _frequencies=new FrequencySketch(_maxCachedFiles);
+    private volatile Executor _executor;
+    private long _revalidationInterval;
     
     /* ------------------------------------------------------------ */
     /** Constructor.
@@ -148,9 +172,48 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     public void setMaxCachedFiles(int maxCachedFiles)
     {
         _maxCachedFiles = maxCachedFiles;
+        _frequencies = new FrequencySketch(maxCachedFiles);
         shrinkCache();
     }
 
+    /* ------------------------------------------------------------ */
+    /**
+     * @return the executor of the cache evictions and of the revalidations, or null
+     */
+    public Executor getExecutor()
+    {
+        return _executor;
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @param executor the executor of the cache evictions and of the revalidations,
+     * or null to run them in the thread that looks up the cache
+     */
+    public void setExecutor(Executor executor)
+    {
+        _executor = executor;
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @return the min interval in ms between the checks of a cached resource for modifications
+     */
+    public long getRevalidationInterval()
+    {
+        return _revalidationInterval;
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @param revalidationInterval the min interval in ms between the checks of a cached
+     * resource for modifications, or 0 to check at every lookup
+     */
+    public void setRevalidationInterval(long revalidationInterval)
+    {
+        _revalidationInterval = revalidationInterval;
+    }
+
     /* ------------------------------------------------------------ */
     public boolean isUseFileMappedBuffer()
     {
@@ -171,6 +234,9 @@ public class CachedContentFactory implements HttpContent.ContentFactory
                         content.invalidate();
                 }
             }
+            _window.clear();
+            _main.clear();
+            _windowFiles.set(0);
         }
     }
 
@@ -199,9 +265,11 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     public HttpContent getContent(String pathInContext,int maxBufferSize)
         throws IOException
     {
+        _frequencies.increment(pathInContext);
+
         // Is the content in this cache?
         CachedHttpContent content =_cache.get(pathInContext);
-        if (content!=null && (content).isValid())
+        if (content!=null && content.isFresh())
             return content;
        
         // try loading the content from our factory.
@@ -274,6 +342,8 @@ public class CachedContentFactory implements HttpContent.ContentFactory
                                 compressedContent.invalidate();
                                 compressedContent = added;
                             }
+                            else
+                                admit(compressedContent);
                         }
                     }
                     if (compressedContent != null)
@@ -291,6 +361,8 @@ public class CachedContentFactory implements HttpContent.ContentFactory
                 content.invalidate();
                 content = added;
             }
+            else
+                admit(content);
 
             return content;
         }
@@ -322,42 +394,170 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         return new ResourceHttpContent(resource,mt,maxBufferSize);
     }
     
+    /* ------------------------------------------------------------ */
+    private void admit(CachedHttpContent content)
+    {
+        _window.add(content);
+        _windowFiles.incrementAndGet();
+        shrinkCache();
+    }
+
+    /* ------------------------------------------------------------ */
+    private boolean isOverLimit()
+    {
+        return _cachedFiles.get()>_maxCachedFiles || _cachedSize.get()>_maxCacheSize;
+    }
+
+    /* ------------------------------------------------------------ */
+    private int getMaxWindowFiles()
+    {
+        return Math.max(1,_maxCachedFiles/100);
+    }
+
     /* ------------------------------------------------------------ */
     private void shrinkCache()
     {
-        // While we need to shrink
-        while (_cache.size()>0 && (_cachedFiles.get()>_maxCachedFiles || _cachedSize.get()>_maxCacheSize))
+        if (!isOverLimit() && _windowFiles.get()<=getMaxWindowFiles())
+            return;
+
+        Executor executor=_executor;
+        if (executor!=null)
         {
-            // Scan the entire cache and generate an ordered list by last accessed time.
-            SortedSet<CachedHttpContent> sorted= new TreeSet<CachedHttpContent>(
-                    new Comparator<CachedHttpContent>()
-                    {
-                        public int compare(CachedHttpContent c1, CachedHttpContent c2)
-                        {
-                            if (c1._lastAccessed<c2._lastAccessed)
-                                return -1;
-                            
-                            if (c1._lastAccessed>c2._lastAccessed)
-                                return 1;
-
-                            if (c1._contentLengthValue<c2._contentLengthValue)
-                                return -1;
-                            
-                            return c1._key.compareTo(c2._key);
-                        }
-                    });
-            for (CachedHttpContent content : _cache.values())
-                sorted.add(content);
-            
-            // Invalidate least recently used first
-            for (CachedHttpContent content : sorted)
+            try
+            {
+                executor.execute(this::evict);
+                return;
+            }
+            catch (RejectedExecutionException e)
+            {
+                LOG.ignore(e);
+            }
+        }
+        evict();
+    }
+
+    /* ------------------------------------------------------------ */
+    private void evict()
+    {
+        // Only one thread evicts, the others keep serving, so the
+        // entries they add meanwhile are checked again once done.
+        while (_evicting.compareAndSet(false,true))
+        {
+            boolean exhausted;
+            try
+            {
+                exhausted=evictEntries();
+            }
+            finally
+            {
+                _evicting.set(false);
+            }
+            if (exhausted || !isOverLimit() && _windowFiles.get()<=getMaxWindowFiles())
+                return;
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @return true if there was nothing left to evict
+     */
+    private boolean evictEntries()
+    {
+        // Entries leaving the window are candidates for the main space.
+        boolean exhausted=false;
+        while (_windowFiles.get()>getMaxWindowFiles())
+        {
+            CachedHttpContent candidate=_window.poll();
+            if (candidate==null)
             {
-                if (_cachedFiles.get()<=_maxCachedFiles && _cachedSize.get()<=_maxCacheSize)
-                    break;
-                if (content==_cache.remove(content.getKey()))
-                    content.invalidate();
+                exhausted=true;
+                break;
             }
+            _windowFiles.decrementAndGet();
+            if (isCached(candidate))
+                admitToMain(candidate);
         }
+
+        // Evict from the main space, then from the window, until within the limits.
+        while (isOverLimit())
+        {
+            CachedHttpContent victim=pollVictim();
+            if (victim==null)
+            {
+                victim=_window.poll();
+                if (victim==null)
+                    return true;
+                _windowFiles.decrementAndGet();
+            }
+            remove(victim);
+        }
+        return exhausted;
+    }
+
+    /* ------------------------------------------------------------ */
+    private void admitToMain(CachedHttpContent candidate)
+    {
+        // A candidate must be more frequent than every entry it evicts.
+        while (isOverLimit())
+        {
+            if (candidate.getCachedSize()>_maxCacheSize)
+            {
+                remove(candidate);
+                return;
+            }
+
+            CachedHttpContent victim=pollVictim();
+            if (victim==null)
+                break;
+
+            FrequencySketch frequencies=_frequencies;
+            if (frequencies.frequency(candidate._key)>frequencies.frequency(victim._key))
+            {
+                remove(victim);
+            }
+            else
+            {
+                _main.add(victim);
+                remove(candidate);
+                return;
+            }
+        }
+        _main.add(candidate);
+    }
+
+    /* ------------------------------------------------------------ */
+    private CachedHttpContent pollVictim()
+    {
+        // Give a second chance to the entries accessed since they were last polled.
+        int chances=_maxCachedFiles;
+        while (true)
+        {
+            CachedHttpContent victim=_main.poll();
+            if (victim==null)
+                return null;
+            if (!isCached(victim))
+                continue;
+            if (victim._accessed && chances-->0)
+            {
+                victim._accessed=false;
+                _main.add(victim);
+                continue;
+            }
+            return victim;
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    private boolean isCached(CachedHttpContent content)
+    {
+        return _cache.get(content._key)==content;
+    }
+
+    /* ------------------------------------------------------------ */
+    private void remove(CachedHttpContent content)
+    {
+        if (_cache.remove(content._key,content))
+            content.invalidate();
     }
     
     /* ------------------------------------------------------------ */
@@ -431,6 +631,9 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         final Map<CompressedContentFormat, CachedPrecompressedHttpContent> _precompressed;
         
         volatile long _lastAccessed;
+        volatile boolean _accessed;
+        volatile long _revalidateAt;
+        final AtomicBoolean _revalidating=new AtomicBoolean();
         AtomicReference<ByteBuffer> _indirectBuffer=new AtomicReference<ByteBuffer>();
         AtomicReference<ByteBuffer> _directBuffer=new AtomicReference<ByteBuffer>();
 
@@ -453,10 +656,10 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             _contentLengthValue=exists?(int)resource.length():0;
             _contentLength=new PreEncodedHttpField(HttpHeader.CONTENT_LENGTH,Long.toString(_contentLengthValue));
             
-            if (_cachedFiles.incrementAndGet()>_maxCachedFiles)
-                shrinkCache();
+            _cachedFiles.incrementAndGet();
             
             _lastAccessed=System.currentTimeMillis();
+            _revalidateAt=_lastAccessed+_revalidationInterval;
             
             _etag=CachedContentFactory.this._etags?new PreEncodedHttpField(HttpHeader.ETAG,resource.getWeakETag()):null;
 
@@ -514,12 +717,68 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             return _etag.getValue();
         }
         
+        /* ------------------------------------------------------------ */
+        /**
+         * @return whether the content can be served, after checking the resource
+         * for modifications if the revalidation interval has expired
+         */
+        boolean isFresh()
+        {
+            long interval=_revalidationInterval;
+            if (interval<=0)
+                return isValid();
+
+            long now=System.currentTimeMillis();
+            _lastAccessed=now;
+            _accessed=true;
+            if (now<_revalidateAt)
+                return true;
+
+            Executor executor=_executor;
+            if (executor==null)
+            {
+                _revalidateAt=now+interval;
+                return isValid();
+            }
+
+            // Serve the cached content while it is revalidated.
+            if (_revalidating.compareAndSet(false,true))
+            {
+                try
+                {
+                    executor.execute(this::revalidate);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    LOG.ignore(e);
+                    _revalidating.set(false);
+                    return isValid();
+                }
+            }
+            return true;
+        }
+
+        /* ------------------------------------------------------------ */
+        private void revalidate()
+        {
+            try
+            {
+                if (isValid())
+                    _revalidateAt=System.currentTimeMillis()+_revalidationInterval;
+            }
+            finally
+            {
+                _revalidating.set(false);
+            }
+        }
+
         /* ------------------------------------------------------------ */
         boolean isValid()
         {
             if (_lastModifiedValue==_resource.lastModified() && _contentLengthValue==_resource.length())
             {
                 _lastAccessed=System.currentTimeMillis();
+                _accessed=true;
                 return true;
             }
 
@@ -528,6 +787,16 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             return false;
         }
 
+        /* ------------------------------------------------------------ */
+        int getCachedSize()
+        {
+            int size=BufferUtil.length(_indirectBuffer.get());
+            ByteBuffer direct=_directBuffer.get();
+            if (!BufferUtil.isMappedBuffer(direct))
+                size+=BufferUtil.length(direct);
+            return size;
+        }
+
         /* ------------------------------------------------------------ */
         protected void invalidate()
         {
@@ -31,11 +31,13 @@ import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.annotation.Name;
 import org.eclipse.jetty.util.component.AbstractLifeCycle;
 import org.eclipse.jetty.util.component.Container;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.statistic.CounterStatistic;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
 import org.eclipse.jetty.util.statistic.SampleStatistic;
 
 
@@ -56,6 +58,7 @@ public class ConnectorStatistics extends AbstractLifeCycle implements Dumpable,
     private final SampleStatistic _messagesIn = new SampleStatistic();
     private final SampleStatistic _messagesOut = new SampleStatistic();
     private final SampleStatistic _connectionDurationStats = new SampleStatistic();
+    private final HistogramStatistic _connectionDurationHistogram = new HistogramStatistic();
     private final ConcurrentMap<Connection, Sample> _samples = new ConcurrentHashMap<>();
     private final LongAdder _closedIn = new LongAdder();
     private final LongAdder _closedOut = new LongAdder();
@@ -83,7 +86,9 @@ public class ConnectorStatistics extends AbstractLifeCycle implements Dumpable,
             _messagesIn.set(msgsIn);
             _messagesOut.set(msgsOut);
             _connectionStats.decrement();
-            _connectionDurationStats.set(System.currentTimeMillis()-connection.getCreatedTimeStamp());
+            long duration=System.currentTimeMillis()-connection.getCreatedTimeStamp();
+            _connectionDurationStats.set(duration);
+            _connectionDurationHistogram.set(duration);
 
             Sample sample=_samples.remove(connection);
             if (sample!=null)
@@ -132,6 +137,36 @@ public class ConnectorStatistics extends AbstractLifeCycle implements Dumpable,
         return _connectionDurationStats.getStdDev();
     }
 
+    @ManagedAttribute("Connection duration median in ms")
+    public long getConnectionDuration50thPercentile()
+    {
+        return _connectionDurationHistogram.getPercentile(50);
+    }
+
+    @ManagedAttribute("Connection duration 99th percentile in ms")
+    public long getConnectionDuration99thPercentile()
+    {
+        return _connectionDurationHistogram.getPercentile(99);
+    }
+
+    @ManagedAttribute("Connection duration 99.9th percentile in ms")
+    public long getConnectionDuration999thPercentile()
+    {
+        return _connectionDurationHistogram.getPercentile(99.9);
+    }
+
+    @ManagedOperation(value="Connection duration percentile in ms", impact="INFO")
+    public long getConnectionDurationPercentile(@Name("percentile") double percentile)
+    {
+        return _connectionDurationHistogram.getPercentile(percentile);
+    }
+
+    @ManagedOperation(value="Connection duration percentiles since the last invocation of this method", impact="ACTION")
+    public String connectionDurationIntervalSnapshot()
+    {
+        return _connectionDurationHistogram.intervalSnapshot().toString();
+    }
+
     @ManagedAttribute("Messages In for all connections")
     public int getMessagesIn()
     {
@@ -233,6 +268,7 @@ public class ConnectorStatistics extends AbstractLifeCycle implements Dumpable,
         _messagesOut.reset();
         _connectionStats.reset();
         _connectionDurationStats.reset();
+        _connectionDurationHistogram.reset();
         _samples.clear();
     }
 
@@ -247,7 +283,7 @@ public class ConnectorStatistics extends AbstractLifeCycle implements Dumpable,
     public void dump(Appendable out, String indent) throws IOException
     {
         ContainerLifeCycle.dumpObject(out,this);
-        ContainerLifeCycle.dump(out,indent,Arrays.asList(new String[]{"connections="+_connectionStats,"duration="+_connectionDurationStats,"in="+_messagesIn,"out="+_messagesOut}));
+        ContainerLifeCycle.dump(out,indent,Arrays.asList(new String[]{"connections="+_connectionStats,"duration="+_connectionDurationStats,"durationPercentiles="+_connectionDurationHistogram.snapshot(),"in="+_messagesIn,"out="+_messagesOut}));
     }
     
     public static void addToAllConnectors(Server server)
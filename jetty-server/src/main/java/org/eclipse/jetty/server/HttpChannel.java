@@ -21,6 +21,7 @@ package org.eclipse.jetty.server;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executor;
@@ -839,6 +840,43 @@ public class HttpChannel implements Runnable, HttpOutput.Interceptor
         sendResponse(null,content,complete,callback);
     }
 
+    /**
+     * <p>Non-Blocking transfer of the whole content of the response from a file, committing the response.</p>
+     * <p>The content is not copied to user space buffers, so it bypasses the {@link HttpOutput.Interceptor}s
+     * and is not notified to the response content listeners.</p>
+     * @param file the file to transfer the content from, which is not closed by this method
+     * @param position the position in the file of the first byte of content
+     * @param count the number of bytes of content, which must be the content length of the response
+     * @param callback Callback when complete or failed
+     * @see #isFileTransferSupported()
+     */
+    public void transfer(FileChannel file, long position, long count, Callback callback)
+    {
+        if (!_committed.compareAndSet(false,true))
+        {
+            callback.failed(new IllegalStateException("committed"));
+            return;
+        }
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("transfer {}/{}+{} callback={}",file,position,count,callback);
+
+        _written+=count;
+        MetaData.Response info=_response.newResponseMetaData();
+        commit(info);
+        notifyResponseBegin(_request);
+        _transport.transfer(info,_request.isHead(),file,position,count,new CommitCallback(callback,null,true));
+    }
+
+    /**
+     * @return true if the content of the response can be transferred from a file
+     * @see #transfer(FileChannel, long, long, Callback)
+     */
+    public boolean isFileTransferSupported()
+    {
+        return _transport.isFileTransferSupported();
+    }
+
     @Override
     public void resetBuffer()
     {
@@ -20,10 +20,13 @@ package org.eclipse.jetty.server;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.jetty.http.CookieCompliance;
+import org.eclipse.jetty.http.HttpFieldsTemplate;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpScheme;
 import org.eclipse.jetty.util.Jetty;
@@ -50,6 +53,7 @@ public class HttpConfiguration
 
     private final List<Customizer> _customizers=new CopyOnWriteArrayList<>();
     private final Trie<Boolean> _formEncodedMethods = new TreeTrie<>();
+    private final Map<String, HttpFieldsTemplate> _headerTemplates = new ConcurrentHashMap<>();
     private int _outputBufferSize=32*1024;
     private int _outputAggregationSize=_outputBufferSize/4;
     private int _requestHeaderSize=8*1024;
@@ -111,6 +115,7 @@ public class HttpConfiguration
         _customizers.addAll(config._customizers);
         for (String s:config._formEncodedMethods.keySet())
             _formEncodedMethods.put(s,Boolean.TRUE);
+        _headerTemplates.putAll(config._headerTemplates);
         _outputBufferSize=config._outputBufferSize;
         _outputAggregationSize=config._outputAggregationSize;
         _requestHeaderSize=config._requestHeaderSize;
@@ -529,6 +534,50 @@ public class HttpConfiguration
         return _notifyRemoteAsyncErrors;
     }
 
+    /**
+     * <p>Registers a template of response header fields.</p>
+     * <p>Applications look up a template by name, typically via
+     * {@code request.getHttpChannel().getHttpConfiguration().getHeaderTemplate(name)},
+     * and apply it to the fields of a response with {@link HttpFieldsTemplate#applyTo(org.eclipse.jetty.http.HttpFields)},
+     * so that the fields of the template are copied already encoded into the response header.
+     * The fields of a template bypass the {@link Response} methods such as
+     * {@link Response#setContentType(String)}, so those methods should not be used on the same fields.</p>
+     *
+     * @param name the name of the template
+     * @param template the template of header fields
+     */
+    public void addHeaderTemplate(String name, HttpFieldsTemplate template)
+    {
+        _headerTemplates.put(name,template);
+    }
+
+    /**
+     * @param name the name of the template
+     * @return the template registered with the given name, or null
+     */
+    public HttpFieldsTemplate getHeaderTemplate(String name)
+    {
+        return _headerTemplates.get(name);
+    }
+
+    /**
+     * @param name the name of the template
+     * @return the template that was removed, or null
+     */
+    public HttpFieldsTemplate removeHeaderTemplate(String name)
+    {
+        return _headerTemplates.remove(name);
+    }
+
+    /**
+     * @return the names of the registered templates of response header fields
+     */
+    @ManagedAttribute("The names of the response header templates")
+    public Set<String> getHeaderTemplateNames()
+    {
+        return _headerTemplates.keySet();
+    }
+
     @Override
     public String toString()
     {
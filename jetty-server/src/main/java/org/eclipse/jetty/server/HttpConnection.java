@@ -20,6 +20,7 @@ package org.eclipse.jetty.server;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.WritePendingException;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -37,6 +38,7 @@ import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.io.AbstractConnection;
 import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.ChannelEndPoint;
 import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.io.EofException;
@@ -529,6 +531,28 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         }
     }
 
+    @Override
+    public void transfer(MetaData.Response info, boolean head, FileChannel file, long position, long count, Callback callback)
+    {
+        // If we are still expecting a 100 continues when we commit
+        if (_channel.isExpecting100Continue())
+            // then we can't be persistent
+            _generator.setPersistent(false);
+
+        if(_sendCallback.reset(info,head,BufferUtil.EMPTY_BUFFER,true,callback))
+        {
+            _sendCallback.transfer(file,position,count);
+            _sendCallback.iterate();
+        }
+    }
+
+    @Override
+    public boolean isFileTransferSupported()
+    {
+        // Not over SSL, as the bytes need to be encrypted in user space.
+        return getEndPoint() instanceof ChannelEndPoint;
+    }
+
 
     HttpInput.Content newContent(ByteBuffer c)
     {
@@ -674,6 +698,9 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         private Callback _callback;
         private ByteBuffer _header;
         private boolean _shutdownOut;
+        private FileChannel _file;
+        private long _position;
+        private long _count;
 
         private SendCallback()
         {
@@ -697,6 +724,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
                 _callback = callback;
                 _header = null;
                 _shutdownOut = false;
+                _file = null;
                 return true;
             }
 
@@ -707,6 +735,13 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
             return false;
         }
 
+        private void transfer(FileChannel file, long position, long count)
+        {
+            _file = file;
+            _position = position;
+            _count = count;
+        }
+
         @Override
         public Action process() throws Exception
         {
@@ -775,6 +810,18 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
                             gather_write += 1;
                             bytes += _content.remaining();
                         }
+                        // Transfer the file content after the header, unless this response has no content
+                        FileChannel file = _file;
+                        _file = null;
+                        if (file != null && !_head && !_generator.isNoContent())
+                        {
+                            if (_generator.isChunking())
+                                throw new IllegalStateException("Cannot transfer chunked content");
+                            HttpConnection.this.bytesOut.add(bytes + _count);
+                            ((ChannelEndPoint)getEndPoint()).transfer(this, file, _position, _count, BufferUtil.hasContent(_header) ? _header : BufferUtil.EMPTY_BUFFER);
+                            return Action.SCHEDULED;
+                        }
+
                         HttpConnection.this.bytesOut.add(bytes);
                         switch(gather_write)
                         {
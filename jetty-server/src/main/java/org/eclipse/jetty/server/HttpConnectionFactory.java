@@ -19,6 +19,7 @@
 package org.eclipse.jetty.server;
 
 import org.eclipse.jetty.http.HttpCompliance;
+import org.eclipse.jetty.http.HttpFieldCache;
 import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
@@ -34,6 +35,7 @@ public class HttpConnectionFactory extends AbstractConnectionFactory implements
     private final HttpConfiguration _config;
     private HttpCompliance _httpCompliance;
     private boolean _recordHttpComplianceViolations = false;
+    private HttpFieldCache _httpFieldCache = new HttpFieldCache();
 
     public HttpConnectionFactory()
     {
@@ -53,6 +55,7 @@ public class HttpConnectionFactory extends AbstractConnectionFactory implements
         if (config==null)
             throw new IllegalArgumentException("Null HttpConfiguration");
         addBean(_config);
+        addBean(_httpFieldCache);
     }
 
     @Override
@@ -66,6 +69,24 @@ public class HttpConnectionFactory extends AbstractConnectionFactory implements
         return _httpCompliance;
     }
 
+    /**
+     * @return the cache of header fields shared by the parsers of the connections
+     */
+    public HttpFieldCache getHttpFieldCache()
+    {
+        return _httpFieldCache;
+    }
+
+    /**
+     * @param httpFieldCache the cache of header fields shared by the parsers of
+     * the connections, or null to only use the per connection field cache
+     */
+    public void setHttpFieldCache(HttpFieldCache httpFieldCache)
+    {
+        updateBean(_httpFieldCache, httpFieldCache);
+        _httpFieldCache = httpFieldCache;
+    }
+
     public boolean isRecordHttpComplianceViolations()
     {
         return _recordHttpComplianceViolations;
@@ -83,6 +104,7 @@ public class HttpConnectionFactory extends AbstractConnectionFactory implements
     public Connection newConnection(Connector connector, EndPoint endPoint)
     {
         HttpConnection conn = new HttpConnection(_config, connector, endPoint, _httpCompliance,isRecordHttpComplianceViolations());
+        conn.getParser().setHttpFieldCache(_httpFieldCache);
         return configure(conn, connector, endPoint);
     }
     
@@ -19,11 +19,14 @@
 package org.eclipse.jetty.server;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritePendingException;
+import java.nio.file.StandardOpenOption;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.servlet.RequestDispatcher;
@@ -42,6 +45,7 @@ import org.eclipse.jetty.util.SharedBlockingCallback;
 import org.eclipse.jetty.util.SharedBlockingCallback.Blocker;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.resource.Resource;
 
 /**
  * <p>{@link HttpOutput} implements {@link ServletOutputStream}
@@ -756,6 +760,42 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         }
     }
 
+    /**
+     * Blocking send of a region of a file.
+     * The file will be closed after sending the content.
+     * <p>If content has already been written or the response is committed,
+     * an {@link IOException} is thrown and the output is left usable;
+     * any other failure aborts the output before being rethrown.</p>
+     *
+     * @param file     The file to send the content from
+     * @param position The position in the file of the first byte to send
+     * @param count    The number of bytes to send
+     * @throws IOException if the send fails
+     * @see #sendContent(FileChannel, long, long, Callback)
+     */
+    public void sendContent(FileChannel file, long position, long count) throws IOException
+    {
+        IOException misuse = checkSendContent();
+        if (misuse != null)
+        {
+            close(file);
+            throw misuse;
+        }
+
+        try (Blocker blocker = _writeBlocker.acquire())
+        {
+            sendContent(file, position, count, blocker);
+            blocker.block();
+        }
+        catch (Throwable failure)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug(failure);
+            abort(failure);
+            throw failure;
+        }
+    }
+
     /**
      * Asynchronous send of whole content.
      *
@@ -817,49 +857,97 @@ public class HttpOutput extends ServletOutputStream implements Runnable
     }
 
     /**
-     * Asynchronous send of HTTP content.
+     * Asynchronous send of a region of a file.
+     * The file will be closed after sending the content.
+     * <p>If the content of the region is the whole content of the response, there are no
+     * {@link Interceptor}s and the transport supports it, the content is transferred without
+     * being copied to user space buffers; otherwise it is read and written with a buffer.</p>
      *
-     * @param httpContent The HTTP content to send
-     * @param callback    The callback to use to notify success or failure
+     * @param file     The file to send the content from
+     * @param position The position in the file of the first byte to send
+     * @param count    The number of bytes to send
+     * @param callback The callback to use to notify success or failure
      */
-    public void sendContent(HttpContent httpContent, Callback callback)
+    public void sendContent(FileChannel file, long position, long count, Callback callback)
     {
         if (LOG.isDebugEnabled())
-            LOG.debug("sendContent(http={},{})", httpContent, callback);
+            LOG.debug("sendContent(file={},{},{},{})", file, position, count, callback);
 
-        if (BufferUtil.hasContent(_aggregate))
+        if (!prepareSendContent(callback))
         {
-            callback.failed(new IOException("cannot sendContent() after write()"));
+            close(file);
             return;
         }
-        if (_channel.isCommitted())
+
+        if (isFileTransferable(count))
         {
-            callback.failed(new IOException("cannot sendContent(), output already committed"));
+            transfer(file, position, count, callback);
             return;
         }
 
-        while (true)
+        try
         {
-            switch (_state.get())
-            {
-                case OPEN:
-                    if (!_state.compareAndSet(OutputState.OPEN, OutputState.PENDING))
-                        continue;
-                    break;
+            file.position(position);
+            new ReadableByteChannelWritingCB(file, count, callback).iterate();
+        }
+        catch (Throwable th)
+        {
+            close(file);
+            abort(th);
+            callback.failed(th);
+        }
+    }
 
-                case ERROR:
-                    callback.failed(new EofException(_onError));
-                    return;
+    /**
+     * @param count the number of bytes to send
+     * @return whether the given number of bytes can be transferred from a file without copying them
+     */
+    private boolean isFileTransferable(long count)
+    {
+        return _interceptor == _channel &&
+                count > 0 &&
+                BufferUtil.isEmpty(_aggregate) &&
+                !_channel.isCommitted() &&
+                _channel.getResponse().getLongContentLength() == count &&
+                _channel.isFileTransferSupported();
+    }
 
-                case CLOSED:
-                    callback.failed(new EofException("Closed"));
-                    return;
+    private void transfer(FileChannel file, long position, long count, Callback callback)
+    {
+        _written += count;
+        _channel.transfer(file, position, count, new Callback.Nested(callback)
+        {
+            @Override
+            public void succeeded()
+            {
+                close(file);
+                closed();
+                super.succeeded();
+            }
 
-                default:
-                    throw new IllegalStateException();
+            @Override
+            public void failed(Throwable x)
+            {
+                close(file);
+                abort(x);
+                super.failed(x);
             }
-            break;
-        }
+        });
+    }
+
+    /**
+     * Asynchronous send of HTTP content.
+     *
+     * @param httpContent The HTTP content to send
+     * @param callback    The callback to use to notify success or failure
+     */
+    public void sendContent(HttpContent httpContent, Callback callback)
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("sendContent(http={},{})", httpContent, callback);
+
+        if (!prepareSendContent(callback))
+            return;
 
         ByteBuffer buffer = _channel.useDirectBuffers() ? httpContent.getDirectBuffer() : null;
         if (buffer == null)
@@ -873,6 +961,16 @@ public class HttpOutput extends ServletOutputStream implements Runnable
 
         try
         {
+            // Large files are transferred without copying them to user space buffers
+            long length = httpContent.getContentLengthValue();
+            Resource resource = httpContent.getResource();
+            File file = resource == null ? null : resource.getFile();
+            if (file != null && isFileTransferable(length))
+            {
+                transfer(FileChannel.open(file.toPath(), StandardOpenOption.READ), 0, length, callback);
+                return;
+            }
+
             ReadableByteChannel rbc = httpContent.getReadableByteChannel();
             if (rbc != null)
             {
@@ -897,6 +995,56 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         }
     }
 
+    /**
+     * @return the failure to report if content cannot be sent, or null
+     */
+    private IOException checkSendContent()
+    {
+        if (BufferUtil.hasContent(_aggregate))
+            return new IOException("cannot sendContent() after write()");
+        if (_channel.isCommitted())
+            return new IOException("cannot sendContent(), output already committed");
+        return null;
+    }
+
+    /**
+     * <p>Checks that the whole content can be sent, and moves the output from OPEN to PENDING.</p>
+     *
+     * @param callback the callback to fail if the content cannot be sent
+     * @return whether the content can be sent
+     */
+    private boolean prepareSendContent(Callback callback)
+    {
+        IOException misuse = checkSendContent();
+        if (misuse != null)
+        {
+            callback.failed(misuse);
+            return false;
+        }
+
+        while (true)
+        {
+            switch (_state.get())
+            {
+                case OPEN:
+                    if (!_state.compareAndSet(OutputState.OPEN, OutputState.PENDING))
+                        continue;
+                    return true;
+
+                case ERROR:
+                    callback.failed(new EofException(_onError));
+                    return false;
+
+                case CLOSED:
+                    callback.failed(new EofException("Closed"));
+                    return false;
+
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+    }
+
     public int getBufferSize()
     {
         return _bufferSize;
@@ -1307,7 +1455,8 @@ public class HttpOutput extends ServletOutputStream implements Runnable
 
     /**
      * An iterating callback that will take content from a
-     * ReadableByteChannel and write it to the {@link HttpChannel}.
+     * ReadableByteChannel, until EOF or until a number of bytes have been read,
+     * and write it to the {@link HttpChannel}.
      * A {@link ByteBuffer} of size {@link HttpOutput#getBufferSize()} is used that will be direct if
      * {@link HttpChannel#useDirectBuffers()} is true.
      * This callback is passed to the {@link HttpChannel#write(ByteBuffer, boolean, Callback)} to
@@ -1318,12 +1467,19 @@ public class HttpOutput extends ServletOutputStream implements Runnable
     {
         private final ReadableByteChannel _in;
         private final ByteBuffer _buffer;
+        private long _remaining;
         private boolean _eof;
 
         public ReadableByteChannelWritingCB(ReadableByteChannel in, Callback callback)
+        {
+            this(in, Long.MAX_VALUE, callback);
+        }
+
+        public ReadableByteChannelWritingCB(ReadableByteChannel in, long count, Callback callback)
         {
             super(callback);
             _in = in;
+            _remaining = count;
             _buffer = _channel.getByteBufferPool().acquire(getBufferSize(), _channel.useDirectBuffers());
         }
 
@@ -1342,13 +1498,18 @@ public class HttpOutput extends ServletOutputStream implements Runnable
                 return Action.SUCCEEDED;
             }
 
-            // Read from stream until buffer full or EOF
+            // Read from stream until buffer full, count or EOF
             BufferUtil.clearToFill(_buffer);
+            if (_buffer.remaining() > _remaining)
+                _buffer.limit((int)_remaining);
             while (_buffer.hasRemaining() && !_eof)
                 _eof = (_in.read(_buffer)) < 0;
 
             // write what we have
             BufferUtil.flipToFlush(_buffer, 0);
+            _remaining -= _buffer.remaining();
+            if (_remaining == 0)
+                _eof = true;
             _written += _buffer.remaining();
             write(_buffer, _eof, this);
 
@@ -19,6 +19,7 @@
 package org.eclipse.jetty.server;
 
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.util.Callback;
@@ -39,6 +40,31 @@ public interface HttpTransport
      */
     void send(MetaData.Response info, boolean head, ByteBuffer content, boolean lastContent, Callback callback);
 
+    /** Asynchronous call to send a response, with the whole content transferred from a file without copying it
+     * to user space buffers.
+     * <p>The transport may only be asked to transfer when {@link #isFileTransferSupported()} returns true, and
+     * the response must have a content length equal to the number of bytes transferred.</p>
+     * @param info The header info to send.
+     * @param head True if the response if for a HEAD request (and the data should not be sent).
+     * @param file The file to transfer the content from, which is not closed by the transport.
+     * @param position The position in the file of the first byte of content.
+     * @param count The number of bytes of content.
+     * @param callback The Callback instance that success or failure of the send is notified on
+     */
+    default void transfer(MetaData.Response info, boolean head, FileChannel file, long position, long count, Callback callback)
+    {
+        callback.failed(new UnsupportedOperationException());
+    }
+
+    /**
+     * @return true if the content of responses can be transferred from files, see
+     * {@link #transfer(MetaData.Response, boolean, FileChannel, long, long, Callback)}
+     */
+    default boolean isFileTransferSupported()
+    {
+        return false;
+    }
+
     /**
      * @return true if responses can be pushed over this transport
      */
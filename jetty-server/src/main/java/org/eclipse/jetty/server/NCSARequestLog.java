@@ -123,6 +123,15 @@ public class NCSARequestLog extends AbstractNCSARequestLog
         return null;
     }
 
+    /* ------------------------------------------------------------ */
+    /**
+     * @return the stream the log is written to, or null if the log is not started
+     */
+    protected OutputStream getOutputStream()
+    {
+        return _out;
+    }
+
     /* ------------------------------------------------------------ */
     @Override
     protected boolean isEnabled()
@@ -75,6 +75,7 @@ import org.eclipse.jetty.http.HttpURI;
 import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.http.pathmap.PathSpec;
 import org.eclipse.jetty.io.RuntimeIOException;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ContextHandler.Context;
@@ -175,6 +176,7 @@ public class Request implements HttpServletRequest
     private String _originalURI;
     private String _contextPath;
     private String _servletPath;
+    private PathSpec _servletPathSpec;
     private String _pathInfo;
     private boolean _secure;
     private String _asyncNotSupportedSource = null;
@@ -1855,6 +1857,7 @@ public class Request implements HttpServletRequest
         _sessionHandler = null;
         _scope = null;
         _servletPath = null;
+        _servletPathSpec = null;
         _timeStamp = 0;
         _queryParameters = null;
         _contentParameters = null;
@@ -2200,6 +2203,26 @@ public class Request implements HttpServletRequest
         _servletPath = servletPath;
     }
 
+    /* ------------------------------------------------------------ */
+    /**
+     * @return the path spec of the servlet mapping that matched the target
+     * of the current dispatch, or null for a named dispatch
+     */
+    public PathSpec getServletPathSpec()
+    {
+        return _servletPathSpec;
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @param servletPathSpec
+     *            The path spec of the servlet mapping that matched the target of the current dispatch.
+     */
+    public void setServletPathSpec(PathSpec servletPathSpec)
+    {
+        _servletPathSpec = servletPathSpec;
+    }
+
     /* ------------------------------------------------------------ */
     /**
      * @param session
@@ -22,11 +22,14 @@ import static java.util.Arrays.stream;
 import static java.util.Collections.emptyList;
 import static org.eclipse.jetty.http.HttpHeaderValue.IDENTITY;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Collection;
 import java.util.Enumeration;
 import java.util.List;
@@ -760,7 +763,12 @@ public class ResourceService
                     response.addDateHeader(HttpHeader.DATE.asString(),System.currentTimeMillis());
                 response.setHeader(HttpHeader.CONTENT_RANGE.asString(),
                         singleSatisfiableRange.toHeaderRangeString(content_length));
-                content.getResource().writeTo(out,singleSatisfiableRange.getFirst(content_length),singleLength);
+                long first=singleSatisfiableRange.getFirst(content_length);
+                File file=written?null:content.getResource().getFile();
+                if (file!=null && out instanceof HttpOutput)
+                    ((HttpOutput)out).sendContent(FileChannel.open(file.toPath(),StandardOpenOption.READ),first,singleLength);
+                else
+                    content.getResource().writeTo(out,first,singleLength);
                 return true;
             }
 
@@ -24,6 +24,8 @@ import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
 import java.nio.channels.Channel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
@@ -42,6 +44,7 @@ import org.eclipse.jetty.io.ManagedSelector;
 import org.eclipse.jetty.io.SelectorManager;
 import org.eclipse.jetty.io.SocketChannelEndPoint;
 import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.Name;
@@ -76,17 +79,29 @@ import org.eclipse.jetty.util.thread.Scheduler;
  * The default number of selectors is equal to half of the number of processors available to the JVM,
  * which should allow optimal performance even if all the connections used are performing
  * significant non-blocking work in the callback tasks.
+ * <h2>Accept Channels</h2>
+ * By default the connector accepts connections from a single {@link ServerSocketChannel}.
+ * If {@link #setReusePort(boolean) reusePort} is set and the platform supports {@code SO_REUSEPORT},
+ * the connector binds one server channel per acceptor thread or, if there are no acceptor threads,
+ * one server channel per selector, and the kernel spreads the incoming connections among them.
+ * Without acceptor threads each selector then accepts from its own server channel and registers
+ * the accepted connections with itself, so that there is no hand-off between selectors.
  */
 @ManagedObject("HTTP connector using NIO ByteChannels and Selectors")
 public class ServerConnector extends AbstractNetworkConnector
 {
+    private static final SocketOption<Boolean> SO_REUSEPORT = reusePortOption();
+    private static final ServerSocketChannel[] NO_CHANNELS = new ServerSocketChannel[0];
+
     private final SelectorManager _manager;
     private final AtomicReference<Closeable> _acceptor = new AtomicReference<>();
     private volatile ServerSocketChannel _acceptChannel;
+    private volatile ServerSocketChannel[] _acceptChannels = NO_CHANNELS;
     private volatile boolean _inheritChannel = false;
     private volatile int _localPort = -1;
     private volatile int _acceptQueueSize = 0;
     private volatile boolean _reuseAddress = true;
+    private volatile boolean _reusePort = false;
     private volatile int _lingerTime = -1;
 
     /**
@@ -239,11 +254,29 @@ public class ServerConnector extends AbstractNetworkConnector
 
         if (getAcceptors()==0)
         {
-            _acceptChannel.configureBlocking(false);
-            _acceptor.set(_manager.acceptor(_acceptChannel));
+            for (ServerSocketChannel channel : _acceptChannels)
+                channel.configureBlocking(false);
+            _acceptor.set(newAcceptor());
         }
     }
 
+    private Closeable newAcceptor() throws IOException
+    {
+        ServerSocketChannel[] channels = _acceptChannels;
+        if (channels.length <= 1)
+            return _manager.acceptor(_acceptChannel);
+
+        // One acceptor per selector, each accepting from its own channel.
+        Closeable[] acceptors = new Closeable[channels.length];
+        for (int i = 0; i < channels.length; ++i)
+            acceptors[i] = _manager.acceptor(channels[i], i);
+        return () ->
+        {
+            for (Closeable acceptor : acceptors)
+                IO.close(acceptor);
+        };
+    }
+
     @Override
     public boolean isOpen()
     {
@@ -289,6 +322,7 @@ public class ServerConnector extends AbstractNetworkConnector
             throw new IllegalStateException(getState());
         updateBean(_acceptChannel,acceptChannel);
         _acceptChannel = acceptChannel;
+        _acceptChannels = new ServerSocketChannel[]{acceptChannel};
         _localPort = _acceptChannel.socket().getLocalPort();
         if (_localPort <= 0)
             throw new IOException("Server channel not bound");
@@ -305,6 +339,54 @@ public class ServerConnector extends AbstractNetworkConnector
             if (_localPort <= 0)
                 throw new IOException("Server channel not bound");
             addBean(_acceptChannel);
+            _acceptChannels = openShardChannels(_acceptChannel);
+        }
+    }
+
+    /**
+     * <p>Opens the additional server channels bound with {@code SO_REUSEPORT}
+     * to the same address of the given channel, one for each acceptor thread
+     * or, if there are no acceptor threads, one for each selector.</p>
+     *
+     * @param acceptChannel the channel returned by {@link #openAcceptChannel()}
+     * @return the server channels to accept from, including the given channel
+     * @throws IOException if a server channel cannot be opened
+     */
+    private ServerSocketChannel[] openShardChannels(ServerSocketChannel acceptChannel) throws IOException
+    {
+        int shards = getAcceptors() > 0 ? getAcceptors() : _manager.getSelectorCount();
+        if (!isReusePort() || shards <= 1)
+            return new ServerSocketChannel[]{acceptChannel};
+
+        if (SO_REUSEPORT == null || !acceptChannel.supportedOptions().contains(SO_REUSEPORT) || !acceptChannel.getOption(SO_REUSEPORT))
+        {
+            LOG.warn("SO_REUSEPORT not available, accepting from a single channel at {}:{}", getHost(), getLocalPort());
+            return new ServerSocketChannel[]{acceptChannel};
+        }
+
+        ServerSocketChannel[] channels = new ServerSocketChannel[shards];
+        channels[0] = acceptChannel;
+        try
+        {
+            for (int i = 1; i < shards; ++i)
+            {
+                channels[i] = bind(ServerSocketChannel.open(), getLocalPort());
+                channels[i].configureBlocking(true);
+                addBean(channels[i]);
+            }
+            return channels;
+        }
+        catch (IOException x)
+        {
+            for (int i = 1; i < shards; ++i)
+            {
+                if (channels[i] != null)
+                {
+                    removeBean(channels[i]);
+                    IO.close(channels[i]);
+                }
+            }
+            throw x;
         }
     }
 
@@ -326,16 +408,34 @@ public class ServerConnector extends AbstractNetworkConnector
         }
 
         if (serverChannel == null)
-        {
-            serverChannel = ServerSocketChannel.open();
+            serverChannel = bind(ServerSocketChannel.open(), getPort());
 
-            InetSocketAddress bindAddress = getHost() == null ? new InetSocketAddress(getPort()) : new InetSocketAddress(getHost(), getPort());
-            serverChannel.socket().setReuseAddress(getReuseAddress());
-            serverChannel.socket().bind(bindAddress, getAcceptQueueSize());
-        }
+        return serverChannel;
+    }
 
+    private ServerSocketChannel bind(ServerSocketChannel serverChannel, int port) throws IOException
+    {
+        InetSocketAddress bindAddress = getHost() == null ? new InetSocketAddress(port) : new InetSocketAddress(getHost(), port);
+        serverChannel.socket().setReuseAddress(getReuseAddress());
+        if (isReusePort() && SO_REUSEPORT != null && serverChannel.supportedOptions().contains(SO_REUSEPORT))
+            serverChannel.setOption(SO_REUSEPORT, true);
+        serverChannel.socket().bind(bindAddress, getAcceptQueueSize());
         return serverChannel;
     }
+
+    @SuppressWarnings("unchecked")
+    private static SocketOption<Boolean> reusePortOption()
+    {
+        try
+        {
+            // StandardSocketOptions.SO_REUSEPORT is only available since Java 9.
+            return (SocketOption<Boolean>)StandardSocketOptions.class.getField("SO_REUSEPORT").get(null);
+        }
+        catch (Throwable x)
+        {
+            return null;
+        }
+    }
     
     @Override
     public Future<Void> shutdown()
@@ -349,44 +449,58 @@ public class ServerConnector extends AbstractNetworkConnector
     {
         super.close();
         
+        ServerSocketChannel[] shardChannels = _acceptChannels;
+        _acceptChannels = NO_CHANNELS;
         ServerSocketChannel serverChannel = _acceptChannel;
         _acceptChannel = null;
         if (serverChannel != null)
+            close(serverChannel);
+        for (ServerSocketChannel shardChannel : shardChannels)
         {
-            removeBean(serverChannel);
+            if (shardChannel != serverChannel)
+                close(shardChannel);
+        }
+        _localPort = -2;
+    }
+
+    private void close(ServerSocketChannel serverChannel)
+    {
+        removeBean(serverChannel);
 
-            if (serverChannel.isOpen())
+        if (serverChannel.isOpen())
+        {
+            try
             {
-                try
-                {
-                    serverChannel.close();
-                }
-                catch (IOException e)
-                {
-                    LOG.warn(e);
-                }
+                serverChannel.close();
+            }
+            catch (IOException e)
+            {
+                LOG.warn(e);
             }
         }
-        _localPort = -2;
     }
 
     @Override
     public void accept(int acceptorID) throws IOException
     {
-        ServerSocketChannel serverChannel = _acceptChannel;
+        ServerSocketChannel[] channels = _acceptChannels;
+        ServerSocketChannel serverChannel = channels.length > 1 ? channels[acceptorID % channels.length] : _acceptChannel;
         if (serverChannel != null && serverChannel.isOpen())
         {
             SocketChannel channel = serverChannel.accept();
-            accepted(channel);
+            accepted(channel, -1);
         }
     }
 
-    private void accepted(SocketChannel channel) throws IOException
+    private void accepted(SocketChannel channel, int selector) throws IOException
     {
         channel.configureBlocking(false);
         Socket socket = channel.socket();
         configure(socket);
-        _manager.accept(channel);
+        if (selector < 0)
+            _manager.accept(channel);
+        else
+            _manager.accept(channel, null, selector);
     }
 
     protected void configure(Socket socket)
@@ -485,6 +599,38 @@ public class ServerConnector extends AbstractNetworkConnector
         _reuseAddress = reuseAddress;
     }
 
+    /**
+     * @return whether the connector binds one {@code SO_REUSEPORT} server channel per acceptor or selector
+     */
+    @ManagedAttribute("Whether one SO_REUSEPORT server channel is bound per acceptor or selector")
+    public boolean isReusePort()
+    {
+        return _reusePort;
+    }
+
+    /**
+     * <p>Sets whether the connector binds one server channel with {@code SO_REUSEPORT}
+     * for each acceptor thread or, if there are no acceptor threads, for each selector.</p>
+     * <p>If {@code SO_REUSEPORT} is not supported by the platform, a single server
+     * channel is used. This setting has no effect when the connector is opened with an
+     * existing channel via {@link #open(ServerSocketChannel)} or {@link #setInheritChannel(boolean)}.</p>
+     *
+     * @param reusePort whether to bind one server channel per acceptor or selector
+     */
+    public void setReusePort(boolean reusePort)
+    {
+        _reusePort = reusePort;
+    }
+
+    /**
+     * @return the number of server channels the connector accepts from
+     */
+    @ManagedAttribute("The number of server channels")
+    public int getAcceptChannelCount()
+    {
+        return _acceptChannels.length;
+    }
+
    
     @Override
     public void setAccepting(boolean accepting)
@@ -499,7 +645,7 @@ public class ServerConnector extends AbstractNetworkConnector
             {
                 if (_acceptor.get()==null)
                 {
-                    Closeable acceptor = _manager.acceptor(_acceptChannel);
+                    Closeable acceptor = newAcceptor();
                     if (!_acceptor.compareAndSet(null,acceptor))
                         acceptor.close();
                 }
@@ -527,7 +673,13 @@ public class ServerConnector extends AbstractNetworkConnector
         @Override
         protected void accepted(SelectableChannel channel) throws IOException
         {
-            ServerConnector.this.accepted((SocketChannel)channel);
+            ServerConnector.this.accepted((SocketChannel)channel, -1);
+        }
+
+        @Override
+        protected void accepted(SelectableChannel channel, int selector) throws IOException
+        {
+            ServerConnector.this.accepted((SocketChannel)channel, selector);
         }
 
         @Override
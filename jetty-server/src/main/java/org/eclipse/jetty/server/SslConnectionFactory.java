@@ -28,6 +28,7 @@ import org.eclipse.jetty.io.AbstractConnection;
 import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.io.ssl.SslConnection;
+import org.eclipse.jetty.io.ssl.SslHandshakeExecutor;
 import org.eclipse.jetty.io.ssl.SslHandshakeListener;
 import org.eclipse.jetty.util.annotation.Name;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
@@ -37,6 +38,8 @@ public class SslConnectionFactory extends AbstractConnectionFactory
 {
     private final SslContextFactory _sslContextFactory;
     private final String _nextProtocol;
+    private SslHandshakeExecutor _handshakeExecutor;
+    private boolean _handshakeExecutorCreated;
 
     public SslConnectionFactory()
     {
@@ -66,9 +69,37 @@ public class SslConnectionFactory extends AbstractConnectionFactory
         return _nextProtocol;
     }
 
+    public SslHandshakeExecutor getSslHandshakeExecutor()
+    {
+        return _handshakeExecutor;
+    }
+
+    /**
+     * <p>Sets the executor of the delegated tasks of the TLS handshakes, that also tracks
+     * the handshake statistics.</p>
+     * <p>If not set, an executor is created at startup with
+     * {@link SslContextFactory#getDelegatedTaskThreads()} threads, so that the handshake
+     * statistics are collected even when the delegated tasks are not offloaded; that
+     * executor is removed at stop, and created again at the next start.</p>
+     *
+     * @param handshakeExecutor the executor of the delegated tasks of the TLS handshakes
+     */
+    public void setSslHandshakeExecutor(SslHandshakeExecutor handshakeExecutor)
+    {
+        updateBean(_handshakeExecutor, handshakeExecutor, true);
+        _handshakeExecutor = handshakeExecutor;
+        _handshakeExecutorCreated = false;
+    }
+
     @Override
     protected void doStart() throws Exception
     {
+        if (_handshakeExecutor == null)
+        {
+            setSslHandshakeExecutor(new SslHandshakeExecutor(_sslContextFactory.getDelegatedTaskThreads(), _sslContextFactory.getDelegatedTaskQueueCapacity()));
+            _handshakeExecutorCreated = true;
+        }
+
         super.doStart();
 
         SSLEngine engine = _sslContextFactory.newSSLEngine();
@@ -79,6 +110,14 @@ public class SslConnectionFactory extends AbstractConnectionFactory
             setInputBufferSize(session.getPacketBufferSize());
     }
 
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        if (_handshakeExecutorCreated)
+            setSslHandshakeExecutor(null);
+    }
+
     @Override
     public Connection newConnection(Connector connector, EndPoint endPoint)
     {
@@ -88,6 +127,7 @@ public class SslConnectionFactory extends AbstractConnectionFactory
         SslConnection sslConnection = newSslConnection(connector, endPoint, engine);
         sslConnection.setRenegotiationAllowed(_sslContextFactory.isRenegotiationAllowed());
         sslConnection.setRenegotiationLimit(_sslContextFactory.getRenegotiationLimit());
+        sslConnection.setSslHandshakeExecutor(_handshakeExecutor);
         configure(sslConnection, connector, endPoint);
 
         ConnectionFactory next = connector.getConnectionFactory(_nextProtocol);
@@ -42,10 +42,12 @@ import org.eclipse.jetty.util.FutureCallback;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.annotation.Name;
 import org.eclipse.jetty.util.component.Graceful;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.statistic.CounterStatistic;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
 import org.eclipse.jetty.util.statistic.SampleStatistic;
 
 @ManagedObject("Request Statistics Gathering")
@@ -56,8 +58,10 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
 
     private final CounterStatistic _requestStats = new CounterStatistic();
     private final SampleStatistic _requestTimeStats = new SampleStatistic();
+    private final HistogramStatistic _requestTimeHistogram = new HistogramStatistic();
     private final CounterStatistic _dispatchedStats = new CounterStatistic();
     private final SampleStatistic _dispatchedTimeStats = new SampleStatistic();
+    private final HistogramStatistic _dispatchedTimeHistogram = new HistogramStatistic();
     private final CounterStatistic _asyncWaitStats = new CounterStatistic();
 
     private final LongAdder _asyncDispatches = new LongAdder();
@@ -103,6 +107,7 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
 
             long d=_requestStats.decrement();
             _requestTimeStats.set(elapsed);
+            _requestTimeHistogram.set(elapsed);
 
             updateResponse(request);
 
@@ -128,8 +133,10 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
 
         _requestStats.reset();
         _requestTimeStats.reset();
+        _requestTimeHistogram.reset();
         _dispatchedStats.reset();
         _dispatchedTimeStats.reset();
+        _dispatchedTimeHistogram.reset();
         _asyncWaitStats.reset();
 
         _asyncDispatches.reset();
@@ -185,6 +192,7 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
 
             _dispatchedStats.decrement();
             _dispatchedTimeStats.set(dispatched);
+            _dispatchedTimeHistogram.set(dispatched);
 
             if (state.isSuspended())
             {
@@ -198,6 +206,7 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
             {
                 long d=_requestStats.decrement();
                 _requestTimeStats.set(dispatched);
+                _requestTimeHistogram.set(dispatched);
                 updateResponse(baseRequest);
                 
                 // If we have no more dispatches, should we signal shutdown?
@@ -339,6 +348,59 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
         return _requestTimeStats.getStdDev();
     }
 
+    /**
+     * @return the median time (in milliseconds) of request handling
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("median time spent handling requests (in ms)")
+    public long getRequestTime50thPercentile()
+    {
+        return _requestTimeHistogram.getPercentile(50);
+    }
+
+    /**
+     * @return the 99th percentile of time (in milliseconds) of request handling
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("99th percentile of time spent handling requests (in ms)")
+    public long getRequestTime99thPercentile()
+    {
+        return _requestTimeHistogram.getPercentile(99);
+    }
+
+    /**
+     * @return the 99.9th percentile of time (in milliseconds) of request handling
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("99.9th percentile of time spent handling requests (in ms)")
+    public long getRequestTime999thPercentile()
+    {
+        return _requestTimeHistogram.getPercentile(99.9);
+    }
+
+    /**
+     * @param percentile the percentile between 0 and 100
+     * @return the given percentile of time (in milliseconds) of request handling
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedOperation(value="percentile of time spent handling requests (in ms)", impact="INFO")
+    public long getRequestTimePercentile(@Name("percentile") double percentile)
+    {
+        return _requestTimeHistogram.getPercentile(percentile);
+    }
+
+    /**
+     * <p>Returns the percentiles of request handling time over the interval since this
+     * method was last called, without resetting the other statistics.</p>
+     *
+     * @return the request time percentiles of the last interval
+     */
+    @ManagedOperation(value="percentiles of request handling time (in ms) since the last invocation of this method", impact="ACTION")
+    public String requestTimeIntervalSnapshot()
+    {
+        return _requestTimeHistogram.intervalSnapshot().toString();
+    }
+
     /**
      * @return the number of dispatches seen by this handler
      * since {@link #statsReset()} was last called, excluding
@@ -416,6 +478,59 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
         return _dispatchedTimeStats.getStdDev();
     }
 
+    /**
+     * @return the median time (in milliseconds) of request dispatch
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("median time spent in dispatch handling (in ms)")
+    public long getDispatchedTime50thPercentile()
+    {
+        return _dispatchedTimeHistogram.getPercentile(50);
+    }
+
+    /**
+     * @return the 99th percentile of time (in milliseconds) of request dispatch
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("99th percentile of time spent in dispatch handling (in ms)")
+    public long getDispatchedTime99thPercentile()
+    {
+        return _dispatchedTimeHistogram.getPercentile(99);
+    }
+
+    /**
+     * @return the 99.9th percentile of time (in milliseconds) of request dispatch
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedAttribute("99.9th percentile of time spent in dispatch handling (in ms)")
+    public long getDispatchedTime999thPercentile()
+    {
+        return _dispatchedTimeHistogram.getPercentile(99.9);
+    }
+
+    /**
+     * @param percentile the percentile between 0 and 100
+     * @return the given percentile of time (in milliseconds) of request dispatch
+     * since {@link #statsReset()} was last called.
+     */
+    @ManagedOperation(value="percentile of time spent in dispatch handling (in ms)", impact="INFO")
+    public long getDispatchedTimePercentile(@Name("percentile") double percentile)
+    {
+        return _dispatchedTimeHistogram.getPercentile(percentile);
+    }
+
+    /**
+     * <p>Returns the percentiles of dispatch handling time over the interval since this
+     * method was last called, without resetting the other statistics.</p>
+     *
+     * @return the dispatch time percentiles of the last interval
+     */
+    @ManagedOperation(value="percentiles of dispatch handling time (in ms) since the last invocation of this method", impact="ACTION")
+    public String dispatchedTimeIntervalSnapshot()
+    {
+        return _dispatchedTimeHistogram.intervalSnapshot().toString();
+    }
+
     /**
      * @return the number of requests handled by this handler
      * since {@link #statsReset()} was last called, including
@@ -550,6 +665,8 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
         sb.append("Mean request time: ").append(getRequestTimeMean()).append("<br />\n");
         sb.append("Max request time: ").append(getRequestTimeMax()).append("<br />\n");
         sb.append("Request time standard deviation: ").append(getRequestTimeStdDev()).append("<br />\n");
+        sb.append("99th percentile request time: ").append(getRequestTime99thPercentile()).append("<br />\n");
+        sb.append("99.9th percentile request time: ").append(getRequestTime999thPercentile()).append("<br />\n");
 
 
         sb.append("<h2>Dispatches:</h2>\n");
@@ -560,6 +677,8 @@ public class StatisticsHandler extends HandlerWrapper implements Graceful
         sb.append("Mean dispatched time: ").append(getDispatchedTimeMean()).append("<br />\n");
         sb.append("Max dispatched time: ").append(getDispatchedTimeMax()).append("<br />\n");
         sb.append("Dispatched time standard deviation: ").append(getDispatchedTimeStdDev()).append("<br />\n");
+        sb.append("99th percentile dispatched time: ").append(getDispatchedTime99thPercentile()).append("<br />\n");
+        sb.append("99.9th percentile dispatched time: ").append(getDispatchedTime999thPercentile()).append("<br />\n");
 
 
         sb.append("Total requests suspended: ").append(getAsyncRequests()).append("<br />\n");
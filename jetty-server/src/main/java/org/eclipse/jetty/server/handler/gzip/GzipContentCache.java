@@ -0,0 +1,347 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.handler.gzip;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.FrequencySketch;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+/**
+ * <p>A bounded cache of the gzip compressed content of responses, so that
+ * responses that are identical for many requests are compressed only once.</p>
+ * <p>The {@link GzipHttpOutputInterceptor} of a {@link GzipHandler} that has
+ * a cache looks up the compressed content when the response is committed and
+ * writes it instead of compressing the content written by the application.
+ * The content is cached with a key made of the request URI and of the
+ * {@code ETag} of the response, or with the key set by the application as
+ * the {@link GzipHandler#CACHE_KEY_ATTRIBUTE} request attribute; responses
+ * that have neither are not cached.</p>
+ * <p>The cache is bounded by the number of entries and by their total size.
+ * When full, an entry is only cached if it has been requested more frequently
+ * than the entries it would evict.</p>
+ */
+@ManagedObject("Cache of gzip compressed responses")
+public class GzipContentCache
+{
+    private static final Logger LOG = Log.getLogger(GzipContentCache.class);
+
+    private final ConcurrentMap<String,Entry> _cache=new ConcurrentHashMap<>();
+    private final Queue<Entry> _entries=new ConcurrentLinkedQueue<>();
+    private final AtomicLong _cachedSize=new AtomicLong();
+    private final LongAdder _hits=new LongAdder();
+    private final LongAdder _misses=new LongAdder();
+    private final LongAdder _stores=new LongAdder();
+    private final LongAdder _evictions=new LongAdder();
+    private volatile FrequencySketch _frequencies;
+    private int _maxEntries;
+    private int _maxEntrySize=4*1024*1024;
+    private long _maxCacheSize=64*1024*1024;
+
+    public GzipContentCache()
+    {
+        this(1024);
+    }
+
+    /**
+     * @param maxEntries the max number of cached responses
+     */
+    public GzipContentCache(int maxEntries)
+    {
+        setMaxEntries(maxEntries);
+    }
+
+    /**
+     * <p>Looks up the compressed content cached with the given key.</p>
+     *
+     * @param key the cache key of the response
+     * @return a read only buffer with the compressed content, or null if it is not cached
+     */
+    public ByteBuffer get(String key)
+    {
+        _frequencies.increment(key);
+        Entry entry=_cache.get(key);
+        if (entry==null)
+        {
+            _misses.increment();
+            return null;
+        }
+        _hits.increment();
+        entry._accessed=true;
+        return entry._content.asReadOnlyBuffer();
+    }
+
+    /**
+     * <p>Tells whether the compressed content of a response with the given key
+     * would likely be cached by {@link #put(String, ByteBuffer)}, so that the
+     * content is only collected when it is worth it.</p>
+     *
+     * @param key the cache key of the response
+     * @return false if the key is already cached, or if the cache is full and
+     * the key is requested less frequently than the next entry to evict
+     */
+    public boolean wouldAdmit(String key)
+    {
+        if (_cache.containsKey(key))
+            return false;
+        if (_cache.size()<_maxEntries && _cachedSize.get()<_maxCacheSize)
+            return true;
+        Entry victim=_entries.peek();
+        FrequencySketch frequencies=_frequencies;
+        return victim==null || frequencies.frequency(victim._key)<=frequencies.frequency(key);
+    }
+
+    /**
+     * <p>Caches the compressed content of a response.</p>
+     *
+     * @param key the cache key of the response
+     * @param content the compressed content, whose bytes must not be modified afterwards
+     * @return whether the content has been cached
+     */
+    public boolean put(String key, ByteBuffer content)
+    {
+        int size=content.remaining();
+        if (size>_maxEntrySize || size>_maxCacheSize)
+            return false;
+
+        synchronized (this)
+        {
+            if (_cache.containsKey(key))
+                return false;
+
+            // Only evict entries that are less frequently requested than the new one.
+            // All the victims are compared before any is removed, so that entries
+            // are not evicted for a new one that is not admitted in the end.
+            FrequencySketch frequencies=_frequencies;
+            int frequency=frequencies.frequency(key);
+            List<Entry> victims=new ArrayList<>();
+            long freed=0;
+            while (_cache.size()-victims.size()>=_maxEntries || _cachedSize.get()-freed+size>_maxCacheSize)
+            {
+                Entry victim=pollVictim();
+                if (victim==null)
+                    break;
+                if (frequencies.frequency(victim._key)>frequency)
+                {
+                    _entries.addAll(victims);
+                    _entries.add(victim);
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("{} not admitted, less frequent than {}",key,victim._key);
+                    return false;
+                }
+                victims.add(victim);
+                freed+=victim._content.remaining();
+            }
+            for (Entry victim : victims)
+            {
+                remove(victim);
+                _evictions.increment();
+            }
+
+            Entry entry=new Entry(key,content);
+            _cache.put(key,entry);
+            _entries.add(entry);
+            _cachedSize.addAndGet(size);
+            _stores.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("{} cached {} bytes",key,size);
+            return true;
+        }
+    }
+
+    private Entry pollVictim()
+    {
+        // Give a second chance to the entries accessed since they were last polled.
+        int chances=_maxEntries;
+        while (true)
+        {
+            Entry victim=_entries.poll();
+            if (victim==null)
+                return null;
+            if (_cache.get(victim._key)!=victim)
+                continue;
+            if (victim._accessed && chances-->0)
+            {
+                victim._accessed=false;
+                _entries.add(victim);
+                continue;
+            }
+            return victim;
+        }
+    }
+
+    private void remove(Entry entry)
+    {
+        if (_cache.remove(entry._key,entry))
+            _cachedSize.addAndGet(-entry._content.remaining());
+    }
+
+    /**
+     * @param key the cache key of the response
+     * @return whether the compressed content has been removed from the cache
+     */
+    public boolean remove(String key)
+    {
+        synchronized (this)
+        {
+            Entry entry=_cache.get(key);
+            if (entry==null)
+                return false;
+            remove(entry);
+            _entries.remove(entry);
+        }
+        return true;
+    }
+
+    @ManagedAttribute("The max number of cached responses")
+    public int getMaxEntries()
+    {
+        return _maxEntries;
+    }
+
+    /**
+     * @param maxEntries the max number of cached responses
+     */
+    public void setMaxEntries(int maxEntries)
+    {
+        _maxEntries=maxEntries;
+        _frequencies=new FrequencySketch(maxEntries);
+        clear();
+    }
+
+    @ManagedAttribute("The max size in bytes of a cached compressed response")
+    public int getMaxEntrySize()
+    {
+        return _maxEntrySize;
+    }
+
+    /**
+     * @param maxEntrySize the max size in bytes of a cached compressed response
+     */
+    public void setMaxEntrySize(int maxEntrySize)
+    {
+        _maxEntrySize=maxEntrySize;
+    }
+
+    @ManagedAttribute("The max total size in bytes of the cached compressed responses")
+    public long getMaxCacheSize()
+    {
+        return _maxCacheSize;
+    }
+
+    /**
+     * @param maxCacheSize the max total size in bytes of the cached compressed responses
+     */
+    public void setMaxCacheSize(long maxCacheSize)
+    {
+        _maxCacheSize=maxCacheSize;
+        clear();
+    }
+
+    @ManagedAttribute("The number of cached responses")
+    public int getCachedEntries()
+    {
+        return _cache.size();
+    }
+
+    @ManagedAttribute("The total size in bytes of the cached compressed responses")
+    public long getCachedSize()
+    {
+        return _cachedSize.get();
+    }
+
+    @ManagedAttribute("The number of responses served from the cache")
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    @ManagedAttribute("The number of responses compressed because they were not cached")
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    @ManagedAttribute("The ratio of cache hits over cache lookups")
+    public double getHitRatio()
+    {
+        long hits=getHits();
+        long lookups=hits+getMisses();
+        return lookups==0?0:(double)hits/lookups;
+    }
+
+    @ManagedAttribute("The number of responses stored in the cache")
+    public long getStores()
+    {
+        return _stores.sum();
+    }
+
+    @ManagedAttribute("The number of responses evicted from the cache")
+    public long getEvictions()
+    {
+        return _evictions.sum();
+    }
+
+    @ManagedOperation(value="Clears the cache and its statistics",impact="ACTION")
+    public void clear()
+    {
+        synchronized (this)
+        {
+            _cache.clear();
+            _entries.clear();
+            _cachedSize.set(0);
+        }
+        _frequencies.clear();
+        _hits.reset();
+        _misses.reset();
+        _stores.reset();
+        _evictions.reset();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{entries=%d,size=%d,hits=%d,misses=%d}",getClass().getSimpleName(),hashCode(),getCachedEntries(),getCachedSize(),getHits(),getMisses());
+    }
+
+    private static class Entry
+    {
+        private final String _key;
+        private final ByteBuffer _content;
+        private volatile boolean _accessed;
+
+        private Entry(String key, ByteBuffer content)
+        {
+            _key=key;
+            _content=content.asReadOnlyBuffer();
+        }
+    }
+}
@@ -29,4 +29,12 @@ public interface GzipFactory
     boolean isMimeTypeGzipable(String mimetype);
 
     void recycle(Deflater deflater);
+
+    /**
+     * @return the cache of compressed responses, or null if compressed responses are not cached
+     */
+    default GzipContentCache getContentCache()
+    {
+        return null;
+    }
 }
@@ -63,6 +63,12 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     public static final String GZIP = "gzip";
     public static final String DEFLATE = "deflate";
     public static final int DEFAULT_MIN_GZIP_SIZE=16;
+    /**
+     * The name of the request attribute that an application may set to the key
+     * with which the compressed content of the response is cached.
+     * @see #setContentCache(GzipContentCache)
+     */
+    public static final String CACHE_KEY_ATTRIBUTE = "org.eclipse.jetty.server.handler.gzip.GzipHandler.cacheKey";
     private static final Logger LOG = Log.getLogger(GzipHandler.class);
 
     private int _minGzipSize=DEFAULT_MIN_GZIP_SIZE;
@@ -78,6 +84,7 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     private final IncludeExclude<String> _paths = new IncludeExclude<>(PathSpecSet.class);
     private final IncludeExclude<String> _mimeTypes = new IncludeExclude<>();
     private HttpField _vary;
+    private GzipContentCache _contentCache;
 
     /**
      * Instantiates a new gzip handler.
@@ -406,6 +413,28 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     {
         _inflateBufferSize = size;
     }
+
+    @Override
+    public GzipContentCache getContentCache()
+    {
+        return _contentCache;
+    }
+
+    /**
+     * <p>Sets the cache of compressed responses, so that responses that are
+     * identical for many requests are compressed only once.</p>
+     * <p>A response is cached if it has an {@code ETag} header, or if the
+     * application sets the {@link #CACHE_KEY_ATTRIBUTE} request attribute.
+     * By default the key is the request URL, with its query, and the {@code ETag}.
+     * For static content served by the DefaultServlet, this requires its
+     * {@code etags} init parameter to be true.</p>
+     * @param cache the cache of compressed responses, or null to not cache them
+     */
+    public void setContentCache(GzipContentCache cache)
+    {
+        updateBean(_contentCache,cache);
+        _contentCache = cache;
+    }
     
     @Override
     public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
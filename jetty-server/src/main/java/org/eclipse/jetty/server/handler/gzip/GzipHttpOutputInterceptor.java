@@ -20,6 +20,7 @@ package org.eclipse.jetty.server.handler.gzip;
 
 import java.nio.ByteBuffer;
 import java.nio.channels.WritePendingException;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.CRC32;
 import java.util.zip.Deflater;
@@ -27,11 +28,14 @@ import java.util.zip.Deflater;
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.http.QuotedCSV;
 import org.eclipse.jetty.server.HttpChannel;
 import org.eclipse.jetty.server.HttpOutput;
+import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Response;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
@@ -50,7 +54,7 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
     public final static HttpField VARY_ACCEPT_ENCODING_USER_AGENT=new PreEncodedHttpField(HttpHeader.VARY,HttpHeader.ACCEPT_ENCODING+", "+HttpHeader.USER_AGENT);
     public final static HttpField VARY_ACCEPT_ENCODING=new PreEncodedHttpField(HttpHeader.VARY,HttpHeader.ACCEPT_ENCODING.asString());
 
-    private enum GZState {  MIGHT_COMPRESS, NOT_COMPRESSING, COMMITTING, COMPRESSING, FINISHED};
+    private enum GZState {  MIGHT_COMPRESS, NOT_COMPRESSING, COMMITTING, COMPRESSING, CACHED, FINISHED};
     private final AtomicReference<GZState> _state = new AtomicReference<>(GZState.MIGHT_COMPRESS);
     private final CRC32 _crc = new CRC32();
 
@@ -63,6 +67,10 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
 
     private Deflater _deflater;
     private ByteBuffer _buffer;
+    private GzipContentCache _cache;
+    private String _cacheKey;
+    private byte[] _cached;
+    private int _cachedLength;
 
     public GzipHttpOutputInterceptor(GzipFactory factory, HttpChannel channel, HttpOutput.Interceptor next,boolean syncFlush)
     {
@@ -117,6 +125,12 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                 gzip(content,complete,callback);
                 break;
 
+            case CACHED:
+                // The cached compressed content has already been written
+                BufferUtil.clear(content);
+                callback.succeeded();
+                break;
+
             default:
                 callback.failed(new IllegalStateException("state="+_state.get()));
                 break;
@@ -227,10 +241,12 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                 return;
             }
 
+            // Has the compressed content already been cached?
+            GzipContentCache cache=_factory.getContentCache();
+            String key=cache==null?null:getCacheKey(response);
+            ByteBuffer cached=key==null?null:cache.get(key);
+
             fields.put(GZIP._contentEncoding);
-            _crc.reset();
-            _buffer=_channel.getByteBufferPool().acquire(_bufferSize,false);
-            BufferUtil.fill(_buffer,GZIP_HEADER,0,GZIP_HEADER.length);
 
             // Adjust headers
             response.setContentLength(-1);
@@ -238,6 +254,29 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
             if (etag!=null)
                 fields.put(HttpHeader.ETAG,etagGzip(etag));
 
+            if (cached!=null)
+            {
+                LOG.debug("{} cached {}",this,key);
+                _factory.recycle(_deflater);
+                _deflater=null;
+                _state.set(GZState.CACHED);
+                // Only the header, as the application still writes the uncompressed content.
+                fields.putLongField(HttpHeader.CONTENT_LENGTH,cached.remaining());
+                BufferUtil.clear(content);
+                _interceptor.write(cached,true,callback);
+                return;
+            }
+
+            // Only copy the compressed content if the cache may store it.
+            if (key!=null && cache.wouldAdmit(key))
+            {
+                _cache=cache;
+                _cacheKey=key;
+            }
+            _crc.reset();
+            _buffer=_channel.getByteBufferPool().acquire(_bufferSize,false);
+            BufferUtil.fill(_buffer,GZIP_HEADER,0,GZIP_HEADER.length);
+
             LOG.debug("{} compressing {}",this,_deflater);
             _state.set(GZState.COMPRESSING);
 
@@ -247,6 +286,61 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
             callback.failed(new WritePendingException());
     }
 
+    /**
+     * @param response the response being committed
+     * @return the key to cache the compressed content of the response with, or null if it cannot be cached
+     */
+    private String getCacheKey(Response response)
+    {
+        Request request=_channel.getRequest();
+        if (response.getStatus()!=HttpStatus.OK_200 || !HttpMethod.GET.is(request.getMethod()))
+            return null;
+
+        Object key=request.getAttribute(GzipHandler.CACHE_KEY_ATTRIBUTE);
+        if (key!=null)
+            return key.toString();
+
+        String etag=response.getHttpFields().get(HttpHeader.ETAG);
+        if (etag==null)
+            return null;
+        // The request URL includes the scheme, the host and the context path, so that
+        // the same path and ETag served by different virtual hosts do not collide.
+        StringBuffer url=request.getRequestURL();
+        String query=request.getQueryString();
+        if (query!=null)
+            url.append('?').append(query);
+        return url.append(' ').append(etag).toString();
+    }
+
+    private void cache(ByteBuffer buffer, boolean finished)
+    {
+        int length=_cachedLength+buffer.remaining();
+        int maxEntrySize=_cache.getMaxEntrySize();
+        if (length>maxEntrySize)
+        {
+            LOG.debug("{} too large to cache {}",this,_cacheKey);
+            _cacheKey=null;
+            _cached=null;
+            return;
+        }
+
+        if (_cached==null || length>_cached.length)
+        {
+            // Exactly sized for the last output buffer, otherwise doubled.
+            int capacity=finished?length:Math.min(maxEntrySize,Math.max(length,_cached==null?_bufferSize:2*_cached.length));
+            _cached=_cached==null?new byte[capacity]:Arrays.copyOf(_cached,capacity);
+        }
+        System.arraycopy(buffer.array(),buffer.arrayOffset()+buffer.position(),_cached,_cachedLength,buffer.remaining());
+        _cachedLength=length;
+
+        if (finished)
+        {
+            _cache.put(_cacheKey,ByteBuffer.wrap(_cached,0,_cachedLength));
+            _cacheKey=null;
+            _cached=null;
+        }
+    }
+
     private String etagGzip(String etag)
     {
         int end = etag.length()-1;
@@ -388,6 +482,9 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
             if (finished)
                 addTrailer();
 
+            if (_cacheKey!=null)
+                cache(_buffer,finished);
+
             _interceptor.write(_buffer,finished,this);
             return Action.SCHEDULED;
         }
@@ -0,0 +1,178 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchingNCSARequestLogTest
+{
+    private File _dir;
+    private BatchingNCSARequestLog _log;
+
+    @Before
+    public void before() throws Exception
+    {
+        _dir = MavenTestingUtils.getTargetTestingDir(BatchingNCSARequestLogTest.class.getSimpleName());
+        FS.ensureEmpty(_dir);
+        _log = new BatchingNCSARequestLog(new File(_dir, "request.log").getAbsolutePath());
+    }
+
+    @After
+    public void after() throws Exception
+    {
+        _log.stop();
+    }
+
+    private List<String> lines() throws Exception
+    {
+        return Files.readAllLines(new File(_dir, "request.log").toPath(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testEntriesWrittenInOrder() throws Exception
+    {
+        _log.start();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; ++i)
+        {
+            builder.setLength(0);
+            builder.append("entry ").append(i).append(" é€");
+            _log.write(builder);
+        }
+        _log.stop();
+
+        List<String> lines = lines();
+        assertThat(lines.size(), is(1000));
+        for (int i = 0; i < lines.size(); ++i)
+            assertThat(lines.get(i), is("entry " + i + " é€"));
+        assertThat(_log.getEntries(), is(1000L));
+        assertThat(_log.getDroppedEntries(), is(0L));
+        assertThat(_log.getBatches(), greaterThan(0L));
+        assertThat(_log.getQueuedBytes(), is(0));
+    }
+
+    @Test
+    public void testBlockWhenFull() throws Exception
+    {
+        _log.setOverflowPolicy(BatchingNCSARequestLog.OverflowPolicy.BLOCK);
+        _log.setMaxQueuedBytes(1024);
+        _log.setMaxBatchSize(4);
+        _log.start();
+
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 4096; ++i)
+            large.append('x');
+
+        for (int i = 0; i < 10000; ++i)
+        {
+            _log.write("entry " + i);
+            // Entries larger than the cap must not block forever.
+            if (i % 1000 == 0)
+                _log.write(large);
+        }
+        _log.stop();
+
+        assertThat(lines().size(), is(10010));
+        assertThat(_log.getEntries(), is(10010L));
+        assertThat(_log.getDroppedEntries(), is(0L));
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception
+    {
+        _log.setOverflowPolicy(BatchingNCSARequestLog.OverflowPolicy.DROP);
+        _log.setMaxQueuedBytes(1024);
+        _log.start();
+
+        for (int i = 0; i < 10000; ++i)
+            _log.write("entry " + i);
+        _log.stop();
+
+        long entries = _log.getEntries();
+        assertThat(entries + _log.getDroppedEntries(), is(10000L));
+        assertThat(lines().size(), is((int)entries));
+    }
+
+    @Test
+    public void testWriteAfterStop() throws Exception
+    {
+        _log.start();
+        _log.write("before");
+        _log.stop();
+        _log.write("after");
+
+        assertThat(_log.getEntries(), is(1L));
+    }
+
+    @Test
+    public void testStopWhileBlocked() throws Exception
+    {
+        _log.setOverflowPolicy(BatchingNCSARequestLog.OverflowPolicy.BLOCK);
+        _log.setMaxQueuedBytes(256);
+        _log.setMaxBatchSize(1);
+        _log.start();
+
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; ++t)
+        {
+            int id = t;
+            Thread thread = new Thread(() ->
+            {
+                try
+                {
+                    for (int i = 0; i < 10000; ++i)
+                        _log.write("thread " + id + " entry " + i);
+                }
+                catch (IOException x)
+                {
+                    failure.compareAndSet(null, x);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        Thread.sleep(100);
+        _log.stop();
+        for (Thread thread : threads)
+            thread.join();
+
+        assertThat(failure.get(), nullValue());
+        // The entries queued after the writer thread stopped are not counted.
+        assertThat(lines().size(), is((int)_log.getEntries()));
+    }
+}
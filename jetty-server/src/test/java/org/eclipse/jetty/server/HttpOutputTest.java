@@ -27,9 +27,13 @@ import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
@@ -136,6 +140,40 @@ public class HttpOutputTest
         assertThat(response,containsString("Content-Length: 11"));
     }
     
+    @Test
+    public void testSendFileChannelAfterWrite() throws Exception
+    {
+        Resource simple = Resource.newClassPathResource("simple/simple.txt");
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AbstractHandler handler = new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                baseRequest.setHandled(true);
+                HttpOutput out = (HttpOutput)response.getOutputStream();
+                out.write("prefix".getBytes(StandardCharsets.ISO_8859_1));
+                try
+                {
+                    out.sendContent(FileChannel.open(simple.getFile().toPath(),StandardOpenOption.READ),0,simple.length());
+                }
+                catch (IOException x)
+                {
+                    failure.set(x);
+                }
+            }
+        };
+        _swap.setHandler(handler);
+        handler.start();
+
+        String response=_connector.getResponse("GET / HTTP/1.0\nHost: localhost:80\n\n");
+        assertThat(failure.get(),Matchers.instanceOf(IOException.class));
+        assertThat(failure.get().getMessage(),containsString("after write()"));
+        // The misuse does not abort the response.
+        assertThat(response,containsString("HTTP/1.1 200 OK"));
+        assertThat(response,endsWith("prefix"));
+    }
+
     @Test
     public void testSendInputStreamBig() throws Exception
     {
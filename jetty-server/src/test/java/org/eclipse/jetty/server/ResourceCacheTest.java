@@ -26,12 +26,17 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.eclipse.jetty.http.CompressedContentFormat;
 import org.eclipse.jetty.http.HttpContent;
 import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.http.ResourceHttpContent;
 import org.eclipse.jetty.toolchain.test.AdvancedRunner;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
 import org.eclipse.jetty.toolchain.test.OS;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.resource.Resource;
@@ -262,9 +267,10 @@ public class ResourceCacheTest
 
         Thread.sleep(200);
 
+        // names[2] leaves the window, but is less frequent than names[6] that it would evict
         content=cache.getContent(names[3],4096);
         content.getIndirectBuffer();
-        assertEquals(61,cache.getCachedSize());
+        assertEquals(42,cache.getCachedSize());
         assertEquals(4,cache.getCachedFiles());
 
         Thread.sleep(200);
@@ -277,6 +283,103 @@ public class ResourceCacheTest
         cache.flushCache();
     }
 
+    @Test
+    public void testFrequentContentSurvivesScan() throws Exception
+    {
+        File dir = MavenTestingUtils.getTargetTestingDir(ResourceCacheTest.class.getSimpleName() + "-scan");
+        FS.ensureEmpty(dir);
+        for (int i = 0; i < 20; i++)
+        {
+            try (OutputStream out = new FileOutputStream(new File(dir, "file" + i + ".txt")))
+            {
+                out.write(("content " + i).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        CachedContentFactory cache = new CachedContentFactory(null,Resource.newResource(dir),new MimeTypes(),false,false,CompressedContentFormat.NONE);
+        cache.setMaxCachedFiles(4);
+
+        for (int i = 0; i < 5; i++)
+        {
+            for (int j = 0; j < 3; j++)
+                cache.getContent("file" + j + ".txt",4096).getIndirectBuffer();
+        }
+        assertEquals(3,cache.getCachedFiles());
+
+        // A scan of files requested once does not evict the frequent files.
+        for (int i = 3; i < 20; i++)
+            cache.getContent("file" + i + ".txt",4096).getIndirectBuffer();
+        assertTrue(cache.getCachedFiles() <= 4);
+
+        HttpContent content = cache.getContent("file0.txt",4096);
+        assertTrue(content instanceof CachedContentFactory.CachedHttpContent);
+        content = cache.getContent("file1.txt",4096);
+        assertTrue(content instanceof CachedContentFactory.CachedHttpContent);
+        content = cache.getContent("file2.txt",4096);
+        assertTrue(content instanceof CachedContentFactory.CachedHttpContent);
+        assertEquals(4,cache.getCachedFiles());
+        cache.flushCache();
+    }
+
+    @Test
+    public void testRevalidationInterval() throws Exception
+    {
+        File dir = MavenTestingUtils.getTargetTestingDir(ResourceCacheTest.class.getSimpleName() + "-revalidate");
+        FS.ensureEmpty(dir);
+        File file = new File(dir, "file.txt");
+        try (OutputStream out = new FileOutputStream(file))
+        {
+            out.write("one".getBytes(StandardCharsets.UTF_8));
+        }
+
+        CachedContentFactory cache = new CachedContentFactory(null,Resource.newResource(dir),new MimeTypes(),false,false,CompressedContentFormat.NONE);
+        cache.setRevalidationInterval(500);
+        assertEquals("one",BufferUtil.toString(cache.getContent("file.txt",4096).getIndirectBuffer()));
+
+        try (OutputStream out = new FileOutputStream(file))
+        {
+            out.write("two!".getBytes(StandardCharsets.UTF_8));
+        }
+
+        // The modification is not checked before the interval expires.
+        assertEquals("one",BufferUtil.toString(cache.getContent("file.txt",4096).getIndirectBuffer()));
+
+        Thread.sleep(600);
+        assertEquals("two!",BufferUtil.toString(cache.getContent("file.txt",4096).getIndirectBuffer()));
+        cache.flushCache();
+    }
+
+    @Test
+    public void testBackgroundRevalidation() throws Exception
+    {
+        File dir = MavenTestingUtils.getTargetTestingDir(ResourceCacheTest.class.getSimpleName() + "-background");
+        FS.ensureEmpty(dir);
+        File file = new File(dir, "file.txt");
+        try (OutputStream out = new FileOutputStream(file))
+        {
+            out.write("one".getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<Runnable> tasks = new ArrayList<>();
+        CachedContentFactory cache = new CachedContentFactory(null,Resource.newResource(dir),new MimeTypes(),false,false,CompressedContentFormat.NONE);
+        cache.setExecutor(tasks::add);
+        cache.setRevalidationInterval(1);
+        assertEquals("one",BufferUtil.toString(cache.getContent("file.txt",4096).getIndirectBuffer()));
+
+        try (OutputStream out = new FileOutputStream(file))
+        {
+            out.write("two!".getBytes(StandardCharsets.UTF_8));
+        }
+        Thread.sleep(10);
+
+        // The stale content is served while it is revalidated.
+        assertEquals("one",BufferUtil.toString(cache.getContent("file.txt",4096).getIndirectBuffer()));
+        assertEquals(1,tasks.size());
+        tasks.remove(0).run();
+        assertEquals("two!",BufferUtil.toString(cache.getContent("file.txt",4096).getIndirectBuffer()));
+        cache.flushCache();
+    }
+
     @Test
     public void testNoextension() throws Exception
     {
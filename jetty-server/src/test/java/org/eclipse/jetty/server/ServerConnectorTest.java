@@ -53,9 +53,11 @@ import org.eclipse.jetty.server.handler.HandlerList;
 import org.eclipse.jetty.toolchain.test.AdvancedRunner;
 import org.eclipse.jetty.toolchain.test.OS;
 import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.JavaVersion;
 import org.eclipse.jetty.util.log.StacklessLogging;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
@@ -229,6 +231,39 @@ public class ServerConnectorTest
         }
     }
 
+    @Test
+    public void testReusePort() throws Exception
+    {
+        Assume.assumeTrue(OS.IS_LINUX && JavaVersion.VERSION.getPlatform() >= 9);
+
+        Server server = new Server();
+        ServerConnector connector = new ServerConnector(server, 0, 4);
+        connector.setPort(0);
+        connector.setReusePort(true);
+        server.addConnector(connector);
+        server.setHandler(new ReuseInfoHandler());
+
+        try
+        {
+            server.start();
+
+            assertEquals(4, connector.getAcceptChannelCount());
+
+            URI uri = toServerURI(connector);
+            for (int i = 0; i < 16; ++i)
+            {
+                String response = getResponse(uri);
+                assertThat("Response",response,containsString("connector.getReuseAddress() = true"));
+            }
+        }
+        finally
+        {
+            server.stop();
+        }
+
+        assertEquals(0, connector.getAcceptChannelCount());
+    }
+
     @Test
     public void testAddFirstConnectionFactory() throws Exception
     {
@@ -39,6 +39,7 @@ import java.net.Socket;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.Arrays;
 
 import org.eclipse.jetty.http.HttpTester;
 import org.eclipse.jetty.server.Connector;
@@ -236,6 +237,23 @@ public class ResourceHandlerTest
         }
     }
     
+    @Test
+    public void testBiggerRange() throws Exception
+    {
+        File bigger = MavenTestingUtils.getTargetFile("test-classes/simple/bigger.txt");
+        byte[] expected = Files.readAllBytes(bigger.toPath());
+        int first = 1000;
+        int last = expected.length - 1000;
+        try (Socket socket = new Socket("localhost",_connector.getLocalPort());)
+        {
+            socket.getOutputStream().write(("GET /resource/bigger.txt HTTP/1.0\nRange: bytes=" + first + "-" + last + "\n\n").getBytes());
+            HttpTester.Response response = HttpTester.parseResponse(socket.getInputStream());
+            assertThat(response.getStatus(),equalTo(206));
+            assertThat(response.get(CONTENT_LENGTH),equalTo(Integer.toString(last - first + 1)));
+            Assert.assertArrayEquals(Arrays.copyOfRange(expected,first,last + 1),response.getContentBytes());
+        }
+    }
+
     @Test
     public void testWelcome() throws Exception
     {
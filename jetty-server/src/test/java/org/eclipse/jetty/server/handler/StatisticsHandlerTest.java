@@ -363,6 +363,17 @@ public class StatisticsHandlerTest
         assertThat(_statsHandler.getDispatchedTimeTotal(), greaterThanOrEqualTo(dispatchTime * 2 * 3 / 4));
         assertTrue(_statsHandler.getDispatchedTimeMean() + dispatchTime <= _statsHandler.getDispatchedTimeTotal());
         assertTrue(_statsHandler.getDispatchedTimeMax() + dispatchTime <= _statsHandler.getDispatchedTimeTotal());
+
+        // A single request, so all the percentiles are equivalent to the max.
+        assertThat(_statsHandler.getRequestTime99thPercentile(), greaterThanOrEqualTo(_statsHandler.getRequestTimeMax()));
+        assertThat(_statsHandler.getRequestTime50thPercentile(), greaterThanOrEqualTo(_statsHandler.getRequestTimeMax()));
+        assertThat(_statsHandler.getDispatchedTime999thPercentile(), greaterThanOrEqualTo(_statsHandler.getDispatchedTimeMax()));
+
+        // Interval snapshots do not reset the cumulative percentiles.
+        _statsHandler.requestTimeIntervalSnapshot();
+        _statsHandler.dispatchedTimeIntervalSnapshot();
+        assertThat(_statsHandler.getRequestTime99thPercentile(), greaterThanOrEqualTo(_statsHandler.getRequestTimeMax()));
+        assertThat(_statsHandler.getDispatchedTime999thPercentile(), greaterThanOrEqualTo(_statsHandler.getDispatchedTimeMax()));
     }
 
     @Test
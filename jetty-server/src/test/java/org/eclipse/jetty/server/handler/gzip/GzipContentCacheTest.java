@@ -0,0 +1,139 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.server.handler.gzip;
+
+import java.nio.ByteBuffer;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GzipContentCacheTest
+{
+    @Test
+    public void testGetPut()
+    {
+        GzipContentCache cache = new GzipContentCache();
+
+        Assert.assertNull(cache.get("/a"));
+        Assert.assertTrue(cache.wouldAdmit("/a"));
+        Assert.assertTrue(cache.put("/a", BufferUtil.toBuffer("compressed")));
+        Assert.assertFalse(cache.wouldAdmit("/a"));
+        Assert.assertFalse(cache.put("/a", BufferUtil.toBuffer("other")));
+
+        for (int i = 0; i < 2; ++i)
+        {
+            ByteBuffer content = cache.get("/a");
+            Assert.assertEquals("compressed", BufferUtil.toString(content));
+            Assert.assertTrue(content.isReadOnly());
+            // Consuming a buffer returned by the cache does not consume the cached content.
+            content.position(content.limit());
+        }
+
+        Assert.assertEquals(1, cache.getCachedEntries());
+        Assert.assertEquals(10, cache.getCachedSize());
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(1, cache.getStores());
+
+        Assert.assertTrue(cache.remove("/a"));
+        Assert.assertFalse(cache.remove("/a"));
+        Assert.assertNull(cache.get("/a"));
+        Assert.assertEquals(0, cache.getCachedSize());
+        Assert.assertTrue(cache.wouldAdmit("/a"));
+    }
+
+    @Test
+    public void testMaxEntrySize()
+    {
+        GzipContentCache cache = new GzipContentCache();
+        cache.setMaxEntrySize(8);
+
+        Assert.assertFalse(cache.put("/big", BufferUtil.toBuffer("123456789")));
+        Assert.assertTrue(cache.put("/small", BufferUtil.toBuffer("12345678")));
+        Assert.assertEquals(1, cache.getCachedEntries());
+    }
+
+    @Test
+    public void testMaxCacheSize()
+    {
+        GzipContentCache cache = new GzipContentCache();
+        cache.setMaxCacheSize(20);
+
+        Assert.assertTrue(cache.put("/a", BufferUtil.toBuffer("0123456789")));
+        Assert.assertTrue(cache.put("/b", BufferUtil.toBuffer("0123456789")));
+        Assert.assertTrue(cache.put("/c", BufferUtil.toBuffer("0123456789")));
+
+        Assert.assertEquals(2, cache.getCachedEntries());
+        Assert.assertEquals(20, cache.getCachedSize());
+        Assert.assertEquals(1, cache.getEvictions());
+        Assert.assertNull(cache.get("/a"));
+    }
+
+    @Test
+    public void testNoEvictionWhenNotAdmitted()
+    {
+        GzipContentCache cache = new GzipContentCache();
+        cache.setMaxCacheSize(20);
+
+        cache.get("/a");
+        Assert.assertTrue(cache.put("/a", BufferUtil.toBuffer("0123456789")));
+        for (int i = 0; i < 10; ++i)
+            cache.get("/b");
+        Assert.assertTrue(cache.put("/b", BufferUtil.toBuffer("0123456789")));
+
+        // Less frequent than /b, so /a must not be evicted for it.
+        for (int i = 0; i < 5; ++i)
+            cache.get("/c");
+        Assert.assertFalse(cache.put("/c", BufferUtil.toBuffer("01234567890123456789")));
+
+        Assert.assertEquals(2, cache.getCachedEntries());
+        Assert.assertEquals(0, cache.getEvictions());
+        Assert.assertNotNull(cache.get("/a"));
+        Assert.assertNotNull(cache.get("/b"));
+    }
+
+    @Test
+    public void testFrequentEntriesAreNotEvicted()
+    {
+        GzipContentCache cache = new GzipContentCache(2);
+        for (String key : new String[]{"/a", "/b"})
+        {
+            for (int i = 0; i < 5; ++i)
+                cache.get(key);
+            Assert.assertTrue(cache.put(key, BufferUtil.toBuffer(key)));
+        }
+
+        // A key requested once does not evict the frequent ones.
+        Assert.assertNull(cache.get("/once"));
+        Assert.assertFalse(cache.wouldAdmit("/once"));
+        Assert.assertFalse(cache.put("/once", BufferUtil.toBuffer("/once")));
+        Assert.assertNotNull(cache.get("/a"));
+        Assert.assertNotNull(cache.get("/b"));
+
+        // A key requested more frequently evicts one of them.
+        for (int i = 0; i < 10; ++i)
+            cache.get("/often");
+        Assert.assertTrue(cache.wouldAdmit("/often"));
+        Assert.assertTrue(cache.put("/often", BufferUtil.toBuffer("/often")));
+        Assert.assertEquals(2, cache.getCachedEntries());
+        Assert.assertEquals(1, cache.getEvictions());
+        Assert.assertNotNull(cache.get("/often"));
+    }
+}
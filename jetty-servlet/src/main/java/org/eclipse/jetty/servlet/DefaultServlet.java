@@ -110,6 +110,11 @@ import org.eclipse.jetty.util.resource.ResourceFactory;
  *  maxCachedFileSize The maximum size of a file to cache
  *  maxCachedFiles    The maximum number of files to cache
  *
+ *  cacheRevalidationInterval
+ *                    The min interval in ms between the checks of a cached file for
+ *                    modifications, which are done by the server thread pool, or 0
+ *                    (the default) to check at every request.
+ *
  *  useFileMappedBuffer
  *                    If set to true, it will use mapped file buffer to serve static content
  *                    when using NIO connector. Setting this value to false means that
@@ -267,6 +272,9 @@ public class DefaultServlet extends HttpServlet implements ResourceFactory, Welc
                     _cache.setMaxCachedFileSize(max_cached_file_size);
                 if (max_cached_files>=-1)
                     _cache.setMaxCachedFiles(max_cached_files);
+                _cache.setRevalidationInterval(getInitInt("cacheRevalidationInterval",0));
+                if (_contextHandler.getServer()!=null)
+                    _cache.setExecutor(_contextHandler.getServer().getThreadPool());
                 _servletContext.setAttribute(resourceCache==null?"resourceCache":resourceCache,_cache);
             }
         }
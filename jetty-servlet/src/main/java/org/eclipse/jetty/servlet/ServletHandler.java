@@ -24,6 +24,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -32,6 +33,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
@@ -51,6 +53,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.eclipse.jetty.http.pathmap.MappedResource;
 import org.eclipse.jetty.http.pathmap.PathMappings;
 import org.eclipse.jetty.http.pathmap.PathSpec;
+import org.eclipse.jetty.http.pathmap.PathSpecGroup;
 import org.eclipse.jetty.http.pathmap.ServletPathSpec;
 import org.eclipse.jetty.security.IdentityService;
 import org.eclipse.jetty.security.SecurityHandler;
@@ -61,6 +64,7 @@ import org.eclipse.jetty.server.UserIdentity;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ScopedHandler;
 import org.eclipse.jetty.util.ArrayUtil;
+import org.eclipse.jetty.util.FrequencySketch;
 import org.eclipse.jetty.util.LazyList;
 import org.eclipse.jetty.util.MultiException;
 import org.eclipse.jetty.util.MultiMap;
@@ -115,6 +119,7 @@ public class ServletHandler extends ScopedHandler
     private final Map<String,ServletHolder> _servletNameMap=new HashMap<>();
     // private PathMap<ServletHolder> _servletPathMap;
     private PathMappings<ServletHolder> _servletPathMap;
+    private Set<PathSpec> _chainPathSpecs=Collections.emptySet();
     
     private ListenerHolder[] _listeners=new ListenerHolder[0];
 
@@ -124,6 +129,10 @@ public class ServletHandler extends ScopedHandler
     @SuppressWarnings("unchecked")
     protected final Queue<String>[] _chainLRU = new Queue[FilterMapping.ALL];
 
+    private final FrequencySketch[] _chainFrequencies = new FrequencySketch[FilterMapping.ALL];
+    private final LongAdder _chainCacheHits = new LongAdder();
+    private final LongAdder _chainCacheMisses = new LongAdder();
+
 
 
     /* ------------------------------------------------------------ */
@@ -174,7 +183,13 @@ public class ServletHandler extends ScopedHandler
             _chainLRU[FilterMapping.INCLUDE]=new ConcurrentLinkedQueue<>();
             _chainLRU[FilterMapping.ERROR]=new ConcurrentLinkedQueue<>();
             _chainLRU[FilterMapping.ASYNC]=new ConcurrentLinkedQueue<>();
+
+            int capacity=_maxFilterChainsCacheSize>0?_maxFilterChainsCacheSize:512;
+            for (int i=0;i<_chainFrequencies.length;i++)
+                _chainFrequencies[i]=new FrequencySketch(capacity);
         }
+        _chainCacheHits.reset();
+        _chainCacheMisses.reset();
 
         if (_contextHandler==null)
             initialize();
@@ -334,6 +349,7 @@ public class ServletHandler extends ScopedHandler
         _filterPathMappings=null;
         _filterNameMappings=null;
         _servletPathMap=null;
+        _chainPathSpecs=Collections.emptySet();
     }
 
     /* ------------------------------------------------------------ */
@@ -431,6 +447,7 @@ public class ServletHandler extends ScopedHandler
         // Get the base requests
         final String old_servlet_path=baseRequest.getServletPath();
         final String old_path_info=baseRequest.getPathInfo();
+        final PathSpec old_path_spec=baseRequest.getServletPathSpec();
 
         DispatcherType type = baseRequest.getDispatcherType();
 
@@ -438,6 +455,8 @@ public class ServletHandler extends ScopedHandler
         UserIdentity.Scope old_scope=null;
 
         MappedResource<ServletHolder> mapping=getMappedServlet(target);
+        // Remember the match, so that the filter chain is looked up without matching again.
+        baseRequest.setServletPathSpec(mapping==null?null:mapping.getPathSpec());
         if (mapping!=null)
         {
             servlet_holder = mapping.getResource();
@@ -476,6 +495,7 @@ public class ServletHandler extends ScopedHandler
         {
             if (old_scope!=null)
                 baseRequest.setUserIdentityScope(old_scope);
+            baseRequest.setServletPathSpec(old_path_spec);
 
             if (!(DispatcherType.INCLUDE.equals(type)))
             {
@@ -570,14 +590,19 @@ public class ServletHandler extends ScopedHandler
     /* ------------------------------------------------------------ */
     protected FilterChain getFilterChain(Request baseRequest, String pathInContext, ServletHolder servletHolder)
     {
-        String key=pathInContext==null?servletHolder.getName():pathInContext;
+        String key=getFilterChainKey(baseRequest,pathInContext,servletHolder);
         int dispatch = FilterMapping.dispatch(baseRequest.getDispatcherType());
 
-        if (_filterChainsCached && _chainCache!=null)
+        if (_filterChainsCached && _chainCache[dispatch]!=null)
         {
+            _chainFrequencies[dispatch].increment(key);
             FilterChain chain = _chainCache[dispatch].get(key);
             if (chain!=null)
+            {
+                _chainCacheHits.increment();
                 return chain;
+            }
+            _chainCacheMisses.increment();
         }
 
         // Build list of filters (list of FilterHolder objects)
@@ -626,24 +651,35 @@ public class ServletHandler extends ScopedHandler
 
             final Map<String,FilterChain> cache=_chainCache[dispatch];
             final Queue<String> lru=_chainLRU[dispatch];
+            final FrequencySketch frequencies=_chainFrequencies[dispatch];
+            if (cache==null)
+                return chain;
 
-                // Do we have too many cached chains?
-                while (_maxFilterChainsCacheSize>0 && cache.size()>=_maxFilterChainsCacheSize)
+            // Do we have too many cached chains?
+            while (_maxFilterChainsCacheSize>0 && cache.size()>=_maxFilterChainsCacheSize)
+            {
+                // The LRU list is not atomic with the cache map, so be prepared to invalidate if
+                // a key is not found to delete.
+                // Delete by LRU (where U==created)
+                String k=lru.poll();
+                if (k==null)
                 {
-                    // The LRU list is not atomic with the cache map, so be prepared to invalidate if
-                    // a key is not found to delete.
-                    // Delete by LRU (where U==created)
-                    String k=lru.poll();
-                    if (k==null)
-                    {
-                        cache.clear();
-                        break;
-                    }
-                    cache.remove(k);
+                    cache.clear();
+                    break;
                 }
 
-                cache.put(key,chain);
-                lru.add(key);
+                // Only evict a cached chain for a more frequently used one, so that
+                // paths that are seldom requested do not flush the frequent ones.
+                if (cache.containsKey(k) && frequencies.frequency(k)>=frequencies.frequency(key))
+                {
+                    lru.add(k);
+                    return chain;
+                }
+                cache.remove(k);
+            }
+
+            cache.put(key,chain);
+            lru.add(key);
         }
         else if (filters.size() > 0)
             chain = new Chain(baseRequest,filters, servletHolder);
@@ -651,6 +687,99 @@ public class ServletHandler extends ScopedHandler
         return chain;
     }
 
+    /* ------------------------------------------------------------ */
+    /**
+     * <p>Returns the key of the cached filter chain for the given path or servlet.</p>
+     * <p>When the filter mappings apply in the same way to all the paths mapped by the
+     * servlet path spec that matches the given path, the chain is keyed by that path spec,
+     * so that paths that contain identifiers share a single cached chain. Such keys are
+     * prefixed with a character that cannot start a path, so they never collide with the
+     * key of a path, such as the default path spec {@code "/"} and the path {@code "/"}.</p>
+     *
+     * @param baseRequest the request, with the servlet path spec matched by {@link #doScope(String, Request, HttpServletRequest, HttpServletResponse)}
+     * @param pathInContext the path, or null for a dispatch to a named servlet
+     * @param servletHolder the servlet the chain ends with
+     * @return the key of the cached filter chain
+     */
+    private String getFilterChainKey(Request baseRequest, String pathInContext, ServletHolder servletHolder)
+    {
+        if (pathInContext==null)
+            return servletHolder.getName();
+        PathSpec pathSpec=baseRequest.getServletPathSpec();
+        if (pathSpec!=null && _chainPathSpecs.contains(pathSpec))
+            return "*"+pathSpec.getDeclaration();
+        return pathInContext;
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @param servletPathSpec a prefix, suffix or default servlet path spec
+     * @return whether every filter path mapping either applies to all the paths matched by
+     * the servlet path spec or to none of them
+     */
+    private boolean isFilterChainPathInvariant(PathSpec servletPathSpec)
+    {
+        if (_filterPathMappings!=null)
+        {
+            for (FilterMapping mapping : _filterPathMappings)
+            {
+                for (String filterPathSpec : mapping.getPathSpecs())
+                {
+                    if (filterPathSpec!=null && !isPathInvariant(servletPathSpec,filterPathSpec))
+                        return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /* ------------------------------------------------------------ */
+    /**
+     * @param servletPathSpec a prefix, suffix or default servlet path spec
+     * @param filterPathSpec a filter path spec
+     * @return whether the filter path spec matches all the paths matched by the servlet
+     * path spec or none of them
+     * @see FilterMapping#appliesTo(String, int)
+     */
+    private static boolean isPathInvariant(PathSpec servletPathSpec, String filterPathSpec)
+    {
+        if (filterPathSpec.startsWith("*."))
+        {
+            // A filter suffix is invariant for the same or a disjoint servlet suffix.
+            if (servletPathSpec.getGroup()!=PathSpecGroup.SUFFIX_GLOB)
+                return false;
+            String servletSuffix="."+servletPathSpec.getSuffix();
+            String filterSuffix=filterPathSpec.substring(1);
+            return servletSuffix.endsWith(filterSuffix) || !filterSuffix.endsWith(servletSuffix);
+        }
+
+        if (filterPathSpec.startsWith("/"))
+        {
+            if (!filterPathSpec.endsWith("/*"))
+                // An exact filter path spec.
+                return !servletPathSpec.matches(filterPathSpec);
+
+            String filterPrefix=filterPathSpec.substring(0,filterPathSpec.length()-2);
+            if (filterPrefix.isEmpty())
+                return true;
+            if (servletPathSpec.getGroup()!=PathSpecGroup.PREFIX_GLOB)
+                return false;
+            // A filter prefix is invariant for the same, a nested or a disjoint servlet prefix.
+            String servletPrefix=servletPathSpec.getPrefix();
+            if (servletPrefix.equals(filterPrefix) || servletPrefix.startsWith(filterPrefix+"/"))
+                return true;
+            return !servletPrefix.isEmpty() && !filterPrefix.startsWith(servletPrefix+"/");
+        }
+
+        // PathMap.match() matches other path specs starting with '*' as suffixes,
+        // so "*" matches every path and any other suffix may match some paths.
+        if (filterPathSpec.startsWith("*"))
+            return filterPathSpec.length()==1;
+
+        // The empty path spec only matches "/", other path specs never match.
+        return !filterPathSpec.isEmpty() || !servletPathSpec.matches("/");
+    }
+
     /* ------------------------------------------------------------ */
     protected void invalidateChainsCache()
     {
@@ -1449,6 +1578,28 @@ public class ServletHandler extends ScopedHandler
             _servletPathMap=pm;
         }
 
+        // find the servlet path specs that the filter chains can be keyed by
+        Set<PathSpec> chainPathSpecs=new HashSet<>();
+        if (_servletPathMap!=null)
+        {
+            for (MappedResource<ServletHolder> mapping : _servletPathMap)
+            {
+                PathSpec pathSpec=mapping.getPathSpec();
+                switch (pathSpec.getGroup())
+                {
+                    case PREFIX_GLOB:
+                    case SUFFIX_GLOB:
+                    case DEFAULT:
+                        if (isFilterChainPathInvariant(pathSpec))
+                            chainPathSpecs.add(pathSpec);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        _chainPathSpecs=chainPathSpecs;
+
         // flush filter chain cache
         if (_chainCache!=null)
         {
@@ -1755,7 +1906,8 @@ public class ServletHandler extends ScopedHandler
     /* ------------------------------------------------------------ */
     /** Set the maximum filter chain cache size.
      * Filter chains are cached if {@link #isFilterChainsCached()} is true. If the max cache size
-     * is greater than zero, then the cache is flushed whenever it grows to be this size.
+     * is greater than zero, then when the cache is full the oldest chain is evicted only if the
+     * new chain is more frequently requested, otherwise the new chain is not cached.
      *
      * @param maxFilterChainsCacheSize  the maximum number of entries in a filter chain cache.
      */
@@ -1764,6 +1916,20 @@ public class ServletHandler extends ScopedHandler
         _maxFilterChainsCacheSize = maxFilterChainsCacheSize;
     }
 
+    /* ------------------------------------------------------------ */
+    @ManagedAttribute("number of filter chains found in the cache")
+    public long getFilterChainsCacheHits()
+    {
+        return _chainCacheHits.sum();
+    }
+
+    /* ------------------------------------------------------------ */
+    @ManagedAttribute("number of filter chains not found in the cache")
+    public long getFilterChainsCacheMisses()
+    {
+        return _chainCacheMisses.sum();
+    }
+
     /* ------------------------------------------------------------ */
     void destroyServlet(Servlet servlet)
     {
@@ -46,6 +46,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.eclipse.jetty.http.HttpTester;
 import org.eclipse.jetty.server.LocalConnector;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.gzip.GzipContentCache;
 import org.eclipse.jetty.server.handler.gzip.GzipHandler;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.IO;
@@ -249,6 +250,53 @@ public class GzipHandlerTest
         assertEquals(__content, testOut.toString("UTF8"));
     }
     
+    @Test
+    public void testGzipHandlerContentCache() throws Exception
+    {
+        GzipContentCache cache = new GzipContentCache();
+        ((GzipHandler)_server.getHandler()).setContentCache(cache);
+
+        for (int i = 0; i < 3; i++)
+        {
+            HttpTester.Request request = HttpTester.newRequest();
+            request.setMethod("GET");
+            request.setURI("/ctx/content");
+            request.setVersion("HTTP/1.0");
+            request.setHeader("Host","tester");
+            request.setHeader("accept-encoding","gzip");
+
+            HttpTester.Response response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+
+            assertThat(response.getStatus(),is(200));
+            assertThat(response.get("Content-Encoding"),Matchers.equalToIgnoringCase("gzip"));
+            assertThat(response.get("ETag"),is(__contentETagGzip));
+            // The length of the cached content is known.
+            if (i > 0)
+                assertThat(response.get("Content-Length"),is(Integer.toString(response.getContentBytes().length)));
+
+            InputStream testIn = new GZIPInputStream(new ByteArrayInputStream(response.getContentBytes()));
+            ByteArrayOutputStream testOut = new ByteArrayOutputStream();
+            IO.copy(testIn,testOut);
+            assertEquals(__content, testOut.toString("UTF8"));
+        }
+
+        assertThat(cache.getStores(),is(1L));
+        assertThat(cache.getMisses(),is(1L));
+        assertThat(cache.getHits(),is(2L));
+
+        // The same path and ETag for another host is cached separately.
+        HttpTester.Request request = HttpTester.newRequest();
+        request.setMethod("GET");
+        request.setURI("/ctx/content");
+        request.setVersion("HTTP/1.0");
+        request.setHeader("Host","other");
+        request.setHeader("accept-encoding","gzip");
+        HttpTester.Response response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+        assertThat(response.getStatus(),is(200));
+        assertThat(cache.getStores(),is(2L));
+        assertThat(cache.getMisses(),is(2L));
+    }
+
     @Test
     public void testGzipNotMicro() throws Exception
     {
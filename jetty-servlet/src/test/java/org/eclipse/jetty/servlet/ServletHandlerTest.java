@@ -22,11 +22,23 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
 import java.util.EnumSet;
 
 import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.jetty.http.pathmap.MappedResource;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Server;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -670,6 +682,166 @@ public class ServletHandlerTest
         assertTrue(fh3 == mappings[5].getFilterHolder()); //isMatchAfter = true;
         assertTrue(pf == mappings[6].getFilterHolder()); //isMatchAfter = true;
     }
-  
-    
+
+    @Test
+    public void testFilterChainsCache() throws Exception
+    {
+        Server server = new Server();
+        LocalConnector connector = new LocalConnector(server);
+        server.addConnector(connector);
+        ServletContextHandler context = new ServletContextHandler();
+        server.setHandler(context);
+        ServletHandler handler = context.getServletHandler();
+        handler.setMaxFilterChainsCacheSize(4);
+
+        context.addServlet(OkServlet.class, "/api/*");
+        context.addServlet(OkServlet.class, "/admin/*");
+        context.addFilter(NoOpFilter.class, "/*", EnumSet.of(DispatcherType.REQUEST));
+        context.addFilter(NoOpFilter.class, "/admin/secure/*", EnumSet.of(DispatcherType.REQUEST));
+        server.start();
+        try
+        {
+            // The filters apply to all the paths of /api/*, so they share a chain.
+            for (int i = 0; i < 20; i++)
+                assertTrue(connector.getResponse("GET /api/" + i + " HTTP/1.0\r\n\r\n").contains(" 200 "));
+            assertEquals(1, handler.getFilterChainsCacheMisses());
+            assertEquals(19, handler.getFilterChainsCacheHits());
+
+            // The filters depend on the paths of /admin/*, so they are cached by path.
+            for (int i = 0; i < 3; i++)
+                connector.getResponse("GET /admin/hot HTTP/1.0\r\n\r\n");
+            assertEquals(2, handler.getFilterChainsCacheMisses());
+            assertEquals(21, handler.getFilterChainsCacheHits());
+
+            // Paths requested once do not evict the frequent ones.
+            for (int i = 0; i < 20; i++)
+                connector.getResponse("GET /admin/" + i + " HTTP/1.0\r\n\r\n");
+            assertEquals(22, handler.getFilterChainsCacheMisses());
+            connector.getResponse("GET /admin/hot HTTP/1.0\r\n\r\n");
+            connector.getResponse("GET /api/other HTTP/1.0\r\n\r\n");
+            assertEquals(22, handler.getFilterChainsCacheMisses());
+            assertEquals(23, handler.getFilterChainsCacheHits());
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testFilterChainsCacheKeys() throws Exception
+    {
+        Server server = new Server();
+        LocalConnector connector = new LocalConnector(server);
+        server.addConnector(connector);
+        ServletContextHandler context = new ServletContextHandler();
+        server.setHandler(context);
+
+        // The chain of the default servlet is keyed by its path spec "/",
+        // which must not be confused with the chain of the path "/".
+        ServletHolder root = context.addServlet(NoContentServlet.class, "");
+        context.addServlet(OkServlet.class, "/");
+        context.addFilter(NoOpFilter.class, "/*", EnumSet.of(DispatcherType.REQUEST));
+        FilterHolder filter = new FilterHolder(NoOpFilter.class);
+        context.getServletHandler().addFilter(filter);
+        FilterMapping mapping = new FilterMapping();
+        mapping.setFilterName(filter.getName());
+        mapping.setServletName(root.getName());
+        context.getServletHandler().addFilterMapping(mapping);
+        server.start();
+        try
+        {
+            assertTrue(connector.getResponse("GET /other HTTP/1.0\r\n\r\n").contains(" 200 "));
+            assertTrue(connector.getResponse("GET / HTTP/1.0\r\n\r\n").contains(" 204 "));
+            assertTrue(connector.getResponse("GET /other HTTP/1.0\r\n\r\n").contains(" 200 "));
+            assertTrue(connector.getResponse("GET / HTTP/1.0\r\n\r\n").contains(" 204 "));
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testFilterChainsCacheWithSuffixFilter() throws Exception
+    {
+        Server server = new Server();
+        LocalConnector connector = new LocalConnector(server);
+        server.addConnector(connector);
+        ServletContextHandler context = new ServletContextHandler();
+        server.setHandler(context);
+
+        // A path spec starting with '*' but not '*.' still matches as a suffix,
+        // so the chain of the /api/* paths depends on the paths.
+        context.addServlet(OkServlet.class, "/api/*");
+        context.addFilter(ForbiddenFilter.class, "*secret", EnumSet.of(DispatcherType.REQUEST));
+        server.start();
+        try
+        {
+            assertTrue(connector.getResponse("GET /api/public HTTP/1.0\r\n\r\n").contains(" 200 "));
+            assertTrue(connector.getResponse("GET /api/secret HTTP/1.0\r\n\r\n").contains(" 403 "));
+            assertTrue(connector.getResponse("GET /api/public HTTP/1.0\r\n\r\n").contains(" 200 "));
+            assertTrue(connector.getResponse("GET /api/secret HTTP/1.0\r\n\r\n").contains(" 403 "));
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    public static class NoContentServlet extends HttpServlet
+    {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException
+        {
+            response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+        }
+    }
+
+    public static class OkServlet extends HttpServlet
+    {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException
+        {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+    }
+
+    public static class ForbiddenFilter implements Filter
+    {
+        @Override
+        public void init(FilterConfig filterConfig) throws ServletException
+        {
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException
+        {
+            ((HttpServletResponse)response).setStatus(HttpServletResponse.SC_FORBIDDEN);
+        }
+
+        @Override
+        public void destroy()
+        {
+        }
+    }
+
+    public static class NoOpFilter implements Filter
+    {
+        @Override
+        public void init(FilterConfig filterConfig) throws ServletException
+        {
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException
+        {
+            chain.doFilter(request, response);
+        }
+
+        @Override
+        public void destroy()
+        {
+        }
+    }
 }
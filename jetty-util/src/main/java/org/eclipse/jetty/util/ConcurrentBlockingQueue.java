@@ -0,0 +1,282 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>An unbounded, lock-free, multi-producer multi-consumer {@link BlockingQueue}.</p>
+ * <p>Unlike {@link BlockingArrayQueue}, that takes a lock to offer and a lock to poll,
+ * this queue is backed by a {@link ConcurrentLinkedQueue} so that producers and consumers
+ * only contend on the CAS operations of the queue nodes.</p>
+ * <p>Consumers that find the queue empty register themselves as waiters and park;
+ * producers only pay the cost of waking a consumer when there is a waiter. This makes
+ * this queue suitable as the job queue of {@link org.eclipse.jetty.util.thread.QueuedThreadPool},
+ * where idle threads wait in {@link #poll(long, TimeUnit)}.</p>
+ * <p>The {@link #size()} of this queue is computed from striped counters and is
+ * only an estimate while the queue is being modified concurrently.</p>
+ *
+ * @param <E> the type of elements held by this queue
+ */
+public class ConcurrentBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E>
+{
+    private final Queue<E> _queue = new ConcurrentLinkedQueue<>();
+    private final Queue<Waiter> _waiters = new ConcurrentLinkedQueue<>();
+    private final LongAdder _size = new LongAdder();
+
+    @Override
+    public boolean offer(E e)
+    {
+        Objects.requireNonNull(e);
+        _queue.offer(e);
+        _size.increment();
+        signal();
+        return true;
+    }
+
+    @Override
+    public void put(E e)
+    {
+        offer(e);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit)
+    {
+        return offer(e);
+    }
+
+    @Override
+    public E poll()
+    {
+        E e = _queue.poll();
+        if (e != null)
+            _size.decrement();
+        return e;
+    }
+
+    @Override
+    public E take() throws InterruptedException
+    {
+        return poll(-1);
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return poll(Math.max(0, unit.toNanos(timeout)));
+    }
+
+    /**
+     * @param nanos the max time to wait, or -1 to wait forever
+     * @return the head of the queue, or null if the wait timed out
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    private E poll(long nanos) throws InterruptedException
+    {
+        E e = poll();
+        if (e != null)
+            return e;
+        if (nanos == 0)
+            return null;
+        long deadline = System.nanoTime() + nanos;
+
+        while (true)
+        {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            Waiter waiter = new Waiter(Thread.currentThread());
+            _waiters.offer(waiter);
+            // Poll again after registering, as an offer may have
+            // happened before the registration was visible.
+            e = poll();
+            if (e == null)
+            {
+                if (nanos < 0)
+                {
+                    LockSupport.park(this);
+                }
+                else
+                {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining > 0)
+                        LockSupport.parkNanos(this, remaining);
+                }
+            }
+
+            if (waiter.cancel())
+            {
+                _waiters.remove(waiter);
+            }
+            else if (e != null)
+            {
+                // We have been signalled, but we do not need the signal
+                // because we got an element anyway: pass it on.
+                signal();
+            }
+
+            if (e == null)
+                e = poll();
+            if (e != null)
+                return e;
+            if (nanos > 0 && deadline - System.nanoTime() <= 0)
+                return null;
+        }
+    }
+
+    private void signal()
+    {
+        Waiter waiter;
+        while ((waiter = _waiters.poll()) != null)
+        {
+            if (waiter.signal())
+                return;
+        }
+    }
+
+    @Override
+    public E peek()
+    {
+        return _queue.peek();
+    }
+
+    @Override
+    public boolean remove(Object o)
+    {
+        boolean removed = _queue.remove(o);
+        if (removed)
+            _size.decrement();
+        return removed;
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+        return _queue.contains(o);
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return _queue.isEmpty();
+    }
+
+    @Override
+    public int size()
+    {
+        return (int)Math.max(0, Math.min(Integer.MAX_VALUE, _size.sum()));
+    }
+
+    @Override
+    public int remainingCapacity()
+    {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c)
+    {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements)
+    {
+        if (c == this)
+            throw new IllegalArgumentException();
+        int drained = 0;
+        while (drained < maxElements)
+        {
+            E e = poll();
+            if (e == null)
+                break;
+            c.add(e);
+            ++drained;
+        }
+        return drained;
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        Iterator<E> iterator = _queue.iterator();
+        return new Iterator<E>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next()
+            {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove()
+            {
+                iterator.remove();
+                _size.decrement();
+            }
+        };
+    }
+
+    private static class Waiter
+    {
+        private static final int WAITING = 0;
+        private static final int SIGNALLED = 1;
+        private static final int CANCELLED = 2;
+
+        private final AtomicInteger _state = new AtomicInteger(WAITING);
+        private final Thread _thread;
+
+        private Waiter(Thread thread)
+        {
+            _thread = thread;
+        }
+
+        private boolean signal()
+        {
+            if (_state.compareAndSet(WAITING, SIGNALLED))
+            {
+                LockSupport.unpark(_thread);
+                return true;
+            }
+            return false;
+        }
+
+        private boolean cancel()
+        {
+            return _state.compareAndSet(WAITING, CANCELLED);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util;
+
+/**
+ * <p>An approximate counter of the frequency of keys, to be used by caches
+ * to decide whether a new entry should be admitted at the expense of a victim
+ * entry chosen by the cache eviction policy (the TinyLFU admission policy).</p>
+ * <p>The frequencies are counted in a count-min sketch of 4 bit counters,
+ * so that keys that are not cached are also counted in a small, fixed amount
+ * of memory. When the number of counted occurrences reaches 10 times the
+ * expected number of cached entries, all the counters are halved, so that
+ * keys that are no longer frequent age out.</p>
+ * <p>This class is not synchronized: concurrent updates may be lost, which
+ * only makes the counts less accurate.</p>
+ */
+public class FrequencySketch
+{
+    private static final long[] SEEDS = new long[]{0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] _table;
+    private final int _sampleSize;
+    private int _additions;
+
+    /**
+     * @param capacity the expected number of cached entries
+     */
+    public FrequencySketch(int capacity)
+    {
+        int size = Math.max(8, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+        _table = new long[size];
+        _sampleSize = 10 * Math.max(1, capacity);
+    }
+
+    /**
+     * @param key the key to count an occurrence of
+     */
+    public void increment(Object key)
+    {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; ++i)
+        {
+            long h = hash(hash, i);
+            int index = index(h);
+            int shift = shift(h);
+            if (((_table[index] >>> shift) & 0xF) < 0xF)
+            {
+                _table[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++_additions >= _sampleSize)
+            reset();
+    }
+
+    /**
+     * @param key the key to get the frequency of
+     * @return the estimated number of occurrences of the key, at most 15
+     */
+    public int frequency(Object key)
+    {
+        int hash = spread(key.hashCode());
+        int frequency = 0xF;
+        for (int i = 0; i < SEEDS.length; ++i)
+        {
+            long h = hash(hash, i);
+            frequency = Math.min(frequency, (int)((_table[index(h)] >>> shift(h)) & 0xF));
+        }
+        return frequency;
+    }
+
+    /**
+     * <p>Halves all the counters.</p>
+     */
+    public void reset()
+    {
+        for (int i = 0; i < _table.length; ++i)
+            _table[i] = (_table[i] >>> 1) & RESET_MASK;
+        _additions /= 2;
+    }
+
+    /**
+     * <p>Clears all the counters.</p>
+     */
+    public void clear()
+    {
+        for (int i = 0; i < _table.length; ++i)
+            _table[i] = 0;
+        _additions = 0;
+    }
+
+    private int index(long h)
+    {
+        return (int)h & (_table.length - 1);
+    }
+
+    private static int shift(long h)
+    {
+        // Each long holds 16 counters of 4 bits.
+        return (int)(h >>> 60) << 2;
+    }
+
+    private static long hash(int hash, int i)
+    {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        return h ^ (h >>> 32);
+    }
+
+    private static int spread(int hash)
+    {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{size=%d,additions=%d}", getClass().getSimpleName(), hashCode(), _table.length, _additions);
+    }
+}
@@ -22,6 +22,8 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.text.SimpleDateFormat;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
@@ -52,7 +54,7 @@ public class RolloverFileOutputStream extends OutputStream
     final static String ROLLOVER_FILE_BACKUP_FORMAT = "HHmmssSSS";
     final static int ROLLOVER_FILE_RETAIN_DAYS = 31;
 
-    private OutputStream _out;
+    private FileOutputStream _out;
     private RollTask _rollTask;
     private SimpleDateFormat _fileBackupFormat;
     private SimpleDateFormat _fileDateFormat;
@@ -282,7 +284,7 @@ public class RolloverFileOutputStream extends OutputStream
                     backupFile = new File(file.toString()+"."+_fileBackupFormat.format(new Date(now.toInstant().toEpochMilli())));
                     file.renameTo(backupFile);
                 }
-                OutputStream oldOut=_out;
+                FileOutputStream oldOut=_out;
                 _out=new FileOutputStream(file.toString(),_append);
                 if (oldOut!=null)
                     oldOut.close();
@@ -368,6 +370,31 @@ public class RolloverFileOutputStream extends OutputStream
         }
     }
 
+    /* ------------------------------------------------------------ */
+    /**
+     * Writes the remaining bytes of the given buffers to the current file
+     * with gathering writes to its {@link FileChannel}.
+     *
+     * @param buffers the buffers to write
+     * @param offset the index of the first buffer to write
+     * @param length the number of buffers to write
+     * @throws IOException if unable to write the buffers
+     */
+    public void write(ByteBuffer[] buffers, int offset, int length) throws IOException
+    {
+        synchronized(this)
+        {
+            FileChannel channel = _out.getChannel();
+            int end = offset + length;
+            while (offset < end)
+            {
+                channel.write(buffers, offset, end - offset);
+                while (offset < end && !buffers[offset].hasRemaining())
+                    ++offset;
+            }
+        }
+    }
+
     /* ------------------------------------------------------------ */
     public void flush() throws IOException
     {
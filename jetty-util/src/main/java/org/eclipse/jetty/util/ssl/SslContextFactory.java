@@ -171,6 +171,8 @@ public class SslContextFactory extends AbstractLifeCycle implements Dumpable
     private boolean _trustAll;
     private boolean _renegotiationAllowed = true;
     private int _renegotiationLimit = 5;
+    private int _delegatedTaskThreads;
+    private int _delegatedTaskQueueCapacity = 1024;
     private Factory _factory;
     private PKIXCertPathChecker _pkixCertPathChecker;
 
@@ -967,6 +969,45 @@ public class SslContextFactory extends AbstractLifeCycle implements Dumpable
     {
         _renegotiationLimit = renegotiationLimit;
     }
+
+    /**
+     * @return The number of threads that run the delegated tasks of the TLS handshakes,
+     * or 0 if the delegated tasks are run by the thread that reads or writes the connection.
+     */
+    @ManagedAttribute("The number of threads that run the delegated tasks of the handshakes")
+    public int getDelegatedTaskThreads()
+    {
+        return _delegatedTaskThreads;
+    }
+
+    /**
+     * @param delegatedTaskThreads The number of threads that run the delegated tasks of the TLS
+     * handshakes, such as the key exchange, separately from the threads that serve the connections.
+     * Default 0, the delegated tasks are run by the thread that reads or writes the connection.
+     */
+    public void setDelegatedTaskThreads(int delegatedTaskThreads)
+    {
+        _delegatedTaskThreads = delegatedTaskThreads;
+    }
+
+    /**
+     * @return The max number of delegated tasks waiting for a thread
+     */
+    @ManagedAttribute("The max number of delegated tasks waiting for a thread")
+    public int getDelegatedTaskQueueCapacity()
+    {
+        return _delegatedTaskQueueCapacity;
+    }
+
+    /**
+     * @param delegatedTaskQueueCapacity The max number of delegated tasks waiting for a thread,
+     * beyond which the delegated tasks are run by the thread that reads or writes the connection,
+     * or 0 to only hand the delegated tasks to idle threads. Default 1024.
+     */
+    public void setDelegatedTaskQueueCapacity(int delegatedTaskQueueCapacity)
+    {
+        _delegatedTaskQueueCapacity = delegatedTaskQueueCapacity;
+    }
     
     /**
      * @return Path to file that contains Certificate Revocation List
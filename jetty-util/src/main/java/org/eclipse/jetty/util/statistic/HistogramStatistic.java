@@ -0,0 +1,229 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>A lock-free, fixed memory histogram of non negative samples,
+ * from which percentiles can be computed.</p>
+ * <p>Samples are counted in log-linear buckets: values smaller than
+ * {@code 2^(precision+1)} have a bucket each, while bigger values are
+ * counted in {@code 2^precision} buckets per power of two, so that the
+ * relative error of a percentile is at most {@code 2^-precision}.</p>
+ * <p>Recording a sample is a single atomic increment of the bucket counter.
+ * Snapshots are computed from the bucket counters and may be taken
+ * while samples are being recorded; {@link #intervalSnapshot()} allows to
+ * compute percentiles over successive intervals without losing samples and
+ * without resetting the counts of all the samples.</p>
+ */
+public class HistogramStatistic
+{
+    private final int _precision;
+    private final AtomicLongArray _counts;
+    private final long[] _baseline;
+
+    public HistogramStatistic()
+    {
+        this(5);
+    }
+
+    /**
+     * @param precision the number of bits of precision of each bucket, between 1 and 10
+     */
+    public HistogramStatistic(int precision)
+    {
+        if (precision < 1 || precision > 10)
+            throw new IllegalArgumentException("Invalid precision " + precision);
+        _precision = precision;
+        _counts = new AtomicLongArray(indexOf(Long.MAX_VALUE, precision) + 1);
+        _baseline = new long[_counts.length()];
+    }
+
+    public synchronized void reset()
+    {
+        for (int i = 0; i < _counts.length(); ++i)
+            _counts.set(i, 0);
+        Arrays.fill(_baseline, 0);
+    }
+
+    /**
+     * @param sample the sample to record, negative samples are recorded as zero
+     */
+    public void set(long sample)
+    {
+        _counts.getAndIncrement(indexOf(sample < 0 ? 0 : sample, _precision));
+    }
+
+    /**
+     * @return a snapshot of the samples recorded so far
+     */
+    public Snapshot snapshot()
+    {
+        long[] counts = new long[_counts.length()];
+        for (int i = 0; i < counts.length; ++i)
+            counts[i] = _counts.get(i);
+        return new Snapshot(_precision, counts);
+    }
+
+    /**
+     * <p>Returns the samples recorded since the previous call to this method,
+     * by subtracting the counts of the previous call from the current counts.</p>
+     * <p>Unlike {@link #snapshotAndReset()}, the histogram is not reset, so that
+     * {@link #snapshot()} and {@link #getPercentile(double)} still account for
+     * all the samples.</p>
+     *
+     * @return a snapshot of the samples recorded since the last interval snapshot
+     */
+    public synchronized Snapshot intervalSnapshot()
+    {
+        long[] counts = new long[_counts.length()];
+        for (int i = 0; i < counts.length; ++i)
+        {
+            long count = _counts.get(i);
+            // The counts only decrease if the histogram has been reset.
+            counts[i] = Math.max(0, count - _baseline[i]);
+            _baseline[i] = count;
+        }
+        return new Snapshot(_precision, counts);
+    }
+
+    /**
+     * <p>Atomically takes and resets each bucket counter, so that
+     * each sample is counted in exactly one interval snapshot.</p>
+     *
+     * @return a snapshot of the samples recorded since the last reset
+     */
+    public Snapshot snapshotAndReset()
+    {
+        long[] counts = new long[_counts.length()];
+        for (int i = 0; i < counts.length; ++i)
+            counts[i] = _counts.getAndSet(i, 0);
+        return new Snapshot(_precision, counts);
+    }
+
+    /**
+     * @param percentile the percentile between 0 and 100
+     * @return the value at the given percentile of the samples recorded so far
+     * @see Snapshot#getPercentile(double)
+     */
+    public long getPercentile(double percentile)
+    {
+        return snapshot().getPercentile(percentile);
+    }
+
+    private static int indexOf(long value, int precision)
+    {
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        if (msb <= precision)
+            return (int)value;
+        int shift = msb - precision;
+        return (shift << precision) + (int)(value >>> shift);
+    }
+
+    private static long highestValueOf(int index, int precision)
+    {
+        if (index < (2 << precision))
+            return index;
+        int shift = (index >> precision) - 1;
+        long sub = index - ((long)shift << precision);
+        long next = (sub + 1) << shift;
+        // The last bucket overflows.
+        return next < 0 ? Long.MAX_VALUE : next - 1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s}", getClass().getSimpleName(), hashCode(), snapshot());
+    }
+
+    /**
+     * <p>An immutable view of the bucket counters of a {@link HistogramStatistic}.</p>
+     */
+    public static class Snapshot
+    {
+        private final int _precision;
+        private final long[] _counts;
+        private final long _count;
+
+        private Snapshot(int precision, long[] counts)
+        {
+            _precision = precision;
+            _counts = counts;
+            long count = 0;
+            for (long c : counts)
+                count += c;
+            _count = count;
+        }
+
+        /**
+         * @return the number of samples
+         */
+        public long getCount()
+        {
+            return _count;
+        }
+
+        /**
+         * <p>Returns the highest value that is equivalent, within the
+         * precision of the histogram, to the sample at the given percentile.</p>
+         *
+         * @param percentile the percentile between 0 and 100
+         * @return the value at the given percentile, or 0 if there are no samples
+         */
+        public long getPercentile(double percentile)
+        {
+            if (percentile < 0 || percentile > 100)
+                throw new IllegalArgumentException("Invalid percentile " + percentile);
+            if (_count == 0)
+                return 0;
+            long rank = Math.max(1, (long)Math.ceil(percentile / 100 * _count));
+            long seen = 0;
+            for (int i = 0; i < _counts.length; ++i)
+            {
+                seen += _counts[i];
+                if (seen >= rank)
+                    return highestValueOf(i, _precision);
+            }
+            return getMax();
+        }
+
+        /**
+         * @return the highest value equivalent to the max sample, or 0 if there are no samples
+         */
+        public long getMax()
+        {
+            for (int i = _counts.length; i-- > 0;)
+            {
+                if (_counts[i] > 0)
+                    return highestValueOf(i, _precision);
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("count=%d,p50=%d,p90=%d,p99=%d,p999=%d,max=%d",
+                    getCount(), getPercentile(50), getPercentile(90), getPercentile(99), getPercentile(99.9), getMax());
+        }
+    }
+}
@@ -0,0 +1,366 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.component.Dumpable;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+/**
+ * <p>Implementation of {@link Scheduler} based on a hashed timing wheel.</p>
+ * <p>Scheduling and cancelling a task are O(1) operations that do not take locks:
+ * scheduled and cancelled tasks are queued and then moved in and out of the
+ * wheel by the scheduler thread at every tick. Each tick the scheduler thread
+ * runs the expired tasks of one bucket of the wheel, so that tasks run at most
+ * one tick after their deadline, but never before.</p>
+ * <p>This is best suited to many timeouts that are mostly cancelled or rescheduled
+ * before they expire, such as idle timeouts, where the O(log n) schedule and cancel
+ * cost of a {@link ScheduledExecutorScheduler} becomes significant.
+ * It can be used in place of the default scheduler by adding it as a bean to the
+ * {@code Server}, or via the scheduler setters of {@code HttpClient} and
+ * {@code WebSocketClient}.</p>
+ * <p>As with {@link ScheduledExecutorScheduler}, tasks are run by the scheduler
+ * thread and must not block.</p>
+ */
+@ManagedObject("A timing wheel scheduler")
+public class TimingWheelScheduler extends AbstractLifeCycle implements Scheduler, Dumpable
+{
+    private static final Logger LOG = Log.getLogger(TimingWheelScheduler.class);
+    private static final AtomicIntegerFieldUpdater<WheelTask> STATE = AtomicIntegerFieldUpdater.newUpdater(WheelTask.class, "_state");
+
+    private final String _name;
+    private final boolean _daemon;
+    private final ClassLoader _classloader;
+    private final ThreadGroup _threadGroup;
+    private final long _tickNanos;
+    private final WheelTask[] _wheel;
+    private final int _mask;
+    private final Queue<WheelTask> _scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<WheelTask> _cancelled = new ConcurrentLinkedQueue<>();
+    private volatile Thread _thread;
+    private volatile long _startNanos;
+    private volatile int _size;
+
+    public TimingWheelScheduler()
+    {
+        this(null, false);
+    }
+
+    public TimingWheelScheduler(String name, boolean daemon)
+    {
+        this(name, daemon, 10, TimeUnit.MILLISECONDS, 512);
+    }
+
+    /**
+     * @param name the name of the scheduler thread
+     * @param daemon whether the scheduler thread is a daemon thread
+     * @param tick the duration of a tick of the wheel
+     * @param unit the unit of the tick duration
+     * @param wheelSize the number of buckets of the wheel, rounded up to a power of 2
+     */
+    public TimingWheelScheduler(String name, boolean daemon, long tick, TimeUnit unit, int wheelSize)
+    {
+        this(name, daemon, Thread.currentThread().getContextClassLoader(), null, tick, unit, wheelSize);
+    }
+
+    public TimingWheelScheduler(String name, boolean daemon, ClassLoader threadFactoryClassLoader, ThreadGroup threadGroup, long tick, TimeUnit unit, int wheelSize)
+    {
+        if (tick <= 0)
+            throw new IllegalArgumentException("Invalid tick " + tick);
+        if (wheelSize <= 0 || wheelSize > 1 << 30)
+            throw new IllegalArgumentException("Invalid wheel size " + wheelSize);
+        _name = name == null ? "Scheduler-" + hashCode() : name;
+        _daemon = daemon;
+        _classloader = threadFactoryClassLoader == null ? Thread.currentThread().getContextClassLoader() : threadFactoryClassLoader;
+        _threadGroup = threadGroup;
+        _tickNanos = unit.toNanos(tick);
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize)
+            size <<= 1;
+        _wheel = new WheelTask[size];
+        _mask = size - 1;
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        _startNanos = System.nanoTime();
+        Thread thread = _thread = new Thread(_threadGroup, this::tick, _name);
+        thread.setDaemon(_daemon);
+        thread.setContextClassLoader(_classloader);
+        super.doStart();
+        thread.start();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        Thread thread = _thread;
+        _thread = null;
+        if (thread != null)
+        {
+            LockSupport.unpark(thread);
+            if (thread != Thread.currentThread())
+                thread.join();
+        }
+        super.doStop();
+        _scheduled.clear();
+        _cancelled.clear();
+        Arrays.fill(_wheel, null);
+        _size = 0;
+    }
+
+    @Override
+    public Task schedule(Runnable task, long delay, TimeUnit unit)
+    {
+        if (_thread == null)
+            return () -> false;
+
+        WheelTask wheelTask = new WheelTask(task, System.nanoTime() + Math.max(0, unit.toNanos(delay)));
+        _scheduled.offer(wheelTask);
+        return wheelTask;
+    }
+
+    /**
+     * @return the duration of a tick in milliseconds
+     */
+    @ManagedAttribute("The duration of a tick in milliseconds")
+    public long getTick()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(_tickNanos);
+    }
+
+    @ManagedAttribute("The number of buckets of the wheel")
+    public int getWheelSize()
+    {
+        return _wheel.length;
+    }
+
+    /**
+     * @return the number of tasks in the wheel, excluding the tasks scheduled since the last tick
+     */
+    @ManagedAttribute("The number of tasks in the wheel")
+    public int getSize()
+    {
+        return _size;
+    }
+
+    private void tick()
+    {
+        long tick = 0;
+        while (_thread != null)
+        {
+            // The bucket of this tick is processed once the tick is over.
+            long deadline = _startNanos + (tick + 1) * _tickNanos;
+            long now = System.nanoTime();
+            while (now - deadline < 0 && _thread != null)
+            {
+                LockSupport.parkNanos(this, deadline - now);
+                now = System.nanoTime();
+            }
+            if (_thread == null)
+                break;
+
+            try
+            {
+                removeCancelled();
+                addScheduled(tick);
+                expire(tick, now);
+            }
+            catch (Throwable x)
+            {
+                LOG.warn(x);
+            }
+            ++tick;
+        }
+    }
+
+    private void removeCancelled()
+    {
+        WheelTask task;
+        while ((task = _cancelled.poll()) != null)
+        {
+            if (task._bucket >= 0)
+                unlink(task);
+        }
+    }
+
+    private void addScheduled(long tick)
+    {
+        // Bound the number of tasks moved, to guarantee progress
+        // with tasks scheduled faster than they can be moved.
+        for (int i = 0; i < 100_000; ++i)
+        {
+            WheelTask task = _scheduled.poll();
+            if (task == null)
+                break;
+            if (task._state != WheelTask.SCHEDULED)
+                continue;
+
+            // The task expires at the end of the tick that contains its deadline.
+            long delay = task._deadline - _startNanos;
+            long expiry = delay <= 0 ? 0 : (delay - 1) / _tickNanos;
+            expiry = Math.max(expiry, tick);
+            task._rounds = (expiry - tick) / _wheel.length;
+            link(task, (int)(expiry & _mask));
+        }
+    }
+
+    private void expire(long tick, long now)
+    {
+        WheelTask task = _wheel[(int)(tick & _mask)];
+        while (task != null)
+        {
+            WheelTask next = task._next;
+            if (task._rounds > 0)
+            {
+                --task._rounds;
+            }
+            else if (task._deadline - now <= 0)
+            {
+                unlink(task);
+                task.expire();
+            }
+            task = next;
+        }
+    }
+
+    private void link(WheelTask task, int bucket)
+    {
+        WheelTask head = _wheel[bucket];
+        task._bucket = bucket;
+        task._next = head;
+        if (head != null)
+            head._prev = task;
+        _wheel[bucket] = task;
+        _size++;
+    }
+
+    private void unlink(WheelTask task)
+    {
+        if (task._prev == null)
+            _wheel[task._bucket] = task._next;
+        else
+            task._prev._next = task._next;
+        if (task._next != null)
+            task._next._prev = task._prev;
+        task._prev = null;
+        task._next = null;
+        task._bucket = -1;
+        _size--;
+    }
+
+    @Override
+    public String dump()
+    {
+        return ContainerLifeCycle.dump(this);
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        ContainerLifeCycle.dumpObject(out, this);
+        Thread thread = _thread;
+        if (thread != null)
+        {
+            List<StackTraceElement> frames = Arrays.asList(thread.getStackTrace());
+            ContainerLifeCycle.dump(out, indent, frames);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,tick=%dms,wheel=%d,size=%d}",
+                getClass().getSimpleName(),
+                hashCode(),
+                getState(),
+                getTick(),
+                getWheelSize(),
+                getSize());
+    }
+
+    private class WheelTask implements Task
+    {
+        private static final int SCHEDULED = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable _task;
+        private final long _deadline;
+        volatile int _state = SCHEDULED;
+        // Only accessed by the scheduler thread.
+        private long _rounds;
+        private int _bucket = -1;
+        private WheelTask _prev;
+        private WheelTask _next;
+
+        private WheelTask(Runnable task, long deadline)
+        {
+            _task = task;
+            _deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel()
+        {
+            if (STATE.compareAndSet(this, SCHEDULED, CANCELLED))
+            {
+                // Let the scheduler thread remove the task from the wheel.
+                _cancelled.offer(this);
+                return true;
+            }
+            return false;
+        }
+
+        private void expire()
+        {
+            if (STATE.compareAndSet(this, SCHEDULED, EXPIRED))
+            {
+                try
+                {
+                    _task.run();
+                }
+                catch (Throwable x)
+                {
+                    LOG.warn("Exception while executing task " + _task, x);
+                }
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[%d]->%s", getClass().getSimpleName(), hashCode(), _state, _task);
+        }
+    }
+}
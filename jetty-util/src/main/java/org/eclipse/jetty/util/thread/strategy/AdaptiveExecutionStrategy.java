@@ -0,0 +1,301 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util.thread.strategy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.thread.Invocable;
+import org.eclipse.jetty.util.thread.ReservedThreadExecutor;
+
+/**
+ * <p>An {@link EatWhatYouKill} strategy that switches at runtime between the
+ * Execute Produce Consume (EPC) and the Produce Execute Consume (PEC) sub-strategies,
+ * depending on the load.</p>
+ * <p>In {@link Mode#EAT_WHAT_YOU_KILL} mode, blocking tasks are consumed by the
+ * producing thread after a reserved thread has taken over producing, which gives
+ * the best cache locality when the load is light. When the reserved threads are
+ * exhausted, the producing thread has to execute the task anyway, after having
+ * paid the cost of trying to hand off production.</p>
+ * <p>In {@link Mode#PRODUCE_EXECUTE_CONSUME} mode, blocking tasks are always executed,
+ * so that the producing thread keeps producing without handing off production.</p>
+ * <p>Every {@link #getWindow() window} of blocking tasks, this strategy evaluates
+ * the ratio of failed hand-offs and the queue latency of the executed tasks, sampled
+ * from one task every 16, and:</p>
+ * <ul>
+ * <li>switches to {@link Mode#PRODUCE_EXECUTE_CONSUME} if the ratio of failed hand-offs
+ * is above {@link #getMaxMissRatio()} or the queue latency is above {@link #getMaxQueueLatency()};</li>
+ * <li>switches back to {@link Mode#EAT_WHAT_YOU_KILL} when the queue latency is below half of
+ * {@link #getMaxQueueLatency()} and there are reserved threads available.</li>
+ * </ul>
+ * <p>Non blocking tasks are always consumed by the producing thread.</p>
+ */
+@ManagedObject("adaptive execution strategy")
+public class AdaptiveExecutionStrategy extends EatWhatYouKill
+{
+    private static final Logger LOG = Log.getLogger(AdaptiveExecutionStrategy.class);
+    private static final Runnable NOOP = () -> {};
+
+    public enum Mode { EAT_WHAT_YOU_KILL, PRODUCE_EXECUTE_CONSUME }
+
+    private final LongAdder _missed = new LongAdder();
+    private final LongAdder _switchesToPEC = new LongAdder();
+    private final LongAdder _switchesToEWYK = new LongAdder();
+    private volatile Mode _mode = Mode.EAT_WHAT_YOU_KILL;
+    private volatile int _window = 64;
+    private volatile double _maxMissRatio = 0.5;
+    private volatile long _maxQueueLatency = TimeUnit.MILLISECONDS.toNanos(1);
+    private volatile long _queueLatency;
+    // Only accessed by the producing thread.
+    private int _windowTasks;
+    private int _windowMisses;
+    private int _samples;
+
+    public AdaptiveExecutionStrategy(Producer producer, Executor executor)
+    {
+        super(producer,executor);
+    }
+
+    public AdaptiveExecutionStrategy(Producer producer, Executor executor, int maxReserved)
+    {
+        super(producer,executor,maxReserved);
+    }
+
+    public AdaptiveExecutionStrategy(Producer producer, Executor executor, ReservedThreadExecutor producers)
+    {
+        super(producer,executor,producers);
+    }
+
+    @Override
+    protected boolean isHandOff()
+    {
+        // Adapt before a possible hand-off, as
+        // another thread may take over producing.
+        adapt();
+        return _mode == Mode.EAT_WHAT_YOU_KILL;
+    }
+
+    @Override
+    protected void onHandOffFailed()
+    {
+        _missed.increment();
+        ++_windowMisses;
+    }
+
+    @Override
+    protected void executeTask(Runnable task)
+    {
+        super.executeTask(sample(task));
+    }
+
+    /**
+     * <p>Evaluates the statistics of the last window of blocking tasks, if complete, and switches mode.</p>
+     * <p>Called by the producing thread for each blocking task, before it is consumed or executed.</p>
+     */
+    private void adapt()
+    {
+        if (_windowTasks < _window)
+        {
+            ++_windowTasks;
+            return;
+        }
+
+        int tasks = _windowTasks;
+        int misses = _windowMisses;
+        // The current task starts the next window.
+        _windowTasks = 1;
+        _windowMisses = 0;
+
+        long queueLatency = _queueLatency;
+        if (_mode == Mode.EAT_WHAT_YOU_KILL)
+        {
+            if (misses > tasks * _maxMissRatio || queueLatency > _maxQueueLatency)
+            {
+                _mode = Mode.PRODUCE_EXECUTE_CONSUME;
+                _switchesToPEC.increment();
+                if (LOG.isDebugEnabled())
+                    LOG.debug("{} switched to PEC, misses={}/{} latency={}ns", this, misses, tasks, queueLatency);
+            }
+        }
+        else if (queueLatency <= _maxQueueLatency / 2)
+        {
+            ReservedThreadExecutor producers = getReservedThreadExecutor();
+            if (producers.getAvailable() > 0)
+            {
+                _mode = Mode.EAT_WHAT_YOU_KILL;
+                _switchesToEWYK.increment();
+                if (LOG.isDebugEnabled())
+                    LOG.debug("{} switched to EWYK, latency={}ns", this, queueLatency);
+            }
+            else
+            {
+                // Reserved threads are only started when trying to
+                // use them, so make one available for the next window.
+                producers.tryExecute(NOOP);
+            }
+        }
+    }
+
+    private Runnable sample(Runnable task)
+    {
+        if ((++_samples & 0xF) != 0)
+            return task;
+        return new SampledTask(task);
+    }
+
+    @ManagedAttribute(value = "the current mode", readonly = true)
+    public Mode getMode()
+    {
+        return _mode;
+    }
+
+    /**
+     * @return the number of blocking tasks between evaluations of the mode
+     */
+    @ManagedAttribute("number of blocking tasks between evaluations of the mode")
+    public int getWindow()
+    {
+        return _window;
+    }
+
+    public void setWindow(int window)
+    {
+        if (window <= 0)
+            throw new IllegalArgumentException("Invalid window " + window);
+        _window = window;
+    }
+
+    /**
+     * @return the max ratio of failed hand-offs to blocking tasks before switching to PEC
+     */
+    @ManagedAttribute("max ratio of failed hand-offs before switching to PEC")
+    public double getMaxMissRatio()
+    {
+        return _maxMissRatio;
+    }
+
+    public void setMaxMissRatio(double maxMissRatio)
+    {
+        _maxMissRatio = maxMissRatio;
+    }
+
+    /**
+     * @return the max queue latency in nanoseconds of executed tasks before switching to PEC
+     */
+    @ManagedAttribute("max queue latency in ns before switching to PEC")
+    public long getMaxQueueLatency()
+    {
+        return _maxQueueLatency;
+    }
+
+    public void setMaxQueueLatency(long maxQueueLatency)
+    {
+        _maxQueueLatency = maxQueueLatency;
+    }
+
+    @ManagedAttribute(value = "moving average of the queue latency in ns of executed tasks", readonly = true)
+    public long getQueueLatency()
+    {
+        return _queueLatency;
+    }
+
+    @ManagedAttribute(value = "number of failed hand-offs to a reserved thread", readonly = true)
+    public long getMissedHandOffs()
+    {
+        return _missed.longValue();
+    }
+
+    @ManagedAttribute(value = "number of switches to PEC mode", readonly = true)
+    public long getSwitchesToPEC()
+    {
+        return _switchesToPEC.longValue();
+    }
+
+    @ManagedAttribute(value = "number of switches to EWYK mode", readonly = true)
+    public long getSwitchesToEWYK()
+    {
+        return _switchesToEWYK.longValue();
+    }
+
+    @Override
+    public void reset()
+    {
+        super.reset();
+        _missed.reset();
+        _switchesToPEC.reset();
+        _switchesToEWYK.reset();
+    }
+
+    @Override
+    public String toStringLocked()
+    {
+        return super.toStringLocked() + "/" + _mode;
+    }
+
+    /**
+     * <p>A task that records its queue latency when run.</p>
+     * <p>It is {@link Closeable} and {@link Invocable} like the wrapped task,
+     * so that it can be closed if rejected by the executor.</p>
+     */
+    private class SampledTask implements Runnable, Closeable, Invocable
+    {
+        private final long _queued = System.nanoTime();
+        private final Runnable _task;
+
+        private SampledTask(Runnable task)
+        {
+            _task = task;
+        }
+
+        @Override
+        public void run()
+        {
+            // Racy update of the moving average, but it is just an estimate.
+            long latency = System.nanoTime() - _queued;
+            _queueLatency = (_queueLatency * 7 + latency) / 8;
+            _task.run();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (_task instanceof Closeable)
+                ((Closeable)_task).close();
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return Invocable.getInvocationType(_task);
+        }
+
+        @Override
+        public String toString()
+        {
+            return _task.toString();
+        }
+    }
+}
@@ -217,23 +217,29 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
                 }
                 else
                 {
-                    try (Lock locked = _locker.lock())
+                    consume = false;
+                    if (isHandOff())
                     {
-                        if (_producers.tryExecute(this))
+                        try (Lock locked = _locker.lock())
                         {
-                            // EXECUTE PRODUCE CONSUME!
-                            // We have executed a new Producer, so we can EWYK consume
-                            _state = State.IDLE;
-                            producing = false;
-                            consume = true;
-                            _blocking.increment();
-                        }
-                        else
-                        {
-                            // PRODUCE EXECUTE CONSUME!
-                            consume = false;
-                            _executed.increment();
+                            if (_producers.tryExecute(this))
+                            {
+                                // EXECUTE PRODUCE CONSUME!
+                                // We have executed a new Producer, so we can EWYK consume
+                                _state = State.IDLE;
+                                producing = false;
+                                consume = true;
+                                _blocking.increment();
+                            }
                         }
+                        if (!consume)
+                            onHandOffFailed();
+                    }
+
+                    if (!consume)
+                    {
+                        // PRODUCE EXECUTE CONSUME!
+                        _executed.increment();
                     }
 
                     if (LOG.isDebugEnabled())
@@ -246,7 +252,7 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
                     if (consume)
                         task.run();
                     else
-                        _executor.execute(task);
+                        executeTask(task);
                 }
                 catch (RejectedExecutionException e)
                 {
@@ -273,6 +279,39 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         return producing;
     }
 
+    /**
+     * <p>Called by the producing thread for each blocking task, to decide whether to try
+     * to hand off producing to a reserved thread and consume the task (EPC), or to
+     * execute the task and keep producing (PEC).</p>
+     *
+     * @return whether to try to hand off producing
+     */
+    protected boolean isHandOff()
+    {
+        return true;
+    }
+
+    /**
+     * <p>Called by the producing thread when no reserved thread was available
+     * to take over producing, so the blocking task is executed instead.</p>
+     */
+    protected void onHandOffFailed()
+    {
+    }
+
+    /**
+     * @param task the blocking task to execute, while the calling thread keeps producing
+     */
+    protected void executeTask(Runnable task)
+    {
+        _executor.execute(task);
+    }
+
+    protected ReservedThreadExecutor getReservedThreadExecutor()
+    {
+        return _producers;
+    }
+
     @ManagedAttribute(value = "number of non blocking tasks consumed", readonly = true)
     public long getNonBlockingTasksConsumed()
     {
@@ -0,0 +1,183 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrentBlockingQueueTest
+{
+    @Test
+    public void testOfferPoll() throws Exception
+    {
+        ConcurrentBlockingQueue<String> queue = new ConcurrentBlockingQueue<>();
+        Assert.assertEquals(0, queue.size());
+        Assert.assertNull(queue.poll());
+
+        queue.offer("one");
+        queue.offer("two");
+        Assert.assertEquals(2, queue.size());
+        Assert.assertEquals("[one, two]", queue.toString());
+
+        Assert.assertEquals("one", queue.poll());
+        Assert.assertEquals("two", queue.poll(1, TimeUnit.SECONDS));
+        Assert.assertEquals(0, queue.size());
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testRemove() throws Exception
+    {
+        ConcurrentBlockingQueue<String> queue = new ConcurrentBlockingQueue<>();
+        queue.offer("one");
+        queue.offer("two");
+        queue.offer("three");
+
+        Assert.assertTrue(queue.remove("two"));
+        Assert.assertFalse(queue.remove("two"));
+        Assert.assertEquals(2, queue.size());
+
+        List<String> drained = new ArrayList<>();
+        Assert.assertEquals(2, queue.drainTo(drained));
+        Assert.assertEquals("[one, three]", drained.toString());
+        Assert.assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testPollTimeout() throws Exception
+    {
+        ConcurrentBlockingQueue<String> queue = new ConcurrentBlockingQueue<>();
+        long start = System.nanoTime();
+        Assert.assertNull(queue.poll(100, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 90);
+    }
+
+    @Test
+    public void testTakeWaitsForOffer() throws Exception
+    {
+        ConcurrentBlockingQueue<String> queue = new ConcurrentBlockingQueue<>();
+        AtomicReference<String> taken = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        Thread thread = new Thread(() ->
+        {
+            try
+            {
+                taken.set(queue.take());
+                latch.countDown();
+            }
+            catch (InterruptedException x)
+            {
+                x.printStackTrace();
+            }
+        });
+        thread.start();
+
+        Thread.sleep(100);
+        Assert.assertEquals(1, latch.getCount());
+        queue.offer("one");
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals("one", taken.get());
+    }
+
+    @Test
+    public void testTakeInterrupted() throws Exception
+    {
+        ConcurrentBlockingQueue<String> queue = new ConcurrentBlockingQueue<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        Thread thread = new Thread(() ->
+        {
+            try
+            {
+                queue.take();
+            }
+            catch (InterruptedException x)
+            {
+                latch.countDown();
+            }
+        });
+        thread.start();
+
+        Thread.sleep(100);
+        thread.interrupt();
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testConcurrentProducersConsumers() throws Exception
+    {
+        ConcurrentBlockingQueue<Integer> queue = new ConcurrentBlockingQueue<>();
+        int producers = 4;
+        int consumers = 4;
+        int iterations = 100_000;
+        AtomicInteger consumed = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(consumers);
+
+        for (int c = 0; c < consumers; ++c)
+        {
+            new Thread(() ->
+            {
+                try
+                {
+                    while (true)
+                    {
+                        Integer element = queue.poll(5, TimeUnit.SECONDS);
+                        if (element == null || element < 0)
+                            break;
+                        consumed.incrementAndGet();
+                    }
+                }
+                catch (InterruptedException x)
+                {
+                    x.printStackTrace();
+                }
+                finally
+                {
+                    latch.countDown();
+                }
+            }).start();
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; ++p)
+        {
+            Thread thread = new Thread(() ->
+            {
+                for (int i = 0; i < iterations; ++i)
+                    queue.offer(i);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads)
+            thread.join();
+        for (int c = 0; c < consumers; ++c)
+            queue.offer(-1);
+
+        Assert.assertTrue(latch.await(20, TimeUnit.SECONDS));
+        Assert.assertEquals(producers * iterations, consumed.get());
+        Assert.assertEquals(0, queue.size());
+    }
+}
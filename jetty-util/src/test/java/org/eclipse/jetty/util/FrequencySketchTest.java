@@ -0,0 +1,84 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+
+package org.eclipse.jetty.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FrequencySketchTest
+{
+    @Test
+    public void testFrequency()
+    {
+        FrequencySketch sketch = new FrequencySketch(64);
+        Assert.assertEquals(0, sketch.frequency("a"));
+
+        for (int i = 0; i < 5; ++i)
+            sketch.increment("a");
+        sketch.increment("b");
+
+        Assert.assertEquals(5, sketch.frequency("a"));
+        Assert.assertEquals(1, sketch.frequency("b"));
+        Assert.assertEquals(0, sketch.frequency("c"));
+
+        // Counters saturate.
+        for (int i = 0; i < 20; ++i)
+            sketch.increment("a");
+        Assert.assertEquals(15, sketch.frequency("a"));
+
+        sketch.clear();
+        Assert.assertEquals(0, sketch.frequency("a"));
+    }
+
+    @Test
+    public void testAging()
+    {
+        int capacity = 16;
+        FrequencySketch sketch = new FrequencySketch(capacity);
+        for (int i = 0; i < 8; ++i)
+            sketch.increment("hot");
+        Assert.assertEquals(8, sketch.frequency("hot"));
+
+        // Count many other keys, so that the counters are halved.
+        for (int i = 0; i < 10 * capacity; ++i)
+            sketch.increment("key" + i);
+        Assert.assertTrue(sketch.frequency("hot") < 8);
+        Assert.assertTrue(sketch.frequency("hot") >= 2);
+    }
+
+    @Test
+    public void testFrequentKeysStandOut()
+    {
+        FrequencySketch sketch = new FrequencySketch(512);
+        for (int i = 0; i < 2000; ++i)
+        {
+            sketch.increment("/id/" + i);
+            if (i % 4 == 0)
+                sketch.increment("/hot/" + (i % 16));
+        }
+        int hot = 0;
+        for (int i = 0; i < 16; ++i)
+            hot += sketch.frequency("/hot/" + i);
+        int cold = 0;
+        for (int i = 0; i < 2000; i += 125)
+            cold += sketch.frequency("/id/" + i);
+        Assert.assertTrue(hot > 2 * cold);
+    }
+}
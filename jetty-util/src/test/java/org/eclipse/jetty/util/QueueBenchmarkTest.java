@@ -77,6 +77,7 @@ public class QueueBenchmarkTest
         queues.add(new LinkedBlockingQueue<>());
         queues.add(new ArrayBlockingQueue<>(iterations * writers));
         queues.add(new BlockingArrayQueue<>(iterations * writers));
+        queues.add(new ConcurrentBlockingQueue<>());
 
         testQueues(readers, writers, iterations, queues, true);
     }
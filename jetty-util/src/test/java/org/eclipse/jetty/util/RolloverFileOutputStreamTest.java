@@ -23,6 +23,7 @@ import static org.junit.Assert.assertThat;
 
 import java.io.File;
 import java.io.FileReader;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
@@ -365,4 +366,34 @@ public class RolloverFileOutputStreamTest
             }
         }
     }
+
+    @Test
+    public void testGatheringWrite() throws Exception
+    {
+        File testDir = MavenTestingUtils.getTargetTestingDir(RolloverFileOutputStreamTest.class.getName() + "_testGatheringWrite");
+        FS.ensureEmpty(testDir);
+
+        File template = new File(testDir,"test-rofos-yyyy_mm_dd.log");
+
+        try (RolloverFileOutputStream rofos =
+            new RolloverFileOutputStream(template.getAbsolutePath(),false,0,TimeZone.getTimeZone("GMT"),null,null))
+        {
+            rofos.write("BEFORE ".getBytes());
+            ByteBuffer[] buffers = new ByteBuffer[]
+            {
+                BufferUtil.toBuffer("SKIPPED "),
+                BufferUtil.toBuffer("ONE "),
+                BufferUtil.toBuffer(""),
+                BufferUtil.toBuffer("TWO "),
+                BufferUtil.toBuffer("SKIPPED ")
+            };
+            rofos.write(buffers,1,3);
+            rofos.write(" AFTER".getBytes());
+            rofos.flush();
+
+            assertThat(buffers[0].remaining(),is(8));
+            assertThat(buffers[3].remaining(),is(0));
+            assertThat(IO.toString(new FileReader(new File(rofos.getDatedFilename()))),is("BEFORE ONE TWO  AFTER"));
+        }
+    }
 }
@@ -0,0 +1,122 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import static org.junit.Assert.assertEquals;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HistogramStatisticTest
+{
+    @Test
+    public void testSmallValuesAreExact() throws Exception
+    {
+        HistogramStatistic histogram = new HistogramStatistic(5);
+        for (int i = 1; i <= 50; ++i)
+            histogram.set(i);
+
+        HistogramStatistic.Snapshot snapshot = histogram.snapshot();
+        assertEquals(50, snapshot.getCount());
+        assertEquals(25, snapshot.getPercentile(50));
+        assertEquals(1, snapshot.getPercentile(0));
+        assertEquals(50, snapshot.getMax());
+    }
+
+    @Test
+    public void testPercentilesWithinPrecision() throws Exception
+    {
+        HistogramStatistic histogram = new HistogramStatistic(5);
+        for (int i = 1; i <= 100_000; ++i)
+            histogram.set(i);
+
+        assertNearEnough(50_000, histogram.getPercentile(50), 1D / 32);
+        assertNearEnough(99_000, histogram.getPercentile(99), 1D / 32);
+        assertNearEnough(99_900, histogram.getPercentile(99.9), 1D / 32);
+        assertNearEnough(100_000, histogram.snapshot().getMax(), 1D / 32);
+    }
+
+    @Test
+    public void testExtremeValues() throws Exception
+    {
+        HistogramStatistic histogram = new HistogramStatistic();
+        histogram.set(-1);
+        histogram.set(Long.MAX_VALUE);
+
+        HistogramStatistic.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.getPercentile(50));
+        assertEquals(Long.MAX_VALUE, snapshot.getMax());
+    }
+
+    @Test
+    public void testSnapshotAndReset() throws Exception
+    {
+        HistogramStatistic histogram = new HistogramStatistic();
+        histogram.set(10);
+        histogram.set(20);
+
+        HistogramStatistic.Snapshot interval = histogram.snapshotAndReset();
+        assertEquals(2, interval.getCount());
+        assertEquals(20, interval.getMax());
+
+        histogram.set(5);
+        interval = histogram.snapshotAndReset();
+        assertEquals(1, interval.getCount());
+        assertEquals(5, interval.getMax());
+
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void testIntervalSnapshot() throws Exception
+    {
+        HistogramStatistic histogram = new HistogramStatistic();
+        histogram.set(10);
+        histogram.set(20);
+
+        HistogramStatistic.Snapshot interval = histogram.intervalSnapshot();
+        assertEquals(2, interval.getCount());
+        assertEquals(20, interval.getMax());
+
+        histogram.set(5);
+        interval = histogram.intervalSnapshot();
+        assertEquals(1, interval.getCount());
+        assertEquals(5, interval.getMax());
+
+        // The interval snapshots do not reset the histogram.
+        assertEquals(3, histogram.snapshot().getCount());
+        assertEquals(20, histogram.getPercentile(99));
+
+        assertEquals(0, histogram.intervalSnapshot().getCount());
+
+        histogram.reset();
+        histogram.set(7);
+        interval = histogram.intervalSnapshot();
+        assertEquals(1, interval.getCount());
+        assertEquals(7, interval.getMax());
+    }
+
+    private void assertNearEnough(long expected, long actual, double error)
+    {
+        Assert.assertThat((double)actual, Matchers.greaterThanOrEqualTo(expected * (1 - error)));
+        Assert.assertThat((double)actual, Matchers.lessThanOrEqualTo(expected * (1 + error)));
+    }
+}
@@ -0,0 +1,115 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.eclipse.jetty.toolchain.test.AdvancedRunner;
+import org.eclipse.jetty.toolchain.test.annotation.Stress;
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.ConcurrentBlockingQueue;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * <p>Compares the job queues of {@link QueuedThreadPool} when tasks are
+ * produced by {@link EatWhatYouKill} strategies, that hand off production
+ * via a {@link ReservedThreadExecutor}, while application threads also
+ * execute tasks directly.</p>
+ */
+@RunWith(AdvancedRunner.class)
+public class QueuedThreadPoolBenchmarkTest
+{
+    private static final Logger logger = Log.getLogger(QueuedThreadPoolBenchmarkTest.class);
+
+    @Stress("High CPU")
+    @Test
+    public void testBlockingArrayQueue() throws Exception
+    {
+        benchmark(() -> new BlockingArrayQueue<>(8, 8));
+    }
+
+    @Stress("High CPU")
+    @Test
+    public void testConcurrentBlockingQueue() throws Exception
+    {
+        benchmark(ConcurrentBlockingQueue::new);
+    }
+
+    private void benchmark(Supplier<BlockingQueue<Runnable>> queues) throws Exception
+    {
+        int cores = Runtime.getRuntime().availableProcessors();
+        Assume.assumeTrue(cores > 1);
+
+        int strategies = Math.max(1, cores / 2);
+        int executors = Math.max(1, cores / 2);
+        int iterations = 1024 * 1024;
+        int runs = 8;
+
+        for (int r = 0; r < runs; ++r)
+        {
+            BlockingQueue<Runnable> queue = queues.get();
+            QueuedThreadPool threadPool = new QueuedThreadPool(200, 8, 60000, queue);
+            threadPool.start();
+            ReservedThreadExecutor reserved = new ReservedThreadExecutor(threadPool, strategies);
+            reserved.start();
+            try
+            {
+                CountDownLatch latch = new CountDownLatch((strategies + executors) * iterations);
+                Runnable task = latch::countDown;
+
+                long begin = System.nanoTime();
+                for (int s = 0; s < strategies; ++s)
+                {
+                    AtomicInteger tasks = new AtomicInteger(iterations);
+                    EatWhatYouKill strategy = new EatWhatYouKill(() -> tasks.getAndDecrement() > 0 ? task : null, threadPool, reserved);
+                    strategy.start();
+                    strategy.dispatch();
+                }
+                for (int e = 0; e < executors; ++e)
+                {
+                    new Thread(() ->
+                    {
+                        for (int i = 0; i < iterations; ++i)
+                            threadPool.execute(task);
+                    }).start();
+                }
+
+                Assert.assertTrue(latch.await(60, TimeUnit.SECONDS));
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+                logger.info("{} Strategies/Executors: {}/{} => {} ms", queue.getClass().getSimpleName(), strategies, executors, elapsed);
+            }
+            finally
+            {
+                LifeCycle.stop(reserved);
+                threadPool.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimingWheelSchedulerTest
+{
+    private TimingWheelScheduler _scheduler;
+
+    @Before
+    public void before() throws Exception
+    {
+        // A small wheel, so that tasks take several rounds to expire.
+        _scheduler = new TimingWheelScheduler(null, false, 10, TimeUnit.MILLISECONDS, 8);
+        _scheduler.start();
+    }
+
+    @After
+    public void after() throws Exception
+    {
+        _scheduler.stop();
+    }
+
+    @Test
+    public void testWheelSizeIsPowerOfTwo() throws Exception
+    {
+        Assert.assertEquals(8, _scheduler.getWheelSize());
+        Assert.assertEquals(16, new TimingWheelScheduler(null, false, 1, TimeUnit.MILLISECONDS, 9).getWheelSize());
+    }
+
+    @Test
+    public void testExpiryAfterSeveralRounds() throws Exception
+    {
+        long delay = 250;
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        AtomicInteger elapsed = new AtomicInteger();
+        _scheduler.schedule(() ->
+        {
+            elapsed.set((int)TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            latch.countDown();
+        }, delay, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(elapsed.get() >= delay);
+        Assert.assertTrue(elapsed.get() < delay + 200);
+    }
+
+    @Test
+    public void testCancelledTasksAreRemoved() throws Exception
+    {
+        AtomicInteger executed = new AtomicInteger();
+        List<Scheduler.Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i)
+            tasks.add(_scheduler.schedule(executed::incrementAndGet, 1000 + i, TimeUnit.MILLISECONDS));
+
+        // Wait for the tasks to be moved into the wheel.
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (_scheduler.getSize() < tasks.size() && System.nanoTime() < end)
+            Thread.sleep(10);
+        Assert.assertEquals(tasks.size(), _scheduler.getSize());
+
+        for (Scheduler.Task task : tasks)
+            Assert.assertTrue(task.cancel());
+        for (Scheduler.Task task : tasks)
+            Assert.assertFalse(task.cancel());
+
+        end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (_scheduler.getSize() > 0 && System.nanoTime() < end)
+            Thread.sleep(10);
+        Assert.assertEquals(0, _scheduler.getSize());
+
+        Thread.sleep(2000);
+        Assert.assertEquals(0, executed.get());
+    }
+
+    @Test
+    public void testScheduleAfterStop() throws Exception
+    {
+        _scheduler.stop();
+        Scheduler.Task task = _scheduler.schedule(() -> {}, 1, TimeUnit.MILLISECONDS);
+        Assert.assertFalse(task.cancel());
+    }
+}
@@ -0,0 +1,171 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2017 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util.thread.strategy;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Closeable;
+import java.util.concurrent.CountDownLatch;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.thread.ExecutionStrategy.Producer;
+import org.eclipse.jetty.util.thread.Invocable;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ReservedThreadExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdaptiveExecutionStrategyTest
+{
+    private QueuedThreadPool _threads = new QueuedThreadPool(20);
+    private ReservedThreadExecutor _reserved;
+    private AdaptiveExecutionStrategy _strategy;
+
+    @Before
+    public void before() throws Exception
+    {
+        _threads.start();
+    }
+
+    @After
+    public void after() throws Exception
+    {
+        if (_strategy != null)
+            _strategy.stop();
+        if (_reserved != null)
+            _reserved.stop();
+        _threads.stop();
+    }
+
+    private Producer newProducer(int tasks, CountDownLatch latch)
+    {
+        return new Producer()
+        {
+            int _tasks = tasks;
+
+            @Override
+            public Runnable produce()
+            {
+                if (_tasks-- > 0)
+                    return latch::countDown;
+                return null;
+            }
+        };
+    }
+
+    @Test
+    public void testSwitchToPECWithoutReservedThreads() throws Exception
+    {
+        int tasks = 100;
+        CountDownLatch latch = new CountDownLatch(tasks);
+        _reserved = new ReservedThreadExecutor(_threads, 0);
+        _reserved.start();
+        _strategy = new AdaptiveExecutionStrategy(newProducer(tasks, latch), _threads, _reserved);
+        _strategy.setWindow(10);
+        _strategy.start();
+
+        _strategy.produce();
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertThat(_strategy.getMode(), is(AdaptiveExecutionStrategy.Mode.PRODUCE_EXECUTE_CONSUME));
+        assertThat(_strategy.getSwitchesToPEC(), is(1L));
+        assertThat(_strategy.getSwitchesToEWYK(), is(0L));
+        // Only the first window tried to hand off production.
+        assertThat(_strategy.getMissedHandOffs(), is(10L));
+        assertThat(_strategy.getBlockingTasksExecuted(), is((long)tasks));
+    }
+
+    @Test
+    public void testSwitchToPECOnQueueLatency() throws Exception
+    {
+        int tasks = 1000;
+        CountDownLatch latch = new CountDownLatch(tasks);
+        _reserved = new ReservedThreadExecutor(_threads, 1);
+        _reserved.start();
+        _strategy = new AdaptiveExecutionStrategy(newProducer(tasks, latch), _threads, _reserved);
+        _strategy.setWindow(10);
+        // Any queue latency is too much.
+        _strategy.setMaxQueueLatency(-1);
+        _strategy.start();
+
+        _strategy.produce();
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertThat(_strategy.getSwitchesToPEC(), greaterThan(0L));
+        assertThat(_strategy.getBlockingTasksExecuted(), greaterThan(0L));
+    }
+
+    @Test
+    public void testExecutedTasksAreCloseable() throws Exception
+    {
+        // Enough tasks so that some have their queue latency sampled.
+        int tasks = 64;
+        CountDownLatch closed = new CountDownLatch(tasks);
+        class ClosingTask implements Runnable, Closeable
+        {
+            @Override
+            public void run()
+            {
+            }
+
+            @Override
+            public void close()
+            {
+                closed.countDown();
+            }
+        }
+        Producer producer = new Producer()
+        {
+            int _tasks = tasks;
+
+            @Override
+            public Runnable produce()
+            {
+                if (_tasks-- > 0)
+                    return new ClosingTask();
+                return null;
+            }
+        };
+        // An executor that cannot run tasks and closes them instead.
+        List<Runnable> executed = new ArrayList<>();
+        Executor closing = task ->
+        {
+            executed.add(task);
+            assertThat(Invocable.getInvocationType(task), is(Invocable.InvocationType.BLOCKING));
+            IO.close((Closeable)task);
+        };
+        _reserved = new ReservedThreadExecutor(_threads, 0);
+        _reserved.start();
+        _strategy = new AdaptiveExecutionStrategy(producer, closing, _reserved);
+        _strategy.start();
+
+        _strategy.produce();
+
+        assertThat(executed.size(), is(tasks));
+        assertTrue(closed.await(10, TimeUnit.SECONDS));
+    }
+}